@@ -0,0 +1,64 @@
+package com.saki.sakiaicodetoolsbackend.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试夹具
+ * <p>夹具为录制的模型输出，位于 classpath 的 fixtures 目录下，按 small / medium / large 三档大小命名。
+ * 流式场景按固定字符数切分为片段，模拟模型逐个 token 推送。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-12
+ */
+final class BenchmarkFixtures {
+
+    /**
+     * 流式片段的字符数，接近模型单个 token 的平均长度
+     */
+    static final int CHUNK_SIZE = 4;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 读取夹具
+     *
+     * @param name 夹具文件名
+     * @return 夹具内容
+     */
+    static String load(String name) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("夹具不存在: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 将内容切分为流式片段，不拆开代理对
+     *
+     * @param content 内容
+     * @return 片段
+     */
+    static String[] chunks(String content) {
+        List<String> chunks = new ArrayList<>(content.length() / CHUNK_SIZE + 1);
+        int start = 0;
+        while (start < content.length()) {
+            int end = Math.min(content.length(), start + CHUNK_SIZE);
+            if (end < content.length() && Character.isHighSurrogate(content.charAt(end - 1))) {
+                end++;
+            }
+            chunks.add(content.substring(start, end));
+            start = end;
+        }
+        return chunks.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,131 @@
+package com.saki.sakiaicodetoolsbackend.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.config.CodeSaveProperties;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
+import com.saki.sakiaicodetoolsbackend.core.parser.impl.HtmlCodeParser;
+import com.saki.sakiaicodetoolsbackend.core.parser.impl.MultiFileCodeParser;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.saver.HtmlCodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.saver.MultiFileCodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.saver.ParallelFileWriter;
+import com.saki.sakiaicodetoolsbackend.core.saver.StreamingCodeFileSaveSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码文件保存基准测试
+ * <p>测量 HTML 与多文件保存模板的批量保存，以及边解析边写入的流式保存会话。
+ * 输出目录取自工作目录，benchmark profile 将工作目录设在 tmpfs 上，测得的是保存流程本身而非磁盘；
+ * 每轮迭代结束后清理输出目录与暂存目录。writeThreads 为 0 时逐个写入文件，否则注册并行文件写入器。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeFileSaverBenchmark {
+
+    @Param({"small", "medium", "large"})
+    private String size;
+
+    @Param({"0", "4"})
+    private int writeThreads;
+
+    private ParallelFileWriter fileWriter;
+
+    private final HtmlCodeParser htmlCodeParser = new HtmlCodeParser();
+
+    private final MultiFileCodeParser multiFileCodeParser = new MultiFileCodeParser();
+
+    private final HtmlCodeFileSaverTemplate htmlSaver = new HtmlCodeFileSaverTemplate();
+
+    private final MultiFileCodeFileSaverTemplate multiFileSaver = new MultiFileCodeFileSaverTemplate();
+
+    private HtmlCodeResult htmlResult;
+
+    private ProjectCodeResult multiFileResult;
+
+    private String[] htmlChunks;
+
+    private String[] multiFileChunks;
+
+    @Setup
+    public void setUp() {
+        String htmlContent = BenchmarkFixtures.load("html-" + size + ".txt");
+        String multiFileContent = BenchmarkFixtures.load("multi-file-" + size + ".json");
+        htmlResult = htmlCodeParser.parseCode(htmlContent);
+        multiFileResult = multiFileCodeParser.parseCode(multiFileContent);
+        htmlChunks = BenchmarkFixtures.chunks(htmlContent);
+        multiFileChunks = BenchmarkFixtures.chunks(multiFileContent);
+        if (writeThreads > 0) {
+            CodeSaveProperties saveProperties = new CodeSaveProperties();
+            saveProperties.setWriteThreads(writeThreads);
+            fileWriter = new ParallelFileWriter(saveProperties);
+            fileWriter.init();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (fileWriter != null) {
+            fileWriter.destroy();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanOutput() {
+        File outputRoot = new File(CodeFileSaverTemplate.FILE_SAVE_ROOT_DIR);
+        FileUtil.del(outputRoot);
+        FileUtil.del(new File(outputRoot.getParentFile(), "code_staging"));
+    }
+
+    @Benchmark
+    public File htmlSave() {
+        return htmlSaver.saveCode(htmlResult);
+    }
+
+    @Benchmark
+    public File multiFileSave() {
+        return multiFileSaver.saveCode(multiFileResult);
+    }
+
+    @Benchmark
+    public File htmlStreamingSave() {
+        StreamingCodeFileSaveSession<HtmlCodeResult> saveSession = htmlSaver.openStreamingSession();
+        return saveSession.complete(feed(htmlCodeParser.openSession(saveSession), htmlChunks));
+    }
+
+    @Benchmark
+    public File multiFileStreamingSave() {
+        StreamingCodeFileSaveSession<ProjectCodeResult> saveSession = multiFileSaver.openStreamingSession();
+        return saveSession.complete(feed(multiFileCodeParser.openSession(saveSession), multiFileChunks));
+    }
+
+    private static <T> T feed(StreamingParseSession<T> session, String[] chunks) {
+        for (String chunk : chunks) {
+            session.feed(chunk);
+        }
+        return session.complete();
+    }
+}
@@ -0,0 +1,117 @@
+package com.saki.sakiaicodetoolsbackend.benchmark;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeParserExecutor;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeStreamListener;
+import com.saki.sakiaicodetoolsbackend.core.parser.ParseModeEnum;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
+import com.saki.sakiaicodetoolsbackend.core.parser.impl.HtmlCodeParser;
+import com.saki.sakiaicodetoolsbackend.core.parser.impl.MultiFileCodeParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码解析基准测试
+ * <p>分别测量 HTML 与多文件解析器的批量解析、流式解析，以及经 {@link CodeParserExecutor} 分派的开销。
+ * 流式场景的监听器把片段交给 Blackhole，避免解析结果被优化掉。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeParserBenchmark {
+
+    @Param({"small", "medium", "large"})
+    private String size;
+
+    private final HtmlCodeParser htmlCodeParser = new HtmlCodeParser();
+
+    private final MultiFileCodeParser multiFileCodeParser = new MultiFileCodeParser();
+
+    private String htmlContent;
+
+    private String multiFileContent;
+
+    private String[] htmlChunks;
+
+    private String[] multiFileChunks;
+
+    @Setup
+    public void setUp() {
+        htmlContent = BenchmarkFixtures.load("html-" + size + ".txt");
+        multiFileContent = BenchmarkFixtures.load("multi-file-" + size + ".json");
+        htmlChunks = BenchmarkFixtures.chunks(htmlContent);
+        multiFileChunks = BenchmarkFixtures.chunks(multiFileContent);
+    }
+
+    @Benchmark
+    public HtmlCodeResult htmlBatch() {
+        return htmlCodeParser.parseCode(htmlContent);
+    }
+
+    @Benchmark
+    public HtmlCodeResult htmlStreaming(Blackhole blackhole) {
+        return feed(htmlCodeParser.openSession(listener(blackhole)), htmlChunks);
+    }
+
+    @Benchmark
+    public ProjectCodeResult multiFileBatch() {
+        return multiFileCodeParser.parseCode(multiFileContent);
+    }
+
+    @Benchmark
+    public ProjectCodeResult multiFileStreaming(Blackhole blackhole) {
+        return feed(multiFileCodeParser.openSession(listener(blackhole)), multiFileChunks);
+    }
+
+    @Benchmark
+    public Object executorHtml() {
+        return CodeParserExecutor.executeParser(htmlContent, CodeGenTypeEnum.HTML);
+    }
+
+    @Benchmark
+    public Object executorMultiFile() {
+        return CodeParserExecutor.executeParser(multiFileContent, CodeGenTypeEnum.MULTI_FILE);
+    }
+
+    @Benchmark
+    public Object executorMultiFileBatchSession() {
+        return feed(CodeParserExecutor.openSession(CodeGenTypeEnum.MULTI_FILE, ParseModeEnum.BATCH,
+                CodeStreamListener.NONE), multiFileChunks);
+    }
+
+    private static <T> T feed(StreamingParseSession<T> session, String[] chunks) {
+        for (String chunk : chunks) {
+            session.feed(chunk);
+        }
+        return session.complete();
+    }
+
+    private static CodeStreamListener listener(Blackhole blackhole) {
+        return new CodeStreamListener() {
+            @Override
+            public void onFileContent(String fileName, CharSequence content) {
+                blackhole.consume(content);
+            }
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package com.saki.sakiaicodetoolsbackend.ai;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.FinishReason;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * AI 代码续写服务
+ * <p>输出因长度限制被截断时，把原请求与已输出的内容作为对话历史再次请求，让模型从断点处接着输出。
+ * 续写内容需要与已输出内容直接拼接，本身不是完整的 JSON，因此不经过 AiServices，
+ * 而是直接调用流式模型并把响应格式改为纯文本；同时回传结束原因，用于判断续写是否再次被截断。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-18
+ */
+public class AiCodeContinuationService {
+
+    private static final String CONTINUE_INSTRUCTION = "你上一条回复因长度限制被截断。请从截断处继续输出剩余内容："
+            + "紧接着最后一个字符往下写，不要重复已输出的内容，不要从头开始，不要添加任何说明或 Markdown 代码块标记。";
+
+    private final StreamingChatModel streamingChatModel;
+
+    private final String htmlSystemPrompt;
+
+    private final String multiFileSystemPrompt;
+
+    public AiCodeContinuationService(StreamingChatModel streamingChatModel) {
+        this.streamingChatModel = streamingChatModel;
+        this.htmlSystemPrompt = ResourceUtil.readUtf8Str("prompt/codegen-html-system-prompt.txt");
+        this.multiFileSystemPrompt = ResourceUtil.readUtf8Str("prompt/codegen-multi-file-system-prompt.txt");
+    }
+
+    /**
+     * 续写被截断的输出（流式）
+     *
+     * @param codeGenType         生成类型，决定使用的系统提示词
+     * @param userMessage         原始用户提示词
+     * @param partialOutput       已输出的全部内容
+     * @param finishReasonHandler 续写正常结束时接收结束原因
+     * @return 续写内容片段
+     */
+    public Flux<String> continueCode(CodeGenTypeEnum codeGenType, String userMessage, String partialOutput,
+                                     Consumer<FinishReason> finishReasonHandler) {
+        String systemPrompt = switch (codeGenType) {
+            case HTML -> htmlSystemPrompt;
+            case MULTI_FILE -> multiFileSystemPrompt;
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+        ChatRequest chatRequest = ChatRequest.builder()
+                .messages(List.of(SystemMessage.from(systemPrompt), UserMessage.from(userMessage),
+                        AiMessage.from(partialOutput), UserMessage.from(CONTINUE_INSTRUCTION)))
+                .parameters(ChatRequestParameters.builder().responseFormat(ResponseFormat.TEXT).build())
+                .build();
+        return Flux.create(sink -> {
+            AtomicBoolean cancelled = new AtomicBoolean();
+            sink.onDispose(() -> cancelled.set(true));
+            streamingChatModel.chat(chatRequest, new StreamingChatResponseHandler() {
+
+                @Override
+                public void onPartialResponse(String partialResponse) {
+                    sink.next(partialResponse);
+                }
+
+                @Override
+                public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+                    if (cancelled.get()) {
+                        context.streamingHandle().cancel();
+                        return;
+                    }
+                    sink.next(partialResponse.text());
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completeResponse) {
+                    finishReasonHandler.accept(completeResponse.finishReason());
+                    sink.complete();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    sink.error(error);
+                }
+            });
+        });
+    }
+}
@@ -1,7 +1,6 @@
 package com.saki.sakiaicodetoolsbackend.ai;
 
 import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
-import com.saki.sakiaicodetoolsbackend.ai.model.MultiFileCodeResult;
 import dev.langchain4j.service.SystemMessage;
 import reactor.core.publisher.Flux;
 
@@ -26,10 +25,10 @@ public interface AiCodeGeneratorService {
      * 生成多文件代码
      *
      * @param userMessage 用户消息
-     * @return 生成的代码结果
+     * @return 模型返回的 {"files":[...]} JSON 原文，由 MultiFileCodeParser 解析
      */
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
-    MultiFileCodeResult generateMultiFileCode(String userMessage);
+    String generateMultiFileCode(String userMessage);
 
     /**
      * 生成 HTML 代码（流式）
@@ -49,4 +48,13 @@ public interface AiCodeGeneratorService {
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
     Flux<String> generateMultiFileCodeStream(String userMessage);
 
+    /**
+     * 编辑已有代码：只返回修改，不重新生成整个项目
+     *
+     * @param editMessage 包含当前全部文件与修改要求的消息
+     * @return 模型返回的 {"edits":[...]} JSON 原文，由 CodePatchEngine 解析并应用
+     */
+    @SystemMessage(fromResource = "prompt/codegen-edit-system-prompt.txt")
+    String generateCodeEdit(String editMessage);
+
 }
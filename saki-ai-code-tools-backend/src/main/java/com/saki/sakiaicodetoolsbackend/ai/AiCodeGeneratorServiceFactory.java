@@ -1,12 +1,23 @@
 package com.saki.sakiaicodetoolsbackend.ai;
 
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.ai.cache.CachedAiCodeGeneratorService;
+import com.saki.sakiaicodetoolsbackend.ai.hedge.EndpointLatencyStats;
+import com.saki.sakiaicodetoolsbackend.ai.hedge.HedgingStreamingChatModel;
+import com.saki.sakiaicodetoolsbackend.config.ModelRouterProperties;
+import com.saki.sakiaicodetoolsbackend.manager.AiCodeCacheManager;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  *
  * @author saki酱
@@ -16,17 +27,78 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class AiCodeGeneratorServiceFactory {
 
+    private static final String DEFAULT_ENDPOINT_NAME = "default";
+
     @Resource
     private ChatModel chatModel;
 
     @Resource
     private StreamingChatModel streamingChatModel;
 
+    @Resource
+    private AiCodeCacheManager aiCodeCacheManager;
+
+    @Resource
+    private ModelRouterProperties modelRouterProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 代码生成与续写共用的流式模型，首次使用时构建
+     */
+    private StreamingChatModel codeStreamingChatModel;
+
     @Bean
-    public AiCodeGeneratorService aiCodeGeneratorService() {
-        return AiServices.builder(AiCodeGeneratorService.class)
+    public CachedAiCodeGeneratorService aiCodeGeneratorService() {
+        AiCodeGeneratorService aiCodeGeneratorService = AiServices.builder(AiCodeGeneratorService.class)
                 .chatModel(chatModel)
-                .streamingChatModel(streamingChatModel)
+                .streamingChatModel(getCodeStreamingChatModel())
                 .build();
+        return new CachedAiCodeGeneratorService(aiCodeGeneratorService, aiCodeCacheManager);
+    }
+
+    @Bean
+    public AiCodeContinuationService aiCodeContinuationService() {
+        return new AiCodeContinuationService(getCodeStreamingChatModel());
+    }
+
+    private synchronized StreamingChatModel getCodeStreamingChatModel() {
+        if (codeStreamingChatModel == null) {
+            codeStreamingChatModel = buildStreamingChatModel();
+        }
+        return codeStreamingChatModel;
+    }
+
+    /**
+     * 构建流式模型：启用对冲且配置了备用端点时，以默认模型为首个端点组合为对冲模型
+     *
+     * @return 流式模型
+     */
+    private StreamingChatModel buildStreamingChatModel() {
+        if (!modelRouterProperties.isEnabled() || modelRouterProperties.getEndpoints().isEmpty()) {
+            return streamingChatModel;
+        }
+        List<HedgingStreamingChatModel.ModelEndpoint> endpoints = new ArrayList<>();
+        endpoints.add(new HedgingStreamingChatModel.ModelEndpoint(streamingChatModel,
+                newLatencyStats(DEFAULT_ENDPOINT_NAME)));
+        for (ModelRouterProperties.Endpoint endpoint : modelRouterProperties.getEndpoints()) {
+            StreamingChatModel model = OpenAiStreamingChatModel.builder()
+                    .baseUrl(endpoint.getBaseUrl())
+                    .apiKey(endpoint.getApiKey())
+                    .modelName(endpoint.getModelName())
+                    .maxTokens(endpoint.getMaxTokens())
+                    .responseFormat(endpoint.getResponseFormat())
+                    .timeout(endpoint.getTimeout())
+                    .build();
+            String name = StrUtil.blankToDefault(endpoint.getName(), endpoint.getBaseUrl());
+            endpoints.add(new HedgingStreamingChatModel.ModelEndpoint(model, newLatencyStats(name)));
+        }
+        return new HedgingStreamingChatModel(endpoints, modelRouterProperties, meterRegistry);
+    }
+
+    private EndpointLatencyStats newLatencyStats(String endpointName) {
+        return new EndpointLatencyStats(endpointName, modelRouterProperties.getSampleSize(),
+                modelRouterProperties.getMinSamples(), meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package com.saki.sakiaicodetoolsbackend.ai.cache;
+
+import com.saki.sakiaicodetoolsbackend.ai.AiCodeGeneratorService;
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.manager.AiCodeCacheManager;
+import reactor.core.publisher.Flux;
+
+/**
+ * 带缓存的 AI 代码生成服务
+ * <p>装饰 AiServices 生成的代理，相同请求优先从 {@link AiCodeCacheManager} 返回结果，
+ * 流式请求命中时按缓存分片重放，调用方无需感知是否命中；需要按实际模型调用计费的调用方可传入 onLoad 回调，
+ * 只在未命中缓存时执行。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+public class CachedAiCodeGeneratorService implements AiCodeGeneratorService {
+
+    private static final Runnable NO_OP = () -> {
+    };
+
+    private final AiCodeGeneratorService delegate;
+
+    private final AiCodeCacheManager cacheManager;
+
+    public CachedAiCodeGeneratorService(AiCodeGeneratorService delegate, AiCodeCacheManager cacheManager) {
+        this.delegate = delegate;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public HtmlCodeResult generateHtmlCode(String userMessage) {
+        return generateHtmlCode(userMessage, NO_OP);
+    }
+
+    @Override
+    public String generateMultiFileCode(String userMessage) {
+        return generateMultiFileCode(userMessage, NO_OP);
+    }
+
+    @Override
+    public Flux<String> generateHtmlCodeStream(String userMessage) {
+        return generateHtmlCodeStream(userMessage, NO_OP);
+    }
+
+    @Override
+    public Flux<String> generateMultiFileCodeStream(String userMessage) {
+        return generateMultiFileCodeStream(userMessage, NO_OP);
+    }
+
+    /**
+     * 生成 HTML 代码，未命中缓存、即将调用模型时先执行 onLoad（如 token 准入扣费）
+     *
+     * @param userMessage 用户提示词
+     * @param onLoad      调用模型前的回调，抛出异常时不调用模型
+     * @return 生成结果
+     */
+    public HtmlCodeResult generateHtmlCode(String userMessage, Runnable onLoad) {
+        return cacheManager.getOrLoad("generateHtmlCode", userMessage, HtmlCodeResult.class, () -> {
+            onLoad.run();
+            return delegate.generateHtmlCode(userMessage);
+        });
+    }
+
+    /**
+     * 生成多文件代码，未命中缓存、即将调用模型时先执行 onLoad
+     *
+     * @param userMessage 用户提示词
+     * @param onLoad      调用模型前的回调，抛出异常时不调用模型
+     * @return 生成结果
+     */
+    public String generateMultiFileCode(String userMessage, Runnable onLoad) {
+        return cacheManager.getOrLoad("generateMultiFileCode", userMessage, String.class, () -> {
+            onLoad.run();
+            return delegate.generateMultiFileCode(userMessage);
+        });
+    }
+
+    /**
+     * 流式生成 HTML 代码，未命中缓存、即将调用模型时先执行 onLoad
+     *
+     * @param userMessage 用户提示词
+     * @param onLoad      调用模型前的回调，抛出异常时流以该异常结束
+     * @return 代码流
+     */
+    public Flux<String> generateHtmlCodeStream(String userMessage, Runnable onLoad) {
+        return cacheManager.getOrLoadStream("generateHtmlCodeStream", userMessage, () -> {
+            onLoad.run();
+            return delegate.generateHtmlCodeStream(userMessage);
+        });
+    }
+
+    /**
+     * 流式生成多文件代码，未命中缓存、即将调用模型时先执行 onLoad
+     *
+     * @param userMessage 用户提示词
+     * @param onLoad      调用模型前的回调，抛出异常时流以该异常结束
+     * @return 代码流
+     */
+    public Flux<String> generateMultiFileCodeStream(String userMessage, Runnable onLoad) {
+        return cacheManager.getOrLoadStream("generateMultiFileCodeStream", userMessage, () -> {
+            onLoad.run();
+            return delegate.generateMultiFileCodeStream(userMessage);
+        });
+    }
+
+    /**
+     * 编辑请求不缓存：编辑消息携带了上一版的全部文件，几乎不会重复命中
+     */
+    @Override
+    public String generateCodeEdit(String editMessage) {
+        return delegate.generateCodeEdit(editMessage);
+    }
+}
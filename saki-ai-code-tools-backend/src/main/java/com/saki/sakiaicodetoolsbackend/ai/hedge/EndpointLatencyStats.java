@@ -0,0 +1,92 @@
+package com.saki.sakiaicodetoolsbackend.ai.hedge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型端点的首片段耗时统计
+ * <p>环形缓冲区保留最近若干次首片段耗时，用于计算对冲延迟所需的分位数；
+ * 同时上报 Micrometer 指标 ai.model.ttft 与 ai.model.errors，按端点打标签。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-10
+ */
+public class EndpointLatencyStats {
+
+    @Getter
+    private final String endpoint;
+
+    private final long[] samples;
+
+    private final int minSamples;
+
+    private final Timer ttftTimer;
+
+    private final Counter errorCounter;
+
+    private int count;
+
+    private int next;
+
+    public EndpointLatencyStats(String endpoint, int sampleSize, int minSamples, MeterRegistry meterRegistry) {
+        this.endpoint = endpoint;
+        this.samples = new long[Math.max(1, sampleSize)];
+        this.minSamples = Math.max(1, minSamples);
+        this.ttftTimer = Timer.builder("ai.model.ttft")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("ai.model.errors").tag("endpoint", endpoint).register(meterRegistry);
+    }
+
+    /**
+     * 记录一次首片段耗时
+     *
+     * @param millis 耗时（毫秒）
+     */
+    public void recordTimeToFirstToken(long millis) {
+        ttftTimer.record(millis, TimeUnit.MILLISECONDS);
+        recordSample(millis);
+    }
+
+    /**
+     * 记录一次被取消时仍未收到首片段的耗时：真实耗时至少为该值，只计入分位数样本
+     *
+     * @param millis 已等待时间（毫秒）
+     */
+    public void recordCensored(long millis) {
+        recordSample(millis);
+    }
+
+    public void recordError() {
+        errorCounter.increment();
+    }
+
+    /**
+     * 近期首片段耗时的分位数
+     *
+     * @param percentile 分位（0 ~ 1）
+     * @param fallback   样本不足时的返回值
+     * @return 分位数（毫秒）
+     */
+    public synchronized long percentile(double percentile, long fallback) {
+        if (count < minSamples) {
+            return fallback;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    private synchronized void recordSample(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+}
@@ -0,0 +1,393 @@
+package com.saki.sakiaicodetoolsbackend.ai.hedge;
+
+import com.saki.sakiaicodetoolsbackend.config.ModelRouterProperties;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.CompleteToolCall;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.PartialThinking;
+import dev.langchain4j.model.chat.response.PartialThinkingContext;
+import dev.langchain4j.model.chat.response.PartialToolCall;
+import dev.langchain4j.model.chat.response.PartialToolCallContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲请求的流式模型
+ * <p>按配置顺序使用多个 OpenAI 兼容端点：先向默认端点发起请求，若在对冲延迟内未收到首个片段，
+ * 再向下一个端点发起同样的请求；最先产出片段的请求胜出，其余请求被取消，之后只转发胜出请求的输出。
+ * 胜出前某个请求失败时不影响其他请求，全部失败后才向下游报错；没有进行中的请求时立即切换到下一个端点。</p>
+ * <p>对冲延迟取默认端点近期首片段耗时的分位数（默认 p90），并限制在上下限之间，
+ * 默认端点变慢时对冲随之提前，恢复后对冲减少。被取消时仍未产出片段的请求以已等待时间计入样本，避免分位数被低估。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-10
+ */
+@Slf4j
+public class HedgingStreamingChatModel implements StreamingChatModel {
+
+    private final List<ModelEndpoint> endpoints;
+
+    private final ModelRouterProperties routerProperties;
+
+    private final Scheduler timer;
+
+    private final Counter hedgeFiredCounter;
+
+    private final Counter hedgeWonCounter;
+
+    public HedgingStreamingChatModel(List<ModelEndpoint> endpoints, ModelRouterProperties routerProperties,
+                                     Scheduler timer, MeterRegistry meterRegistry) {
+        this.endpoints = List.copyOf(endpoints);
+        this.routerProperties = routerProperties;
+        this.timer = timer;
+        this.hedgeFiredCounter = Counter.builder("ai.model.hedge").tag("result", "fired").register(meterRegistry);
+        this.hedgeWonCounter = Counter.builder("ai.model.hedge").tag("result", "won").register(meterRegistry);
+    }
+
+    public HedgingStreamingChatModel(List<ModelEndpoint> endpoints, ModelRouterProperties routerProperties,
+                                     MeterRegistry meterRegistry) {
+        this(endpoints, routerProperties, Schedulers.parallel(), meterRegistry);
+    }
+
+    @Override
+    public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        new HedgedCall(chatRequest, handler).start();
+    }
+
+    /**
+     * 当前对冲延迟
+     *
+     * @return 延迟（毫秒）
+     */
+    public long currentHedgeDelayMillis() {
+        long fallback = routerProperties.getInitialHedgeDelay().toMillis();
+        long delay = endpoints.get(0).getStats().percentile(routerProperties.getHedgePercentile(), fallback);
+        return Math.max(routerProperties.getMinHedgeDelay().toMillis(),
+                Math.min(routerProperties.getMaxHedgeDelay().toMillis(), delay));
+    }
+
+    /**
+     * 模型端点
+     */
+    @Getter
+    public static class ModelEndpoint {
+
+        private final StreamingChatModel model;
+
+        private final EndpointLatencyStats stats;
+
+        public ModelEndpoint(StreamingChatModel model, EndpointLatencyStats stats) {
+            this.model = model;
+            this.stats = stats;
+        }
+    }
+
+    /**
+     * 一次对冲调用：状态变更在锁内决定，向下游转发在锁外进行
+     */
+    private final class HedgedCall implements StreamingHandle {
+
+        private final ChatRequest chatRequest;
+
+        private final StreamingChatResponseHandler downstream;
+
+        private final List<Attempt> attempts = new ArrayList<>();
+
+        private final int maxAttempts = Math.min(endpoints.size(), Math.max(1, routerProperties.getMaxAttempts()));
+
+        private volatile Attempt winner;
+
+        private int nextEndpoint;
+
+        private Disposable hedgeTimer;
+
+        private boolean finished;
+
+        private volatile boolean cancelled;
+
+        private HedgedCall(ChatRequest chatRequest, StreamingChatResponseHandler downstream) {
+            this.chatRequest = chatRequest;
+            this.downstream = downstream;
+        }
+
+        private void start() {
+            Attempt first;
+            synchronized (this) {
+                first = newAttempt();
+                scheduleHedge();
+            }
+            first.launch();
+        }
+
+        private Attempt newAttempt() {
+            Attempt attempt = new Attempt(this, endpoints.get(nextEndpoint++));
+            attempts.add(attempt);
+            return attempt;
+        }
+
+        private void scheduleHedge() {
+            if (nextEndpoint < maxAttempts) {
+                hedgeTimer = timer.schedule(this::fireHedge, currentHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void fireHedge() {
+            Attempt hedge;
+            synchronized (this) {
+                if (winner != null || finished || cancelled || nextEndpoint >= maxAttempts) {
+                    return;
+                }
+                hedgeFiredCounter.increment();
+                hedge = newAttempt();
+                log.info("模型端点 {} 首片段超时，向 {} 发起对冲请求",
+                        attempts.get(0).endpoint.getStats().getEndpoint(), hedge.endpoint.getStats().getEndpoint());
+                scheduleHedge();
+            }
+            hedge.launch();
+        }
+
+        /**
+         * 某个请求产出首个片段
+         *
+         * @return 该请求是否为胜出者
+         */
+        private boolean onFirstOutput(Attempt attempt) {
+            List<Attempt> losers;
+            synchronized (this) {
+                if (winner != null || finished || cancelled) {
+                    return winner == attempt;
+                }
+                winner = attempt;
+                if (hedgeTimer != null) {
+                    hedgeTimer.dispose();
+                }
+                if (attempt != attempts.get(0)) {
+                    hedgeWonCounter.increment();
+                }
+                losers = new ArrayList<>(attempts);
+                losers.remove(attempt);
+            }
+            attempt.endpoint.getStats().recordTimeToFirstToken(attempt.elapsedMillis());
+            losers.forEach(loser -> {
+                if (!loser.started && !loser.failed) {
+                    loser.endpoint.getStats().recordCensored(loser.elapsedMillis());
+                }
+                loser.cancel();
+            });
+            return true;
+        }
+
+        private void onComplete(Attempt attempt, ChatResponse response) {
+            // 没有产出片段直接完成的请求同样可以胜出
+            if (!onFirstOutput(attempt)) {
+                return;
+            }
+            synchronized (this) {
+                finished = true;
+            }
+            downstream.onCompleteResponse(response);
+        }
+
+        private void onError(Attempt attempt, Throwable error) {
+            attempt.endpoint.getStats().recordError();
+            Attempt failover = null;
+            synchronized (this) {
+                attempt.failed = true;
+                if (finished || cancelled || (winner != null && winner != attempt)) {
+                    return;
+                }
+                if (winner == null) {
+                    boolean othersRunning = attempts.stream().anyMatch(other -> !other.failed);
+                    if (othersRunning) {
+                        log.warn("模型端点 {} 请求失败，等待其他端点：{}",
+                                attempt.endpoint.getStats().getEndpoint(), error.getMessage());
+                        return;
+                    }
+                    if (nextEndpoint < endpoints.size()) {
+                        log.warn("模型端点 {} 请求失败，切换到下一个端点：{}",
+                                attempt.endpoint.getStats().getEndpoint(), error.getMessage());
+                        failover = newAttempt();
+                    }
+                }
+                if (failover == null) {
+                    finished = true;
+                    if (hedgeTimer != null) {
+                        hedgeTimer.dispose();
+                    }
+                }
+            }
+            if (failover != null) {
+                failover.launch();
+                return;
+            }
+            downstream.onError(error);
+        }
+
+        /**
+         * 下游取消：停止对冲并取消所有请求
+         */
+        @Override
+        public void cancel() {
+            List<Attempt> running;
+            synchronized (this) {
+                cancelled = true;
+                if (hedgeTimer != null) {
+                    hedgeTimer.dispose();
+                }
+                running = new ArrayList<>(attempts);
+            }
+            running.forEach(Attempt::cancel);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * 对单个端点的一次请求
+     */
+    private static final class Attempt implements StreamingChatResponseHandler {
+
+        private final HedgedCall call;
+
+        private final ModelEndpoint endpoint;
+
+        private final long startNanos = System.nanoTime();
+
+        private volatile StreamingHandle handle;
+
+        private volatile boolean cancelled;
+
+        private volatile boolean started;
+
+        private volatile boolean failed;
+
+        private Attempt(HedgedCall call, ModelEndpoint endpoint) {
+            this.call = call;
+            this.endpoint = endpoint;
+        }
+
+        private void launch() {
+            try {
+                endpoint.getModel().chat(call.chatRequest, this);
+            } catch (Exception e) {
+                call.onError(this, e);
+            }
+        }
+
+        private long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        /**
+         * 取消请求；尚未拿到取消句柄时在首个片段到达后再取消
+         */
+        private void cancel() {
+            cancelled = true;
+            StreamingHandle current = handle;
+            if (current != null && !current.isCancelled()) {
+                current.cancel();
+            }
+        }
+
+        /**
+         * 处理任意输出，返回是否应转发给下游
+         */
+        private boolean accept(StreamingHandle streamingHandle) {
+            if (streamingHandle != null) {
+                handle = streamingHandle;
+            }
+            if (cancelled) {
+                cancel();
+                return false;
+            }
+            if (!started) {
+                started = true;
+                if (!call.onFirstOutput(this)) {
+                    cancel();
+                    return false;
+                }
+            }
+            return call.winner == this;
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            if (accept(null)) {
+                call.downstream.onPartialResponse(new PartialResponse(partialResponse), new PartialResponseContext(call));
+            }
+        }
+
+        @Override
+        public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+            if (accept(context == null ? null : context.streamingHandle())) {
+                call.downstream.onPartialResponse(partialResponse, new PartialResponseContext(call));
+            }
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking) {
+            if (accept(null)) {
+                call.downstream.onPartialThinking(partialThinking);
+            }
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking, PartialThinkingContext context) {
+            if (accept(context == null ? null : context.streamingHandle())) {
+                call.downstream.onPartialThinking(partialThinking, new PartialThinkingContext(call));
+            }
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall) {
+            if (accept(null)) {
+                call.downstream.onPartialToolCall(partialToolCall);
+            }
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall, PartialToolCallContext context) {
+            if (accept(context == null ? null : context.streamingHandle())) {
+                call.downstream.onPartialToolCall(partialToolCall, new PartialToolCallContext(call));
+            }
+        }
+
+        @Override
+        public void onCompleteToolCall(CompleteToolCall completeToolCall) {
+            if (accept(null)) {
+                call.downstream.onCompleteToolCall(completeToolCall);
+            }
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            if (!cancelled) {
+                call.onComplete(this, completeResponse);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (!cancelled) {
+                call.onError(this, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.saki.sakiaicodetoolsbackend.ai.model;
+
+import lombok.Data;
+
+/**
+ * 单处代码修改（SEARCH/REPLACE 块）
+ * <ul>
+ *   <li>search 非空：在 path 文件中把唯一匹配的 search 片段替换为 replace</li>
+ *   <li>search 为空：以 replace 作为 path 文件的完整内容（新建或整体覆盖）</li>
+ *   <li>delete 为 true：删除 path 文件</li>
+ * </ul>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+@Data
+public class CodeEdit {
+
+    /**
+     * 文件路径，与生成结果中的相对路径一致
+     */
+    private String path;
+
+    /**
+     * 待替换的原文片段，需与当前文件内容逐字一致
+     */
+    private String search;
+
+    /**
+     * 替换后的内容
+     */
+    private String replace;
+
+    /**
+     * 是否删除该文件
+     */
+    private Boolean delete;
+}
@@ -0,0 +1,26 @@
+package com.saki.sakiaicodetoolsbackend.ai.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编辑模式下模型返回的修改集合
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+@Data
+public class CodeEditResult {
+
+    /**
+     * 按顺序应用的修改
+     */
+    private List<CodeEdit> edits = new ArrayList<>();
+
+    /**
+     * 修改说明
+     */
+    private String description;
+}
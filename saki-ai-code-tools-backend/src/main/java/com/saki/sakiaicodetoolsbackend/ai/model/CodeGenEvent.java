@@ -0,0 +1,45 @@
+package com.saki.sakiaicodetoolsbackend.ai.model;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenEventTypeEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 代码生成流事件：生成过程中的代码片段，以及保存完成后携带输出目录名的结束事件
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Schema(description = "代码生成流事件")
+@Data
+@AllArgsConstructor
+public class CodeGenEvent implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2291734508561302374L;
+
+    @Schema(description = "事件类型")
+    private CodeGenEventTypeEnum type;
+
+    @Schema(description = "代码片段，仅 chunk 事件有值")
+    private String content;
+
+    @Schema(description = "保存的目录名，仅 done 事件有值")
+    private String dirName;
+
+    public static CodeGenEvent chunk(String content) {
+        return new CodeGenEvent(CodeGenEventTypeEnum.CHUNK, content, null);
+    }
+
+    public static CodeGenEvent done(String dirName) {
+        return new CodeGenEvent(CodeGenEventTypeEnum.DONE, null, dirName);
+    }
+
+    public boolean isChunk() {
+        return type == CodeGenEventTypeEnum.CHUNK;
+    }
+}
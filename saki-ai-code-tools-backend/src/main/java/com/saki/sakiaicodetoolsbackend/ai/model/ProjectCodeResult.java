@@ -0,0 +1,93 @@
+package com.saki.sakiaicodetoolsbackend.ai.model;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多文件项目生成结果
+ * <p>按 AI 输出顺序保存任意数量的文件，路径可包含子目录。同一路径出现多次时以最后一次的内容为准，
+ * 位置保持首次出现的位置。文件内容可能是解析缓冲区的切片，结果只在进程内传递，不做序列化。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-12
+ */
+@Data
+public class ProjectCodeResult {
+
+    /**
+     * 单个路径片段的最大长度
+     */
+    private static final int MAX_SEGMENT_LENGTH = 255;
+
+    private List<ProjectFile> files = new ArrayList<>();
+
+    private String description;
+
+    /**
+     * 添加文件，同一路径已存在时替换内容
+     *
+     * @param path    规范化后的路径
+     * @param content 文件内容
+     * @return 是否替换了已有文件
+     */
+    public boolean putFile(String path, CharSequence content) {
+        ProjectFile file = new ProjectFile(path, content);
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).getPath().equals(path)) {
+                files.set(i, file);
+                return true;
+            }
+        }
+        files.add(file);
+        return false;
+    }
+
+    /**
+     * 按路径查找文件
+     *
+     * @param path 规范化后的路径
+     * @return 文件，不存在时返回 null
+     */
+    public ProjectFile getFile(String path) {
+        for (ProjectFile file : files) {
+            if (file.getPath().equals(path)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 规范化 AI 返回的文件路径：统一使用 / 分隔，去掉开头的 ./ 与多余的分隔符
+     *
+     * @param path AI 返回的路径
+     * @return 规范化后的相对路径；路径为空、为绝对路径或包含 .. 等无法安全落盘的片段时返回 null
+     */
+    public static String normalizePath(String path) {
+        if (StrUtil.isBlank(path)) {
+            return null;
+        }
+        String unified = path.trim().replace('\\', '/');
+        if (unified.startsWith("/") || unified.indexOf(':') >= 0) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(unified.length());
+        for (String segment : unified.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment) || segment.length() > MAX_SEGMENT_LENGTH
+                    || segment.chars().anyMatch(Character::isISOControl)) {
+                return null;
+            }
+            if (!normalized.isEmpty()) {
+                normalized.append('/');
+            }
+            normalized.append(segment);
+        }
+        return normalized.isEmpty() ? null : normalized.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.saki.sakiaicodetoolsbackend.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 项目中的单个文件
+ * <p>内容为 {@link CharSequence}，解析器产出的是指向解析缓冲区的只读切片而非独立的字符串副本，
+ * 需要 {@link String} 时再调用 {@code toString()}。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-12
+ */
+@Getter
+@AllArgsConstructor
+public class ProjectFile {
+
+    /**
+     * 相对于项目根目录的路径，以 / 分隔，如 pages/about.html
+     */
+    private final String path;
+
+    /**
+     * 文件内容
+     */
+    private final CharSequence content;
+}
@@ -0,0 +1,19 @@
+package com.saki.sakiaicodetoolsbackend.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 带序号的代码生成流事件，序号从 1 开始连续递增，用作 SSE 事件 ID 与续传位置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-14
+ */
+@Data
+@AllArgsConstructor
+public class SequencedCodeGenEvent {
+
+    private long seq;
+
+    private CodeGenEvent event;
+}
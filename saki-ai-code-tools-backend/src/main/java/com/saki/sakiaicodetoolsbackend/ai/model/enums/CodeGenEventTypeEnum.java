@@ -0,0 +1,24 @@
+package com.saki.sakiaicodetoolsbackend.ai.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 代码生成流事件类型
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Getter
+public enum CodeGenEventTypeEnum {
+
+    CHUNK("代码片段", "chunk"),
+    DONE("生成完成", "done");
+
+    private final String text;
+    private final String value;
+
+    CodeGenEventTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
@@ -0,0 +1,39 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 代码生成结果缓存配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-cache")
+public class AiCodeCacheProperties {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存（L1）最大条目数
+     */
+    private int localMaxSize = 1000;
+
+    /**
+     * 本地缓存（L1）过期时间
+     */
+    private Duration localTtl = Duration.ofMinutes(10);
+
+    /**
+     * Redis 缓存（L2）过期时间
+     */
+    private Duration redisTtl = Duration.ofHours(24);
+}
@@ -0,0 +1,59 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 批量代码生成配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-13
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.batch-generation")
+public class BatchGenerationProperties {
+
+    /**
+     * 单个批量作业的最大条目数
+     */
+    private int maxItems = 500;
+
+    /**
+     * 单个批量作业的默认并行度
+     */
+    private int defaultParallelism = 2;
+
+    /**
+     * 单个批量作业允许的最大并行度
+     */
+    private int maxParallelism = 4;
+
+    /**
+     * 同一作业相邻两个条目开始生成的最小间隔，用于限制批量作业的请求速率，为 0 时不限制
+     */
+    private Duration minItemInterval = Duration.ofSeconds(2);
+
+    /**
+     * 单个用户同时运行的最大作业数
+     */
+    private int maxActiveJobsPerUser = 2;
+
+    /**
+     * 调度器拒绝（批量通道排队已满）时单个条目的最大重试次数
+     */
+    private int maxRejectRetries = 3;
+
+    /**
+     * 调度器拒绝后首次重试的退避时间，之后指数增长
+     */
+    private Duration rejectRetryBackoff = Duration.ofSeconds(5);
+
+    /**
+     * 作业结束后状态的保留时长
+     */
+    private Duration jobRetention = Duration.ofHours(24);
+}
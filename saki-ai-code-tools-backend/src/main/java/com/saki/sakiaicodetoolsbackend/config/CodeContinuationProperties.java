@@ -0,0 +1,32 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 截断续写配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-18
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-continuation")
+public class CodeContinuationProperties {
+
+    /**
+     * 是否在输出被截断时自动续写
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单次生成最多续写的次数，续写后仍被截断时不再继续
+     */
+    private int maxContinuations = 2;
+
+    /**
+     * 无法续写时是否修复被截断的多文件 JSON，保留已完整输出的文件
+     */
+    private boolean repairEnabled = true;
+}
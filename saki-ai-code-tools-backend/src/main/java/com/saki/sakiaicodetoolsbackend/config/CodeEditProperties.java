@@ -0,0 +1,22 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 编辑模式配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-edit")
+public class CodeEditProperties {
+
+    /**
+     * 上一版全部文件允许的最大字符数，超出时拒绝编辑，避免提示词超出模型上下文
+     */
+    private int maxSourceChars = 200_000;
+}
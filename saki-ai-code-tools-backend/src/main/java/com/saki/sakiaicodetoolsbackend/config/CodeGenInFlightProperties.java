@@ -0,0 +1,34 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 相同生成请求合并配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-inflight")
+public class CodeGenInFlightProperties {
+
+    /**
+     * 是否通过 Redis 在多个节点间选举生产者，关闭时仅在本节点内合并
+     */
+    private boolean distributed = false;
+
+    /**
+     * 生产者锁过期时间，应大于单次生成的最长耗时
+     */
+    private Duration lockTtl = Duration.ofMinutes(5);
+
+    /**
+     * 跟随者轮询生产者锁是否释放的间隔
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+}
@@ -0,0 +1,27 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 代码持久化阶段配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-persist")
+public class CodePersistProperties {
+
+    /**
+     * 持久化线程数上限
+     */
+    private int threadCap = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 每个线程可排队的任务数上限，超出后该次生成的保存失败
+     */
+    private int queuedTaskCap = 100_000;
+}
@@ -0,0 +1,42 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 生成结果后处理配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-postprocess")
+public class CodePostProcessProperties {
+
+    /**
+     * 是否启用后处理，关闭时请求中的开关也不生效
+     */
+    private boolean enabled = true;
+
+    /**
+     * 请求未指定时执行的阶段，缺省不执行任何阶段
+     * <p>编辑模式以保存的文件作为上一版源码，处理过的结果会以压缩、内联后的形式交给模型，因此后处理需由请求显式开启。</p>
+     */
+    private List<String> defaultStages = new ArrayList<>();
+
+    /**
+     * 并行处理文件的 fork-join 线程池并行度
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 不超过该大小的 CSS / JS 内联到引用它的 HTML 中
+     */
+    private DataSize inlineMaxSize = DataSize.ofKilobytes(4);
+}
@@ -0,0 +1,45 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Set;
+
+/**
+ * 生成结果预压缩配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-precompress")
+public class CodePrecompressProperties {
+
+    /**
+     * 是否在保存后生成 .gz 压缩副本
+     */
+    private boolean enabled = true;
+
+    /**
+     * 压缩线程数
+     */
+    private int threads = 2;
+
+    /**
+     * 等待压缩的目录数上限，超出后跳过压缩（仍可按原文件提供访问）
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * 小于该大小的文件不压缩，压缩头部开销抵消收益
+     */
+    private DataSize minSize = DataSize.ofBytes(256);
+
+    /**
+     * 需要压缩的文件扩展名
+     */
+    private Set<String> extensions = Set.of("html", "htm", "css", "js", "mjs", "json", "svg", "txt", "xml");
+}
@@ -0,0 +1,60 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 生成结果保留策略配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-08
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-retention")
+public class CodeRetentionProperties {
+
+    /**
+     * 是否启用后台清理
+     */
+    private boolean enabled = true;
+
+    /**
+     * 全部生成结果的总容量上限
+     */
+    private DataSize globalQuota = DataSize.ofGigabytes(10);
+
+    /**
+     * 单个用户生成结果的容量上限
+     */
+    private DataSize userQuota = DataSize.ofMegabytes(200);
+
+    /**
+     * 超出总容量后清理到上限的该比例为止，避免每次只清理刚好超出的部分
+     */
+    private double lowWatermark = 0.9;
+
+    /**
+     * 每批清理的生成结果数
+     */
+    private int evictBatchSize = 100;
+
+    /**
+     * 后台清理间隔
+     */
+    private Duration sweepInterval = Duration.ofMinutes(5);
+
+    /**
+     * 未完成的流式保存暂存目录的保留时长，超过后由后台清理删除；保留期间可用于排查失败的生成
+     */
+    private Duration stagingTtl = Duration.ofHours(24);
+
+    /**
+     * 启动时从磁盘补登记、无法确定所属用户的历史结果是否允许所有登录用户访问，关闭时仅管理员可访问
+     */
+    private boolean legacyPublic = false;
+}
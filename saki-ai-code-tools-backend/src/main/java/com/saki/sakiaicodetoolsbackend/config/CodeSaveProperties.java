@@ -0,0 +1,32 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 代码文件保存配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-12
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-save")
+public class CodeSaveProperties {
+
+    /**
+     * 并行写入文件的线程数，为 0 时逐个写入
+     */
+    private int writeThreads = 4;
+
+    /**
+     * 等待写入的文件数上限，超出后由保存线程自己写入
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 文件数达到该值才并行写入，文件很少时线程切换的开销大于收益
+     */
+    private int parallelThreshold = 3;
+}
@@ -0,0 +1,38 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 生成代码段文件存储配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-08
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-store")
+public class CodeStoreProperties {
+
+    /**
+     * 是否将生成结果写入段文件存储（关闭时沿用每次生成一个目录）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 存储根目录
+     */
+    private String rootDir = System.getProperty("user.dir") + "/tmp/code_store";
+
+    /**
+     * 单个段文件最大字节数
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 压缩阈值：已封存段中失效字节占比达到该值时回收
+     */
+    private double compactDeadRatio = 0.5;
+}
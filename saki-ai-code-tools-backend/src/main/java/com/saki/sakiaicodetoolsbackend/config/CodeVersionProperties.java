@@ -0,0 +1,42 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 生成结果版本历史配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.code-version")
+public class CodeVersionProperties {
+
+    /**
+     * 存储根目录
+     */
+    private String rootDir = System.getProperty("user.dir") + "/tmp/code_version";
+
+    /**
+     * 每隔多少个版本保存一次完整快照，限制还原时需要应用的差异数
+     */
+    private int snapshotInterval = 10;
+
+    /**
+     * 差异压缩后大于快照的该比例时直接保存快照
+     */
+    private double snapshotRatio = 0.5;
+
+    /**
+     * 单个文件行差异允许的最大编辑距离，超过时该文件整体保存
+     */
+    private int maxEditDistance = 2000;
+
+    /**
+     * 还原后的版本缓存个数
+     */
+    private int cacheSize = 64;
+}
@@ -0,0 +1,49 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 代码生成调度配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.generation-scheduler")
+public class GenerationSchedulerProperties {
+
+    /**
+     * 全局最大并发生成数
+     */
+    private int maxConcurrency = 8;
+
+    /**
+     * 每个通道（VIP / 普通）的最大排队数，超过后直接拒绝
+     */
+    private int maxQueueDepth = 100;
+
+    /**
+     * 单个用户的最大排队数
+     */
+    private int maxUserQueueDepth = 3;
+
+    /**
+     * VIP 通道权重：两个通道都有排队时，每调度 vipWeight 个 VIP 任务才调度 1 个普通任务
+     */
+    private int vipWeight = 3;
+
+    /**
+     * 批量任务最多同时占用的并发数，其余名额始终留给交互请求
+     */
+    private int batchMaxConcurrency = 2;
+
+    /**
+     * 单次生成的预估耗时初始值，用于计算拒绝时的重试等待时间
+     */
+    private Duration estimatedTaskDuration = Duration.ofSeconds(30);
+}
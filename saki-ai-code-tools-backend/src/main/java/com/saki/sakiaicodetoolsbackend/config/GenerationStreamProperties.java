@@ -0,0 +1,70 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import com.saki.sakiaicodetoolsbackend.core.hub.GenerationHub;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 可续传生成流配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-14
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.generation-stream")
+public class GenerationStreamProperties {
+
+    /**
+     * Redis Stream 的过期时间，每次写入后刷新
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * 事件写入 Redis 的最长攒批时间
+     */
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    /**
+     * 单次写入 Redis 的最大事件数
+     */
+    private int flushBatchSize = 64;
+
+    /**
+     * 分发中心为新订阅方保留的最近事件数，更早的事件从 Redis Stream 补齐
+     */
+    private int liveReplaySize = 1024;
+
+    /**
+     * 本节点保留的尚未写入 Redis 的事件上限，写入成功后即释放；Redis 不可用时超出部分无法续传
+     */
+    private int localBacklogSize = 4096;
+
+    /**
+     * 每个订阅方的缓冲事件数，写出跟不上时按 overflowPolicy 处理
+     */
+    private int subscriberBufferSize = 256;
+
+    /**
+     * 订阅方缓冲区满时的处理策略：断开（可续传）或丢弃事件
+     */
+    private GenerationHub.OverflowPolicy overflowPolicy = GenerationHub.OverflowPolicy.DISCONNECT;
+
+    /**
+     * 生成不在本节点时轮询 Redis Stream 的间隔
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * 轮询 Redis Stream 时持续没有新事件的最长时间，超过后视为生成流已中断
+     */
+    private Duration resumeIdleTimeout = Duration.ofMinutes(2);
+
+    /**
+     * 所有客户端断开后继续生成的时长，期间重连可续传；超过后取消生成
+     */
+    private Duration detachTimeout = Duration.ofMinutes(1);
+}
@@ -0,0 +1,91 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多模型端点路由配置
+ * <p>默认端点为 langchain4j.open-ai.streaming-chat-model 配置的模型，endpoints 中配置的为备用端点。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-10
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.model-router")
+public class ModelRouterProperties {
+
+    /**
+     * 是否启用对冲请求，未启用或没有备用端点时只使用默认端点
+     */
+    private boolean enabled = false;
+
+    /**
+     * 首个片段在该时间内未到达时向下一个端点发起对冲请求（统计样本不足时使用）
+     */
+    private Duration initialHedgeDelay = Duration.ofSeconds(3);
+
+    /**
+     * 自适应对冲延迟的下限
+     */
+    private Duration minHedgeDelay = Duration.ofMillis(500);
+
+    /**
+     * 自适应对冲延迟的上限
+     */
+    private Duration maxHedgeDelay = Duration.ofSeconds(10);
+
+    /**
+     * 对冲延迟取默认端点近期首片段耗时的该分位数
+     */
+    private double hedgePercentile = 0.9;
+
+    /**
+     * 每个端点保留的近期首片段耗时样本数
+     */
+    private int sampleSize = 200;
+
+    /**
+     * 样本数达到该值后才使用自适应对冲延迟
+     */
+    private int minSamples = 20;
+
+    /**
+     * 单次请求最多同时进行的端点数（含默认端点）
+     */
+    private int maxAttempts = 2;
+
+    /**
+     * 备用端点（OpenAI 兼容接口）
+     */
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    /**
+     * 模型端点配置
+     */
+    @Data
+    public static class Endpoint {
+
+        /**
+         * 端点名称，用于指标标签
+         */
+        private String name;
+
+        private String baseUrl;
+
+        private String apiKey;
+
+        private String modelName;
+
+        private Integer maxTokens = 8192;
+
+        private String responseFormat = "json_object";
+
+        private Duration timeout = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,43 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 生成站点预览配置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.static-preview")
+public class StaticPreviewProperties {
+
+    /**
+     * 热点文件缓存的总字节数上限
+     */
+    private DataSize cacheMaxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 单个文件不超过该大小才进入热点缓存，更大的文件直接零拷贝发送
+     */
+    private DataSize cacheMaxFileSize = DataSize.ofKilobytes(256);
+
+    /**
+     * 缓存的 ETag 数量上限
+     */
+    private int etagCacheSize = 10_000;
+
+    /**
+     * Cache-Control 响应头；生成结果可能被编辑，默认每次协商，由 ETag 返回 304
+     */
+    private String cacheControl = "no-cache";
+
+    /**
+     * 带指纹的 CSS / JS（如 app.1a2b3c4d.js）的 Cache-Control 响应头，预览需要登录，只允许浏览器缓存
+     */
+    private String fingerprintedCacheControl = "private, max-age=31536000, immutable";
+}
@@ -0,0 +1,82 @@
+package com.saki.sakiaicodetoolsbackend.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Token 预算配置
+ * <p>每个用户一个令牌桶，每个会员等级的全部用户再共用一个令牌桶，两个桶都有余额时才允许调用模型。
+ * 桶按每小时补充量线性恢复，等级桶的每小时补充量乘以一个月的小时数即为该等级的月度预算上限。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-19
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.token-budget")
+public class TokenBudgetProperties {
+
+    /**
+     * 是否启用 Token 预算
+     */
+    private boolean enabled = true;
+
+    /**
+     * 估算提示词 token 使用的分词模型
+     */
+    private String tokenizerModel = "gpt-4o";
+
+    /**
+     * 准入时除提示词外还要求的余额，保证放行的请求至少还有这么多输出额度
+     */
+    private long admissionReserve = 2048;
+
+    /**
+     * 小时用量的保留时长
+     */
+    private Duration usageRetention = Duration.ofDays(90);
+
+    /**
+     * 普通会员
+     */
+    private Tier normal = new Tier(200_000, 20_000, 20_000_000, 1_500_000);
+
+    /**
+     * VIP 会员
+     */
+    private Tier vip = new Tier(1_000_000, 100_000, 50_000_000, 4_000_000);
+
+    /**
+     * 会员等级的桶配置
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tier {
+
+        /**
+         * 单个用户的桶容量
+         */
+        private long userCapacity;
+
+        /**
+         * 单个用户每小时恢复的 token 数，为 0 时用完不再恢复
+         */
+        private long userRefillPerHour;
+
+        /**
+         * 该等级全部用户共用的桶容量
+         */
+        private long tierCapacity;
+
+        /**
+         * 该等级每小时恢复的 token 数，为 0 时用完不再恢复
+         */
+        private long tierRefillPerHour;
+    }
+}
@@ -0,0 +1,54 @@
+package com.saki.sakiaicodetoolsbackend.constant;
+
+/**
+ * 代码生成相关常量类。
+ * 该类定义了代码生成模块使用的 Redis 键前缀等常量。
+ * 采用final类和私有构造方法确保不可实例化。
+ *
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+public final class CodeGenConstants {
+
+    // ===================== Redis键前缀常量 =====================
+
+    /**
+     * 代码生成结果缓存在Redis中的键前缀。
+     * 完整键格式：ai:code:cache:{缓存键摘要}
+     */
+    public static final String CODE_CACHE_KEY_PREFIX = "ai:code:cache:";
+
+    /**
+     * 进行中生成任务的生产者锁在Redis中的键前缀。
+     * 完整键格式：ai:code:inflight:{类型与提示词摘要}
+     */
+    public static final String CODE_INFLIGHT_LOCK_KEY_PREFIX = "ai:code:inflight:";
+
+    /**
+     * 可续传生成流在Redis中的键前缀（Redis Stream）。
+     * 完整键格式：ai:code:stream:{流ID}
+     */
+    public static final String CODE_STREAM_KEY_PREFIX = "ai:code:stream:";
+
+    /**
+     * Token 预算在Redis中的键前缀。
+     * 用户桶 ai:token:{budget}:user:{用户ID}，等级桶 ai:token:{budget}:tier:{等级}，
+     * 小时用量 ai:token:{budget}:usage:{yyyyMMddHH}；{budget} 为哈希标签，保证同一脚本访问的键位于同一个槽。
+     */
+    public static final String TOKEN_BUDGET_KEY_PREFIX = "ai:token:{budget}:";
+
+    // ===================== 流式响应常量 =====================
+
+    /**
+     * SSE 心跳间隔（秒）。
+     * 定期写出心跳帧，既避免代理因空闲断开连接，也能尽早发现客户端已断开并释放连接。
+     */
+    public static final long SSE_HEARTBEAT_INTERVAL_SECONDS = 15;
+
+    /**
+     * 私有构造方法，防止类被实例化。
+     */
+    private CodeGenConstants() {
+    }
+}
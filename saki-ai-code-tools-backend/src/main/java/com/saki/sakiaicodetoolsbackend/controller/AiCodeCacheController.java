@@ -0,0 +1,74 @@
+package com.saki.sakiaicodetoolsbackend.controller;
+
+import com.saki.sakiaicodetoolsbackend.annotation.AuthCheck;
+import com.saki.sakiaicodetoolsbackend.common.BaseResponse;
+import com.saki.sakiaicodetoolsbackend.common.ResultUtils;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.manager.AiCodeCacheManager;
+import com.saki.sakiaicodetoolsbackend.model.dto.admin.cache.AiCodeCacheBypassRequest;
+import com.saki.sakiaicodetoolsbackend.model.dto.admin.cache.AiCodeCachePurgeRequest;
+import com.saki.sakiaicodetoolsbackend.model.vo.AiCodeCacheStatsVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 代码生成缓存管理控制器
+ *
+ * <p>提供缓存统计、旁路开关与清除接口，仅管理员可用</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+@RestController
+@Tag(name = "AiCodeCacheController", description = "代码生成缓存管理接口")
+@RequestMapping("/ai/cache")
+public class AiCodeCacheController {
+
+    @Resource
+    private AiCodeCacheManager aiCodeCacheManager;
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 缓存统计信息
+     */
+    @GetMapping("/admin/stats")
+    @AuthCheck(mustRole = UserRoleConstant.ADMIN_ROLE)
+    @Operation(description = "获取代码生成缓存统计信息")
+    public BaseResponse<AiCodeCacheStatsVO> getStats() {
+        return ResultUtils.success(aiCodeCacheManager.getStats());
+    }
+
+    /**
+     * 设置缓存旁路
+     *
+     * @param request 旁路请求参数
+     * @return 是否成功
+     */
+    @PostMapping("/admin/bypass")
+    @AuthCheck(mustRole = UserRoleConstant.ADMIN_ROLE)
+    @Operation(description = "设置代码生成缓存旁路")
+    public BaseResponse<Boolean> setBypass(@RequestBody AiCodeCacheBypassRequest request) {
+        ThrowUtils.throwIf(request == null || request.getBypass() == null, ErrorCode.PARAMS_ERROR, "旁路参数不能为空");
+        aiCodeCacheManager.setBypass(request.getBypass());
+        return ResultUtils.success(true);
+    }
+
+    /**
+     * 清除缓存
+     *
+     * @param request 清除请求参数，提示词为空时清除全部
+     * @return 清除的 Redis 键数量
+     */
+    @PostMapping("/admin/purge")
+    @AuthCheck(mustRole = UserRoleConstant.ADMIN_ROLE)
+    @Operation(description = "清除代码生成缓存")
+    public BaseResponse<Long> purge(@RequestBody(required = false) AiCodeCachePurgeRequest request) {
+        String userMessage = request == null ? null : request.getUserMessage();
+        return ResultUtils.success(aiCodeCacheManager.purge(userMessage));
+    }
+}
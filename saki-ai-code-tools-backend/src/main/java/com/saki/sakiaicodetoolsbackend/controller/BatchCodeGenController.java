@@ -0,0 +1,119 @@
+package com.saki.sakiaicodetoolsbackend.controller;
+
+import com.saki.sakiaicodetoolsbackend.annotation.AuthCheck;
+import com.saki.sakiaicodetoolsbackend.common.BaseResponse;
+import com.saki.sakiaicodetoolsbackend.common.ResultUtils;
+import com.saki.sakiaicodetoolsbackend.constant.CodeGenConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.BatchGenerateRequest;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.BatchJobVO;
+import com.saki.sakiaicodetoolsbackend.service.BatchGenerationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * 批量代码生成控制器
+ *
+ * <p>提交后立即返回作业 ID，作业在后台以低于交互请求的优先级执行，可查询、订阅进度或取消。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-13
+ */
+@RestController
+@Tag(name = "BatchCodeGenController", description = "批量代码生成接口")
+@RequestMapping("/codegen/batch")
+public class BatchCodeGenController {
+
+    private static final String EVENT_PROGRESS = "progress";
+
+    private static final String EVENT_HEARTBEAT = "heartbeat";
+
+    @Resource
+    private BatchGenerationService batchGenerationService;
+
+    /**
+     * 提交批量生成作业
+     *
+     * @param request            批量生成请求
+     * @param httpServletRequest HTTP请求对象
+     * @return 作业 ID
+     */
+    @PostMapping
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "提交批量生成作业")
+    public BaseResponse<String> submit(@RequestBody BatchGenerateRequest request,
+                                       HttpServletRequest httpServletRequest) {
+        return ResultUtils.success(batchGenerationService.submit(request, getLoginUser(httpServletRequest)));
+    }
+
+    /**
+     * 查询批量生成作业状态
+     *
+     * @param jobId              作业 ID
+     * @param httpServletRequest HTTP请求对象
+     * @return 作业状态
+     */
+    @GetMapping("/{jobId}")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "查询批量生成作业状态")
+    public BaseResponse<BatchJobVO> getJob(@PathVariable String jobId, HttpServletRequest httpServletRequest) {
+        return ResultUtils.success(batchGenerationService.getJob(jobId, getLoginUser(httpServletRequest)));
+    }
+
+    /**
+     * 订阅批量生成作业进度
+     *
+     * <p>progress 事件的 data 为作业状态：订阅时推送一次全部条目的状态，之后每个条目状态变化时推送计数与变化的条目，
+     * 客户端按 index 合并；作业结束后流结束。推送的条目不含提示词与生成类型，需要时调用查询接口。</p>
+     *
+     * @param jobId              作业 ID
+     * @param httpServletRequest HTTP请求对象
+     * @return SSE 事件流
+     */
+    @GetMapping(value = "/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "订阅批量生成作业进度")
+    public Flux<ServerSentEvent<BatchJobVO>> streamJob(@PathVariable String jobId,
+                                                       HttpServletRequest httpServletRequest) {
+        Flux<ServerSentEvent<BatchJobVO>> events = batchGenerationService
+                .streamJob(jobId, getLoginUser(httpServletRequest))
+                .map(job -> ServerSentEvent.<BatchJobVO>builder().event(EVENT_PROGRESS).data(job).build());
+        return events.publish(shared -> Flux.merge(shared,
+                Flux.interval(Duration.ofSeconds(CodeGenConstants.SSE_HEARTBEAT_INTERVAL_SECONDS))
+                        .map(tick -> ServerSentEvent.<BatchJobVO>builder().comment(EVENT_HEARTBEAT).build())
+                        .takeUntilOther(shared.ignoreElements())));
+    }
+
+    /**
+     * 取消批量生成作业
+     *
+     * @param jobId              作业 ID
+     * @param httpServletRequest HTTP请求对象
+     * @return 作业此前是否仍在运行
+     */
+    @PostMapping("/{jobId}/cancel")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "取消批量生成作业")
+    public BaseResponse<Boolean> cancel(@PathVariable String jobId, HttpServletRequest httpServletRequest) {
+        return ResultUtils.success(batchGenerationService.cancel(jobId, getLoginUser(httpServletRequest)));
+    }
+
+    private User getLoginUser(HttpServletRequest httpServletRequest) {
+        return (User) httpServletRequest.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+    }
+}
@@ -0,0 +1,252 @@
+package com.saki.sakiaicodetoolsbackend.controller;
+
+import cn.hutool.json.JSONUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.CodeGenEvent;
+import com.saki.sakiaicodetoolsbackend.ai.model.SequencedCodeGenEvent;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.annotation.AuthCheck;
+import com.saki.sakiaicodetoolsbackend.common.BaseResponse;
+import com.saki.sakiaicodetoolsbackend.common.ResultUtils;
+import com.saki.sakiaicodetoolsbackend.constant.CodeGenConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.core.AiCodeGeneratorFacade;
+import com.saki.sakiaicodetoolsbackend.core.postprocess.PostProcessPipeline;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.GenerationRejectedException;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.manager.GenerationStreamManager;
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.CodeEditRequest;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.CodeEditVO;
+import com.saki.sakiaicodetoolsbackend.service.CodeEditService;
+import com.saki.sakiaicodetoolsbackend.service.GeneratedSiteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 代码生成控制器
+ *
+ * <p>以 Server-Sent Events 推送生成过程。返回 Flux 由 Spring MVC 异步处理，
+ * 等待模型输出期间不占用 Tomcat 工作线程，并按写出速度逐个请求数据（背压）。
+ * 生成流可续传：客户端断开后生成继续，在 ai.generation-stream.detach-timeout 内重连可从断开处续传，
+ * 超时仍未重连时上游模型调用才会被取消。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@RestController
+@Slf4j
+@Tag(name = "CodeGenController", description = "代码生成接口")
+@RequestMapping("/codegen")
+public class CodeGenController {
+
+    private static final String EVENT_START = "start";
+
+    private static final String EVENT_CHUNK = "chunk";
+
+    private static final String EVENT_DONE = "done";
+
+    private static final String EVENT_ERROR = "error";
+
+    private static final String EVENT_HEARTBEAT = "heartbeat";
+
+    @Resource
+    private AiCodeGeneratorFacade aiCodeGeneratorFacade;
+
+    @Resource
+    private GeneratedSiteService generatedSiteService;
+
+    @Resource
+    private GenerationStreamManager generationStreamManager;
+
+    @Resource
+    private CodeEditService codeEditService;
+
+    @Resource
+    private PostProcessPipeline postProcessPipeline;
+
+    /**
+     * 流式生成代码
+     *
+     * <p>事件类型：</p>
+     * <ul>
+     *   <li>start：首个事件，data 为 {"streamId": "流 ID", "shareToken": "分享令牌"}，流 ID 用于断线后续传，
+     *   分享令牌交给协作者用于旁观</li>
+     *   <li>chunk：代码片段，data 为 {"d": "片段内容"}，包装为 JSON 以保留首尾空白与换行</li>
+     *   <li>heartbeat：心跳，无实际数据</li>
+     *   <li>done：生成并保存完成，data 为 {"dirName": "保存的目录名"}</li>
+     *   <li>error：生成失败，data 为 {"code": 错误码, "message": "错误信息"}，被限流时额外带 retryAfter（秒）</li>
+     * </ul>
+     * <p>chunk 与 done 事件带 id（从 1 开始的序号），续传时作为 Last-Event-ID 传回。</p>
+     *
+     * @param message            用户提示词
+     * @param codeGenType        生成类型（html / multi_file）
+     * @param postProcess        保存前执行的后处理阶段，逗号分隔（minify / inline / fingerprint），缺省时执行默认阶段，为 none 时不处理
+     * @param httpServletRequest HTTP请求对象
+     * @return SSE 事件流
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "流式生成代码")
+    public Flux<ServerSentEvent<String>> generateCodeStream(@RequestParam String message,
+                                                            @RequestParam String codeGenType,
+                                                            @RequestParam(required = false) String postProcess,
+                                                            HttpServletRequest httpServletRequest) {
+        ThrowUtils.throwIf(message == null || message.isBlank(), ErrorCode.PARAMS_ERROR, "提示词不能为空");
+        CodeGenTypeEnum codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(codeGenType);
+        ThrowUtils.throwIf(codeGenTypeEnum == null, ErrorCode.PARAMS_ERROR, "不支持的生成类型");
+        Set<String> postProcessStages = postProcessPipeline.resolveStages(postProcess);
+        User loginUser = (User) httpServletRequest.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+
+        GenerationStreamManager.GenerationStream stream = generationStreamManager.open(
+                aiCodeGeneratorFacade.generateAndSaveCodeEventStream(message, codeGenTypeEnum, loginUser,
+                        postProcessStages), loginUser);
+        ServerSentEvent<String> startEvent = ServerSentEvent.<String>builder()
+                .event(EVENT_START)
+                .data(JSONUtil.toJsonStr(Map.of("streamId", stream.getStreamId(),
+                        "shareToken", stream.getShareToken())))
+                .build();
+        return withHeartbeat(Flux.just(startEvent).concatWith(toServerSentEvents(stream.getEvents())));
+    }
+
+    /**
+     * 续传生成流
+     *
+     * <p>从 Last-Event-ID 之后继续推送，事件格式与流式生成相同（不含 start 事件）；
+     * 生成已结束时补发剩余事件后结束，不会重新调用模型。同一生成可被多个连接同时订阅（如多个标签页或协作者旁观），
+     * 接收过慢的连接会以 error 事件（code 40006）断开，可再次续传。
+     * 发起用户与管理员可直接续传，其他用户需携带发起用户分享的 shareToken 才能旁观。</p>
+     *
+     * @param streamId           流 ID（start 事件中的 streamId）
+     * @param shareToken         分享令牌（start 事件中的 shareToken），协作者旁观时必填
+     * @param lastEventId        最后收到的事件 ID，缺省时从头推送
+     * @param httpServletRequest HTTP请求对象
+     * @return SSE 事件流
+     */
+    @GetMapping(value = "/stream/{streamId}/resume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "续传生成流")
+    public Flux<ServerSentEvent<String>> resumeCodeStream(@PathVariable String streamId,
+                                                          @RequestParam(required = false) String shareToken,
+                                                          @RequestHeader(value = "Last-Event-ID", required = false)
+                                                          String lastEventId,
+                                                          HttpServletRequest httpServletRequest) {
+        long lastSeq = 0;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                lastSeq = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new BusinessException(ErrorCode.PARAMS_FORMAT_ERROR, "Last-Event-ID 格式不正确");
+            }
+        }
+        User loginUser = (User) httpServletRequest.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+        return withHeartbeat(toServerSentEvents(generationStreamManager.resume(streamId, lastSeq, shareToken,
+                loginUser)));
+    }
+
+    private Flux<ServerSentEvent<String>> toServerSentEvents(Flux<SequencedCodeGenEvent> events) {
+        return events.map(this::toServerSentEvent).onErrorResume(e -> Flux.just(toErrorEvent(e)));
+    }
+
+    /**
+     * 心跳与事件流合并，事件流结束时心跳随之停止
+     */
+    private Flux<ServerSentEvent<String>> withHeartbeat(Flux<ServerSentEvent<String>> events) {
+        return events.publish(shared -> Flux.merge(shared,
+                Flux.interval(Duration.ofSeconds(CodeGenConstants.SSE_HEARTBEAT_INTERVAL_SECONDS))
+                        .map(tick -> ServerSentEvent.<String>builder().comment(EVENT_HEARTBEAT).build())
+                        .takeUntilOther(shared.ignoreElements())));
+    }
+
+    /**
+     * 编辑已有的生成结果
+     *
+     * <p>模型只返回针对上一版的修改，应用后保存为新的生成结果，原结果保持不变。</p>
+     *
+     * @param request            编辑请求
+     * @param httpServletRequest HTTP请求对象
+     * @return 编辑结果，generationId 为修改后的新结果
+     */
+    @PostMapping("/edit")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "编辑已有的生成结果")
+    public BaseResponse<CodeEditVO> editCode(@RequestBody CodeEditRequest request,
+                                             HttpServletRequest httpServletRequest) {
+        User loginUser = (User) httpServletRequest.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+        return ResultUtils.success(codeEditService.edit(request, loginUser));
+    }
+
+    /**
+     * 下载生成结果
+     *
+     * <p>以 ZIP 流式写出生成的全部文件，不生成临时压缩包，响应带 Content-Length。</p>
+     *
+     * @param generationId       生成结果 ID（done 事件中的 dirName）
+     * @param httpServletRequest HTTP请求对象
+     * @param response           HTTP响应对象
+     */
+    @GetMapping("/download/{generationId}")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "下载生成结果")
+    public void downloadCode(@PathVariable String generationId,
+                             HttpServletRequest httpServletRequest,
+                             HttpServletResponse response) {
+        User loginUser = (User) httpServletRequest.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+        generatedSiteService.downloadZip(generationId, loginUser, response);
+    }
+
+    private ServerSentEvent<String> toServerSentEvent(SequencedCodeGenEvent sequencedEvent) {
+        CodeGenEvent event = sequencedEvent.getEvent();
+        String id = String.valueOf(sequencedEvent.getSeq());
+        if (event.isChunk()) {
+            return ServerSentEvent.<String>builder()
+                    .id(id)
+                    .event(EVENT_CHUNK)
+                    .data(JSONUtil.toJsonStr(Map.of("d", event.getContent())))
+                    .build();
+        }
+        return ServerSentEvent.<String>builder()
+                .id(id)
+                .event(EVENT_DONE)
+                .data(JSONUtil.toJsonStr(Map.of("dirName", event.getDirName())))
+                .build();
+    }
+
+    private ServerSentEvent<String> toErrorEvent(Throwable e) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (e instanceof BusinessException businessException) {
+            data.put("code", businessException.getCode());
+            data.put("message", businessException.getMessage());
+        } else {
+            log.error("流式生成代码失败", e);
+            data.put("code", ErrorCode.SYSTEM_ERROR.getCode());
+            data.put("message", "生成失败，请稍后重试");
+        }
+        if (e instanceof GenerationRejectedException rejectedException) {
+            data.put("retryAfter", rejectedException.getRetryAfterSeconds());
+        }
+        return ServerSentEvent.<String>builder().event(EVENT_ERROR).data(JSONUtil.toJsonStr(data)).build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.saki.sakiaicodetoolsbackend.controller;
+
+import com.saki.sakiaicodetoolsbackend.annotation.AuthCheck;
+import com.saki.sakiaicodetoolsbackend.common.BaseResponse;
+import com.saki.sakiaicodetoolsbackend.common.ResultUtils;
+import com.saki.sakiaicodetoolsbackend.constant.UserConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.CodeVersionVO;
+import com.saki.sakiaicodetoolsbackend.service.CodeVersionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成结果版本控制器
+ *
+ * <p>编辑产生的各个版本组成一个项目，接口中的 generationId 可以是项目中任一版本的生成结果 ID。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@RestController
+@Tag(name = "CodeVersionController", description = "生成结果版本接口")
+@RequestMapping("/codegen/version")
+public class CodeVersionController {
+
+    @Resource
+    private CodeVersionService codeVersionService;
+
+    /**
+     * 查询版本列表
+     *
+     * @param generationId       生成结果 ID
+     * @param httpServletRequest HTTP请求对象
+     * @return 版本列表，按版本号升序
+     */
+    @GetMapping("/{generationId}")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "查询版本列表")
+    public BaseResponse<List<CodeVersionVO>> listVersions(@PathVariable String generationId,
+                                                          HttpServletRequest httpServletRequest) {
+        return ResultUtils.success(codeVersionService.listVersions(generationId, getLoginUser(httpServletRequest)));
+    }
+
+    /**
+     * 获取某个版本的全部文件
+     *
+     * @param generationId       生成结果 ID
+     * @param version            版本号
+     * @param httpServletRequest HTTP请求对象
+     * @return 相对路径 -> 文件内容
+     */
+    @GetMapping("/{generationId}/{version}")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "获取某个版本的全部文件")
+    public BaseResponse<Map<String, String>> getVersionFiles(@PathVariable String generationId,
+                                                             @PathVariable int version,
+                                                             HttpServletRequest httpServletRequest) {
+        return ResultUtils.success(
+                codeVersionService.getVersionFiles(generationId, version, getLoginUser(httpServletRequest)));
+    }
+
+    /**
+     * 回滚到某个版本
+     *
+     * @param generationId       生成结果 ID
+     * @param version            要回滚到的版本号
+     * @param httpServletRequest HTTP请求对象
+     * @return 回滚产生的新版本，generationId 可用于预览与下载
+     */
+    @PostMapping("/{generationId}/{version}/rollback")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "回滚到某个版本")
+    public BaseResponse<CodeVersionVO> rollback(@PathVariable String generationId,
+                                                @PathVariable int version,
+                                                HttpServletRequest httpServletRequest) {
+        return ResultUtils.success(codeVersionService.rollback(generationId, version, getLoginUser(httpServletRequest)));
+    }
+
+    private User getLoginUser(HttpServletRequest httpServletRequest) {
+        return (User) httpServletRequest.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+    }
+}
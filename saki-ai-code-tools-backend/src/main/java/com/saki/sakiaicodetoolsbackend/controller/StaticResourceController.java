@@ -0,0 +1,69 @@
+package com.saki.sakiaicodetoolsbackend.controller;
+
+import com.saki.sakiaicodetoolsbackend.annotation.AuthCheck;
+import com.saki.sakiaicodetoolsbackend.constant.UserConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.service.GeneratedSiteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 静态资源预览控制器
+ *
+ * <p>按 /static/{generationId}/文件路径 访问生成的站点，支持 ETag 协商缓存与 Range 请求。
+ * 与下载一样只有所属用户（含合并生成的共享用户）与管理员可以预览。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@RestController
+@Tag(name = "StaticResourceController", description = "生成站点预览接口")
+@RequestMapping("/static")
+public class StaticResourceController {
+
+    private static final String PREFIX = "/static/";
+
+    @Resource
+    private GeneratedSiteService generatedSiteService;
+
+    /**
+     * 预览生成的站点
+     *
+     * <p>访问 /static/{generationId} 时重定向到带斜杠的地址，保证页面中的相对路径（如 style.css）能正确解析。</p>
+     *
+     * @param generationId 生成结果 ID
+     * @param request      HTTP请求对象
+     * @param response     HTTP响应对象
+     * @throws IOException 重定向失败
+     */
+    @GetMapping("/{generationId}/**")
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "预览生成的站点")
+    public void serveStaticResource(@PathVariable String generationId,
+                                    HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
+        String pathWithinMapping = UriUtils.decode(
+                (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE),
+                StandardCharsets.UTF_8);
+        String relativePath = pathWithinMapping.substring(PREFIX.length() + generationId.length());
+        if (relativePath.isEmpty()) {
+            response.sendRedirect(request.getRequestURI() + "/");
+            return;
+        }
+        User loginUser = (User) request.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+        generatedSiteService.servePreview(generationId, relativePath.substring(1), loginUser, request, response);
+    }
+}
@@ -0,0 +1,69 @@
+package com.saki.sakiaicodetoolsbackend.controller;
+
+import com.saki.sakiaicodetoolsbackend.annotation.AuthCheck;
+import com.saki.sakiaicodetoolsbackend.common.BaseResponse;
+import com.saki.sakiaicodetoolsbackend.common.ResultUtils;
+import com.saki.sakiaicodetoolsbackend.constant.UserConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.TokenBudgetVO;
+import com.saki.sakiaicodetoolsbackend.model.vo.TokenUsageVO;
+import com.saki.sakiaicodetoolsbackend.service.TokenBudgetService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Token 额度控制器
+ *
+ * <p>用户查询自己的额度与用量；管理员按小时查询用户、会员等级或总计的用量</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-19
+ */
+@RestController
+@Tag(name = "TokenBudgetController", description = "Token 额度接口")
+@RequestMapping("/ai/budget")
+public class TokenBudgetController {
+
+    @Resource
+    private TokenBudgetService tokenBudgetService;
+
+    /**
+     * 查询当前用户的额度
+     *
+     * @param httpServletRequest HTTP请求对象
+     * @return 额度与最近 24 小时用量
+     */
+    @GetMapping
+    @AuthCheck(mustRole = UserRoleConstant.USER_ROLE)
+    @Operation(description = "查询当前用户的 Token 额度")
+    public BaseResponse<TokenBudgetVO> getBudget(HttpServletRequest httpServletRequest) {
+        User loginUser = (User) httpServletRequest.getSession().getAttribute(UserConstants.USER_LOGIN_STATE);
+        return ResultUtils.success(tokenBudgetService.getBudget(loginUser));
+    }
+
+    /**
+     * 按小时查询用量
+     *
+     * @param userId 用户 ID，为空时按会员等级或总计查询
+     * @param tier   会员等级（normal / vip）
+     * @param hours  小时数，默认 24
+     * @return 每小时的用量
+     */
+    @GetMapping("/admin/usage")
+    @AuthCheck(mustRole = UserRoleConstant.ADMIN_ROLE)
+    @Operation(description = "按小时查询 Token 用量")
+    public BaseResponse<List<TokenUsageVO>> listHourlyUsage(@RequestParam(required = false) Long userId,
+                                                            @RequestParam(required = false) String tier,
+                                                            @RequestParam(defaultValue = "24") int hours) {
+        return ResultUtils.success(tokenBudgetService.listHourlyUsage(userId, tier, hours));
+    }
+}
@@ -1,19 +1,44 @@
 package com.saki.sakiaicodetoolsbackend.core;
 
-import com.saki.sakiaicodetoolsbackend.ai.AiCodeGeneratorService;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONUtil;
+import com.saki.sakiaicodetoolsbackend.ai.cache.CachedAiCodeGeneratorService;
+import com.saki.sakiaicodetoolsbackend.ai.model.CodeGenEvent;
 import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
-import com.saki.sakiaicodetoolsbackend.ai.model.MultiFileCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
 import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.core.budget.DeferredTokenUsage;
+import com.saki.sakiaicodetoolsbackend.core.budget.TokenUsageRecorder;
+import com.saki.sakiaicodetoolsbackend.core.continuation.CodeStreamContinuator;
+import com.saki.sakiaicodetoolsbackend.core.metrics.CodeGenMetrics;
+import com.saki.sakiaicodetoolsbackend.core.metrics.GenerationTrace;
 import com.saki.sakiaicodetoolsbackend.core.parser.CodeParserExecutor;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
+import com.saki.sakiaicodetoolsbackend.core.patch.CodePatchEngine;
+import com.saki.sakiaicodetoolsbackend.core.patch.CodePatchResult;
+import com.saki.sakiaicodetoolsbackend.core.postprocess.PostProcessPipeline;
 import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverExecutor;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodePersistenceStage;
+import com.saki.sakiaicodetoolsbackend.core.saver.PersistenceWorker;
+import com.saki.sakiaicodetoolsbackend.core.saver.StreamingCodeFileSaveSession;
+import com.saki.sakiaicodetoolsbackend.core.scheduler.GenerationScheduler;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
 import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
 import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.manager.CodeOutputRetentionManager;
+import com.saki.sakiaicodetoolsbackend.manager.InFlightGenerationManager;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.service.TokenBudgetService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * AI 代码生成外观类，组合生成和保存功能
@@ -26,7 +51,34 @@ import java.io.File;
 public class AiCodeGeneratorFacade {
 
     @Resource
-    private AiCodeGeneratorService aiCodeGeneratorService;
+    private CachedAiCodeGeneratorService aiCodeGeneratorService;
+
+    @Resource
+    private InFlightGenerationManager inFlightGenerationManager;
+
+    @Resource
+    private GenerationScheduler generationScheduler;
+
+    @Resource
+    private CodePersistenceStage codePersistenceStage;
+
+    @Resource
+    private CodeSiteStore codeSiteStore;
+
+    @Resource
+    private CodeOutputRetentionManager codeOutputRetentionManager;
+
+    @Resource
+    private CodeGenMetrics codeGenMetrics;
+
+    @Resource
+    private PostProcessPipeline postProcessPipeline;
+
+    @Resource
+    private CodeStreamContinuator codeStreamContinuator;
+
+    @Resource
+    private TokenBudgetService tokenBudgetService;
 
     /**
      * 统一入口：根据类型生成并保存代码
@@ -36,43 +88,286 @@ public class AiCodeGeneratorFacade {
      * @return 保存的目录
      */
     public File generateAndSaveCode(String userMessage, CodeGenTypeEnum codeGenTypeEnum) {
+        return generateAndSaveCode(userMessage, codeGenTypeEnum, null);
+    }
+
+    /**
+     * 统一入口：以指定用户身份排队生成并保存代码
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param loginUser       发起用户，用于公平排队与 VIP 通道，可为空
+     * @return 保存的目录
+     */
+    public File generateAndSaveCode(String userMessage, CodeGenTypeEnum codeGenTypeEnum, User loginUser) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
-        return switch (codeGenTypeEnum) {
-            case HTML -> {
-                HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(userMessage);
-                yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.HTML);
-            }
-            case MULTI_FILE -> {
-                MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(userMessage);
-                yield CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.MULTI_FILE);
-            }
-            default -> {
-                String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
+        return generationScheduler.submit(loginUser,
+                        () -> Mono.fromCallable(() -> doGenerateAndSaveCode(userMessage, codeGenTypeEnum, loginUser)))
+                .single()
+                .block();
+    }
+
+    /**
+     * 根据类型生成代码并保存
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param loginUser       发起用户，可为空
+     * @return 保存的目录
+     */
+    private File doGenerateAndSaveCode(String userMessage, CodeGenTypeEnum codeGenTypeEnum, User loginUser) {
+        GenerationTrace trace = codeGenMetrics.start(codeGenTypeEnum);
+        DeferredTokenUsage usage = deferUsage(loginUser, codeGenTypeEnum == CodeGenTypeEnum.HTML
+                ? "generateHtmlCode" : "generateMultiFileCode", userMessage);
+        try {
+            tokenBudgetService.checkAdmission(loginUser);
+            File savedDir = switch (codeGenTypeEnum) {
+                case HTML -> {
+                    HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(userMessage, usage::charge);
+                    usage.addOutput(JSONUtil.toJsonStr(result));
+                    Object processed = postProcessPipeline.process(result, CodeGenTypeEnum.HTML, null);
+                    yield trace.save(() -> CodeFileSaverExecutor.executeSaver(processed, CodeGenTypeEnum.HTML));
+                }
+                case MULTI_FILE -> {
+                    String codeContent = aiCodeGeneratorService.generateMultiFileCode(userMessage, usage::charge);
+                    usage.addOutput(codeContent);
+                    ProjectCodeResult result = trace.parse(() -> parseMultiFileOrSalvage(codeContent));
+                    Object processed = postProcessPipeline.process(result, CodeGenTypeEnum.MULTI_FILE, null);
+                    yield trace.save(() -> CodeFileSaverExecutor.executeSaver(processed, CodeGenTypeEnum.MULTI_FILE));
+                }
+                default -> {
+                    String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
+                }
+            };
+            codeOutputRetentionManager.register(savedDir.getName(), getUserId(loginUser), FileUtil.size(savedDir));
+            trace.finish(CodeGenMetrics.OUTCOME_SUCCESS);
+            return savedDir;
+        } catch (RuntimeException e) {
+            trace.finish(CodeGenMetrics.OUTCOME_ERROR);
+            throw e;
+        } finally {
+            usage.settle();
+        }
+    }
+
+    /**
+     * 解析多文件输出，输出被截断而无法解析时保留已完整输出的文件
+     */
+    private ProjectCodeResult parseMultiFileOrSalvage(String codeContent) {
+        try {
+            return (ProjectCodeResult) CodeParserExecutor.executeParser(codeContent, CodeGenTypeEnum.MULTI_FILE);
+        } catch (BusinessException e) {
+            ProjectCodeResult salvaged = codeStreamContinuator.salvage(codeContent);
+            if (salvaged == null) {
+                throw e;
             }
-        };
+            log.warn("多文件输出被截断，保留 {} 个完整文件", salvaged.getFiles().size());
+            return salvaged;
+        }
+    }
+
+    /**
+     * 编辑模式：模型只返回针对上一版文件的修改，应用后分配新的生成结果 ID
+     * 新版本的文件由调用方记录到版本历史，不在此写出目录
+     *
+     * @param sourceFiles     上一版文件：路径 -> 内容
+     * @param instruction     修改要求
+     * @param codeGenTypeEnum 生成类型，与上一版一致
+     * @param loginUser       发起用户，用于公平排队与 VIP 通道，可为空
+     * @return 补丁应用结果，携带新的生成记录 ID
+     */
+    public CodePatchResult editAndSaveCode(Map<String, String> sourceFiles, String instruction,
+                                           CodeGenTypeEnum codeGenTypeEnum, User loginUser) {
+        if (codeGenTypeEnum == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
+        }
+        return generationScheduler.submit(loginUser, () -> Mono.fromCallable(
+                        () -> doEditAndSaveCode(sourceFiles, instruction, codeGenTypeEnum, loginUser)))
+                .single()
+                .block();
+    }
+
+    private CodePatchResult doEditAndSaveCode(Map<String, String> sourceFiles, String instruction,
+                                              CodeGenTypeEnum codeGenTypeEnum, User loginUser) {
+        GenerationTrace trace = codeGenMetrics.start(codeGenTypeEnum);
+        TokenUsageRecorder usage = TokenUsageRecorder.NONE;
+        try {
+            String editMessage = buildEditMessage(sourceFiles, instruction);
+            usage = tokenBudgetService.acquire(loginUser, "generateCodeEdit", editMessage);
+            String editJson = aiCodeGeneratorService.generateCodeEdit(editMessage);
+            usage.addOutput(editJson);
+            CodePatchResult patchResult = trace.parse(
+                    () -> CodePatchEngine.apply(sourceFiles, CodePatchEngine.parseEdits(editJson)));
+            String generationId = trace.save(() -> newVersionId(patchResult.getFiles(), patchResult.getDescription(),
+                    codeGenTypeEnum));
+            patchResult.setGenerationId(generationId);
+            trace.finish(CodeGenMetrics.OUTCOME_SUCCESS);
+            return patchResult;
+        } catch (RuntimeException e) {
+            trace.finish(CodeGenMetrics.OUTCOME_ERROR);
+            throw e;
+        } finally {
+            usage.settle();
+        }
+    }
+
+    /**
+     * 拼装编辑消息：先列出全部文件，再给出修改要求，格式与编辑提示词约定一致
+     */
+    private String buildEditMessage(Map<String, String> sourceFiles, String instruction) {
+        StringBuilder message = new StringBuilder();
+        sourceFiles.forEach((path, content) -> message.append("=== FILE: ").append(path).append(" ===\n")
+                .append(content)
+                .append(content.endsWith("\n") ? "" : "\n")
+                .append("=== END FILE ===\n\n"));
+        return message.append("修改要求：").append(instruction).toString();
+    }
+
+    /**
+     * 为编辑与回滚产生的新版本分配生成结果 ID，校验规则与生成时一致
+     * 只校验不落盘：版本内容由版本历史以差异保存，预览或下载时再按需还原为目录
+     *
+     * @param files           路径 -> 内容
+     * @param description     描述
+     * @param codeGenTypeEnum 生成类型
+     * @return 新的生成结果 ID
+     */
+    public String newVersionId(Map<String, String> files, String description, CodeGenTypeEnum codeGenTypeEnum) {
+        CodeFileSaverExecutor.renderFiles(CodeFileSaverExecutor.toCodeResult(files, description, codeGenTypeEnum),
+                codeGenTypeEnum);
+        return CodeFileSaverExecutor.newGenerationId(codeGenTypeEnum);
     }
 
     /**
      * 统一入口：根据类型生成并保存代码（流式）
+     * 并发的相同请求会合并到同一个生成任务，后加入的调用方从头收到完整的代码流
      *
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
      */
     public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum) {
+        return generateAndSaveCodeStream(userMessage, codeGenTypeEnum, null);
+    }
+
+    /**
+     * 统一入口：以指定用户身份排队生成并保存代码（流式）
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param loginUser       发起用户，用于公平排队与 VIP 通道，可为空
+     */
+    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, User loginUser) {
+        return generateAndSaveCodeEventStream(userMessage, codeGenTypeEnum, loginUser)
+                .filter(CodeGenEvent::isChunk)
+                .map(CodeGenEvent::getContent);
+    }
+
+    /**
+     * 统一入口：以指定用户身份排队生成并保存代码，返回事件流，执行默认的后处理阶段
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @param loginUser       发起用户，用于公平排队与 VIP 通道，可为空
+     * @return 生成事件流
+     */
+    public Flux<CodeGenEvent> generateAndSaveCodeEventStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum,
+                                                             User loginUser) {
+        return generateAndSaveCodeEventStream(userMessage, codeGenTypeEnum, loginUser, null);
+    }
+
+    /**
+     * 统一入口：以指定用户身份排队生成并保存代码，返回事件流
+     * 代码片段以 chunk 事件推送，文件保存成功后推送携带目录名的 done 事件再结束；保存失败时以错误结束。
+     * 只有真正调用模型的生产者占用调度名额，合并到已有任务的调用方不再排队；后处理阶段不同的请求不会合并。
+     * 每个订阅者合并前都做一次不扣减的额度检查，额度用完的订阅者不能借由合并拿到结果；
+     * 加入者收到 done 事件时登记为该生成结果的共享用户，与生产者一样可以下载和预览
+     *
+     * @param userMessage       用户提示词
+     * @param codeGenTypeEnum   生成类型
+     * @param loginUser         发起用户，用于公平排队与 VIP 通道，可为空
+     * @param postProcessStages 保存前执行的后处理阶段，为 null 时执行默认阶段
+     * @return 生成事件流
+     */
+    public Flux<CodeGenEvent> generateAndSaveCodeEventStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum,
+                                                             User loginUser, Set<String> postProcessStages) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空");
         }
+        String variant = postProcessStages == null ? null : String.join(",", new TreeSet<>(postProcessStages));
+        return Flux.defer(() -> {
+            tokenBudgetService.checkAdmission(loginUser);
+            return inFlightGenerationManager.join(codeGenTypeEnum, userMessage, variant,
+                            () -> generationScheduler.submit(loginUser, () -> doGenerateAndSaveCodeStream(userMessage,
+                                    codeGenTypeEnum, loginUser, postProcessStages)))
+                    .doOnNext(event -> {
+                        if (!event.isChunk()) {
+                            codeOutputRetentionManager.share(event.getDirName(), getUserId(loginUser));
+                        }
+                    });
+        });
+    }
+
+    /**
+     * 批量生成入口：以批量优先级排队生成并保存代码
+     * 批量任务只使用交互请求空闲出来的名额，也不与交互请求合并，避免交互请求等待批量通道
+     *
+     * @param userMessage       用户提示词
+     * @param codeGenTypeEnum   生成类型
+     * @param loginUser         发起用户，可为空
+     * @param postProcessStages 保存前执行的后处理阶段，为 null 时执行默认阶段
+     * @return 生成记录 ID
+     */
+    public Mono<String> generateAndSaveCodeForBatch(String userMessage, CodeGenTypeEnum codeGenTypeEnum,
+                                                    User loginUser, Set<String> postProcessStages) {
+        if (codeGenTypeEnum == null) {
+            return Mono.error(new BusinessException(ErrorCode.SYSTEM_ERROR, "生成类型为空"));
+        }
+        return generationScheduler.submitBatch(loginUser,
+                        () -> doGenerateAndSaveCodeStream(userMessage, codeGenTypeEnum, loginUser, postProcessStages))
+                .filter(event -> !event.isChunk())
+                .map(CodeGenEvent::getDirName)
+                .single();
+    }
+
+    /**
+     * 根据类型生成代码流并接入解析保存，输出被截断时自动续写
+     * 先检查 Token 额度，额度不足时以错误结束；未命中缓存、实际调用模型时才扣费，命中缓存的重放不扣 token，
+     * 续写的提示词与模型输出在流结束时结算
+     *
+     * @param userMessage       用户提示词
+     * @param codeGenTypeEnum   生成类型
+     * @param loginUser         发起用户，可为空
+     * @param postProcessStages 保存前执行的后处理阶段，为 null 时执行默认阶段
+     * @return 生成事件流
+     */
+    private Flux<CodeGenEvent> doGenerateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum,
+                                                           User loginUser, Set<String> postProcessStages) {
+        return Flux.defer(() -> {
+            tokenBudgetService.checkAdmission(loginUser);
+            return doGenerateCodeStream(userMessage, codeGenTypeEnum, loginUser, postProcessStages);
+        });
+    }
+
+    private Flux<CodeGenEvent> doGenerateCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum,
+                                                    User loginUser, Set<String> postProcessStages) {
         return switch (codeGenTypeEnum) {
             case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML);
+                DeferredTokenUsage usage = deferUsage(loginUser, "generateHtmlCodeStream", userMessage);
+                Flux<String> codeStream = codeStreamContinuator.withContinuation(
+                        aiCodeGeneratorService.generateHtmlCodeStream(userMessage, usage::charge), userMessage,
+                        CodeGenTypeEnum.HTML, partialOutput -> continueWith(usage, userMessage + partialOutput));
+                yield processCodeStream(meter(codeStream, usage), CodeGenTypeEnum.HTML, loginUser, postProcessStages);
             }
             case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE);
+                DeferredTokenUsage usage = deferUsage(loginUser, "generateMultiFileCodeStream", userMessage);
+                Flux<String> codeStream = codeStreamContinuator.withContinuation(
+                        aiCodeGeneratorService.generateMultiFileCodeStream(userMessage, usage::charge), userMessage,
+                        CodeGenTypeEnum.MULTI_FILE, partialOutput -> continueWith(usage, userMessage + partialOutput));
+                yield processCodeStream(meter(codeStream, usage), CodeGenTypeEnum.MULTI_FILE, loginUser,
+                        postProcessStages);
             }
             default -> {
                 String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
@@ -81,32 +376,96 @@ public class AiCodeGeneratorFacade {
         };
     }
 
+    /**
+     * 按片段累计输出 token，流结束、出错或取消时结算；命中缓存重放的片段不计入
+     */
+    private static Flux<String> meter(Flux<String> codeStream, DeferredTokenUsage usage) {
+        return codeStream.doOnNext(chunk -> usage.addOutputChunk()).doFinally(signal -> usage.settle());
+    }
+
+    /**
+     * 创建只在实际调用模型时扣费的用量，调用方先做不扣减的准入检查，额度已用完的用户命中缓存同样被拒绝
+     */
+    private DeferredTokenUsage deferUsage(User loginUser, String method, String userMessage) {
+        return new DeferredTokenUsage(() -> tokenBudgetService.acquire(loginUser, method, userMessage));
+    }
+
+    /**
+     * 续写会再次调用模型：命中缓存后才发生的续写在此准入扣费，并计入续写请求的提示词
+     */
+    private static void continueWith(DeferredTokenUsage usage, String continuationPrompt) {
+        usage.charge();
+        usage.addPrompt(continuationPrompt);
+    }
+
     /**
      * 通用流式代码处理方法
+     * 代码片段到达即转交持久化阶段增量解析并写入暂存目录，不阻塞投递模型输出的线程；
+     * 流结束时在同一持久化工作者上收尾、刷盘并原子提交，提交成功后才发出 done 事件，提交失败则以错误结束。
+     * 启用后处理时，提交前按处理后的结果重写暂存目录；多文件输出续写后仍被截断时，只保留已完整输出的文件。
+     * 持久化留在生成流内部而不作为分发中心的订阅方，因为它必须收到每个片段，不能被断开或丢弃事件
      *
-     * @param codeStream  代码流
-     * @param codeGenType 代码生成类型
-     * @return 流式响应
-     */
-    private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType) {
-        StringBuilder codeBuilder = new StringBuilder();
-        return codeStream.doOnNext(chunk -> {
-            // 实时收集代码片段
-            codeBuilder.append(chunk);
-        }).doOnComplete(() -> {
-            // 流式返回完成后保存代码
-            try {
-                String completeCode = codeBuilder.toString();
-                // 使用执行器解析代码
-                Object parsedResult = CodeParserExecutor.executeParser(completeCode, codeGenType);
-                // 使用执行器保存代码
-                File savedDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenType);
-                log.info("保存成功，路径为：{}", savedDir.getAbsolutePath());
-            } catch (Exception e) {
-                log.error("保存失败: {}", e.getMessage());
-            }
+     * @param codeStream        代码流
+     * @param codeGenType       代码生成类型
+     * @param loginUser         发起用户，用于登记生成结果归属，可为空
+     * @param postProcessStages 保存前执行的后处理阶段，为 null 时执行默认阶段
+     * @return 生成事件流
+     */
+    private Flux<CodeGenEvent> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, User loginUser,
+                                                 Set<String> postProcessStages) {
+        return Flux.defer(() -> {
+            StreamingCodeFileSaveSession<?> saveSession = CodeFileSaverExecutor.openStreamingSaver(codeGenType);
+            StreamingParseSession<?> parseSession = CodeParserExecutor.openSession(codeGenType, saveSession);
+            PersistenceWorker persistenceWorker = codePersistenceStage.openWorker();
+            GenerationTrace trace = codeGenMetrics.start(codeGenType);
+            // 实时解析代码片段（增量写入暂存目录发生在解析回调中，计入解析耗时）
+            Flux<CodeGenEvent> chunks = codeStream
+                    .doOnNext(chunk -> {
+                        trace.onToken(chunk);
+                        persistenceWorker.execute(() -> trace.parse(() -> parseSession.feed(chunk)));
+                    })
+                    .map(CodeGenEvent::chunk);
+            // 流式返回完成后提交保存
+            Mono<CodeGenEvent> done = persistenceWorker.commit(() -> {
+                try {
+                    Object parsedResult;
+                    try {
+                        parsedResult = trace.parse(parseSession::complete);
+                    } catch (BusinessException e) {
+                        // 已闭合的文件在解析时已完整写入暂存目录，未闭合的文件不会写入，无需重写
+                        ProjectCodeResult salvaged = codeStreamContinuator.salvage(parseSession);
+                        if (salvaged == null) {
+                            throw e;
+                        }
+                        log.warn("多文件输出被截断，保留 {} 个完整文件", salvaged.getFiles().size());
+                        parsedResult = salvaged;
+                    }
+                    Object processed = postProcessPipeline.process(parsedResult, codeGenType, postProcessStages);
+                    if (processed != parsedResult) {
+                        trace.save(() -> saveSession.restage(processed));
+                    }
+                    File savedDir = trace.save(() -> saveSession.complete(processed));
+                    log.info("保存成功，路径为：{}", savedDir.getAbsolutePath());
+                    long sizeBytes = FileUtil.size(savedDir);
+                    // 启用段文件存储时导入存储，不再保留目录
+                    String generationId = codeSiteStore.isEnabled()
+                            ? trace.save(() -> codeSiteStore.importDirectory(savedDir))
+                            : savedDir.getName();
+                    codeOutputRetentionManager.register(generationId, getUserId(loginUser), sizeBytes);
+                    return CodeGenEvent.done(generationId);
+                } catch (Exception e) {
+                    saveSession.abort();
+                    throw e;
+                }
+            });
+            return chunks.concatWith(done).doOnError(e -> {
+                persistenceWorker.abort(saveSession::abort);
+                log.error("生成或保存失败: {}", e.getMessage());
+            }).doOnCancel(() -> persistenceWorker.abort(saveSession::abort)).doFinally(trace::finish);
         });
     }
 
+    private Long getUserId(User loginUser) {
+        return loginUser == null ? null : loginUser.getId();
+    }
 }
-
@@ -0,0 +1,71 @@
+package com.saki.sakiaicodetoolsbackend.core.budget;
+
+import java.util.function.Supplier;
+
+/**
+ * 延迟扣费的 token 用量
+ * <p>只有实际调用模型（缓存未命中、续写）时才调用 {@link #charge()} 准入扣费，此后的用量记入扣费得到的记录；
+ * 命中缓存的重放不会触发扣费，期间累计的用量全部忽略。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-19
+ */
+public class DeferredTokenUsage {
+
+    private final Supplier<TokenUsageRecorder> acquirer;
+
+    private volatile TokenUsageRecorder recorder = TokenUsageRecorder.NONE;
+
+    private boolean charged;
+
+    /**
+     * @param acquirer 准入扣费，额度不足时抛出异常
+     */
+    public DeferredTokenUsage(Supplier<TokenUsageRecorder> acquirer) {
+        this.acquirer = acquirer;
+    }
+
+    /**
+     * 即将调用模型时准入扣费，重复调用只扣一次
+     *
+     * @throws com.saki.sakiaicodetoolsbackend.exception.BusinessException 额度不足时抛出
+     */
+    public synchronized void charge() {
+        if (!charged) {
+            recorder = acquirer.get();
+            charged = true;
+        }
+    }
+
+    /**
+     * 记录追加请求的提示词
+     *
+     * @param text 提示词文本
+     */
+    public void addPrompt(String text) {
+        recorder.addPrompt(text);
+    }
+
+    /**
+     * 记录一个流式输出片段
+     */
+    public void addOutputChunk() {
+        recorder.addOutputChunk();
+    }
+
+    /**
+     * 记录一段同步输出
+     *
+     * @param text 输出文本
+     */
+    public void addOutput(String text) {
+        recorder.addOutput(text);
+    }
+
+    /**
+     * 结算累计的用量，未扣费时不结算
+     */
+    public void settle() {
+        recorder.settle();
+    }
+}
@@ -0,0 +1,93 @@
+package com.saki.sakiaicodetoolsbackend.core.budget;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * 单次生成的 token 用量记录
+ * <p>准入时已扣除首次请求的提示词 token，这里只累计之后产生的用量：续写等追加请求的提示词，以及模型输出。
+ * 流式输出按片段计数，OpenAI 兼容接口基本一个片段对应一个 token；同步输出按文本估算。
+ * 生成结束（成功、失败或取消）时调用 {@link #settle()} 一次性结算，重复调用只结算一次。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-19
+ */
+public class TokenUsageRecorder {
+
+    /**
+     * 不记录用量，未启用预算时使用
+     */
+    public static final TokenUsageRecorder NONE = new TokenUsageRecorder(text -> 0, (promptTokens, outputTokens) -> {
+    });
+
+    private final ToIntFunction<String> tokenEstimator;
+
+    private final TokenSettler settler;
+
+    private final AtomicLong promptTokens = new AtomicLong();
+
+    private final AtomicLong outputTokens = new AtomicLong();
+
+    private final AtomicBoolean settled = new AtomicBoolean();
+
+    public TokenUsageRecorder(ToIntFunction<String> tokenEstimator, TokenSettler settler) {
+        this.tokenEstimator = tokenEstimator;
+        this.settler = settler;
+    }
+
+    /**
+     * 记录追加请求的提示词
+     *
+     * @param text 提示词文本
+     */
+    public void addPrompt(String text) {
+        if (this != NONE) {
+            promptTokens.addAndGet(tokenEstimator.applyAsInt(text));
+        }
+    }
+
+    /**
+     * 记录一个流式输出片段
+     */
+    public void addOutputChunk() {
+        if (this != NONE) {
+            outputTokens.incrementAndGet();
+        }
+    }
+
+    /**
+     * 记录一段同步输出
+     *
+     * @param text 输出文本
+     */
+    public void addOutput(String text) {
+        if (this != NONE && text != null) {
+            outputTokens.addAndGet(tokenEstimator.applyAsInt(text));
+        }
+    }
+
+    /**
+     * 结算累计的用量
+     */
+    public void settle() {
+        if (settled.compareAndSet(false, true) && (promptTokens.get() > 0 || outputTokens.get() > 0)) {
+            settler.settle(promptTokens.get(), outputTokens.get());
+        }
+    }
+
+    /**
+     * 用量结算
+     */
+    @FunctionalInterface
+    public interface TokenSettler {
+
+        /**
+         * 扣除用量
+         *
+         * @param promptTokens 追加的提示词 token
+         * @param outputTokens 输出 token
+         */
+        void settle(long promptTokens, long outputTokens);
+    }
+}
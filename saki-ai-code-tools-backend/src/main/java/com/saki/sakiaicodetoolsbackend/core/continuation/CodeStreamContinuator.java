@@ -0,0 +1,219 @@
+package com.saki.sakiaicodetoolsbackend.core.continuation;
+
+import com.saki.sakiaicodetoolsbackend.ai.AiCodeContinuationService;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodeContinuationProperties;
+import com.saki.sakiaicodetoolsbackend.core.metrics.CodeGenMetrics;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeParserExecutor;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import dev.langchain4j.model.output.FinishReason;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 代码流续写器
+ * <p>代码流结束时检查输出是否被截断，截断则携带已输出的内容发起续写，续写片段接在原代码流之后，
+ * 下游看到的仍是一条连续的代码流。续写开头重复了已输出内容的末尾时去掉重复部分。
+ * 首段输出经 AiServices 返回，拿不到结束原因，结构未闭合即续写；续写段同时参考结束原因：
+ * 因长度结束且结构未闭合时继续续写，正常结束但结构仍未闭合说明模型认为已写完，再续写也无济于事，直接放弃。</p>
+ * <p>续写次数用尽或续写请求失败时代码流照常结束，由保存阶段调用 {@link #salvage} 保留已完整输出的文件：
+ * 流式生成从解析会话中取出已闭合的文件，不另存一份原始输出。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-18
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CodeStreamContinuator {
+
+    /**
+     * 续写开头最多缓冲这么多字符用于去重
+     */
+    static final int OVERLAP_WINDOW = 512;
+
+    /**
+     * 重复部分至少这么长才去掉，避免误删恰好相同的短片段
+     */
+    static final int MIN_OVERLAP = 8;
+
+    private static final String ACTION_CONTINUED = "continued";
+
+    private static final String ACTION_EXHAUSTED = "exhausted";
+
+    private static final String ACTION_FAILED = "failed";
+
+    private static final String ACTION_ABANDONED = "abandoned";
+
+    private static final String ACTION_REPAIRED = "repaired";
+
+    private final AiCodeContinuationService aiCodeContinuationService;
+
+    private final CodeContinuationProperties continuationProperties;
+
+    private final CodeGenMetrics codeGenMetrics;
+
+    /**
+     * 为代码流接上截断续写
+     *
+     * @param codeStream  模型输出的代码流
+     * @param userMessage 原始用户提示词
+     * @param codeGenType 生成类型
+     * @return 截断时自动续写的代码流
+     */
+    public Flux<String> withContinuation(Flux<String> codeStream, String userMessage, CodeGenTypeEnum codeGenType) {
+        return withContinuation(codeStream, userMessage, codeGenType, partialOutput -> {
+        });
+    }
+
+    /**
+     * 为代码流接上截断续写，每次发起续写前回调
+     *
+     * @param codeStream     模型输出的代码流
+     * @param userMessage    原始用户提示词
+     * @param codeGenType    生成类型
+     * @param onContinuation 发起续写前的回调，参数为续写请求携带的已输出内容，可用于计入额外的提示词 token
+     * @return 截断时自动续写的代码流
+     */
+    public Flux<String> withContinuation(Flux<String> codeStream, String userMessage, CodeGenTypeEnum codeGenType,
+                                         Consumer<String> onContinuation) {
+        if (!continuationProperties.isEnabled() || continuationProperties.getMaxContinuations() <= 0) {
+            return codeStream;
+        }
+        return Flux.defer(() -> continueIfTruncated(codeStream, new StringBuilder(), userMessage, codeGenType, 0,
+                new AtomicReference<>(), onContinuation));
+    }
+
+    private Flux<String> continueIfTruncated(Flux<String> segment, StringBuilder output, String userMessage,
+                                             CodeGenTypeEnum codeGenType, int round,
+                                             AtomicReference<FinishReason> finishReason,
+                                             Consumer<String> onContinuation) {
+        return segment.doOnNext(output::append).concatWith(Flux.defer(() -> {
+            StructureStateEnum state = TruncationDetector.inspect(output);
+            FinishReason reason = finishReason.get();
+            if (state == StructureStateEnum.COMPLETE
+                    || (state == StructureStateEnum.UNKNOWN && reason != FinishReason.LENGTH)) {
+                return Flux.empty();
+            }
+            if (reason != null && reason != FinishReason.LENGTH) {
+                log.warn("续写已正常结束但输出结构仍未闭合（结束原因 {}），不再续写", reason);
+                codeGenMetrics.recordTruncation(codeGenType, ACTION_ABANDONED);
+                return Flux.empty();
+            }
+            if (round >= continuationProperties.getMaxContinuations()) {
+                log.warn("代码输出续写 {} 次后仍被截断，不再续写", round);
+                codeGenMetrics.recordTruncation(codeGenType, ACTION_EXHAUSTED);
+                return Flux.empty();
+            }
+            log.info("代码输出被截断（已输出 {} 个字符），发起第 {} 次续写", output.length(), round + 1);
+            codeGenMetrics.recordTruncation(codeGenType, ACTION_CONTINUED);
+            String partialOutput = output.toString();
+            AtomicReference<FinishReason> nextFinishReason = new AtomicReference<>();
+            onContinuation.accept(partialOutput);
+            Flux<String> continuation = trimOverlap(aiCodeContinuationService.continueCode(codeGenType, userMessage,
+                    partialOutput, nextFinishReason::set), partialOutput)
+                    .onErrorResume(e -> {
+                        log.warn("续写请求失败，保留已输出的内容: {}", e.getMessage());
+                        codeGenMetrics.recordTruncation(codeGenType, ACTION_FAILED);
+                        return Flux.empty();
+                    });
+            return continueIfTruncated(continuation, output, userMessage, codeGenType, round + 1, nextFinishReason,
+                    onContinuation);
+        }));
+    }
+
+    /**
+     * 从被截断的多文件输出中保留已完整输出的文件
+     *
+     * @param rawOutput 模型的完整原始输出
+     * @return 只含完整文件的结果；未启用修复、输出并非被截断或没有完整文件时返回 null
+     */
+    public ProjectCodeResult salvage(CharSequence rawOutput) {
+        if (!continuationProperties.isRepairEnabled()
+                || TruncationDetector.inspect(rawOutput) != StructureStateEnum.UNCLOSED) {
+            return null;
+        }
+        String repaired = JsonRepair.repair(rawOutput);
+        if (repaired == null) {
+            return null;
+        }
+        ProjectCodeResult result;
+        try {
+            result = (ProjectCodeResult) CodeParserExecutor.executeParser(repaired, CodeGenTypeEnum.MULTI_FILE);
+        } catch (BusinessException e) {
+            log.warn("截断输出修复后仍无法解析: {}", e.getMessage());
+            return null;
+        }
+        if (result.getFiles().isEmpty()) {
+            return null;
+        }
+        codeGenMetrics.recordTruncation(CodeGenTypeEnum.MULTI_FILE, ACTION_REPAIRED);
+        return result;
+    }
+
+    /**
+     * 从解析失败的流式解析会话中保留已完整输出的文件
+     *
+     * @param parseSession complete 已抛出异常的解析会话
+     * @return 只含完整文件的结果；未启用修复、输出并非被截断或没有完整文件时返回 null
+     */
+    public ProjectCodeResult salvage(StreamingParseSession<?> parseSession) {
+        if (!continuationProperties.isRepairEnabled()
+                || !(parseSession.salvage() instanceof ProjectCodeResult result)) {
+            return null;
+        }
+        codeGenMetrics.recordTruncation(CodeGenTypeEnum.MULTI_FILE, ACTION_REPAIRED);
+        return result;
+    }
+
+    /**
+     * 去掉续写开头与已输出内容末尾重复的部分
+     */
+    private static Flux<String> trimOverlap(Flux<String> continuation, String partialOutput) {
+        return Flux.defer(() -> {
+            StringBuilder head = new StringBuilder();
+            AtomicBoolean trimmed = new AtomicBoolean();
+            return continuation.<String>handle((chunk, sink) -> {
+                if (trimmed.get()) {
+                    sink.next(chunk);
+                    return;
+                }
+                head.append(chunk);
+                if (head.length() >= OVERLAP_WINDOW) {
+                    trimmed.set(true);
+                    sink.next(head.substring(overlapLength(partialOutput, head)));
+                }
+            }).concatWith(Flux.defer(() -> {
+                if (trimmed.get() || head.isEmpty()) {
+                    return Flux.empty();
+                }
+                return Flux.just(head.substring(overlapLength(partialOutput, head)));
+            })).filter(chunk -> !chunk.isEmpty());
+        });
+    }
+
+    /**
+     * 已输出内容的末尾与续写开头的最长重复长度
+     *
+     * @return 重复长度，短于 {@link #MIN_OVERLAP} 时为 0
+     */
+    static int overlapLength(CharSequence partialOutput, CharSequence head) {
+        int max = Math.min(Math.min(partialOutput.length(), head.length()), OVERLAP_WINDOW);
+        String tail = partialOutput.subSequence(partialOutput.length() - max, partialOutput.length()).toString();
+        String prefix = head.subSequence(0, max).toString();
+        for (int length = max; length >= MIN_OVERLAP; length--) {
+            if (tail.regionMatches(max - length, prefix, 0, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,127 @@
+package com.saki.sakiaicodetoolsbackend.core.continuation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 截断 JSON 修复
+ * <p>只保留完整的值：在最内层未闭合的数组中截到最后一个完整元素之后（多文件输出中即最后一个完整的文件对象），
+ * 没有未闭合的数组时在根对象中截到最后一个完整成员之后，再依次补上未闭合的括号。
+ * 被截断的元素整体丢弃，不会产出内容只写了一半的文件。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-18
+ */
+public final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * 修复被截断的 JSON
+     *
+     * @param json 可能被截断的 JSON 文本
+     * @return 修复后的 JSON；已经完整时返回根容器部分；不是 JSON 时返回 null
+     */
+    public static String repair(CharSequence json) {
+        int start = 0;
+        while (start < json.length() && Character.isWhitespace(json.charAt(start))) {
+            start++;
+        }
+        if (start == json.length() || (json.charAt(start) != '{' && json.charAt(start) != '[')) {
+            return null;
+        }
+        Deque<Container> stack = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+        boolean stringIsKey = false;
+        boolean inLiteral = false;
+        for (int i = start; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (!stringIsKey) {
+                        stack.peek().lastCompleteEnd = i + 1;
+                    }
+                }
+                continue;
+            }
+            if (inLiteral) {
+                if (",}] \t\r\n".indexOf(c) < 0) {
+                    continue;
+                }
+                inLiteral = false;
+                stack.peek().lastCompleteEnd = i;
+            }
+            switch (c) {
+                case '{', '[' -> stack.push(new Container(c == '{', i + 1));
+                case '}', ']' -> {
+                    stack.pop();
+                    if (stack.isEmpty()) {
+                        return json.subSequence(start, i + 1).toString();
+                    }
+                    stack.peek().lastCompleteEnd = i + 1;
+                }
+                case '"' -> {
+                    inString = true;
+                    stringIsKey = stack.peek().object && stack.peek().expectKey;
+                }
+                case ':' -> stack.peek().expectKey = false;
+                case ',' -> stack.peek().expectKey = stack.peek().object;
+                default -> inLiteral = !Character.isWhitespace(c);
+            }
+        }
+        return close(json, start, stack);
+    }
+
+    /**
+     * 在目标容器的最后一个完整值之后截断，并闭合目标容器及其外层容器
+     */
+    private static String close(CharSequence json, int start, Deque<Container> stack) {
+        Container target = stack.getLast();
+        for (Container container : stack) {
+            if (!container.object) {
+                target = container;
+                break;
+            }
+        }
+        StringBuilder repaired = new StringBuilder(json.subSequence(start, target.lastCompleteEnd));
+        boolean closing = false;
+        for (Container container : stack) {
+            closing |= container == target;
+            if (closing) {
+                repaired.append(container.object ? '}' : ']');
+            }
+        }
+        return repaired.toString();
+    }
+
+    /**
+     * 未闭合的容器
+     */
+    private static final class Container {
+
+        private final boolean object;
+
+        /**
+         * 最后一个完整子值之后的位置，没有完整子值时为左括号之后
+         */
+        private int lastCompleteEnd;
+
+        /**
+         * 对象中下一个字符串是否为键
+         */
+        private boolean expectKey;
+
+        private Container(boolean object, int lastCompleteEnd) {
+            this.object = object;
+            this.lastCompleteEnd = lastCompleteEnd;
+            this.expectKey = object;
+        }
+    }
+}
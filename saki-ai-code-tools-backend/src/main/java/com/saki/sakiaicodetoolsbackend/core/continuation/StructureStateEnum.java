@@ -0,0 +1,25 @@
+package com.saki.sakiaicodetoolsbackend.core.continuation;
+
+import lombok.Getter;
+
+/**
+ * 模型输出的结构状态枚举
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-18
+ */
+@Getter
+public enum StructureStateEnum {
+
+    COMPLETE("结构完整", "complete"),
+    UNCLOSED("结构未闭合", "unclosed"),
+    UNKNOWN("无法判断", "unknown");
+
+    private final String text;
+    private final String value;
+
+    StructureStateEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
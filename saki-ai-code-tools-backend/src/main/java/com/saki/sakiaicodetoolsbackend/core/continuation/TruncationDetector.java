@@ -0,0 +1,87 @@
+package com.saki.sakiaicodetoolsbackend.core.continuation;
+
+import cn.hutool.core.util.StrUtil;
+
+/**
+ * 截断检测
+ * <p>在输出结束时检查结构是否闭合：以 { 或 [ 开头的按 JSON 检查括号与字符串是否闭合；
+ * 否则按 ```html 代码块检查结束标记，没有代码块时检查 &lt;/html&gt;。按长度截断的输出必然停在结构中间，
+ * 因此结构未闭合即视为截断；纯文本等无法判断的输出交给结束原因决定。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-18
+ */
+public final class TruncationDetector {
+
+    private static final String FENCE = "```";
+
+    private TruncationDetector() {
+    }
+
+    /**
+     * 检查输出的结构状态
+     *
+     * @param output 模型到目前为止的完整输出
+     * @return 结构状态
+     */
+    public static StructureStateEnum inspect(CharSequence output) {
+        int start = 0;
+        while (start < output.length() && Character.isWhitespace(output.charAt(start))) {
+            start++;
+        }
+        if (start == output.length()) {
+            return StructureStateEnum.UNKNOWN;
+        }
+        char first = output.charAt(start);
+        if (first == '{' || first == '[') {
+            return inspectJson(output, start);
+        }
+        int open = StrUtil.indexOfIgnoreCase(output, FENCE + "html", start);
+        if (open < 0) {
+            open = StrUtil.indexOf(output, FENCE, start, false);
+        }
+        if (open >= 0) {
+            int close = StrUtil.indexOf(output, FENCE, open + FENCE.length(), false);
+            return close < 0 ? StructureStateEnum.UNCLOSED : StructureStateEnum.COMPLETE;
+        }
+        if (StrUtil.indexOfIgnoreCase(output, "<html", start) >= 0) {
+            return StrUtil.indexOfIgnoreCase(output, "</html>", start) < 0
+                    ? StructureStateEnum.UNCLOSED : StructureStateEnum.COMPLETE;
+        }
+        return StructureStateEnum.UNKNOWN;
+    }
+
+    /**
+     * 根容器闭合即视为完整，其后的内容不影响判断
+     */
+    private static StructureStateEnum inspectJson(CharSequence json, int start) {
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = start; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> depth++;
+                case '}', ']' -> {
+                    if (--depth == 0) {
+                        return StructureStateEnum.COMPLETE;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return StructureStateEnum.UNCLOSED;
+    }
+}
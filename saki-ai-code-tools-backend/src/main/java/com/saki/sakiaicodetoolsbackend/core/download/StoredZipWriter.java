@@ -0,0 +1,265 @@
+package com.saki.sakiaicodetoolsbackend.core.download;
+
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 仅存储（STORED，不压缩）的 ZIP 流式写出器
+ * <p>生成的站点以文本为主且体积很小，不压缩换来两点：条目数据可以原样从文件通道
+ * {@link FileChannel#transferTo} 到输出通道，不经过 Deflater；压缩包总长度在写出前即可算出，
+ * 可以设置 Content-Length。写出过程只使用固定大小的头部缓冲区，不在内存或临时文件中生成整个压缩包。</p>
+ * <p>CRC 需要写在本地文件头中，因此文件条目在写出前先以固定缓冲区读取一遍计算 CRC，
+ * 第二遍读取通常直接命中页缓存。不支持 ZIP64，总长度或条目数超出限制时拒绝写出。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+public final class StoredZipWriter {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int CENTRAL_HEADER_SIZE = 46;
+
+    private static final int END_RECORD_SIZE = 22;
+
+    /**
+     * 版本 2.0，UTF-8 文件名标志（bit 11）
+     */
+    private static final int VERSION = 20;
+
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final long MAX_ZIP32 = 0xFFFFFFFFL;
+
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private StoredZipWriter() {
+    }
+
+    /**
+     * 以磁盘文件创建条目，计算 CRC
+     *
+     * @param name 压缩包内路径
+     * @param file 文件
+     * @return 条目
+     * @throws IOException 读取失败
+     */
+    public static Entry ofFile(String name, Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                size += buffer.remaining();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return new Entry(name, size, crc.getValue(), target -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = 0;
+                long length = channel.size();
+                while (position < length) {
+                    position += channel.transferTo(position, length - position, target);
+                }
+            }
+        });
+    }
+
+    /**
+     * 以内存或映射缓冲区创建条目（如段文件存储中的文件切片），不复制内容
+     *
+     * @param name    压缩包内路径
+     * @param content 文件内容
+     * @return 条目
+     */
+    public static Entry ofBuffer(String name, ByteBuffer content) {
+        CRC32 crc = new CRC32();
+        crc.update(content.duplicate());
+        return new Entry(name, content.remaining(), crc.getValue(), target -> {
+            ByteBuffer source = content.duplicate();
+            while (source.hasRemaining()) {
+                target.write(source);
+            }
+        });
+    }
+
+    /**
+     * 计算压缩包总字节数
+     *
+     * @param entries 条目
+     * @return 总字节数
+     */
+    public static long contentLength(List<Entry> entries) {
+        long length = END_RECORD_SIZE;
+        for (Entry entry : entries) {
+            length += LOCAL_HEADER_SIZE + CENTRAL_HEADER_SIZE + 2L * entry.nameBytes.length + entry.size;
+        }
+        return length;
+    }
+
+    /**
+     * 写出压缩包
+     *
+     * @param entries 条目
+     * @param out     输出流，由调用方关闭
+     * @throws IOException 写出失败（如客户端断开）
+     */
+    public static void write(List<Entry> entries, OutputStream out) throws IOException {
+        ThrowUtils.throwIf(entries.size() > MAX_ENTRIES, ErrorCode.OPERATION_NOT_ALLOWED, "文件数量过多，无法打包");
+        ThrowUtils.throwIf(contentLength(entries) > MAX_ZIP32, ErrorCode.OPERATION_NOT_ALLOWED, "文件过大，无法打包");
+        WritableByteChannel channel = Channels.newChannel(out);
+        ByteBuffer header = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int dosTime = toDosTime(LocalDateTime.now());
+        long[] offsets = new long[entries.size()];
+        long offset = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            offsets[i] = offset;
+            header.clear();
+            header.putInt(LOCAL_HEADER_SIGNATURE)
+                    .putShort((short) VERSION)
+                    .putShort((short) FLAG_UTF8)
+                    // 压缩方法 0：STORED
+                    .putShort((short) 0)
+                    .putInt(dosTime)
+                    .putInt((int) entry.crc)
+                    .putInt((int) entry.size)
+                    .putInt((int) entry.size)
+                    .putShort((short) entry.nameBytes.length)
+                    .putShort((short) 0);
+            writeHeader(channel, header, entry.nameBytes);
+            entry.content.writeTo(channel);
+            offset += LOCAL_HEADER_SIZE + entry.nameBytes.length + entry.size;
+        }
+        long centralOffset = offset;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            header.clear();
+            header.putInt(CENTRAL_HEADER_SIGNATURE)
+                    .putShort((short) VERSION)
+                    .putShort((short) VERSION)
+                    .putShort((short) FLAG_UTF8)
+                    .putShort((short) 0)
+                    .putInt(dosTime)
+                    .putInt((int) entry.crc)
+                    .putInt((int) entry.size)
+                    .putInt((int) entry.size)
+                    .putShort((short) entry.nameBytes.length)
+                    // 扩展字段、注释长度、磁盘号、内部属性、外部属性
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) offsets[i]);
+            writeHeader(channel, header, entry.nameBytes);
+            offset += CENTRAL_HEADER_SIZE + entry.nameBytes.length;
+        }
+        header.clear();
+        header.putInt(END_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) entries.size())
+                .putShort((short) entries.size())
+                .putInt((int) (offset - centralOffset))
+                .putInt((int) centralOffset)
+                .putShort((short) 0);
+        writeHeader(channel, header, new byte[0]);
+        out.flush();
+    }
+
+    /**
+     * 写出头部；文件名超出缓冲区剩余空间时分两次写出
+     */
+    private static void writeHeader(WritableByteChannel channel, ByteBuffer header, byte[] nameBytes)
+            throws IOException {
+        if (nameBytes.length <= header.remaining()) {
+            header.put(nameBytes);
+            nameBytes = new byte[0];
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        ByteBuffer name = ByteBuffer.wrap(nameBytes);
+        while (name.hasRemaining()) {
+            channel.write(name);
+        }
+    }
+
+    private static int toDosTime(LocalDateTime time) {
+        int year = Math.max(1980, time.getYear());
+        return (year - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+
+    /**
+     * 条目内容写出方式
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * 将条目内容写入目标通道
+         *
+         * @param target 目标通道
+         * @throws IOException 写出失败
+         */
+        void writeTo(WritableByteChannel target) throws IOException;
+    }
+
+    /**
+     * 压缩包条目
+     */
+    @Getter
+    public static final class Entry {
+
+        private final String name;
+
+        private final byte[] nameBytes;
+
+        private final long size;
+
+        private final long crc;
+
+        private final ContentWriter content;
+
+        private Entry(String name, long size, long crc, ContentWriter content) {
+            ThrowUtils.throwIf(size > MAX_ZIP32, ErrorCode.OPERATION_NOT_ALLOWED, "文件过大，无法打包");
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.size = size;
+            this.crc = crc;
+            this.content = content;
+        }
+    }
+}
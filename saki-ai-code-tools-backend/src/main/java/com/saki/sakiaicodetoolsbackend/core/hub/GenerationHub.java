@@ -0,0 +1,186 @@
+package com.saki.sakiaicodetoolsbackend.core.hub;
+
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.Queues;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 生成流分发中心
+ * <p>把一个进行中的生成流分发给多个订阅方（发起请求的客户端、续传的客户端、凭分享令牌旁观同一生成的协作者）。
+ * 发布只是把事件放入每个订阅方各自的有界缓冲区，订阅方在自己的调度线程上取出并写出，
+ * 写出慢的订阅方不会阻塞发布方（即模型输出），也不影响其他订阅方。</p>
+ * <p>订阅方缓冲区满时按 {@link OverflowPolicy} 处理：</p>
+ * <ul>
+ *   <li>DISCONNECT：以 {@link ErrorCode#CONSUMER_TOO_SLOW} 断开该订阅方，客户端可按最后收到的事件续传</li>
+ *   <li>DROP：丢弃该订阅方收不下的事件，订阅方通过序号不连续感知丢失</li>
+ * </ul>
+ * <p>中心保留最近 historySize 个事件，新订阅方先收到其中满足条件的事件，再接着收到实时事件，两者之间不会遗漏。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+public class GenerationHub<T> {
+
+    /**
+     * 订阅方每次从缓冲区取出的事件数
+     */
+    private static final int PREFETCH = 32;
+
+    private final int historySize;
+
+    private final int bufferSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Scheduler scheduler;
+
+    private final ArrayDeque<T> history = new ArrayDeque<>();
+
+    private final List<Sinks.Many<T>> subscribers = new ArrayList<>();
+
+    private boolean terminated;
+
+    private Throwable error;
+
+    private long dropped;
+
+    public GenerationHub(int historySize, int bufferSize, OverflowPolicy overflowPolicy, Scheduler scheduler) {
+        this.historySize = Math.max(0, historySize);
+        this.bufferSize = Math.max(1, bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 发布事件，不会因订阅方阻塞
+     *
+     * @param item 事件
+     */
+    public synchronized void publish(T item) {
+        if (terminated) {
+            return;
+        }
+        if (historySize > 0) {
+            if (history.size() == historySize) {
+                history.pollFirst();
+            }
+            history.addLast(item);
+        }
+        // 发布可能同步触发订阅方取消并从列表移除，遍历快照
+        for (Sinks.Many<T> subscriber : List.copyOf(subscribers)) {
+            Sinks.EmitResult result = subscriber.tryEmitNext(item);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    dropped++;
+                    continue;
+                }
+                subscribers.remove(subscriber);
+                subscriber.tryEmitError(new BusinessException(ErrorCode.CONSUMER_TOO_SLOW, "接收速度过慢，连接已断开，请续传"));
+            } else if (result.isFailure()) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    /**
+     * 正常结束，所有订阅方取完缓冲区后结束
+     */
+    public synchronized void complete() {
+        terminate(null);
+    }
+
+    /**
+     * 以错误结束，所有订阅方取完缓冲区后收到该错误
+     *
+     * @param e 错误
+     */
+    public synchronized void error(Throwable e) {
+        terminate(e);
+    }
+
+    /**
+     * 订阅：先收到保留事件中满足条件的部分，再收到实时事件；已结束时收到保留事件后随之结束
+     *
+     * @param replayFilter 保留事件的筛选条件
+     * @return 事件流
+     */
+    public Flux<T> subscribe(Predicate<? super T> replayFilter) {
+        return Flux.defer(() -> {
+            Sinks.Many<T> subscriber;
+            synchronized (this) {
+                List<T> replay = history.stream().filter(replayFilter).toList();
+                subscriber = Sinks.many().unicast()
+                        .onBackpressureBuffer(Queues.<T>get(replay.size() + bufferSize).get());
+                replay.forEach(subscriber::tryEmitNext);
+                if (terminated) {
+                    emitTerminal(subscriber);
+                } else {
+                    subscribers.add(subscriber);
+                }
+            }
+            return subscriber.asFlux()
+                    .publishOn(scheduler, PREFETCH)
+                    .doFinally(signal -> remove(subscriber));
+        });
+    }
+
+    public synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * DROP 策略下累计丢弃的事件数（按订阅方累加）
+     *
+     * @return 丢弃数
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    private synchronized void remove(Sinks.Many<T> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private void terminate(Throwable e) {
+        if (terminated) {
+            return;
+        }
+        terminated = true;
+        error = e;
+        List<Sinks.Many<T>> remaining = List.copyOf(subscribers);
+        subscribers.clear();
+        remaining.forEach(this::emitTerminal);
+    }
+
+    private void emitTerminal(Sinks.Many<T> subscriber) {
+        if (error != null) {
+            subscriber.tryEmitError(error);
+        } else {
+            subscriber.tryEmitComplete();
+        }
+    }
+
+    /**
+     * 订阅方缓冲区满时的处理策略
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * 断开订阅方
+         */
+        DISCONNECT,
+
+        /**
+         * 丢弃订阅方收不下的事件
+         */
+        DROP
+    }
+}
@@ -0,0 +1,91 @@
+package com.saki.sakiaicodetoolsbackend.core.metrics;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码生成指标
+ * <p>为每次真正调用模型的生成创建一个 {@link GenerationTrace}，记录首片段耗时、片段间隔、
+ * 吞吐、总耗时、产出字节数以及解析与保存耗时，按 生成类型、模型名称、结果 打标签，
+ * 通过 actuator 的 /actuator/prometheus 暴露。</p>
+ * <p>流式接口按片段推送，OpenAI 兼容接口基本一个片段对应一个 token，这里以片段数近似 token 数。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-10
+ */
+@Component
+public class CodeGenMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+
+    public static final String OUTCOME_ERROR = "error";
+
+    public static final String OUTCOME_CANCELLED = "cancelled";
+
+    private final MeterRegistry meterRegistry;
+
+    private final String modelName;
+
+    public CodeGenMetrics(MeterRegistry meterRegistry,
+                          @Value("${langchain4j.open-ai.streaming-chat-model.model-name:unknown}") String modelName) {
+        this.meterRegistry = meterRegistry;
+        this.modelName = modelName;
+    }
+
+    /**
+     * 开始记录一次生成
+     *
+     * @param codeGenType 生成类型
+     * @return 生成记录
+     */
+    public GenerationTrace start(CodeGenTypeEnum codeGenType) {
+        Tags tags = Tags.of("codeGenType", codeGenType.getValue(), "model", modelName);
+        // 片段间隔逐个记录，结果未知，只按类型与模型打标签
+        Timer gapTimer = Timer.builder("ai.codegen.token.gap")
+                .description("相邻两个片段的到达间隔")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        return new GenerationTrace(this, tags, gapTimer);
+    }
+
+    /**
+     * 记录一次输出截断的处理
+     *
+     * @param codeGenType 生成类型
+     * @param action      处理方式：continued 发起续写、exhausted 续写次数用尽、failed 续写请求失败、
+     *                    abandoned 续写正常结束但仍未闭合、repaired 修复后保存
+     */
+    public void recordTruncation(CodeGenTypeEnum codeGenType, String action) {
+        Counter.builder("ai.codegen.truncation")
+                .description("输出被截断后的处理次数")
+                .tags("codeGenType", codeGenType.getValue(), "model", modelName, "action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    void recordTimer(String name, Tags tags, long nanos) {
+        Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordSummary(String name, String baseUnit, Tags tags, double amount) {
+        DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(amount);
+    }
+}
@@ -0,0 +1,161 @@
+package com.saki.sakiaicodetoolsbackend.core.metrics;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 单次生成的指标记录
+ * <p>片段回调只在投递模型输出的线程上串行调用；解析与保存耗时可能在持久化线程上累加，使用原子变量。
+ * 结束时一次性按结果打标签上报，重复结束只生效一次。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-10
+ */
+public class GenerationTrace {
+
+    private final CodeGenMetrics metrics;
+
+    private final Tags tags;
+
+    private final Timer gapTimer;
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong parseNanos = new AtomicLong();
+
+    private final AtomicLong saveNanos = new AtomicLong();
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private volatile long firstTokenNanos;
+
+    private volatile long lastTokenNanos;
+
+    private volatile long tokens;
+
+    private volatile long bytes;
+
+    GenerationTrace(CodeGenMetrics metrics, Tags tags, Timer gapTimer) {
+        this.metrics = metrics;
+        this.tags = tags;
+        this.gapTimer = gapTimer;
+    }
+
+    /**
+     * 记录收到一个片段
+     *
+     * @param chunk 片段内容
+     */
+    public void onToken(String chunk) {
+        long now = System.nanoTime();
+        if (tokens == 0) {
+            firstTokenNanos = now;
+        } else {
+            gapTimer.record(now - lastTokenNanos, TimeUnit.NANOSECONDS);
+        }
+        lastTokenNanos = now;
+        tokens++;
+        bytes += utf8Length(chunk);
+    }
+
+    /**
+     * 计时执行解析操作
+     */
+    public <T> T parse(Supplier<T> action) {
+        return timed(parseNanos, action);
+    }
+
+    /**
+     * 计时执行解析操作
+     */
+    public void parse(Runnable action) {
+        timed(parseNanos, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 计时执行保存操作
+     */
+    public <T> T save(Supplier<T> action) {
+        return timed(saveNanos, action);
+    }
+
+    /**
+     * 按 Reactor 终止信号结束记录
+     *
+     * @param signal 终止信号
+     */
+    public void finish(SignalType signal) {
+        finish(switch (signal) {
+            case ON_COMPLETE -> CodeGenMetrics.OUTCOME_SUCCESS;
+            case ON_ERROR -> CodeGenMetrics.OUTCOME_ERROR;
+            default -> CodeGenMetrics.OUTCOME_CANCELLED;
+        });
+    }
+
+    /**
+     * 结束记录并上报
+     *
+     * @param outcome 结果：success / error / cancelled
+     */
+    public void finish(String outcome) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        Tags outcomeTags = tags.and("outcome", outcome);
+        metrics.recordTimer("ai.codegen.stream.duration", outcomeTags, System.nanoTime() - startNanos);
+        metrics.recordTimer("ai.codegen.parse", outcomeTags, parseNanos.get());
+        metrics.recordTimer("ai.codegen.save", outcomeTags, saveNanos.get());
+        if (tokens == 0) {
+            return;
+        }
+        metrics.recordTimer("ai.codegen.ttft", outcomeTags, firstTokenNanos - startNanos);
+        metrics.recordSummary("ai.codegen.tokens", "tokens", outcomeTags, tokens);
+        metrics.recordSummary("ai.codegen.bytes", "bytes", outcomeTags, bytes);
+        long generatingNanos = lastTokenNanos - firstTokenNanos;
+        if (tokens > 1 && generatingNanos > 0) {
+            // 吞吐只统计首片段之后的生成阶段，排队与首片段等待体现在 ttft 中
+            metrics.recordSummary("ai.codegen.tokens.per.second", "tokens/s", outcomeTags,
+                    (tokens - 1) * 1e9 / generatingNanos);
+        }
+    }
+
+    private <T> T timed(AtomicLong accumulator, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            accumulator.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 不分配内存地计算 UTF-8 编码长度
+     */
+    static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,29 @@
+package com.saki.sakiaicodetoolsbackend.core.parser;
+
+/**
+ * 缓冲解析会话
+ * 适配不支持流式解析的解析器：收集全部片段，结束时一次性解析
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-05
+ */
+public class BufferedParseSession<T> implements StreamingParseSession<T> {
+
+    private final CodeParser<T> codeParser;
+
+    private final StringBuilder codeBuilder = new StringBuilder();
+
+    public BufferedParseSession(CodeParser<T> codeParser) {
+        this.codeParser = codeParser;
+    }
+
+    @Override
+    public void feed(String chunk) {
+        codeBuilder.append(chunk);
+    }
+
+    @Override
+    public T complete() {
+        return codeParser.parseCode(codeBuilder.toString());
+    }
+}
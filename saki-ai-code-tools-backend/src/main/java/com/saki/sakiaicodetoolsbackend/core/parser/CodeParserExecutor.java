@@ -24,14 +24,46 @@ public class CodeParserExecutor {
      *
      * @param codeContent 代码内容
      * @param codeGenType 代码生成类型
-     * @return 解析结果（HtmlCodeResult 或 MultiFileCodeResult）
+     * @return 解析结果（HtmlCodeResult 或 ProjectCodeResult）
      */
     public static Object executeParser(String codeContent, CodeGenTypeEnum codeGenType) {
+        return getParser(codeGenType).parseCode(codeContent);
+    }
+
+    /**
+     * 开启解析会话（流式模式）
+     *
+     * @param codeGenType 代码生成类型
+     * @param listener    文件事件监听器
+     * @return 解析会话
+     */
+    public static StreamingParseSession<?> openSession(CodeGenTypeEnum codeGenType, CodeStreamListener listener) {
+        return openSession(codeGenType, ParseModeEnum.STREAMING, listener);
+    }
+
+    /**
+     * 开启解析会话
+     * 流式模式且解析器支持流式解析时边接收边解析，否则缓冲后一次性解析
+     *
+     * @param codeGenType 代码生成类型
+     * @param parseMode   解析模式
+     * @param listener    文件事件监听器
+     * @return 解析会话
+     */
+    public static StreamingParseSession<?> openSession(CodeGenTypeEnum codeGenType, ParseModeEnum parseMode,
+                                                       CodeStreamListener listener) {
+        CodeParser<?> parser = getParser(codeGenType);
+        if (parseMode == ParseModeEnum.STREAMING && parser instanceof StreamingCodeParser<?> streamingParser) {
+            return streamingParser.openSession(listener);
+        }
+        return new BufferedParseSession<>(parser);
+    }
+
+    private static CodeParser<?> getParser(CodeGenTypeEnum codeGenType) {
         return switch (codeGenType) {
-            case HTML -> htmlCodeParser.parseCode(codeContent);
-            case MULTI_FILE -> multiFileCodeParser.parseCode(codeContent);
+            case HTML -> htmlCodeParser;
+            case MULTI_FILE -> multiFileCodeParser;
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
 }
-
@@ -0,0 +1,42 @@
+package com.saki.sakiaicodetoolsbackend.core.parser;
+
+/**
+ * 流式解析文件事件监听器
+ * 解析器在流式解析过程中识别出文件时回调，调用顺序为 start -> content(若干次) -> end
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-05
+ */
+public interface CodeStreamListener {
+
+    /**
+     * 空监听器
+     */
+    CodeStreamListener NONE = new CodeStreamListener() {
+    };
+
+    /**
+     * 文件开始
+     *
+     * @param fileName AI 返回的文件名
+     */
+    default void onFileStart(String fileName) {
+    }
+
+    /**
+     * 文件内容片段
+     *
+     * @param fileName AI 返回的文件名
+     * @param content  内容片段，可能是解析缓冲区的只读切片，需要保留时应自行复制
+     */
+    default void onFileContent(String fileName, CharSequence content) {
+    }
+
+    /**
+     * 文件结束
+     *
+     * @param fileName AI 返回的文件名
+     */
+    default void onFileEnd(String fileName) {
+    }
+}
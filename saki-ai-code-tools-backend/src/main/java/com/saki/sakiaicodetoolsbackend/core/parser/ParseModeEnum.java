@@ -0,0 +1,24 @@
+package com.saki.sakiaicodetoolsbackend.core.parser;
+
+import lombok.Getter;
+
+/**
+ * 解析模式枚举
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-05
+ */
+@Getter
+public enum ParseModeEnum {
+
+    STREAMING("流式解析", "streaming"),
+    BATCH("批量解析", "batch");
+
+    private final String text;
+    private final String value;
+
+    ParseModeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
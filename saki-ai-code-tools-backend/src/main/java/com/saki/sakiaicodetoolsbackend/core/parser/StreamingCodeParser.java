@@ -0,0 +1,18 @@
+package com.saki.sakiaicodetoolsbackend.core.parser;
+
+/**
+ * 支持流式解析的代码解析器
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-05
+ */
+public interface StreamingCodeParser<T> extends CodeParser<T> {
+
+    /**
+     * 开启一个流式解析会话
+     *
+     * @param listener 文件事件监听器
+     * @return 解析会话
+     */
+    StreamingParseSession<T> openSession(CodeStreamListener listener);
+}
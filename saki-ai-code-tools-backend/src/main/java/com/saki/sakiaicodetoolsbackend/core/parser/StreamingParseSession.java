@@ -0,0 +1,35 @@
+package com.saki.sakiaicodetoolsbackend.core.parser;
+
+/**
+ * 流式解析会话
+ * 每次流式生成对应一个会话，按顺序喂入代码片段，流结束后获取解析结果
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-05
+ */
+public interface StreamingParseSession<T> {
+
+    /**
+     * 喂入一个代码片段
+     *
+     * @param chunk 代码片段
+     */
+    void feed(String chunk);
+
+    /**
+     * 结束输入并返回解析结果
+     *
+     * @return 解析后的结果对象
+     */
+    T complete();
+
+    /**
+     * 输入在结构闭合前结束时，取出已完整解析的部分结果
+     * 只在 {@link #complete()} 抛出异常后调用有意义
+     *
+     * @return 部分结果；不支持、输入并非被截断或没有完整内容时返回 null
+     */
+    default T salvage() {
+        return null;
+    }
+}
@@ -1,21 +1,29 @@
 package com.saki.sakiaicodetoolsbackend.core.parser.impl;
 
 import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
-import com.saki.sakiaicodetoolsbackend.core.parser.CodeParser;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeStreamListener;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingCodeParser;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * HTML 单文件代码解析器
+ * 批量模式使用正则提取 ```html 代码块；流式模式使用状态机逐字符识别代码块边界，代码块内容边接收边输出
  * @author saki酱
  * @version 1.0
  * @since 2025-11-03
  */
-public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
+public class HtmlCodeParser implements StreamingCodeParser<HtmlCodeResult> {
 
     private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
 
+    /**
+     * HTML 代码保存的文件名
+     */
+    private static final String HTML_FILE_NAME = "index.html";
+
     @Override
     public HtmlCodeResult parseCode(String codeContent) {
         HtmlCodeResult result = new HtmlCodeResult();
@@ -30,6 +38,11 @@ public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
         return result;
     }
 
+    @Override
+    public StreamingParseSession<HtmlCodeResult> openSession(CodeStreamListener listener) {
+        return new HtmlFenceParseSession(listener);
+    }
+
     /**
      * 提取HTML代码内容
      *
@@ -43,5 +56,273 @@ public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
         }
         return null;
     }
-}
 
+    /**
+     * 代码块识别状态
+     */
+    private enum FenceState {
+        /**
+         * 查找 ```html 开始标记
+         */
+        SEEK_OPEN,
+        /**
+         * 已匹配 ```html，等待换行后的第一个代码字符
+         */
+        OPEN_TAIL,
+        /**
+         * 代码块内部，内容直接输出
+         */
+        IN_CODE,
+        /**
+         * 代码块已闭合
+         */
+        CLOSED,
+        /**
+         * 代码块为空，退化为整段内容
+         */
+        FALLBACK
+    }
+
+    /**
+     * 流式 HTML 代码块解析会话
+     * <p>未找到代码块前保留原始内容用于兜底；一旦开始输出代码即释放原始内容。
+     * 末尾的反引号和空白会暂存，确认不是结束标记或尾部空白后再输出，因此输出内容与批量模式 trim 后一致。
+     * 代码块未闭合时返回已接收的代码内容。</p>
+     */
+    private static class HtmlFenceParseSession implements StreamingParseSession<HtmlCodeResult> {
+
+        private static final String OPEN_FENCE = "```html";
+
+        private static final int CLOSE_FENCE_LENGTH = 3;
+
+        private final CodeStreamListener listener;
+
+        private FenceState state = FenceState.SEEK_OPEN;
+
+        /**
+         * 原始内容，开始输出代码后置空
+         */
+        private StringBuilder rawBuilder = new StringBuilder();
+
+        /**
+         * 查找开始标记的下一个位置
+         */
+        private int scanIndex;
+
+        /**
+         * 当前候选开始标记的位置
+         */
+        private int fenceIndex;
+
+        /**
+         * 开始标记之后是否已出现换行
+         */
+        private boolean fenceNewline;
+
+        private final StringBuilder htmlBuilder = new StringBuilder();
+
+        private final StringBuilder pendingWhitespace = new StringBuilder();
+
+        private int pendingTicks;
+
+        private boolean fileStarted;
+
+        HtmlFenceParseSession(CodeStreamListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void feed(String chunk) {
+            if (chunk == null || chunk.isEmpty() || state == FenceState.CLOSED) {
+                return;
+            }
+            if (rawBuilder == null) {
+                consumeCode(chunk, 0);
+                return;
+            }
+            int start = rawBuilder.length();
+            rawBuilder.append(chunk);
+            if (state == FenceState.IN_CODE) {
+                consumeCode(rawBuilder, start);
+            } else if (state != FenceState.FALLBACK) {
+                consumeHeader(start);
+            }
+        }
+
+        @Override
+        public HtmlCodeResult complete() {
+            HtmlCodeResult result = new HtmlCodeResult();
+            if (state == FenceState.IN_CODE) {
+                // 未闭合的代码块：保留暂存的反引号，丢弃尾部空白
+                int before = htmlBuilder.length();
+                flushTicks();
+                publish(before);
+                state = FenceState.CLOSED;
+            }
+            if (state == FenceState.CLOSED && fileStarted) {
+                listener.onFileEnd(HTML_FILE_NAME);
+                result.setHtmlCode(htmlBuilder.toString());
+                return result;
+            }
+            // 如果没有找到代码块，将整个内容作为HTML
+            String htmlCode = rawBuilder.toString().trim();
+            rawBuilder = null;
+            listener.onFileStart(HTML_FILE_NAME);
+            listener.onFileContent(HTML_FILE_NAME, htmlCode);
+            listener.onFileEnd(HTML_FILE_NAME);
+            result.setHtmlCode(htmlCode);
+            return result;
+        }
+
+        /**
+         * 在原始内容中识别开始标记及其后的空白
+         *
+         * @param from 本次新增内容的起始位置
+         */
+        private void consumeHeader(int from) {
+            int index = from;
+            while (index < rawBuilder.length()) {
+                if (state == FenceState.SEEK_OPEN) {
+                    int found = findOpenFence();
+                    if (found < 0) {
+                        return;
+                    }
+                    fenceIndex = found;
+                    fenceNewline = false;
+                    state = FenceState.OPEN_TAIL;
+                    index = found + OPEN_FENCE.length();
+                    continue;
+                }
+                char c = rawBuilder.charAt(index);
+                if (!fenceNewline) {
+                    if (c == '\n') {
+                        fenceNewline = true;
+                    } else if (!isRegexWhitespace(c)) {
+                        // ```html 与换行之间出现非空白字符，不是代码块开始标记
+                        state = FenceState.SEEK_OPEN;
+                        scanIndex = fenceIndex + 1;
+                        continue;
+                    }
+                    index++;
+                } else if (c <= ' ') {
+                    index++;
+                } else {
+                    state = FenceState.IN_CODE;
+                    consumeCode(rawBuilder, index);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 从 scanIndex 开始查找 ```html（忽略大小写），内容不足时保留扫描位置等待后续片段
+         *
+         * @return 开始标记位置，未找到返回 -1
+         */
+        private int findOpenFence() {
+            int last = rawBuilder.length() - OPEN_FENCE.length();
+            for (int i = scanIndex; i <= last; i++) {
+                if (rawBuilder.charAt(i) == '`' && regionMatches(i)) {
+                    scanIndex = i + 1;
+                    return i;
+                }
+            }
+            scanIndex = Math.max(scanIndex, last + 1);
+            return -1;
+        }
+
+        private boolean regionMatches(int offset) {
+            for (int i = 0; i < OPEN_FENCE.length(); i++) {
+                if (Character.toLowerCase(rawBuilder.charAt(offset + i)) != OPEN_FENCE.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 处理代码块内的字符
+         *
+         * @param text 字符来源
+         * @param from 起始位置
+         */
+        private void consumeCode(CharSequence text, int from) {
+            int before = htmlBuilder.length();
+            for (int i = from; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '`') {
+                    if (++pendingTicks == CLOSE_FENCE_LENGTH) {
+                        closeFence(before);
+                        return;
+                    }
+                    continue;
+                }
+                flushTicks();
+                if (c <= ' ') {
+                    pendingWhitespace.append(c);
+                } else {
+                    appendCode(c);
+                }
+            }
+            publish(before);
+        }
+
+        /**
+         * 遇到结束标记：暂存的空白属于尾部空白，直接丢弃
+         *
+         * @param before 本次处理前代码内容的长度
+         */
+        private void closeFence(int before) {
+            pendingTicks = 0;
+            pendingWhitespace.setLength(0);
+            publish(before);
+            if (fileStarted) {
+                state = FenceState.CLOSED;
+                return;
+            }
+            // 空代码块，与批量模式一致，退化为整段内容
+            state = FenceState.FALLBACK;
+        }
+
+        /**
+         * 暂存的反引号不足以构成结束标记，作为代码内容输出
+         */
+        private void flushTicks() {
+            for (; pendingTicks > 0; pendingTicks--) {
+                appendCode('`');
+            }
+        }
+
+        private void appendCode(char c) {
+            if (pendingWhitespace.length() > 0) {
+                htmlBuilder.append(pendingWhitespace);
+                pendingWhitespace.setLength(0);
+            }
+            htmlBuilder.append(c);
+            if (rawBuilder != null) {
+                // 已确认代码内容非空，不再需要兜底用的原始内容
+                rawBuilder = null;
+            }
+        }
+
+        /**
+         * 将本次新增的代码内容通知监听器
+         *
+         * @param before 本次处理前代码内容的长度
+         */
+        private void publish(int before) {
+            if (htmlBuilder.length() == before) {
+                return;
+            }
+            if (!fileStarted) {
+                fileStarted = true;
+                listener.onFileStart(HTML_FILE_NAME);
+            }
+            listener.onFileContent(HTML_FILE_NAME, htmlBuilder.substring(before));
+        }
+
+        private static boolean isRegexWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+        }
+    }
+}
@@ -1,50 +1,292 @@
 package com.saki.sakiaicodetoolsbackend.core.parser.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.saki.sakiaicodetoolsbackend.ai.model.MultiFileCodeResult;
-import com.saki.sakiaicodetoolsbackend.core.parser.CodeParser;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeStreamListener;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingCodeParser;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
 import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
 import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
- * 多文件代码解析器（HTML + CSS + JS）
+ * 多文件项目代码解析器
+ * 基于 Jackson 非阻塞解析器增量解析 {"files":[{"name":..,"content":..}]}，每个文件的 content 闭合后立即产出。
+ * 文件数量与路径不限，反转义后的内容依次追加到会话内的字符块中，结果中的文件内容是指向字符块的只读切片
  * @author saki酱
  * @version 1.0
  * @since 2025-11-04
  */
-public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
+@Slf4j
+public class MultiFileCodeParser implements StreamingCodeParser<ProjectCodeResult> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     /**
-     * 解析多文件代码（HTML + CSS + JS）
+     * 解析多文件项目代码
      */
     @Override
-    public MultiFileCodeResult parseCode(String codeContent) {
-        MultiFileCodeResult result = new MultiFileCodeResult();
+    public ProjectCodeResult parseCode(String codeContent) {
+        StreamingParseSession<ProjectCodeResult> session = openSession(CodeStreamListener.NONE);
+        session.feed(codeContent);
+        return session.complete();
+    }
+
+    @Override
+    public StreamingParseSession<ProjectCodeResult> openSession(CodeStreamListener listener) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(codeContent);
-            JsonNode files = root.get("files");
-            if (files == null || !files.isArray()) {
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 返回结果缺少 files 数组");
+            return new MultiFileParseSession(JSON_FACTORY.createNonBlockingByteArrayParser(), listener);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "JSON 解析器创建失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 多文件增量解析会话
+     * 只关心 files 数组（深度 2）中文件对象（深度 3）的 name 和 content 字段，其余结构直接跳过
+     */
+    private static class MultiFileParseSession implements StreamingParseSession<ProjectCodeResult> {
+
+        private static final int FILES_ARRAY_DEPTH = 2;
+
+        private static final int FILE_OBJECT_DEPTH = 3;
+
+        private final JsonParser parser;
+
+        private final ByteArrayFeeder feeder;
+
+        private final CodeStreamListener listener;
+
+        private final ProjectCodeResult result = new ProjectCodeResult();
+
+        private final ContentBlocks contentBlocks = new ContentBlocks();
+
+        private int depth;
+
+        private String currentField;
+
+        private boolean filesFound;
+
+        private boolean inFiles;
+
+        private String fileName;
+
+        private CharSequence fileContent;
+
+        private boolean fileEmitted;
+
+        /**
+         * 上一个片段末尾被截断的高位代理字符，需与下一个片段拼接后再编码
+         */
+        private char pendingHighSurrogate;
+
+        private Exception failure;
+
+        /**
+         * 输入在 JSON 结构闭合前结束（片段本身都合法，只是没写完）
+         */
+        private boolean truncated;
+
+        MultiFileParseSession(JsonParser parser, CodeStreamListener listener) {
+            this.parser = parser;
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            this.listener = listener;
+        }
+
+        @Override
+        public void feed(String chunk) {
+            if (failure != null || chunk == null || chunk.isEmpty()) {
+                return;
+            }
+            String text = chunk;
+            if (pendingHighSurrogate != 0) {
+                text = pendingHighSurrogate + text;
+                pendingHighSurrogate = 0;
+            }
+            if (Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+                pendingHighSurrogate = text.charAt(text.length() - 1);
+                text = text.substring(0, text.length() - 1);
+            }
+            if (text.isEmpty()) {
+                return;
             }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            try {
+                feeder.feedInput(bytes, 0, bytes.length);
+                drain();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
 
-            for (JsonNode f : files) {
-                String name = f.get("name").asText();
-                String content = f.get("content").asText("");
+        @Override
+        public ProjectCodeResult complete() {
+            try {
+                if (failure == null) {
+                    feeder.endOfInput();
+                    try {
+                        drain();
+                    } catch (Exception e) {
+                        truncated = filesFound;
+                        throw e;
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                if (!filesFound) {
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 返回结果缺少 files 数组");
+                }
+                return result;
+            } catch (Exception e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "JSON 解析失败: " + e.getMessage());
+            } finally {
+                closeQuietly();
+            }
+        }
+
+        /**
+         * 被截断时返回已闭合的文件，这些文件已经通过监听器完整写出
+         */
+        @Override
+        public ProjectCodeResult salvage() {
+            return truncated && !result.getFiles().isEmpty() ? result : null;
+        }
 
-                if (name.endsWith(".html")) {
-                    result.setHtmlCode(content);
-                } else if (name.endsWith(".css")) {
-                    result.setCssCode(content);
-                } else if (name.endsWith(".js")) {
-                    result.setJsCode(content);
+        /**
+         * 消费当前已可用的全部 token
+         */
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handleToken(token);
+            }
+        }
+
+        private void handleToken(JsonToken token) throws IOException {
+            switch (token) {
+                case START_OBJECT -> {
+                    depth++;
+                    if (inFiles && depth == FILE_OBJECT_DEPTH) {
+                        fileName = null;
+                        fileContent = null;
+                        fileEmitted = false;
+                    }
+                }
+                case END_OBJECT -> {
+                    if (inFiles && depth == FILE_OBJECT_DEPTH) {
+                        endFile();
+                    }
+                    depth--;
                 }
+                case START_ARRAY -> {
+                    depth++;
+                    if (depth == FILES_ARRAY_DEPTH && "files".equals(currentField)) {
+                        inFiles = true;
+                        filesFound = true;
+                    }
+                }
+                case END_ARRAY -> {
+                    if (inFiles && depth == FILES_ARRAY_DEPTH) {
+                        inFiles = false;
+                    }
+                    depth--;
+                }
+                case FIELD_NAME -> currentField = parser.currentName();
+                case VALUE_STRING -> {
+                    if (inFiles && depth == FILE_OBJECT_DEPTH) {
+                        if ("name".equals(currentField)) {
+                            fileName = parser.getText();
+                        } else if ("content".equals(currentField)) {
+                            fileContent = contentBlocks.append(parser.getTextCharacters(), parser.getTextOffset(),
+                                    parser.getTextLength());
+                        }
+                        if (fileName != null && fileContent != null) {
+                            emitFile();
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * 文件对象闭合：name 已出现但 content 缺失时按空内容处理
+         */
+        private void endFile() {
+            if (fileEmitted) {
+                return;
+            }
+            if (fileName == null) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件缺少 name 字段");
+            }
+            if (fileContent == null) {
+                fileContent = "";
             }
-            return result;
-        } catch (Exception e) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "JSON 解析失败: " + e.getMessage());
+            emitFile();
         }
 
+        private void emitFile() {
+            if (fileEmitted) {
+                return;
+            }
+            fileEmitted = true;
+            String path = ProjectCodeResult.normalizePath(fileName);
+            if (path == null) {
+                log.warn("忽略路径不合法的文件：{}", fileName);
+                return;
+            }
+            listener.onFileStart(path);
+            listener.onFileContent(path, fileContent);
+            listener.onFileEnd(path);
+            if (result.putFile(path, fileContent)) {
+                log.warn("文件 {} 重复出现，以最后一次的内容为准", path);
+            }
+            // 内容已交给结果对象，会话内不再持有引用
+            fileContent = null;
+        }
+
+        private void closeQuietly() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // 解析器只持有内存缓冲，关闭失败无需处理
+            }
+        }
+    }
+
+    /**
+     * 解析缓冲区：反转义后的文件内容依次追加到固定大小的字符块中，每个文件返回一个只读切片。
+     * 当前块放不下时另起新块而不扩容复制，已返回的切片始终有效；超过块大小的文件单独占用一个块
+     */
+    private static class ContentBlocks {
+
+        private static final int BLOCK_SIZE = 16 * 1024;
+
+        private char[] block = new char[0];
+
+        private int used;
+
+        CharSequence append(char[] chars, int offset, int length) {
+            if (length == 0) {
+                return "";
+            }
+            if (block.length - used < length) {
+                block = new char[Math.max(BLOCK_SIZE, length)];
+                used = 0;
+            }
+            System.arraycopy(chars, offset, block, used, length);
+            CharBuffer slice = CharBuffer.wrap(block, used, length).slice().asReadOnlyBuffer();
+            used += length;
+            return slice;
+        }
     }
 }
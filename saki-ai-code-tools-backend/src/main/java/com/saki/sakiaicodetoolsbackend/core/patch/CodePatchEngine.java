@@ -0,0 +1,166 @@
+package com.saki.sakiaicodetoolsbackend.core.patch;
+
+import cn.hutool.json.JSONUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.CodeEdit;
+import com.saki.sakiaicodetoolsbackend.ai.model.CodeEditResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 代码补丁引擎
+ * <p>把模型返回的 SEARCH/REPLACE 修改按顺序应用到上一版文件上，后一处修改看到的是前一处修改后的内容。
+ * search 先按原文精确匹配；找不到时再逐行忽略首尾空白匹配，以容忍模型改动缩进。
+ * 两种匹配都要求唯一，匹配到多处或找不到时整次编辑失败，不会产出部分应用的结果。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+public final class CodePatchEngine {
+
+    private CodePatchEngine() {
+    }
+
+    /**
+     * 解析模型返回的修改 JSON
+     *
+     * @param json 模型返回的 {"edits":[...],"description":"..."} 原文
+     * @return 修改集合
+     * @throws BusinessException 当 JSON 无法解析或没有任何修改时抛出
+     */
+    public static CodeEditResult parseEdits(String json) {
+        CodeEditResult result;
+        try {
+            result = JSONUtil.toBean(json, CodeEditResult.class);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "编辑结果解析失败，请重试");
+        }
+        ThrowUtils.throwIf(result == null || result.getEdits() == null || result.getEdits().isEmpty(),
+                ErrorCode.OPERATION_ERROR, "模型未返回任何修改，请换一种描述");
+        return result;
+    }
+
+    /**
+     * 应用修改
+     *
+     * @param sourceFiles 上一版文件：路径 -> 内容
+     * @param editResult  修改集合
+     * @return 应用后的全部文件与变化的文件
+     * @throws BusinessException 当任一修改无法应用时抛出，信息中标明是第几处修改
+     */
+    public static CodePatchResult apply(Map<String, String> sourceFiles, CodeEditResult editResult) {
+        Map<String, String> files = new LinkedHashMap<>();
+        sourceFiles.forEach((path, content) -> files.put(path, normalizeNewlines(content)));
+        Set<String> changed = new LinkedHashSet<>();
+        List<CodeEdit> edits = editResult.getEdits();
+        for (int i = 0; i < edits.size(); i++) {
+            CodeEdit edit = edits.get(i);
+            String label = "第 " + (i + 1) + " 处修改";
+            String path = edit == null ? null : ProjectCodeResult.normalizePath(edit.getPath());
+            ThrowUtils.throwIf(path == null, ErrorCode.OPERATION_ERROR, label + "的文件路径不合法");
+            label += "（" + path + "）";
+            if (Boolean.TRUE.equals(edit.getDelete())) {
+                ThrowUtils.throwIf(files.remove(path) == null, ErrorCode.OPERATION_ERROR, label + "：文件不存在");
+                changed.add(path);
+                continue;
+            }
+            String replace = edit.getReplace() == null ? "" : normalizeNewlines(edit.getReplace());
+            String search = edit.getSearch() == null ? "" : normalizeNewlines(edit.getSearch());
+            if (search.isEmpty()) {
+                if (!replace.equals(files.put(path, replace))) {
+                    changed.add(path);
+                }
+                continue;
+            }
+            String content = files.get(path);
+            ThrowUtils.throwIf(content == null, ErrorCode.OPERATION_ERROR, label + "：文件不存在");
+            String patched = replaceOnce(content, search, replace, label);
+            if (!patched.equals(content)) {
+                files.put(path, patched);
+                changed.add(path);
+            }
+        }
+        CodePatchResult result = new CodePatchResult();
+        result.setFiles(files);
+        result.setChangedFiles(new ArrayList<>(changed));
+        result.setAppliedEdits(edits.size());
+        result.setDescription(editResult.getDescription());
+        return result;
+    }
+
+    /**
+     * 把 content 中唯一匹配 search 的片段替换为 replace
+     */
+    static String replaceOnce(String content, String search, String replace, String label) {
+        int first = content.indexOf(search);
+        if (first >= 0) {
+            ThrowUtils.throwIf(content.indexOf(search, first + 1) >= 0, ErrorCode.OPERATION_ERROR,
+                    label + "：匹配到多处，无法确定修改位置");
+            return content.substring(0, first) + replace + content.substring(first + search.length());
+        }
+        int[] span = matchLinesIgnoringIndent(content, search, label);
+        ThrowUtils.throwIf(span == null, ErrorCode.OPERATION_ERROR, label + "：未在文件中找到要替换的内容");
+        // 行匹配的区间不含最后一行的换行符，替换内容去掉首尾空行以对齐
+        return content.substring(0, span[0]) + stripBlankLines(replace) + content.substring(span[1]);
+    }
+
+    /**
+     * 逐行忽略首尾空白匹配
+     *
+     * @return 匹配区间 [起始偏移, 结束偏移)，从首行行首到末行行尾；找不到时返回 null
+     */
+    private static int[] matchLinesIgnoringIndent(String content, String search, String label) {
+        String[] searchLines = stripBlankLines(search).split("\n", -1);
+        if (searchLines.length == 1 && searchLines[0].isBlank()) {
+            return null;
+        }
+        for (int i = 0; i < searchLines.length; i++) {
+            searchLines[i] = searchLines[i].strip();
+        }
+        String[] lines = content.split("\n", -1);
+        int[] lineStarts = new int[lines.length];
+        for (int i = 1; i < lines.length; i++) {
+            lineStarts[i] = lineStarts[i - 1] + lines[i - 1].length() + 1;
+        }
+        int[] match = null;
+        for (int start = 0; start + searchLines.length <= lines.length; start++) {
+            boolean matched = true;
+            for (int j = 0; j < searchLines.length && matched; j++) {
+                matched = lines[start + j].strip().equals(searchLines[j]);
+            }
+            if (matched) {
+                ThrowUtils.throwIf(match != null, ErrorCode.OPERATION_ERROR, label + "：匹配到多处，无法确定修改位置");
+                int last = start + searchLines.length - 1;
+                match = new int[]{lineStarts[start], lineStarts[last] + lines[last].length()};
+            }
+        }
+        return match;
+    }
+
+    private static String stripBlankLines(String text) {
+        int start = 0;
+        int end = text.length();
+        int lineEnd;
+        while ((lineEnd = text.indexOf('\n', start)) >= 0 && lineEnd < end && text.substring(start, lineEnd).isBlank()) {
+            start = lineEnd + 1;
+        }
+        int lineStart;
+        while (end > start && (lineStart = text.lastIndexOf('\n', end - 1)) >= start
+                && text.substring(lineStart + 1, end).isBlank()) {
+            end = lineStart;
+        }
+        return text.substring(start, end);
+    }
+
+    private static String normalizeNewlines(String text) {
+        return text.indexOf('\r') >= 0 ? text.replace("\r\n", "\n").replace('\r', '\n') : text;
+    }
+}
@@ -0,0 +1,41 @@
+package com.saki.sakiaicodetoolsbackend.core.patch;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 补丁应用结果
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+@Data
+public class CodePatchResult {
+
+    /**
+     * 应用修改后的全部文件：路径 -> 内容
+     */
+    private Map<String, String> files;
+
+    /**
+     * 内容发生变化、新建或删除的文件路径
+     */
+    private List<String> changedFiles;
+
+    /**
+     * 应用的修改数
+     */
+    private int appliedEdits;
+
+    /**
+     * 修改说明
+     */
+    private String description;
+
+    /**
+     * 保存后的生成记录 ID
+     */
+    private String generationId;
+}
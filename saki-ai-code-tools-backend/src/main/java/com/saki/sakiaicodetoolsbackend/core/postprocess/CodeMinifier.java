@@ -0,0 +1,469 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 保守的 HTML / CSS / JS 压缩
+ * <p>只去掉注释与不影响语义的空白，不改写标识符，不做语法分析：字符串、模板字符串与正则字面量原样保留，
+ * JS 保留换行以免破坏自动分号插入，HTML 中 pre / textarea 原样保留，块级标签两侧的空白才会被去掉。
+ * 无法确定是否安全的地方一律保留原文。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+public final class CodeMinifier {
+
+    /**
+     * 两侧空白可去掉的块级与元数据标签
+     * <p>可以出现在行内的标签（svg、canvas、video、select、button 以及 script、template 等）不在其中，
+     * 它们与相邻文字之间的空白会被渲染出来。</p>
+     */
+    private static final Set<String> BLOCK_TAGS = Set.of("html", "head", "body", "title", "meta", "link", "style",
+            "base", "div", "p", "ul", "ol", "li", "dl", "dt", "dd", "section", "header", "footer", "nav", "main",
+            "article", "aside", "h1", "h2", "h3", "h4", "h5", "h6", "table", "thead", "tbody", "tfoot", "tr", "td",
+            "th", "caption", "form", "fieldset", "legend", "hr", "br", "figure", "figcaption", "blockquote", "pre",
+            "!doctype");
+
+    /**
+     * 内容需要特殊处理的标签
+     */
+    private static final Set<String> RAW_TEXT_TAGS = Set.of("script", "style", "pre", "textarea");
+
+    /**
+     * 其后出现的 / 为正则字面量而非除号的关键字
+     */
+    private static final Set<String> REGEX_PRECEDING_KEYWORDS = Set.of("return", "typeof", "case", "do", "else",
+            "in", "of", "new", "delete", "void", "throw", "instanceof", "yield", "await");
+
+    private static final Pattern TYPE_ATTRIBUTE = Pattern.compile("\\btype\\s*=\\s*[\"']?([^\"'\\s>]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private CodeMinifier() {
+    }
+
+    /**
+     * 按扩展名压缩文件
+     *
+     * @param path    文件路径
+     * @param content 文件内容
+     * @return 压缩后的内容，不支持的类型原样返回
+     */
+    public static String minify(String path, String content) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".html") || lower.endsWith(".htm")) {
+            return minifyHtml(content);
+        }
+        if (lower.endsWith(".css")) {
+            return minifyCss(content);
+        }
+        if (lower.endsWith(".js") || lower.endsWith(".mjs")) {
+            return minifyJs(content);
+        }
+        return content;
+    }
+
+    /**
+     * 压缩 HTML：去掉注释（保留条件注释），折叠文本中的空白，内联的 script / style 按 JS / CSS 压缩
+     *
+     * @param html HTML 内容
+     * @return 压缩后的内容
+     */
+    public static String minifyHtml(String html) {
+        StringBuilder out = new StringBuilder(html.length());
+        String previousTag = null;
+        int i = 0;
+        int length = html.length();
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c != '<') {
+                int end = nextMarkup(html, i);
+                appendText(out, html.substring(i, end), previousTag, tagNameAt(html, end));
+                i = end;
+                continue;
+            }
+            if (html.startsWith("<!--", i)) {
+                int end = html.indexOf("-->", i + 4);
+                end = end < 0 ? length : end + 3;
+                if (html.startsWith("<!--[", i)) {
+                    out.append(html, i, end);
+                }
+                i = end;
+                continue;
+            }
+            String tagName = tagNameAt(html, i);
+            if (tagName == null) {
+                int end = nextMarkup(html, i + 1);
+                appendText(out, html.substring(i, end), previousTag, tagNameAt(html, end));
+                i = end;
+                continue;
+            }
+            int tagEnd = findTagEnd(html, i);
+            String tag = html.substring(i, tagEnd);
+            out.append(tag);
+            i = tagEnd;
+            previousTag = tagName;
+            if (RAW_TEXT_TAGS.contains(tagName) && !tag.startsWith("</") && !tag.endsWith("/>")) {
+                int close = indexOfIgnoreCase(html, "</" + tagName, i);
+                close = close < 0 ? length : close;
+                String body = html.substring(i, close);
+                out.append(switch (tagName) {
+                    case "script" -> isJavaScript(tag) ? minifyJs(body) : body;
+                    case "style" -> isCss(tag) ? minifyCss(body) : body;
+                    default -> body;
+                });
+                i = close;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 压缩 CSS：去掉注释，折叠空白，去掉标点两侧与块末尾多余的分号
+     * <p>冒号与左括号前的空白保留（a :hover 与 a:hover 含义不同，and (max-width) 不能写成 and(）；
+     * 加减号两侧的空白保留（calc 要求）。</p>
+     *
+     * @param css CSS 内容
+     * @return 压缩后的内容
+     */
+    public static String minifyCss(String css) {
+        StringBuilder out = new StringBuilder(css.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int length = css.length();
+        while (i < length) {
+            char c = css.charAt(i);
+            if (c == '/' && i + 1 < length && css.charAt(i + 1) == '*') {
+                int end = css.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = true;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (pendingSpace && !out.isEmpty() && "{};,>~)".indexOf(c) < 0 && "{};,>~:(".indexOf(last(out)) < 0) {
+                out.append(' ');
+            }
+            pendingSpace = false;
+            if (c == '"' || c == '\'') {
+                int end = skipQuoted(css, i, c);
+                out.append(css, i, end);
+                i = end;
+                continue;
+            }
+            if (c == '}' && !out.isEmpty() && last(out) == ';') {
+                out.setLength(out.length() - 1);
+            }
+            out.append(c);
+            i++;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 压缩 JS：去掉注释，去掉行首尾空白与空行，折叠行内空白，不会让相邻记号粘连的空白直接去掉
+     *
+     * @param js JS 内容
+     * @return 压缩后的内容
+     */
+    public static String minifyJs(String js) {
+        StringBuilder out = new StringBuilder(js.length());
+        // 模板字符串中 ${ 表达式的花括号深度，栈非空且栈顶为 0 时遇到 } 回到模板字符串
+        Deque<Integer> templateDepths = new ArrayDeque<>();
+        boolean pendingSpace = false;
+        boolean pendingNewline = false;
+        int i = 0;
+        int length = js.length();
+        while (i < length) {
+            char c = js.charAt(i);
+            char next = i + 1 < length ? js.charAt(i + 1) : '\0';
+            if (c == '/' && next == '/') {
+                int end = js.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                int end = js.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                if (js.substring(i, end).indexOf('\n') >= 0) {
+                    pendingNewline = true;
+                } else {
+                    pendingSpace = true;
+                }
+                i = end;
+                continue;
+            }
+            if (c == '\n' || c == '\r') {
+                pendingNewline = true;
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (!out.isEmpty() && last(out) != '\n') {
+                if (pendingNewline) {
+                    out.append('\n');
+                } else if (pendingSpace && needsSpace(last(out), c)) {
+                    out.append(' ');
+                }
+            }
+            pendingSpace = false;
+            pendingNewline = false;
+            if (c == '"' || c == '\'') {
+                int end = skipQuoted(js, i, c);
+                out.append(js, i, end);
+                i = end;
+            } else if (c == '`' || (c == '}' && !templateDepths.isEmpty() && templateDepths.peek() == 0)) {
+                if (c == '}') {
+                    templateDepths.pop();
+                }
+                i = copyTemplate(js, i, out, templateDepths);
+            } else if (c == '/' && regexAllowed(out)) {
+                int end = skipRegex(js, i);
+                out.append(js, i, end);
+                i = end;
+            } else {
+                if (!templateDepths.isEmpty() && (c == '{' || c == '}')) {
+                    templateDepths.push(templateDepths.pop() + (c == '{' ? 1 : -1));
+                }
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 复制模板字符串片段：从 ` 或 } 开始，到结尾的 ` 或下一个 ${ 为止
+     *
+     * @return 片段之后的位置
+     */
+    private static int copyTemplate(String js, int start, StringBuilder out, Deque<Integer> templateDepths) {
+        out.append(js.charAt(start));
+        int i = start + 1;
+        while (i < js.length()) {
+            char c = js.charAt(i);
+            if (c == '\\') {
+                out.append(js, i, Math.min(i + 2, js.length()));
+                i += 2;
+                continue;
+            }
+            out.append(c);
+            i++;
+            if (c == '`') {
+                return i;
+            }
+            if (c == '$' && i < js.length() && js.charAt(i) == '{') {
+                out.append('{');
+                templateDepths.push(0);
+                return i + 1;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 去掉两个字符之间的空白后是否会改变记号划分
+     */
+    private static boolean needsSpace(char left, char right) {
+        return (isIdentifierPart(left) && isIdentifierPart(right))
+                || (left == right && (left == '+' || left == '-' || left == '/'))
+                || (left == '/' && right == '*')
+                || (Character.isDigit(left) && right == '.')
+                || (left == '<' && right == '!')
+                || (left == '-' && right == '>');
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '\\' || c > 127;
+    }
+
+    /**
+     * 根据已输出的上一个记号判断 / 是否开始正则字面量
+     */
+    private static boolean regexAllowed(StringBuilder out) {
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        if (end == 0) {
+            return true;
+        }
+        char previous = out.charAt(end - 1);
+        if ("(,=:[!&|?{};+-*%<>~^".indexOf(previous) >= 0) {
+            return true;
+        }
+        if (!Character.isLetter(previous)) {
+            return false;
+        }
+        int start = end;
+        while (start > 0 && isIdentifierPart(out.charAt(start - 1))) {
+            start--;
+        }
+        return REGEX_PRECEDING_KEYWORDS.contains(out.substring(start, end));
+    }
+
+    private static int skipRegex(String js, int start) {
+        boolean inClass = false;
+        int i = start + 1;
+        while (i < js.length()) {
+            char c = js.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '\n') {
+                return i;
+            }
+            if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipQuoted(String text, int start, char quote) {
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            i++;
+            if (c == quote || c == '\n') {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * 输出标签之间的文本：折叠空白，紧邻块级标签的空白去掉
+     */
+    private static void appendText(StringBuilder out, String text, String previousTag, String nextTag) {
+        StringBuilder collapsed = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                collapsed.append(' ');
+                space = false;
+            }
+            collapsed.append(c);
+        }
+        if (space) {
+            collapsed.append(' ');
+        }
+        if (!collapsed.isEmpty() && collapsed.charAt(0) == ' ' && (previousTag == null || isBlock(previousTag))) {
+            collapsed.deleteCharAt(0);
+        }
+        if (!collapsed.isEmpty() && last(collapsed) == ' ' && (nextTag == null || isBlock(nextTag))) {
+            collapsed.setLength(collapsed.length() - 1);
+        }
+        out.append(collapsed);
+    }
+
+    private static boolean isBlock(String tagName) {
+        return BLOCK_TAGS.contains(tagName);
+    }
+
+    /**
+     * 从 from 开始查找下一个标签或注释的位置，文本中单独出现的 < 不算
+     */
+    private static int nextMarkup(String html, int from) {
+        int i = html.indexOf('<', from);
+        while (i >= 0 && tagNameAt(html, i) == null && !html.startsWith("<!--", i)) {
+            i = html.indexOf('<', i + 1);
+        }
+        return i < 0 ? html.length() : i;
+    }
+
+    /**
+     * 读取位置 i 处标签的标签名（小写，不含结束标签的 /）
+     *
+     * @return 标签名，i 处不是标签时返回 null
+     */
+    private static String tagNameAt(String html, int i) {
+        if (i >= html.length() || html.charAt(i) != '<') {
+            return null;
+        }
+        int start = i + 1;
+        if (start < html.length() && html.charAt(start) == '/') {
+            start++;
+        }
+        int end = start;
+        while (end < html.length() && (Character.isLetterOrDigit(html.charAt(end)) || html.charAt(end) == '!'
+                || html.charAt(end) == '-')) {
+            end++;
+        }
+        return end == start ? null : html.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 标签结束位置，跳过属性值中的 >
+     */
+    private static int findTagEnd(String html, int start) {
+        char quote = 0;
+        for (int i = start + 1; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return html.length();
+    }
+
+    private static boolean isJavaScript(String tag) {
+        Matcher matcher = TYPE_ATTRIBUTE.matcher(tag);
+        if (!matcher.find()) {
+            return true;
+        }
+        String type = matcher.group(1).toLowerCase(Locale.ROOT);
+        return type.contains("javascript") || "module".equals(type);
+    }
+
+    private static boolean isCss(String tag) {
+        Matcher matcher = TYPE_ATTRIBUTE.matcher(tag);
+        return !matcher.find() || "text/css".equalsIgnoreCase(matcher.group(1));
+    }
+
+    static int indexOfIgnoreCase(String text, String target, int from) {
+        int max = text.length() - target.length();
+        for (int i = from; i <= max; i++) {
+            if (text.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static char last(StringBuilder builder) {
+        return builder.charAt(builder.length() - 1);
+    }
+}
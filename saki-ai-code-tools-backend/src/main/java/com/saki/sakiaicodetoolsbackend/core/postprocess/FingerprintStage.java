@@ -0,0 +1,136 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 指纹阶段：CSS / JS 文件名加上内容摘要（app.js -> app.1a2b3c4d.js），并改写 HTML 中的 src / href 引用
+ * <p>文件名随内容变化，预览时带指纹的文件可以长期缓存。只改写能确定的引用：文件名出现在其他 CSS / JS 中，
+ * 或在 HTML 中出现在 src / href 之外的位置（如脚本里动态加载）时，该文件保持原名；没有被引用的文件也不改名。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+@Component
+@Order(300)
+public class FingerprintStage implements PostProcessStage {
+
+    public static final String NAME = "fingerprint";
+
+    /**
+     * 带指纹的文件名
+     */
+    private static final Pattern FINGERPRINTED = Pattern.compile(".+\\.[0-9a-f]{8}\\.(css|js)$");
+
+    private static final Pattern REF_ATTRIBUTE = Pattern.compile("(\\s(?:src|href)\\s*=\\s*)([\"'])([^\"']*)\\2",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final int HASH_LENGTH = 8;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * 判断文件名是否带指纹
+     *
+     * @param fileName 文件名
+     * @return 是否带指纹
+     */
+    public static boolean isFingerprinted(String fileName) {
+        return FINGERPRINTED.matcher(fileName).matches();
+    }
+
+    @Override
+    public void process(PostProcessContext context) {
+        Map<String, String> files = context.getFiles();
+        List<String> htmlPaths = files.keySet().stream()
+                .filter(path -> PostProcessContext.hasExtension(path, ".html", ".htm"))
+                .toList();
+        Map<String, String> renames = new LinkedHashMap<>();
+        for (Map.Entry<String, String> asset : files.entrySet()) {
+            String path = asset.getKey();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            if (!PostProcessContext.hasExtension(path, ".css", ".js") || isFingerprinted(fileName)
+                    || countAttributeReferences(path, fileName, files, htmlPaths) <= 0) {
+                continue;
+            }
+            int dot = path.lastIndexOf('.');
+            String hash = DigestUtil.sha256Hex(asset.getValue()).substring(0, HASH_LENGTH);
+            renames.put(path, path.substring(0, dot) + "." + hash + path.substring(dot));
+        }
+        if (renames.isEmpty()) {
+            return;
+        }
+        context.transformEach(path -> htmlPaths.contains(path), (path, html) -> rewriteRefs(path, html, renames));
+        renames.forEach(context::rename);
+    }
+
+    /**
+     * 统计 HTML 的 src / href 对该文件的引用次数
+     *
+     * @return 引用次数；文件名还出现在其他位置（非 HTML 文件、内联代码等）时返回 -1
+     */
+    private static int countAttributeReferences(String assetPath, String fileName, Map<String, String> files,
+                                                 List<String> htmlPaths) {
+        int total = 0;
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            String path = file.getKey();
+            String content = file.getValue();
+            if (path.equals(assetPath) || !content.contains(fileName)) {
+                continue;
+            }
+            if (!htmlPaths.contains(path)) {
+                return -1;
+            }
+            int attributeRefs = 0;
+            Matcher matcher = REF_ATTRIBUTE.matcher(content);
+            while (matcher.find()) {
+                if (assetPath.equals(PostProcessContext.resolveRef(path, matcher.group(3)))) {
+                    attributeRefs++;
+                }
+            }
+            if (countOccurrences(content, fileName) > attributeRefs) {
+                return -1;
+            }
+            total += attributeRefs;
+        }
+        return total;
+    }
+
+    private static String rewriteRefs(String htmlPath, String html, Map<String, String> renames) {
+        Matcher matcher = REF_ATTRIBUTE.matcher(html);
+        StringBuilder out = new StringBuilder(html.length());
+        while (matcher.find()) {
+            String value = matcher.group(3);
+            String renamed = renames.get(PostProcessContext.resolveRef(htmlPath, value));
+            if (renamed != null) {
+                int cut = PostProcessContext.indexOfAny(value, '?', '#');
+                String pathPart = cut < 0 ? value : value.substring(0, cut);
+                String suffix = cut < 0 ? "" : value.substring(cut);
+                value = pathPart.substring(0, pathPart.lastIndexOf('/') + 1)
+                        + renamed.substring(renamed.lastIndexOf('/') + 1) + suffix;
+            }
+            matcher.appendReplacement(out, Matcher.quoteReplacement(matcher.group(1) + matcher.group(2) + value
+                    + matcher.group(2)));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    private static int countOccurrences(String text, String target) {
+        int count = 0;
+        for (int i = text.indexOf(target); i >= 0; i = text.indexOf(target, i + target.length())) {
+            count++;
+        }
+        return count;
+    }
+}
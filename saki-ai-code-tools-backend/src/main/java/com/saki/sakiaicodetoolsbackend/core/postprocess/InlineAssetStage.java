@@ -0,0 +1,145 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import com.saki.sakiaicodetoolsbackend.config.CodePostProcessProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 内联阶段：把 HTML 引用的小 CSS / JS 直接写进页面，省去额外请求
+ * <p>只内联项目内的相对引用。以下情况保持外链：带 async / defer / integrity 的脚本（内联会改变执行时机或校验）、
+ * 位于其他目录且含 url() / @import / import 的文件（相对路径的解析基准会变）。原文件保留，其他页面仍可引用。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+@Component
+@Order(200)
+@RequiredArgsConstructor
+public class InlineAssetStage implements PostProcessStage {
+
+    public static final String NAME = "inline";
+
+    private static final Pattern LINK_TAG = Pattern.compile("<link\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SCRIPT_TAG = Pattern.compile("<script\\b([^>]*)>\\s*</script\\s*>",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "([^\\s\"'>/=]+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+)))?");
+
+    private static final Pattern STYLE_END = Pattern.compile("</(style)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SCRIPT_END = Pattern.compile("</(script)", Pattern.CASE_INSENSITIVE);
+
+    private final CodePostProcessProperties postProcessProperties;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void process(PostProcessContext context) {
+        Map<String, String> files = Map.copyOf(context.getFiles());
+        context.transformEach(path -> PostProcessContext.hasExtension(path, ".html", ".htm"),
+                (path, html) -> inline(path, html, files));
+    }
+
+    private String inline(String htmlPath, String html, Map<String, String> files) {
+        String withStyles = replaceAll(LINK_TAG, html, matcher -> {
+            Map<String, String> attributes = parseAttributes(matcher.group(1));
+            String rel = attributes.getOrDefault("rel", "").toLowerCase(Locale.ROOT);
+            String cssPath = resolveAsset(htmlPath, attributes.get("href"), ".css", files);
+            if (!rel.matches("(.*\\s)?stylesheet(\\s.*)?") || cssPath == null
+                    || (!sameDirectory(htmlPath, cssPath) && containsAny(files.get(cssPath), "url(", "@import"))) {
+                return null;
+            }
+            String media = attributes.get("media");
+            return "<style" + (media == null ? "" : " media=\"" + media + "\"") + ">"
+                    + STYLE_END.matcher(files.get(cssPath)).replaceAll("<\\\\/$1") + "</style>";
+        });
+        return replaceAll(SCRIPT_TAG, withStyles, matcher -> {
+            Map<String, String> attributes = parseAttributes(matcher.group(1));
+            String type = attributes.getOrDefault("type", "").toLowerCase(Locale.ROOT);
+            boolean module = "module".equals(type);
+            String jsPath = resolveAsset(htmlPath, attributes.get("src"), ".js", files);
+            if (jsPath == null || attributes.containsKey("async") || attributes.containsKey("defer")
+                    || attributes.containsKey("integrity") || attributes.containsKey("nomodule")
+                    || !(type.isEmpty() || module || type.contains("javascript"))
+                    || (!sameDirectory(htmlPath, jsPath) && containsAny(files.get(jsPath), "import", "export"))) {
+                return null;
+            }
+            String js = SCRIPT_END.matcher(files.get(jsPath)).replaceAll("<\\\\/$1").replace("<!--", "<\\!--");
+            return "<script" + (module ? " type=\"module\"" : "") + ">" + js + "</script>";
+        });
+    }
+
+    /**
+     * 解析可内联的引用
+     *
+     * @return 项目内的文件路径，不存在、类型不符或超过内联上限时返回 null
+     */
+    private String resolveAsset(String htmlPath, String ref, String extension, Map<String, String> files) {
+        String path = ref == null ? null : PostProcessContext.resolveRef(htmlPath, ref);
+        if (path == null || !PostProcessContext.hasExtension(path, extension) || !files.containsKey(path)) {
+            return null;
+        }
+        long size = files.get(path).getBytes(StandardCharsets.UTF_8).length;
+        return size <= postProcessProperties.getInlineMaxSize().toBytes() ? path : null;
+    }
+
+    /**
+     * 解析标签属性，属性名转为小写，无值属性的值为空字符串
+     */
+    static Map<String, String> parseAttributes(String attributes) {
+        Map<String, String> result = new HashMap<>();
+        Matcher matcher = ATTRIBUTE.matcher(attributes);
+        while (matcher.find()) {
+            String value = matcher.group(2) != null ? matcher.group(2)
+                    : matcher.group(3) != null ? matcher.group(3)
+                    : matcher.group(4) != null ? matcher.group(4) : "";
+            result.putIfAbsent(matcher.group(1).toLowerCase(Locale.ROOT), value);
+        }
+        return result;
+    }
+
+    /**
+     * 逐个替换匹配的标签，replacement 返回 null 时保留原标签
+     */
+    private static String replaceAll(Pattern pattern, String text,
+                                     Function<Matcher, String> replacement) {
+        Matcher matcher = pattern.matcher(text);
+        StringBuilder out = new StringBuilder(text.length());
+        int last = 0;
+        while (matcher.find()) {
+            String replaced = replacement.apply(matcher);
+            if (replaced != null) {
+                out.append(text, last, matcher.start()).append(replaced);
+                last = matcher.end();
+            }
+        }
+        return last == 0 ? text : out.append(text, last, text.length()).toString();
+    }
+
+    private static boolean sameDirectory(String a, String b) {
+        return a.substring(0, a.lastIndexOf('/') + 1).equals(b.substring(0, b.lastIndexOf('/') + 1));
+    }
+
+    private static boolean containsAny(String text, String... keywords) {
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 压缩阶段：并行去掉 HTML / CSS / JS 中的注释与多余空白，规则见 {@link CodeMinifier}
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+@Component
+@Order(100)
+public class MinifyStage implements PostProcessStage {
+
+    public static final String NAME = "minify";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void process(PostProcessContext context) {
+        context.transformEach(path -> PostProcessContext.hasExtension(path, ".html", ".htm", ".css", ".js", ".mjs"),
+                CodeMinifier::minify);
+    }
+}
@@ -0,0 +1,131 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * 后处理上下文
+ * <p>持有一次生成的全部文件（路径 -> 内容，保持原有顺序），阶段之间依次传递。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+public class PostProcessContext {
+
+    @Getter
+    private final CodeGenTypeEnum codeGenType;
+
+    @Getter
+    private final Map<String, String> files;
+
+    private final ForkJoinPool pool;
+
+    PostProcessContext(CodeGenTypeEnum codeGenType, Map<String, String> files, ForkJoinPool pool) {
+        this.codeGenType = codeGenType;
+        this.files = new LinkedHashMap<>(files);
+        this.pool = pool;
+    }
+
+    /**
+     * 并行变换满足条件的文件，各文件在 fork-join 线程池上独立处理，全部完成后按原顺序写回
+     *
+     * @param filter    路径过滤条件
+     * @param transform (路径, 内容) -> 新内容
+     */
+    public void transformEach(Predicate<String> filter, BinaryOperator<String> transform) {
+        List<String> paths = files.keySet().stream().filter(filter).toList();
+        if (paths.size() <= 1) {
+            paths.forEach(path -> files.put(path, transform.apply(path, files.get(path))));
+            return;
+        }
+        List<ForkJoinTask<String>> tasks = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            String content = files.get(path);
+            tasks.add(pool.submit(() -> transform.apply(path, content)));
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            files.put(paths.get(i), tasks.get(i).join());
+        }
+    }
+
+    /**
+     * 重命名文件，位置保持不变
+     *
+     * @param from 原路径
+     * @param to   新路径
+     */
+    public void rename(String from, String to) {
+        Map<String, String> renamed = new LinkedHashMap<>();
+        files.forEach((path, content) -> renamed.put(path.equals(from) ? to : path, content));
+        files.clear();
+        files.putAll(renamed);
+    }
+
+    /**
+     * 判断路径是否为某一类文件
+     *
+     * @param path       文件路径
+     * @param extensions 扩展名（含点，小写）
+     * @return 是否匹配
+     */
+    public static boolean hasExtension(String path, String... extensions) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        for (String extension : extensions) {
+            if (lower.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析 HTML 中引用的相对路径
+     *
+     * @param baseFile 引用所在的文件
+     * @param ref      引用值（可带查询串与锚点）
+     * @return 项目内的规范化路径；外部地址、根路径或越出项目根目录时返回 null
+     */
+    public static String resolveRef(String baseFile, String ref) {
+        String value = ref.trim();
+        int cut = indexOfAny(value, '?', '#');
+        value = cut < 0 ? value : value.substring(0, cut);
+        if (value.isEmpty() || value.startsWith("/") || value.contains(":")) {
+            return null;
+        }
+        int slash = baseFile.lastIndexOf('/');
+        List<String> segments = new ArrayList<>();
+        if (slash >= 0) {
+            segments.addAll(List.of(baseFile.substring(0, slash).split("/")));
+        }
+        for (String segment : value.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                if (segments.isEmpty()) {
+                    return null;
+                }
+                segments.remove(segments.size() - 1);
+            } else {
+                segments.add(segment);
+            }
+        }
+        return segments.isEmpty() ? null : String.join("/", segments);
+    }
+
+    static int indexOfAny(String text, char a, char b) {
+        int first = text.indexOf(a);
+        int second = text.indexOf(b);
+        return first < 0 ? second : second < 0 ? first : Math.min(first, second);
+    }
+}
@@ -0,0 +1,186 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectFile;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodePostProcessProperties;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生成结果后处理流水线
+ * <p>位于解析与保存之间：解析得到的代码结果依次经过各个 {@link PostProcessStage}（按 Order 排序），
+ * 再交给保存器落盘。每个请求可以选择执行哪些阶段，未指定时执行配置中的默认阶段。
+ * 后处理只是优化，某个阶段失败时记录日志并丢弃该阶段的修改，后续阶段与保存照常进行。</p>
+ * <p>每个阶段的耗时记录在 ai.code.postprocess.stage（标签 stage、outcome），
+ * 减少的字符数记录在 ai.code.postprocess.saved.chars（标签 stage）。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+@Component
+@Slf4j
+public class PostProcessPipeline {
+
+    /**
+     * 请求中表示不执行任何阶段的取值
+     */
+    public static final String NONE = "none";
+
+    /**
+     * 单文件 HTML 结果在流水线中的文件名，与保存时一致
+     */
+    private static final String HTML_FILE_NAME = "index.html";
+
+    private final List<PostProcessStage> stages;
+
+    private final CodePostProcessProperties postProcessProperties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ForkJoinPool pool;
+
+    public PostProcessPipeline(List<PostProcessStage> stages, CodePostProcessProperties postProcessProperties,
+                               MeterRegistry meterRegistry) {
+        List<PostProcessStage> ordered = new ArrayList<>(stages);
+        AnnotationAwareOrderComparator.sort(ordered);
+        this.stages = List.copyOf(ordered);
+        this.postProcessProperties = postProcessProperties;
+        this.meterRegistry = meterRegistry;
+        this.pool = new ForkJoinPool(Math.max(1, postProcessProperties.getParallelism()));
+    }
+
+    /**
+     * 解析请求中的阶段开关
+     *
+     * @param requested 逗号分隔的阶段名称；为空时使用默认阶段，为 none 时不执行任何阶段
+     * @return 要执行的阶段名称
+     * @throws com.saki.sakiaicodetoolsbackend.exception.BusinessException 当包含未知阶段时抛出
+     */
+    public Set<String> resolveStages(String requested) {
+        if (StrUtil.isBlank(requested)) {
+            return Set.copyOf(postProcessProperties.getDefaultStages());
+        }
+        if (NONE.equalsIgnoreCase(requested.trim())) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : StrUtil.splitTrim(requested, ',')) {
+            ThrowUtils.throwIf(stages.stream().noneMatch(stage -> stage.getName().equals(name)),
+                    ErrorCode.PARAMS_ERROR, "未知的后处理阶段：" + name);
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * 处理代码结果
+     *
+     * @param codeResult  解析得到的代码结果（HtmlCodeResult / ProjectCodeResult）
+     * @param codeGenType 代码生成类型
+     * @param stageNames  要执行的阶段，为 null 时使用默认阶段
+     * @return 处理后的新代码结果；没有阶段需要执行时返回原对象
+     */
+    public Object process(Object codeResult, CodeGenTypeEnum codeGenType, Set<String> stageNames) {
+        if (!isActive(stageNames)) {
+            return codeResult;
+        }
+        if (codeResult instanceof HtmlCodeResult htmlResult) {
+            Map<String, String> files = process(
+                    Map.of(HTML_FILE_NAME, StrUtil.nullToEmpty(htmlResult.getHtmlCode())), codeGenType, stageNames);
+            HtmlCodeResult processed = new HtmlCodeResult();
+            processed.setHtmlCode(files.get(HTML_FILE_NAME));
+            processed.setDescription(htmlResult.getDescription());
+            return processed;
+        }
+        if (codeResult instanceof ProjectCodeResult projectResult) {
+            Map<String, String> files = new LinkedHashMap<>();
+            for (ProjectFile file : projectResult.getFiles()) {
+                files.put(file.getPath(), file.getContent() == null ? "" : file.getContent().toString());
+            }
+            ProjectCodeResult processed = new ProjectCodeResult();
+            process(files, codeGenType, stageNames).forEach(processed::putFile);
+            processed.setDescription(projectResult.getDescription());
+            return processed;
+        }
+        return codeResult;
+    }
+
+    /**
+     * 依次执行阶段
+     *
+     * @param files       路径 -> 内容
+     * @param codeGenType 代码生成类型
+     * @param stageNames  要执行的阶段，为 null 时使用默认阶段
+     * @return 处理后的文件；没有阶段需要执行时返回原文件
+     */
+    public Map<String, String> process(Map<String, String> files, CodeGenTypeEnum codeGenType, Set<String> stageNames) {
+        if (!isActive(stageNames)) {
+            return files;
+        }
+        Set<String> enabled = stageNames == null ? Set.copyOf(postProcessProperties.getDefaultStages()) : stageNames;
+        PostProcessContext context = new PostProcessContext(codeGenType, files, pool);
+        for (PostProcessStage stage : stages) {
+            if (!enabled.contains(stage.getName())) {
+                continue;
+            }
+            Map<String, String> before = new LinkedHashMap<>(context.getFiles());
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                stage.process(context);
+            } catch (RuntimeException e) {
+                outcome = "error";
+                log.warn("后处理阶段 {} 失败，已跳过：{}", stage.getName(), e.getMessage());
+                context.getFiles().clear();
+                context.getFiles().putAll(before);
+            }
+            Timer.builder("ai.code.postprocess.stage")
+                    .tag("stage", stage.getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            long saved = totalChars(before) - totalChars(context.getFiles());
+            if (saved > 0) {
+                Counter.builder("ai.code.postprocess.saved.chars")
+                        .tag("stage", stage.getName())
+                        .register(meterRegistry)
+                        .increment(saved);
+            }
+        }
+        return context.getFiles();
+    }
+
+    private boolean isActive(Set<String> stageNames) {
+        return postProcessProperties.isEnabled()
+                && !(stageNames == null ? postProcessProperties.getDefaultStages().isEmpty() : stageNames.isEmpty());
+    }
+
+    private static long totalChars(Map<String, String> files) {
+        return files.values().stream().mapToLong(String::length).sum();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pool.shutdown();
+    }
+}
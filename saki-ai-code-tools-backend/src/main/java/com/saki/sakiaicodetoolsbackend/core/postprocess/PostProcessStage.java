@@ -0,0 +1,27 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+/**
+ * 生成结果后处理阶段
+ * <p>实现类注册为 Spring Bean 即加入 {@link PostProcessPipeline}，按 {@link org.springframework.core.annotation.Order}
+ * 顺序执行，名称用于按请求开关与指标标签。阶段直接修改上下文中的文件，彼此独立的文件应通过
+ * {@link PostProcessContext#transformEach} 并行处理。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-17
+ */
+public interface PostProcessStage {
+
+    /**
+     * 阶段名称，如 minify
+     *
+     * @return 阶段名称
+     */
+    String getName();
+
+    /**
+     * 处理文件
+     *
+     * @param context 后处理上下文
+     */
+    void process(PostProcessContext context);
+}
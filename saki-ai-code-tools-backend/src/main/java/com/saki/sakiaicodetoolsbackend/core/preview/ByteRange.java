@@ -0,0 +1,71 @@
+package com.saki.sakiaicodetoolsbackend.core.preview;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 单段字节范围
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@Getter
+@AllArgsConstructor
+public class ByteRange {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    /**
+     * 起始位置（含）
+     */
+    private final long start;
+
+    /**
+     * 结束位置（含）
+     */
+    private final long end;
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * 解析 Range 请求头，只支持单段范围
+     *
+     * @param header     Range 请求头
+     * @param entitySize 实体总长度
+     * @return 解析结果；请求头为空、格式不支持或包含多段时返回 null（按完整内容响应）
+     * @throws IllegalArgumentException 范围无法满足时抛出，应响应 416
+     */
+    public static ByteRange parse(String header, long entitySize) {
+        if (StrUtil.isBlank(header) || !header.startsWith(BYTES_UNIT) || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // 后缀范围：最后 N 个字节
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0 || entitySize == 0) {
+                    throw new IllegalArgumentException("无法满足的范围：" + header);
+                }
+                return new ByteRange(Math.max(0, entitySize - suffixLength), entitySize - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? entitySize - 1 : Math.min(Long.parseLong(last), entitySize - 1);
+            if (start >= entitySize || start > end) {
+                throw new IllegalArgumentException("无法满足的范围：" + header);
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.saki.sakiaicodetoolsbackend.core.preview;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按字节数限定容量的热点文件缓存
+ * <p>访问顺序的 LinkedHashMap 实现 LRU，放入时从最久未访问的条目开始淘汰，直到总字节数不超过上限。
+ * 条目记录文件的大小与修改时间，读取方以一次 stat 校验后才使用，文件被替换或删除后不会返回旧内容。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+public class HotFileCache {
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long currentBytes;
+
+    public HotFileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取缓存文件
+     *
+     * @param key          缓存键
+     * @param size         当前文件大小
+     * @param lastModified 当前文件修改时间
+     * @return 与当前文件一致的缓存内容，不存在或已过期时返回 null
+     */
+    public synchronized CachedFile get(String key, long size, long lastModified) {
+        CachedFile cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.getContent().length != size || cached.getLastModified() != lastModified) {
+            remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * 放入缓存，超过总容量时淘汰最久未访问的条目
+     *
+     * @param key    缓存键
+     * @param cached 缓存内容
+     */
+    public synchronized void put(String key, CachedFile cached) {
+        if (cached.getContent().length > maxBytes) {
+            return;
+        }
+        remove(key);
+        entries.put(key, cached);
+        currentBytes += cached.getContent().length;
+        Iterator<Map.Entry<String, CachedFile>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            currentBytes -= iterator.next().getValue().getContent().length;
+            iterator.remove();
+        }
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    private void remove(String key) {
+        CachedFile removed = entries.remove(key);
+        if (removed != null) {
+            currentBytes -= removed.getContent().length;
+        }
+    }
+
+    /**
+     * 缓存的文件内容
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CachedFile {
+
+        private final byte[] content;
+
+        private final long lastModified;
+
+        private final String etag;
+    }
+}
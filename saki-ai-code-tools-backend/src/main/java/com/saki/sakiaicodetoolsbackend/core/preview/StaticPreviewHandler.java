@@ -0,0 +1,311 @@
+package com.saki.sakiaicodetoolsbackend.core.preview;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.saki.sakiaicodetoolsbackend.config.StaticPreviewProperties;
+import com.saki.sakiaicodetoolsbackend.core.postprocess.FingerprintStage;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodePrecompressor;
+import com.saki.sakiaicodetoolsbackend.core.saver.PrecompressedVariant;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 生成站点静态预览处理器
+ * <p>生成结果写入后不再原地修改（保存为原子重命名），因此以内容 SHA-256 作为强 ETag，
+ * 计算结果按 路径 + 大小 + 修改时间 缓存，同一文件只计算一次。支持 If-None-Match / 304、
+ * 单段 Range / 206 以及预压缩的 .gz 副本（Range 请求按原文件响应）。</p>
+ * <p>小文件进入按字节数限定容量的热点缓存，命中时只做一次 stat 校验；
+ * 大文件在 Tomcat 支持时交给 sendfile 由内核直接发送，否则以 {@link FileChannel#transferTo} 传输；
+ * 段文件存储中的文件本身是内存映射切片，直接写出。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@Component
+@Slf4j
+public class StaticPreviewHandler {
+
+    private static final String DEFAULT_FILE = "index.html";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final StaticPreviewProperties previewProperties;
+
+    private final CodeSiteStore codeSiteStore;
+
+    private final HotFileCache hotFileCache;
+
+    private final LRUCache<String, String> etagCache;
+
+    private final Counter cacheHitCounter;
+
+    private final Counter cacheMissCounter;
+
+    public StaticPreviewHandler(StaticPreviewProperties previewProperties, CodeSiteStore codeSiteStore,
+                                MeterRegistry meterRegistry) {
+        this.previewProperties = previewProperties;
+        this.codeSiteStore = codeSiteStore;
+        this.hotFileCache = new HotFileCache(previewProperties.getCacheMaxSize().toBytes());
+        this.etagCache = CacheUtil.newLRUCache(previewProperties.getEtagCacheSize());
+        this.cacheHitCounter = Counter.builder("ai.static.preview.cache").tag("result", "hit").register(meterRegistry);
+        this.cacheMissCounter = Counter.builder("ai.static.preview.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("ai.static.preview.cache.bytes", hotFileCache, HotFileCache::getCurrentBytes)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 发送生成结果中的文件
+     *
+     * @param generationId 生成结果 ID，调用方已校验格式
+     * @param relativePath 站点内相对路径，为空时发送 index.html
+     * @param request      HTTP 请求
+     * @param response     HTTP 响应
+     * @throws IOException 写出失败
+     */
+    public void serve(String generationId, String relativePath, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        String path = StrUtil.isBlank(relativePath) || relativePath.endsWith("/")
+                ? StrUtil.nullToEmpty(relativePath) + DEFAULT_FILE
+                : relativePath;
+        if (codeSiteStore.exists(generationId)) {
+            serveStoredFile(generationId, path, request, response);
+            return;
+        }
+        Path dir = Paths.get(CodeFileSaverTemplate.FILE_SAVE_ROOT_DIR, generationId).normalize();
+        Path file = dir.resolve(path).normalize();
+        if (!file.startsWith(dir) || !Files.isRegularFile(file) || CodePrecompressor.isPrecompressedArtifact(file)) {
+            throw new BusinessException(ErrorCode.FILE_NOT_FOUND);
+        }
+        serveFile(generationId + "/" + path, file, request, response);
+    }
+
+    private void serveFile(String key, Path file, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        // 范围请求针对原文件，不使用压缩副本
+        PrecompressedVariant variant = rangeHeader == null
+                ? CodePrecompressor.resolve(file, request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                : new PrecompressedVariant(file, null);
+        Path source = variant.getPath();
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String cacheKey = variant.getContentEncoding() == null ? key : key + "|" + variant.getContentEncoding();
+
+        HotFileCache.CachedFile cached = null;
+        String etag;
+        if (size <= previewProperties.getCacheMaxFileSize().toBytes()) {
+            cached = hotFileCache.get(cacheKey, size, lastModified);
+            if (cached == null) {
+                cacheMissCounter.increment();
+                byte[] content = Files.readAllBytes(source);
+                cached = new HotFileCache.CachedFile(content, lastModified, toEtag(DigestUtil.sha256(content)));
+                hotFileCache.put(cacheKey, cached);
+            } else {
+                cacheHitCounter.increment();
+            }
+            etag = cached.getEtag();
+        } else {
+            String etagKey = cacheKey + "|" + size + "|" + lastModified;
+            etag = etagCache.get(etagKey);
+            if (etag == null) {
+                etag = toEtag(DigestUtil.sha256(source.toFile()));
+                etagCache.put(etagKey, etag);
+            }
+        }
+
+        writeCommonHeaders(response, file, etag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (variant.getContentEncoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.getContentEncoding());
+        }
+        if (notModified(request, response, etag)) {
+            return;
+        }
+        ByteRange range;
+        try {
+            range = resolveRange(request, response, rangeHeader, etag, size);
+        } catch (IllegalArgumentException e) {
+            respondRangeNotSatisfiable(response, size);
+            return;
+        }
+        long start = range == null ? 0 : range.getStart();
+        long length = range == null ? size : range.getLength();
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (cached != null) {
+            response.getOutputStream().write(cached.getContent(), (int) start, (int) length);
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 由 Tomcat 在请求处理结束后以 sendfile 发送
+            request.setAttribute(SENDFILE_FILENAME, source.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
+            }
+        }
+    }
+
+    private void serveStoredFile(String generationId, String path, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        ByteBuffer content = codeSiteStore.readFile(generationId, path);
+        if (content == null) {
+            throw new BusinessException(ErrorCode.FILE_NOT_FOUND);
+        }
+        // 段文件存储中的内容不可变，ETag 按 ID + 路径缓存
+        String etagKey = generationId + "/" + path + "|store";
+        String etag = etagCache.get(etagKey);
+        if (etag == null) {
+            etag = toEtag(sha256(content.duplicate()));
+            etagCache.put(etagKey, etag);
+        }
+        writeCommonHeaders(response, Paths.get(path), etag);
+        if (notModified(request, response, etag)) {
+            return;
+        }
+        long size = content.remaining();
+        ByteRange range;
+        try {
+            range = resolveRange(request, response, request.getHeader(HttpHeaders.RANGE), etag, size);
+        } catch (IllegalArgumentException e) {
+            respondRangeNotSatisfiable(response, size);
+            return;
+        }
+        ByteBuffer body = content.duplicate();
+        if (range != null) {
+            body.position(body.position() + (int) range.getStart());
+            body.limit(body.position() + (int) range.getLength());
+        }
+        response.setContentLengthLong(body.remaining());
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        while (body.hasRemaining()) {
+            target.write(body);
+        }
+    }
+
+    private void writeCommonHeaders(HttpServletResponse response, Path file, String etag) {
+        MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        String contentType = mediaType.toString();
+        if ("text".equals(mediaType.getType()) || mediaType.includes(MediaType.APPLICATION_JSON)
+                || "javascript".equals(mediaType.getSubtype())) {
+            contentType += ";charset=UTF-8";
+        }
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        // 带指纹的文件名随内容变化，可以长期缓存
+        response.setHeader(HttpHeaders.CACHE_CONTROL, FingerprintStage.isFingerprinted(file.getFileName().toString())
+                ? previewProperties.getFingerprintedCacheControl()
+                : previewProperties.getCacheControl());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    }
+
+    /**
+     * If-None-Match 命中时响应 304
+     */
+    private boolean notModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (StrUtil.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = StrUtil.removePrefix(candidate.trim(), "W/");
+            if ("*".equals(tag) || etag.equals(tag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析范围请求，需要部分响应时写出 206 状态与 Content-Range；If-Range 与当前 ETag 不一致时按完整内容响应
+     *
+     * @return 需要发送的范围，完整响应时返回 null
+     * @throws IllegalArgumentException 范围无法满足时抛出
+     */
+    private ByteRange resolveRange(HttpServletRequest request, HttpServletResponse response, String rangeHeader,
+                                   String etag, long size) {
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !etag.equals(ifRange.trim())) {
+            return null;
+        }
+        ByteRange range = ByteRange.parse(rangeHeader, size);
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.getStart() + "-" + range.getEnd() + "/" + size);
+        }
+        return range;
+    }
+
+    private void respondRangeNotSatisfiable(HttpServletResponse response, long size) {
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+        response.setContentLength(0);
+    }
+
+    private static String toEtag(byte[] digest) {
+        return "\"" + HexUtil.encodeHexStr(digest).substring(0, 32) + "\"";
+    }
+
+    private static byte[] sha256(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
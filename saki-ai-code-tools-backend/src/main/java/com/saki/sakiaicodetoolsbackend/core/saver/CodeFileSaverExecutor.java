@@ -1,12 +1,13 @@
 package com.saki.sakiaicodetoolsbackend.core.saver;
 
 import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
-import com.saki.sakiaicodetoolsbackend.ai.model.MultiFileCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
 import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
 import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
 import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
 
 import java.io.File;
+import java.util.Map;
 
 /**
  * 代码文件保存执行器
@@ -21,6 +22,11 @@ public class CodeFileSaverExecutor {
 
     private static final MultiFileCodeFileSaverTemplate multiFileCodeFileSaver = new MultiFileCodeFileSaverTemplate();
 
+    /**
+     * 单文件 HTML 项目的文件名
+     */
+    private static final String HTML_ENTRY_FILE = "index.html";
+
     /**
      * 执行代码保存
      *
@@ -31,9 +37,103 @@ public class CodeFileSaverExecutor {
     public static File executeSaver(Object codeResult, CodeGenTypeEnum codeGenType) {
         return switch (codeGenType) {
             case HTML -> htmlCodeFileSaver.saveCode((HtmlCodeResult) codeResult);
-            case MULTI_FILE -> multiFileCodeFileSaver.saveCode((MultiFileCodeResult) codeResult);
+            case MULTI_FILE -> multiFileCodeFileSaver.saveCode((ProjectCodeResult) codeResult);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
+
+    /**
+     * 以指定目录名保存代码，目录已存在时保留已有目录
+     *
+     * @param codeResult  代码结果对象
+     * @param codeGenType 代码生成类型
+     * @param dirName     目录名，即生成结果 ID
+     * @return 保存的目录
+     */
+    public static File executeSaverAs(Object codeResult, CodeGenTypeEnum codeGenType, String dirName) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.saveCodeAs((HtmlCodeResult) codeResult, dirName);
+            case MULTI_FILE -> multiFileCodeFileSaver.saveCodeAs((ProjectCodeResult) codeResult, dirName);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
+
+    /**
+     * 将一组文件转换为对应类型的代码结果，以复用保存时的校验规则
+     *
+     * @param files       路径 -> 内容
+     * @param description 描述
+     * @param codeGenType 代码生成类型
+     * @return 代码结果对象
+     * @throws BusinessException 当单文件 HTML 项目包含 index.html 以外的文件时抛出
+     */
+    public static Object toCodeResult(Map<String, String> files, String description, CodeGenTypeEnum codeGenType) {
+        if (codeGenType == CodeGenTypeEnum.HTML) {
+            if (files.size() != 1 || !files.containsKey(HTML_ENTRY_FILE)) {
+                throw new BusinessException(ErrorCode.OPERATION_ERROR, "单文件 HTML 项目只能修改 " + HTML_ENTRY_FILE);
+            }
+            HtmlCodeResult htmlCodeResult = new HtmlCodeResult();
+            htmlCodeResult.setHtmlCode(files.get(HTML_ENTRY_FILE));
+            htmlCodeResult.setDescription(description);
+            return htmlCodeResult;
+        }
+        ProjectCodeResult projectCodeResult = new ProjectCodeResult();
+        files.forEach(projectCodeResult::putFile);
+        projectCodeResult.setDescription(description);
+        return projectCodeResult;
+    }
+
+    /**
+     * 开启流式保存会话
+     *
+     * @param codeGenType 代码生成类型
+     * @return 流式保存会话，可作为解析器的文件事件监听器
+     */
+    public static StreamingCodeFileSaveSession<?> openStreamingSaver(CodeGenTypeEnum codeGenType) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.openStreamingSession();
+            case MULTI_FILE -> multiFileCodeFileSaver.openStreamingSession();
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
+
+    /**
+     * 将代码结果渲染为待保存的文件
+     *
+     * @param codeResult  代码结果对象
+     * @param codeGenType 代码生成类型
+     * @return 文件路径 -> 文件内容
+     */
+    public static Map<String, CharSequence> renderFiles(Object codeResult, CodeGenTypeEnum codeGenType) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.renderFiles((HtmlCodeResult) codeResult);
+            case MULTI_FILE -> multiFileCodeFileSaver.renderFiles((ProjectCodeResult) codeResult);
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
-}
 
+    /**
+     * 生成新的生成记录 ID，与目录保存时的目录名格式一致
+     *
+     * @param codeGenType 代码生成类型
+     * @return 生成记录 ID，格式为 {代码类型}_{雪花ID}
+     */
+    public static String newGenerationId(CodeGenTypeEnum codeGenType) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver.buildUniqueDirName();
+            case MULTI_FILE -> multiFileCodeFileSaver.buildUniqueDirName();
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
+
+    /**
+     * 根据生成记录 ID 解析代码生成类型
+     *
+     * @param generationId 生成记录 ID，格式为 {代码类型}_{雪花ID}
+     * @return 代码生成类型，无法识别时返回 null
+     */
+    public static CodeGenTypeEnum resolveCodeGenType(String generationId) {
+        int separator = generationId == null ? -1 : generationId.lastIndexOf('_');
+        return separator <= 0 ? null : CodeGenTypeEnum.getEnumByValue(generationId.substring(0, separator));
+    }
+}
@@ -6,9 +6,24 @@ import cn.hutool.core.util.StrUtil;
 import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
 import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
 import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 抽象代码文件保存器 - 模板方法模式
@@ -16,10 +31,41 @@ import java.nio.charset.StandardCharsets;
  * @version 1.0
  * @since 2025-11-03
  */
+@Slf4j
 public abstract class CodeFileSaverTemplate<T> {
 
     // 文件保存根目录
-    protected static final String FILE_SAVE_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_output";
+    public static final String FILE_SAVE_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_output";
+
+    // 流式保存的暂存目录，与根目录位于同一文件系统以保证原子重命名；未完成的暂存目录由保留管理器按时间清理
+    public static final String FILE_STAGING_ROOT_DIR = System.getProperty("user.dir") + "/tmp/code_staging";
+
+    // 写入文件时的编码缓冲区大小
+    private static final int WRITE_BUFFER_SIZE = 8 * 1024;
+
+    // 可选的保存后处理阶段，所有保存器共用
+    private static volatile PostSaveStage postSaveStage;
+
+    // 可选的并行文件写入器，未注册时逐个写入
+    private static volatile ParallelFileWriter fileWriter;
+
+    /**
+     * 注册保存后处理阶段
+     *
+     * @param stage 保存后处理阶段，为 null 时取消
+     */
+    public static void setPostSaveStage(PostSaveStage stage) {
+        postSaveStage = stage;
+    }
+
+    /**
+     * 注册并行文件写入器
+     *
+     * @param writer 并行文件写入器，为 null 时取消
+     */
+    public static void setFileWriter(ParallelFileWriter writer) {
+        fileWriter = writer;
+    }
 
     /**
      * 模板方法：保存代码的标准流程
@@ -34,8 +80,73 @@ public abstract class CodeFileSaverTemplate<T> {
         String baseDirPath = buildUniqueDir();
         // 3. 保存文件（具体实现由子类提供）
         saveFiles(result, baseDirPath);
-        // 4. 返回目录文件对象
-        return new File(baseDirPath);
+        File savedDir = new File(baseDirPath);
+        // 4. 保存后处理
+        runPostSaveStage(savedDir);
+        // 5. 返回目录文件对象
+        return savedDir;
+    }
+
+    /**
+     * 模板方法：以指定目录名保存代码，用于按需还原已有 ID 的生成结果
+     * 先写入暂存目录再整体重命名，并发还原同一结果时只有一个生效，其余丢弃自己的暂存目录
+     *
+     * @param result  代码结果对象
+     * @param dirName 目录名，即生成结果 ID
+     * @return 保存的目录
+     */
+    public final File saveCodeAs(T result, String dirName) {
+        validateInput(result);
+        File targetDir = new File(FILE_SAVE_ROOT_DIR, dirName);
+        File stagingDir = new File(FILE_STAGING_ROOT_DIR, dirName + "_" + IdUtil.fastSimpleUUID());
+        FileUtil.mkdir(stagingDir);
+        try {
+            saveFiles(result, stagingDir.getPath());
+            runPostSaveStage(stagingDir);
+            Files.createDirectories(targetDir.toPath().getParent());
+            Files.move(stagingDir.toPath(), targetDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            log.debug("目录已由其他请求还原：{}", dirName);
+        } catch (IOException e) {
+            if (!targetDir.isDirectory()) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存生成结果失败: " + e.getMessage());
+            }
+        } finally {
+            if (stagingDir.exists()) {
+                FileUtil.del(stagingDir);
+            }
+        }
+        return targetDir;
+    }
+
+    /**
+     * 模板方法：将代码结果渲染为待保存的文件，供非目录存储（如段文件存储）使用
+     *
+     * @param result 代码结果对象
+     * @return 文件路径 -> 文件内容，已跳过空白内容
+     */
+    public final Map<String, CharSequence> renderFiles(T result) {
+        validateInput(result);
+        Map<String, CharSequence> files = new LinkedHashMap<>();
+        buildFiles(result).forEach((filename, content) -> {
+            if (StrUtil.isNotBlank(content)) {
+                files.put(filename, content);
+            }
+        });
+        return files;
+    }
+
+    /**
+     * 开启流式保存会话：文件在解析过程中边生成边写入暂存目录，完成后整体重命名到根目录
+     *
+     * @return 流式保存会话
+     */
+    public final StreamingCodeFileSaveSession<T> openStreamingSession() {
+        String uniqueDirName = buildUniqueDirName();
+        String stagingDirPath = FILE_STAGING_ROOT_DIR + File.separator + uniqueDirName;
+        FileUtil.mkdir(stagingDirPath);
+        String targetDirPath = FILE_SAVE_ROOT_DIR + File.separator + uniqueDirName;
+        return new StreamingCodeFileSaveSession<>(this, stagingDirPath, targetDirPath);
     }
 
     /**
@@ -55,27 +166,98 @@ public abstract class CodeFileSaverTemplate<T> {
      * @return 目录路径
      */
     protected final String buildUniqueDir() {
-        String codeType = getCodeType().getValue();
-        String uniqueDirName = StrUtil.format("{}_{}", codeType, IdUtil.getSnowflakeNextIdStr());
-        String dirPath = FILE_SAVE_ROOT_DIR + File.separator + uniqueDirName;
+        String dirPath = FILE_SAVE_ROOT_DIR + File.separator + buildUniqueDirName();
         FileUtil.mkdir(dirPath);
         return dirPath;
     }
 
     /**
-     * 写入单个文件的工具方法
+     * 构建唯一目录名
+     *
+     * @return 目录名，格式为 {代码类型}_{雪花ID}
+     */
+    public final String buildUniqueDirName() {
+        String codeType = getCodeType().getValue();
+        return StrUtil.format("{}_{}", codeType, IdUtil.getSnowflakeNextIdStr());
+    }
+
+    /**
+     * 执行保存后处理阶段，处理失败不影响保存结果
+     *
+     * @param savedDir 保存的目录
+     */
+    final void runPostSaveStage(File savedDir) {
+        PostSaveStage stage = postSaveStage;
+        if (stage == null) {
+            return;
+        }
+        try {
+            stage.afterSave(savedDir, getCodeType());
+        } catch (Exception e) {
+            log.warn("保存后处理失败，目录：{}，原因：{}", savedDir.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 写入单个文件的工具方法，路径含子目录时自动创建
+     * 内容以固定大小的缓冲区分段编码写出，不为整个文件生成字符串或字节数组副本
      *
      * @param dirPath  目录路径
-     * @param filename 文件名
+     * @param filename 文件相对路径
      * @param content  文件内容
      */
-    protected final void writeToFile(String dirPath, String filename, String content) {
-        if (StrUtil.isNotBlank(content)) {
-            String filePath = dirPath + File.separator + filename;
-            FileUtil.writeString(content, filePath, StandardCharsets.UTF_8);
+    protected static void writeToFile(String dirPath, String filename, CharSequence content) {
+        writeToFile(dirPath, filename, content, false);
+    }
+
+    /**
+     * 写入单个文件，可选在关闭前刷盘
+     *
+     * @param dirPath  目录路径
+     * @param filename 文件相对路径
+     * @param content  文件内容
+     * @param force    是否在关闭前将内容刷到磁盘
+     */
+    static void writeToFile(String dirPath, String filename, CharSequence content, boolean force) {
+        if (StrUtil.isBlank(content)) {
+            return;
+        }
+        Path filePath = Path.of(dirPath, filename);
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer in = content instanceof CharBuffer charBuffer ? charBuffer.duplicate() : CharBuffer.wrap(content);
+        ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        try {
+            Files.createDirectories(filePath.getParent());
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                CoderResult result;
+                do {
+                    result = encoder.encode(in, out, true);
+                    drain(out, channel);
+                } while (result.isOverflow());
+                do {
+                    result = encoder.flush(out);
+                    drain(out, channel);
+                } while (result.isOverflow());
+                if (force) {
+                    channel.force(true);
+                }
+            }
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件写入失败: " + filename + ", " + e.getMessage());
         }
     }
 
+    private static void drain(ByteBuffer out, FileChannel channel) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
     /**
      * 获取代码类型（由子类实现）
      *
@@ -84,11 +266,35 @@ public abstract class CodeFileSaverTemplate<T> {
     protected abstract CodeGenTypeEnum getCodeType();
 
     /**
-     * 保存文件的具体实现（由子类实现）
+     * 将 AI 返回的文件名映射为保存的文件名（由子类实现）
+     *
+     * @param fileName AI 返回的文件名
+     * @return 保存的文件名，返回 null 表示忽略该文件
+     */
+    protected abstract String resolveFileName(String fileName);
+
+    /**
+     * 构建待保存的文件（由子类实现）
+     *
+     * @param result 代码结果对象
+     * @return 文件路径 -> 文件内容
+     */
+    protected abstract Map<String, CharSequence> buildFiles(T result);
+
+    /**
+     * 保存文件到目录，注册了并行文件写入器时由其并行写入
      *
      * @param result      代码结果对象
      * @param baseDirPath 基础目录路径
      */
-    protected abstract void saveFiles(T result, String baseDirPath);
+    protected void saveFiles(T result, String baseDirPath) {
+        Map<String, CharSequence> files = buildFiles(result);
+        ParallelFileWriter writer = fileWriter;
+        if (writer != null) {
+            writer.writeAll(files, (filename, content) -> writeToFile(baseDirPath, filename, content));
+            return;
+        }
+        files.forEach((filename, content) -> writeToFile(baseDirPath, filename, content));
+    }
 }
 
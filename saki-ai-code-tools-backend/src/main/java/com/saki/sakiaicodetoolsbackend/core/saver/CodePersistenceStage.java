@@ -0,0 +1,58 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import com.saki.sakiaicodetoolsbackend.config.CodePersistProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 代码持久化阶段
+ * <p>流式生成时的增量解析、文件写入与最终提交都在独立的有界调度器上执行，
+ * 不占用投递模型输出的线程（通常是 HTTP 客户端的事件循环线程）。
+ * 每次生成使用一个 {@link PersistenceWorker}，同一次生成的任务严格按提交顺序串行执行。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Component
+public class CodePersistenceStage {
+
+    private final Scheduler scheduler;
+
+    /**
+     * 已提交未执行的任务数
+     */
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+
+    private final Timer commitSuccessTimer;
+
+    private final Timer commitFailureTimer;
+
+    public CodePersistenceStage(CodePersistProperties persistProperties, MeterRegistry meterRegistry) {
+        this.scheduler = Schedulers.newBoundedElastic(persistProperties.getThreadCap(),
+                persistProperties.getQueuedTaskCap(), "code-persist");
+        Gauge.builder("ai.code.persist.queue.size", pendingTasks, AtomicInteger::get).register(meterRegistry);
+        this.commitSuccessTimer = Timer.builder("ai.code.persist.commit").tag("result", "success").register(meterRegistry);
+        this.commitFailureTimer = Timer.builder("ai.code.persist.commit").tag("result", "failure").register(meterRegistry);
+    }
+
+    /**
+     * 为一次生成开启持久化工作者
+     *
+     * @return 持久化工作者
+     */
+    public PersistenceWorker openWorker() {
+        return new PersistenceWorker(scheduler.createWorker(), pendingTasks, commitSuccessTimer, commitFailureTimer);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,213 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodePrecompressProperties;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 生成结果预压缩器
+ * <p>生成的 HTML/CSS/JS 只写一次却会被多次访问，因此在保存后由后台线程池为每个文本文件
+ * 写出一次最高压缩级别的 .gz 副本，访问时按 Accept-Encoding 直接发送副本，不再逐请求压缩。
+ * 副本先写临时文件再原子重命名，访问方不会读到写了一半的副本；压缩后不小于原文件时不保留副本。</p>
+ * <p>启用段文件存储时，目录在保存后立即导入存储并删除，此时跳过预压缩。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@Component
+@Slf4j
+public class CodePrecompressor implements PostSaveStage {
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final String GZIP_ENCODING = "gzip";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final CodePrecompressProperties precompressProperties;
+
+    private final CodeSiteStore codeSiteStore;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+
+    public CodePrecompressor(CodePrecompressProperties precompressProperties, CodeSiteStore codeSiteStore,
+                             MeterRegistry meterRegistry) {
+        this.precompressProperties = precompressProperties;
+        this.codeSiteStore = codeSiteStore;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(precompressProperties.getThreads(), precompressProperties.getThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(precompressProperties.getQueueCapacity()),
+                ThreadFactoryBuilder.create().setNamePrefix("code-precompress-").setDaemon(true).build(),
+                (task, pool) -> log.warn("预压缩队列已满，跳过本次压缩"));
+    }
+
+    @PostConstruct
+    public void init() {
+        if (precompressProperties.isEnabled()) {
+            CodeFileSaverTemplate.setPostSaveStage(this);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        CodeFileSaverTemplate.setPostSaveStage(null);
+        executor.shutdown();
+    }
+
+    @Override
+    public void afterSave(File savedDir, CodeGenTypeEnum codeGenType) {
+        if (codeSiteStore.isEnabled()) {
+            return;
+        }
+        executor.execute(() -> compressDirectory(savedDir, codeGenType));
+    }
+
+    /**
+     * 为目录下的文本文件写出 .gz 副本
+     *
+     * @param dir         目录
+     * @param codeGenType 代码生成类型，用于指标标签
+     */
+    void compressDirectory(File dir, CodeGenTypeEnum codeGenType) {
+        long minSize = precompressProperties.getMinSize().toBytes();
+        for (File file : FileUtil.loopFiles(dir)) {
+            String extension = FileUtil.extName(file).toLowerCase(Locale.ROOT);
+            if (!precompressProperties.getExtensions().contains(extension) || file.length() < minSize) {
+                continue;
+            }
+            try {
+                compressFile(file.toPath(), codeGenType);
+            } catch (IOException e) {
+                // 目录可能已被清理，原文件仍可正常访问
+                log.warn("预压缩失败，文件：{}，原因：{}", file.getAbsolutePath(), e.getMessage());
+            }
+        }
+    }
+
+    private void compressFile(Path file, CodeGenTypeEnum codeGenType) throws IOException {
+        long start = System.nanoTime();
+        Path target = file.resolveSibling(file.getFileName() + GZIP_SUFFIX);
+        Path temp = file.resolveSibling(file.getFileName() + GZIP_SUFFIX + TEMP_SUFFIX);
+        try (OutputStream out = new BestCompressionGzipOutputStream(Files.newOutputStream(temp))) {
+            Files.copy(file, out);
+        }
+        long originalSize = Files.size(file);
+        long compressedSize = Files.size(temp);
+        if (compressedSize >= originalSize) {
+            Files.deleteIfExists(temp);
+            return;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Timer.builder("ai.code.precompress.time")
+                .tag("codeGenType", codeGenType.getValue())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("ai.code.precompress.ratio")
+                .description("压缩后大小 / 原大小")
+                .tag("codeGenType", codeGenType.getValue())
+                .register(meterRegistry)
+                .record((double) compressedSize / originalSize);
+    }
+
+    /**
+     * 按请求的 Accept-Encoding 选择发送的文件
+     *
+     * @param file           原文件
+     * @param acceptEncoding 请求头 Accept-Encoding，可为空
+     * @return 客户端接受 gzip 且存在副本时返回副本，否则返回原文件
+     */
+    public static PrecompressedVariant resolve(Path file, String acceptEncoding) {
+        if (acceptsGzip(acceptEncoding)) {
+            Path gzip = file.resolveSibling(file.getFileName() + GZIP_SUFFIX);
+            if (Files.isRegularFile(gzip)) {
+                return new PrecompressedVariant(gzip, GZIP_ENCODING);
+            }
+        }
+        return new PrecompressedVariant(file, null);
+    }
+
+    /**
+     * 是否为预压缩产生的文件（副本或未完成的临时文件）
+     *
+     * @param file 文件
+     * @return 是否为预压缩文件
+     */
+    public static boolean isPrecompressedArtifact(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(GZIP_SUFFIX) || name.endsWith(GZIP_SUFFIX + TEMP_SUFFIX);
+    }
+
+    /**
+     * 解析 Accept-Encoding 是否接受 gzip：显式的 gzip 优先于通配符 *，q=0 表示明确拒绝
+     *
+     * @param acceptEncoding 请求头
+     * @return 是否接受
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (StrUtil.isBlank(acceptEncoding)) {
+            return false;
+        }
+        boolean wildcardAccepted = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            if (GZIP_ENCODING.equals(coding)) {
+                return parseQuality(tokens) > 0;
+            }
+            if ("*".equals(coding)) {
+                wildcardAccepted = parseQuality(tokens) > 0;
+            }
+        }
+        return wildcardAccepted;
+    }
+
+    private static double parseQuality(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String param = tokens[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 使用最高压缩级别的 GZIP 输出流：只压缩一次，多花的 CPU 时间可被多次发送摊薄
+     */
+    private static final class BestCompressionGzipOutputStream extends GZIPOutputStream {
+
+        private BestCompressionGzipOutputStream(OutputStream out) throws IOException {
+            super(out, 8192);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
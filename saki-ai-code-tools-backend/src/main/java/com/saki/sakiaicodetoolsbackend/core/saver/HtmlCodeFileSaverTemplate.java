@@ -6,6 +6,9 @@ import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
 import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
 import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * HTML代码文件保存器
  * @author saki酱
@@ -14,16 +17,23 @@ import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
  */
 public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeResult> {
 
-
     @Override
     protected CodeGenTypeEnum getCodeType() {
         return CodeGenTypeEnum.HTML;
     }
 
     @Override
-    protected void saveFiles(HtmlCodeResult result, String baseDirPath) {
+    protected String resolveFileName(String fileName) {
+        // 单文件模式只保存 HTML
+        return "index.html";
+    }
+
+    @Override
+    protected Map<String, CharSequence> buildFiles(HtmlCodeResult result) {
         // 保存 HTML 文件
-        writeToFile(baseDirPath, "index.html", result.getHtmlCode());
+        Map<String, CharSequence> files = new LinkedHashMap<>();
+        files.put("index.html", result.getHtmlCode());
+        return files;
     }
 
     @Override
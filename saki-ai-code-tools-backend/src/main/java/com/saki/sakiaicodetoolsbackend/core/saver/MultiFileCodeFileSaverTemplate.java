@@ -1,18 +1,23 @@
 package com.saki.sakiaicodetoolsbackend.core.saver;
 
 import cn.hutool.core.util.StrUtil;
-import com.saki.sakiaicodetoolsbackend.ai.model.MultiFileCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectFile;
 import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
 import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
 import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
- * 多文件代码保存器
+ * 多文件项目代码保存器
+ * 按 AI 返回的相对路径保存任意数量的文件，子目录自动创建
  * @author saki酱
  * @version 1.0
  * @since 2025-11-03
  */
-public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiFileCodeResult> {
+public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<ProjectCodeResult> {
 
     @Override
     public CodeGenTypeEnum getCodeType() {
@@ -20,22 +25,31 @@ public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiF
     }
 
     @Override
-    protected void saveFiles(MultiFileCodeResult result, String baseDirPath) {
-        // 保存 HTML 文件
-        writeToFile(baseDirPath, "index.html", result.getHtmlCode());
-        // 保存 CSS 文件
-        writeToFile(baseDirPath, "style.css", result.getCssCode());
-        // 保存 JavaScript 文件
-        writeToFile(baseDirPath, "script.js", result.getJsCode());
+    protected String resolveFileName(String fileName) {
+        // 与 MultiFileCodeParser 的路径规则一致，不合法的路径忽略
+        return ProjectCodeResult.normalizePath(fileName);
+    }
+
+    @Override
+    protected Map<String, CharSequence> buildFiles(ProjectCodeResult result) {
+        Map<String, CharSequence> files = new LinkedHashMap<>();
+        for (ProjectFile file : result.getFiles()) {
+            String path = resolveFileName(file.getPath());
+            if (path != null) {
+                files.put(path, file.getContent());
+            }
+        }
+        return files;
     }
 
     @Override
-    protected void validateInput(MultiFileCodeResult result) {
+    protected void validateInput(ProjectCodeResult result) {
         super.validateInput(result);
-        // 至少要有 HTML 代码，CSS 和 JS 可以为空
-        if (StrUtil.isBlank(result.getHtmlCode())) {
+        // 至少要有一个 HTML 页面，其余文件可以为空
+        boolean hasHtml = result.getFiles().stream()
+                .anyMatch(file -> file.getPath().endsWith(".html") && StrUtil.isNotBlank(file.getContent()));
+        if (!hasHtml) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "HTML代码内容不能为空");
         }
     }
 }
-
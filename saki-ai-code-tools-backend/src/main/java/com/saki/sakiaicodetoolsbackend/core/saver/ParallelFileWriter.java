@@ -0,0 +1,85 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.saki.sakiaicodetoolsbackend.config.CodeSaveProperties;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 并行文件写入器
+ * <p>多文件项目保存时由有界线程池并行写入各个文件，保存线程等待全部写完后返回。
+ * 队列已满时由保存线程自己写入，写入线程数与排队文件数都有上限，不会因大项目无限占用线程或内存。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-12
+ */
+@Component
+@Slf4j
+public class ParallelFileWriter {
+
+    private final CodeSaveProperties saveProperties;
+
+    private final ThreadPoolExecutor executor;
+
+    public ParallelFileWriter(CodeSaveProperties saveProperties) {
+        this.saveProperties = saveProperties;
+        int threads = Math.max(1, saveProperties.getWriteThreads());
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, saveProperties.getQueueCapacity())),
+                ThreadFactoryBuilder.create().setNamePrefix("code-save-").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PostConstruct
+    public void init() {
+        if (saveProperties.getWriteThreads() > 0) {
+            CodeFileSaverTemplate.setFileWriter(this);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        CodeFileSaverTemplate.setFileWriter(null);
+        executor.shutdown();
+    }
+
+    /**
+     * 写入全部文件，任一文件写入失败时等待其余文件结束后抛出
+     *
+     * @param files  文件路径 -> 文件内容
+     * @param writer 单个文件的写入逻辑
+     */
+    public void writeAll(Map<String, CharSequence> files, BiConsumer<String, CharSequence> writer) {
+        if (files.size() < saveProperties.getParallelThreshold()) {
+            files.forEach(writer);
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(files.size());
+        files.forEach((filename, content) ->
+                futures.add(CompletableFuture.runAsync(() -> writer.accept(filename, content), executor)));
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            log.error("并行写入文件失败", cause);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件写入失败: " + cause.getMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 单次生成的持久化工作者
+ * <p>任务串行执行；中途任务失败时记录首个异常，后续任务跳过，在 {@link #commit} 时以错误返回。
+ * {@link #commit} 与 {@link #abort} 只有先执行的一个生效，执行后释放工作线程。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Slf4j
+public class PersistenceWorker {
+
+    private final Scheduler.Worker worker;
+
+    private final AtomicInteger pendingTasks;
+
+    private final Timer commitSuccessTimer;
+
+    private final Timer commitFailureTimer;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * 本工作者已提交未执行的任务数，释放时从全局计数中扣除被丢弃的任务
+     */
+    private final AtomicInteger localPendingTasks = new AtomicInteger();
+
+    /**
+     * 首个失败
+     */
+    private volatile Throwable failure;
+
+    PersistenceWorker(Scheduler.Worker worker, AtomicInteger pendingTasks,
+                      Timer commitSuccessTimer, Timer commitFailureTimer) {
+        this.worker = worker;
+        this.pendingTasks = pendingTasks;
+        this.commitSuccessTimer = commitSuccessTimer;
+        this.commitFailureTimer = commitFailureTimer;
+    }
+
+    /**
+     * 提交一个持久化任务
+     *
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        schedule(() -> {
+            if (failure != null || closed.get()) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                failure = e;
+            }
+        });
+    }
+
+    /**
+     * 在此前提交的任务全部执行完后提交保存
+     *
+     * @param commitTask 提交逻辑
+     * @return 提交结果，此前的任务或提交本身失败时以错误结束
+     */
+    public <T> Mono<T> commit(Callable<T> commitTask) {
+        return Mono.create(sink -> schedule(() -> {
+            if (!closed.compareAndSet(false, true)) {
+                sink.error(new BusinessException(ErrorCode.OPERATION_ERROR, "保存已取消"));
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                T result = commitTask.call();
+                commitSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                sink.success(result);
+            } catch (Throwable e) {
+                commitFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                sink.error(e);
+            } finally {
+                release();
+            }
+        }, sink::error));
+    }
+
+    /**
+     * 放弃保存：在已提交的任务之后执行清理逻辑，已提交保存时忽略
+     *
+     * @param abortTask 清理逻辑
+     */
+    public void abort(Runnable abortTask) {
+        schedule(() -> {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                abortTask.run();
+            } catch (Throwable e) {
+                log.warn("放弃保存时清理失败：{}", e.getMessage());
+            } finally {
+                release();
+            }
+        }, e -> log.warn("放弃保存任务提交失败：{}", e.getMessage()));
+    }
+
+    private void schedule(Runnable task) {
+        schedule(task, e -> {
+            if (failure == null) {
+                failure = e;
+            }
+        });
+    }
+
+    /**
+     * 提交到工作线程；工作线程队列已满或已释放时交给 onRejected 处理
+     */
+    private void schedule(Runnable task, Consumer<Throwable> onRejected) {
+        pendingTasks.incrementAndGet();
+        localPendingTasks.incrementAndGet();
+        try {
+            worker.schedule(() -> {
+                pendingTasks.decrementAndGet();
+                localPendingTasks.decrementAndGet();
+                task.run();
+            });
+        } catch (Exception e) {
+            pendingTasks.decrementAndGet();
+            localPendingTasks.decrementAndGet();
+            onRejected.accept(e);
+        }
+    }
+
+    /**
+     * 释放工作线程，尚未执行的任务随之丢弃
+     */
+    private void release() {
+        worker.dispose();
+        pendingTasks.addAndGet(-localPendingTasks.getAndSet(0));
+    }
+}
@@ -0,0 +1,25 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+
+import java.io.File;
+
+/**
+ * 保存后处理阶段
+ * <p>代码目录保存完成（同步保存或流式保存的目录重命名完成）后回调，实现方应自行异步执行耗时操作，
+ * 不阻塞保存流程。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@FunctionalInterface
+public interface PostSaveStage {
+
+    /**
+     * 目录保存完成后回调
+     *
+     * @param savedDir    保存的目录
+     * @param codeGenType 代码生成类型
+     */
+    void afterSave(File savedDir, CodeGenTypeEnum codeGenType);
+}
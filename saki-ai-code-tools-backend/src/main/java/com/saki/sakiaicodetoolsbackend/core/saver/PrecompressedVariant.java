@@ -0,0 +1,27 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * 按 Accept-Encoding 选出的待发送文件
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-09
+ */
+@Getter
+@AllArgsConstructor
+public class PrecompressedVariant {
+
+    /**
+     * 实际发送的文件（原文件或压缩副本）
+     */
+    private final Path path;
+
+    /**
+     * Content-Encoding，发送原文件时为 null
+     */
+    private final String contentEncoding;
+}
@@ -0,0 +1,257 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeStreamListener;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 流式代码文件保存会话
+ * <p>作为解析器的文件事件监听器：文件开始时打开 FileChannel，内容片段经可复用的直接缓冲区编码后追加写入，
+ * 全部写入暂存目录；流正常结束后校验结果，文件与目录刷盘后将暂存目录原子重命名到输出目录。
+ * 生成失败或取消时暂存目录保留，便于排查已生成的部分内容，超过保留时长后由保留管理器清理。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-05
+ */
+@Slf4j
+public class StreamingCodeFileSaveSession<T> implements CodeStreamListener {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final CodeFileSaverTemplate<T> saverTemplate;
+
+    private final Path stagingDir;
+
+    private final Path targetDir;
+
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * 当前正在写入的文件
+     */
+    private FileChannel channel;
+
+    private Path currentFile;
+
+    private boolean currentHasText;
+
+    /**
+     * 上一个片段末尾未能编码的字符（被拆开的代理对）
+     */
+    private String pendingChars = "";
+
+    private Exception failure;
+
+    StreamingCodeFileSaveSession(CodeFileSaverTemplate<T> saverTemplate, String stagingDirPath, String targetDirPath) {
+        this.saverTemplate = saverTemplate;
+        this.stagingDir = Paths.get(stagingDirPath);
+        this.targetDir = Paths.get(targetDirPath);
+    }
+
+    @Override
+    public synchronized void onFileStart(String fileName) {
+        if (failure != null) {
+            return;
+        }
+        closeCurrentFile();
+        String targetName = saverTemplate.resolveFileName(fileName);
+        if (targetName == null) {
+            return;
+        }
+        try {
+            currentFile = stagingDir.resolve(targetName);
+            Files.createDirectories(currentFile.getParent());
+            // 同名文件以最后一次为准
+            channel = FileChannel.open(currentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            currentHasText = false;
+            encoder.reset();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void onFileContent(String fileName, CharSequence content) {
+        if (failure != null || channel == null || content == null || content.isEmpty()) {
+            return;
+        }
+        currentHasText = currentHasText || StrUtil.isNotBlank(content);
+        try {
+            CharBuffer in = CharBuffer.wrap(pendingChars.isEmpty() ? content : pendingChars + content);
+            encode(in, false);
+            pendingChars = in.hasRemaining() ? in.toString() : "";
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void onFileEnd(String fileName) {
+        closeCurrentFile();
+    }
+
+    /**
+     * 按代码结果重写暂存目录，用于保存前经过后处理、内容与流式写入的不一致的情况
+     * 重写的文件同样在关闭前刷盘，提交时的持久化保证与流式写入一致
+     *
+     * @param codeResult 处理后的代码结果对象
+     * @return 暂存目录
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized File restage(Object codeResult) {
+        closeCurrentFile();
+        if (failure != null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件写入失败: " + failure.getMessage());
+        }
+        Map<String, CharSequence> files = saverTemplate.renderFiles((T) codeResult);
+        FileUtil.clean(stagingDir.toFile());
+        files.forEach((fileName, content) ->
+                CodeFileSaverTemplate.writeToFile(stagingDir.toString(), fileName, content, true));
+        return stagingDir.toFile();
+    }
+
+    /**
+     * 完成保存：校验解析结果后将暂存目录原子重命名到输出目录
+     *
+     * @param codeResult 解析后的代码结果对象
+     * @return 保存的目录
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized File complete(Object codeResult) {
+        closeCurrentFile();
+        if (failure != null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "文件写入失败: " + failure.getMessage());
+        }
+        saverTemplate.validateInput((T) codeResult);
+        try {
+            forceDirectories(stagingDir);
+            Files.createDirectories(targetDir.getParent());
+            Files.move(stagingDir, targetDir, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(targetDir.getParent());
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存目录重命名失败: " + e.getMessage());
+        }
+        saverTemplate.runPostSaveStage(targetDir.toFile());
+        return targetDir.toFile();
+    }
+
+    /**
+     * 放弃保存：关闭正在写入的文件，暂存目录保留到保留管理器按时间清理
+     */
+    public synchronized void abort() {
+        closeCurrentFile();
+        log.warn("代码生成未完成，已生成的部分内容保留在：{}", stagingDir.toAbsolutePath());
+    }
+
+    /**
+     * 将字符编码到直接缓冲区，缓冲区写满即刷到文件
+     *
+     * @param in         待编码字符
+     * @param endOfInput 是否为当前文件最后的输入
+     */
+    private void encode(CharBuffer in, boolean endOfInput) throws IOException {
+        CoderResult result;
+        while ((result = encoder.encode(in, byteBuffer, endOfInput)).isOverflow()) {
+            flushBuffer();
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+        if (endOfInput) {
+            while (encoder.flush(byteBuffer).isOverflow()) {
+                flushBuffer();
+            }
+        }
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+
+    /**
+     * 关闭当前文件；内容为空白时删除，与批量保存跳过空白内容的行为一致
+     */
+    private void closeCurrentFile() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (failure == null) {
+                encode(CharBuffer.wrap(pendingChars), true);
+                // 落盘后再关闭，保证提交成功时文件内容已持久化
+                channel.force(true);
+            }
+            channel.close();
+            if (!currentHasText) {
+                Files.deleteIfExists(currentFile);
+            }
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            channel = null;
+            currentFile = null;
+            pendingChars = "";
+        }
+    }
+
+    /**
+     * 将暂存目录及其全部子目录的目录项刷到磁盘，子目录中新建的文件同样需要持久化
+     *
+     * @param root 暂存目录
+     */
+    private void forceDirectories(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(Files::isDirectory).forEach(this::forceDirectory);
+        }
+    }
+
+    /**
+     * 将目录项（新建文件、重命名）刷到磁盘；部分平台不支持打开目录，此时忽略
+     *
+     * @param dir 目录
+     */
+    private void forceDirectory(Path dir) {
+        try (FileChannel dirChannel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            dirChannel.force(true);
+        } catch (IOException e) {
+            log.debug("目录无法刷盘，已忽略：{}", dir);
+        }
+    }
+
+    private void fail(Exception e) {
+        if (failure == null) {
+            failure = e;
+            log.error("流式写入文件失败：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.saki.sakiaicodetoolsbackend.core.scheduler;
+
+import com.saki.sakiaicodetoolsbackend.config.GenerationSchedulerProperties;
+import com.saki.sakiaicodetoolsbackend.exception.GenerationRejectedException;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.enums.VipStatusEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 代码生成调度器
+ * <p>位于代码生成外观之前，限制对大模型的全局并发数，超出的请求按用户排队：</p>
+ * <ul>
+ *   <li>VIP 用户（isVip == 1）与普通用户分属两个通道，两个通道都有排队时按 vipWeight : 1 加权调度</li>
+ *   <li>通道内按用户轮询，每轮每个用户只调度一个任务，避免少数用户占满并发</li>
+ *   <li>通道或单个用户排队过深时直接拒绝，并根据当前排队与平均耗时给出重试等待时间</li>
+ *   <li>批量任务走独立的批量通道，只在交互通道都没有排队时调度，且最多占用 batchMaxConcurrency 个名额，
+ *   不会挤占交互请求；批量任务的并行度由批量作业自身控制，不受单用户排队数限制</li>
+ * </ul>
+ * <p>任务以 Flux 形式提交，订阅时入队，获得许可后才订阅真正的生成流；任务结束或排队中取消都会释放名额。
+ * 许可在释放调度器锁之后发放，任务在 taskScheduler 上订阅，不会在释放名额的线程上执行，
+ * 避免阻塞式的生成调用占住调度器锁或拖慢上一个任务的调用方。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Component
+@Slf4j
+public class GenerationScheduler {
+
+    /**
+     * 未登录调用（如内部任务）统一归入的用户标识
+     */
+    private static final long ANONYMOUS_USER_ID = 0L;
+
+    private final GenerationSchedulerProperties schedulerProperties;
+
+    private final Lane vipLane;
+
+    private final Lane normalLane;
+
+    private final Lane batchLane;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 订阅生成任务的线程池
+     */
+    private final Scheduler taskScheduler;
+
+    private int running;
+
+    private int runningBatch;
+
+    /**
+     * 两个通道都有排队时，已连续调度的 VIP 任务数
+     */
+    private int vipServedInRow;
+
+    /**
+     * 单次生成耗时的指数移动平均（毫秒）
+     */
+    private double averageTaskMillis;
+
+    @Autowired
+    public GenerationScheduler(GenerationSchedulerProperties schedulerProperties, MeterRegistry meterRegistry) {
+        this(schedulerProperties, meterRegistry, Schedulers.boundedElastic());
+    }
+
+    GenerationScheduler(GenerationSchedulerProperties schedulerProperties, MeterRegistry meterRegistry,
+                        Scheduler taskScheduler) {
+        this.schedulerProperties = schedulerProperties;
+        this.meterRegistry = meterRegistry;
+        this.taskScheduler = taskScheduler;
+        this.averageTaskMillis = schedulerProperties.getEstimatedTaskDuration().toMillis();
+        this.vipLane = new Lane("vip", meterRegistry);
+        this.normalLane = new Lane("normal", meterRegistry);
+        this.batchLane = new Lane("batch", meterRegistry);
+        Gauge.builder("ai.generation.running", this, GenerationScheduler::getRunning).register(meterRegistry);
+    }
+
+    /**
+     * 以指定用户身份提交生成任务
+     *
+     * @param loginUser 发起用户，可为空
+     * @param task      生成任务，获得许可后才会被订阅
+     * @return 任务结果流
+     * @throws GenerationRejectedException 排队过深时（订阅时）抛出
+     */
+    public <T> Flux<T> submit(User loginUser, Supplier<? extends Publisher<T>> task) {
+        long userId = loginUser == null || loginUser.getId() == null ? ANONYMOUS_USER_ID : loginUser.getId();
+        boolean vip = loginUser != null && VipStatusEnum.VIP.getValue().equals(loginUser.getIsVip());
+        return submit(userId, vip, task);
+    }
+
+    /**
+     * 提交生成任务
+     *
+     * @param userId 用户 ID
+     * @param vip    是否走 VIP 通道
+     * @param task   生成任务，获得许可后才会被订阅
+     * @return 任务结果流
+     */
+    public <T> Flux<T> submit(long userId, boolean vip, Supplier<? extends Publisher<T>> task) {
+        return submit(userId, vip ? vipLane : normalLane, task);
+    }
+
+    /**
+     * 以指定用户身份提交批量生成任务，以最低优先级调度
+     *
+     * @param loginUser 发起用户，可为空
+     * @param task      生成任务，获得许可后才会被订阅
+     * @return 任务结果流
+     * @throws GenerationRejectedException 批量通道排队过深时（订阅时）抛出
+     */
+    public <T> Flux<T> submitBatch(User loginUser, Supplier<? extends Publisher<T>> task) {
+        long userId = loginUser == null || loginUser.getId() == null ? ANONYMOUS_USER_ID : loginUser.getId();
+        return submit(userId, batchLane, task);
+    }
+
+    private <T> Flux<T> submit(long userId, Lane lane, Supplier<? extends Publisher<T>> task) {
+        return Flux.defer(() -> {
+            Ticket ticket = new Ticket(userId, lane);
+            grant(enqueue(ticket));
+            return ticket.permit.asMono()
+                    .thenMany(Flux.defer(() -> Flux.from(task.get())).subscribeOn(taskScheduler))
+                    .doFinally(signal -> grant(release(ticket)));
+        });
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * 入队，有空闲名额时立即放行
+     *
+     * @return 本次放行的任务，需在锁外发放许可
+     */
+    private synchronized List<Ticket> enqueue(Ticket ticket) {
+        long userId = ticket.userId;
+        Lane lane = ticket.lane;
+        if (lane.size >= schedulerProperties.getMaxQueueDepth()) {
+            reject(lane, "生成排队人数过多，请稍后重试");
+        }
+        ArrayDeque<Ticket> userQueue = lane.queues.computeIfAbsent(userId, k -> new ArrayDeque<>());
+        if (lane != batchLane && userQueue.size() >= schedulerProperties.getMaxUserQueueDepth()) {
+            if (userQueue.isEmpty()) {
+                lane.queues.remove(userId);
+            }
+            reject(lane, "您的排队生成任务过多，请等待当前任务完成");
+        }
+        userQueue.addLast(ticket);
+        lane.size++;
+        return dispatch();
+    }
+
+    /**
+     * 任务结束或取消时释放名额；仍在排队的任务直接出队
+     *
+     * @return 因名额释放而放行的任务，需在锁外发放许可
+     */
+    private synchronized List<Ticket> release(Ticket ticket) {
+        if (ticket.started) {
+            running--;
+            if (ticket.lane == batchLane) {
+                runningBatch--;
+            }
+            long costMillis = (System.nanoTime() - ticket.startNanos) / 1_000_000;
+            averageTaskMillis = averageTaskMillis * 0.8 + costMillis * 0.2;
+            return dispatch();
+        }
+        ArrayDeque<Ticket> userQueue = ticket.lane.queues.get(ticket.userId);
+        if (userQueue != null && userQueue.remove(ticket)) {
+            ticket.lane.size--;
+            if (userQueue.isEmpty()) {
+                ticket.lane.queues.remove(ticket.userId);
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * 发放许可，调用方不能持有调度器锁：等待方会在发放许可的线程上继续执行
+     */
+    private static void grant(List<Ticket> started) {
+        started.forEach(ticket -> ticket.permit.tryEmitEmpty());
+    }
+
+    /**
+     * 在有空闲名额时按权重与轮询规则选出放行的排队任务
+     */
+    private List<Ticket> dispatch() {
+        List<Ticket> started = new ArrayList<>();
+        while (running < schedulerProperties.getMaxConcurrency()) {
+            Lane lane = nextLane();
+            if (lane == null) {
+                break;
+            }
+            Ticket ticket = lane.pollRoundRobin();
+            ticket.started = true;
+            ticket.startNanos = System.nanoTime();
+            lane.waitTimer.record(Duration.ofNanos(ticket.startNanos - ticket.enqueueNanos));
+            running++;
+            if (lane == batchLane) {
+                runningBatch++;
+            }
+            started.add(ticket);
+        }
+        return started;
+    }
+
+    private Lane nextLane() {
+        boolean hasVip = vipLane.size > 0;
+        boolean hasNormal = normalLane.size > 0;
+        if (hasVip && hasNormal) {
+            if (vipServedInRow < schedulerProperties.getVipWeight()) {
+                vipServedInRow++;
+                return vipLane;
+            }
+            vipServedInRow = 0;
+            return normalLane;
+        }
+        vipServedInRow = 0;
+        if (hasVip || hasNormal) {
+            return hasVip ? vipLane : normalLane;
+        }
+        // 批量通道只使用交互请求空闲出来的名额
+        return batchLane.size > 0 && runningBatch < schedulerProperties.getBatchMaxConcurrency() ? batchLane : null;
+    }
+
+    private void reject(Lane lane, String message) {
+        Counter.builder("ai.generation.rejected").tag("lane", lane.name).register(meterRegistry).increment();
+        int waves = (vipLane.size + normalLane.size) / Math.max(1, schedulerProperties.getMaxConcurrency()) + 1;
+        long retryAfterSeconds = Math.max(1, Math.round(waves * averageTaskMillis / 1000));
+        throw new GenerationRejectedException(message, retryAfterSeconds);
+    }
+
+    /**
+     * 调度通道：按用户分组的排队任务，按插入顺序轮询
+     */
+    private static final class Lane {
+
+        private final String name;
+
+        private final LinkedHashMap<Long, ArrayDeque<Ticket>> queues = new LinkedHashMap<>();
+
+        private final Timer waitTimer;
+
+        private int size;
+
+        private Lane(String name, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.waitTimer = Timer.builder("ai.generation.queue.wait").tag("lane", name).register(meterRegistry);
+            Gauge.builder("ai.generation.queue.depth", this, lane -> lane.size).tag("lane", name).register(meterRegistry);
+        }
+
+        /**
+         * 取出队首用户的一个任务，该用户仍有排队时移到队尾
+         */
+        private Ticket pollRoundRobin() {
+            Iterator<Map.Entry<Long, ArrayDeque<Ticket>>> iterator = queues.entrySet().iterator();
+            Map.Entry<Long, ArrayDeque<Ticket>> head = iterator.next();
+            iterator.remove();
+            Ticket ticket = head.getValue().pollFirst();
+            if (!head.getValue().isEmpty()) {
+                queues.put(head.getKey(), head.getValue());
+            }
+            size--;
+            return ticket;
+        }
+    }
+
+    /**
+     * 排队凭证
+     */
+    private static final class Ticket {
+
+        private final long userId;
+
+        private final Lane lane;
+
+        private final long enqueueNanos = System.nanoTime();
+
+        private final Sinks.Empty<Void> permit = Sinks.empty();
+
+        private boolean started;
+
+        private long startNanos;
+
+        private Ticket(long userId, Lane lane) {
+            this.userId = userId;
+            this.lane = lane;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.saki.sakiaicodetoolsbackend.core.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 文件内容在段文件中的位置
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-08
+ */
+@Getter
+@AllArgsConstructor
+public class BlobLocation {
+
+    /**
+     * 段文件编号
+     */
+    private final int segmentId;
+
+    /**
+     * 起始偏移
+     */
+    private final long offset;
+
+    /**
+     * 字节长度
+     */
+    private final int length;
+}
@@ -0,0 +1,137 @@
+package com.saki.sakiaicodetoolsbackend.core.storage;
+
+import cn.hutool.core.io.FileUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodeStoreProperties;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverExecutor;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 生成站点存储
+ * <p>以 {@link SegmentBlobStore} 保存生成结果，替代每次生成一个目录的方式，避免海量小目录带来的
+ * 目录遍历、备份与 inode 压力。生成记录 ID 与目录模式下的目录名格式一致（{类型}_{雪花ID}）。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-08
+ */
+@Component
+@Slf4j
+public class CodeSiteStore {
+
+    private final CodeStoreProperties storeProperties;
+
+    private final SegmentBlobStore blobStore;
+
+    public CodeSiteStore(CodeStoreProperties storeProperties) {
+        this.storeProperties = storeProperties;
+        this.blobStore = storeProperties.isEnabled()
+                ? new SegmentBlobStore(Paths.get(storeProperties.getRootDir()), storeProperties.getSegmentSize().toBytes())
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return blobStore != null;
+    }
+
+    /**
+     * 保存代码，与 {@link CodeFileSaverExecutor#executeSaver} 的校验与文件映射规则一致
+     *
+     * @param codeResult  代码结果对象
+     * @param codeGenType 代码生成类型
+     * @return 生成记录 ID
+     */
+    public String saveCode(Object codeResult, CodeGenTypeEnum codeGenType) {
+        Map<String, CharSequence> files = CodeFileSaverExecutor.renderFiles(codeResult, codeGenType);
+        String generationId = CodeFileSaverExecutor.newGenerationId(codeGenType);
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        files.forEach((name, content) -> contents.put(name, content.toString().getBytes(StandardCharsets.UTF_8)));
+        requireStore().put(generationId, contents);
+        return generationId;
+    }
+
+    /**
+     * 将已保存的目录导入存储后删除目录，目录名作为生成记录 ID，子目录中的文件以 / 分隔的相对路径保存
+     *
+     * @param dir 生成结果目录
+     * @return 生成记录 ID
+     */
+    public String importDirectory(File dir) {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        for (File file : FileUtil.loopFiles(dir)) {
+            String relativePath = FileUtil.subPath(dir.getAbsolutePath(), file).replace(File.separatorChar, '/');
+            contents.put(relativePath, FileUtil.readBytes(file));
+        }
+        requireStore().put(dir.getName(), contents);
+        FileUtil.del(dir);
+        return dir.getName();
+    }
+
+    /**
+     * 读取文件内容
+     *
+     * @param generationId 生成记录 ID
+     * @param fileName     文件名
+     * @return 只读内容切片，不存在时返回 null
+     */
+    public ByteBuffer readFile(String generationId, String fileName) {
+        return requireStore().read(generationId, fileName);
+    }
+
+    /**
+     * 列出生成记录的文件
+     *
+     * @param generationId 生成记录 ID
+     * @return 文件名 -> 字节长度
+     */
+    public Map<String, Integer> listFiles(String generationId) {
+        return requireStore().listFiles(generationId);
+    }
+
+    public boolean exists(String generationId) {
+        return isEnabled() && blobStore.contains(generationId);
+    }
+
+    /**
+     * 删除生成记录
+     *
+     * @param generationId 生成记录 ID
+     * @return 是否存在并被删除
+     */
+    public boolean delete(String generationId) {
+        return requireStore().delete(generationId);
+    }
+
+    /**
+     * 压缩段文件，回收已删除生成记录占用的空间
+     *
+     * @return 回收的字节数
+     */
+    public long compact() {
+        return requireStore().compact(storeProperties.getCompactDeadRatio());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (blobStore != null) {
+            blobStore.close();
+        }
+    }
+
+    private SegmentBlobStore requireStore() {
+        if (blobStore == null) {
+            throw new BusinessException(ErrorCode.OPERATION_NOT_ALLOWED, "段文件存储未启用");
+        }
+        return blobStore;
+    }
+}
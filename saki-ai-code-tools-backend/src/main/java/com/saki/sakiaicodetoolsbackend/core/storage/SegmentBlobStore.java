@@ -0,0 +1,487 @@
+package com.saki.sakiaicodetoolsbackend.core.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 基于追加写段文件的 Blob 存储
+ * <p>所有生成记录的文件内容顺序追加到段文件（segment-*.dat），单个段写满后滚动到新段；
+ * 生成记录 ID -> 文件名 -> (段编号, 偏移, 长度) 的索引保存在内存中，并以追加日志（index.log）持久化，启动时重放恢复。
+ * 读取通过内存映射直接返回只读切片，不经过堆内拷贝。</p>
+ * <p>删除只在索引日志中追加删除记录，空间由 {@link #compact(double)} 回收：
+ * 将失效比例超过阈值的已封存段中仍然有效的内容搬到当前段，再删除旧段并重写索引日志快照。</p>
+ * <p>写入顺序为 段数据刷盘 -> 索引日志刷盘，崩溃时最多留下未被索引引用的段数据，由压缩回收；
+ * 索引日志末尾的不完整记录在重放时截断。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-08
+ */
+@Slf4j
+public class SegmentBlobStore implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private static final String INDEX_LOG = "index.log";
+
+    private static final byte RECORD_PUT = 1;
+
+    private static final byte RECORD_DELETE = 2;
+
+    private final Path rootDir;
+
+    private final long maxSegmentBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 生成记录 ID -> 文件名 -> 位置
+     */
+    private final Map<String, Map<String, BlobLocation>> index = new HashMap<>();
+
+    /**
+     * 段编号 -> 段文件
+     */
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+
+    private Segment activeSegment;
+
+    private FileChannel indexLogChannel;
+
+    /**
+     * 打开（或创建）存储
+     *
+     * @param rootDir         存储根目录
+     * @param maxSegmentBytes 单个段文件的最大字节数
+     */
+    public SegmentBlobStore(Path rootDir, long maxSegmentBytes) {
+        if (maxSegmentBytes <= 0 || maxSegmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxSegmentBytes 必须在 (0, 2GB) 之间");
+        }
+        this.rootDir = rootDir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        try {
+            Files.createDirectories(rootDir);
+            openSegments();
+            replayIndexLog();
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开段文件存储失败: " + rootDir, e);
+        }
+    }
+
+    /**
+     * 保存一次生成的全部文件，ID 已存在时整体替换
+     *
+     * @param generationId 生成记录 ID
+     * @param files        文件名 -> 文件内容
+     */
+    public void put(String generationId, Map<String, byte[]> files) {
+        lock.writeLock().lock();
+        try {
+            Map<String, BlobLocation> locations = new LinkedHashMap<>();
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                locations.put(file.getKey(), append(file.getValue()));
+            }
+            activeSegment.channel.force(false);
+            appendIndexRecord(encodePut(generationId, locations));
+            index.put(generationId, locations);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入段文件失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读取文件内容
+     *
+     * @param generationId 生成记录 ID
+     * @param fileName     文件名
+     * @return 只读的内存映射切片，不存在时返回 null
+     */
+    public ByteBuffer read(String generationId, String fileName) {
+        lock.readLock().lock();
+        try {
+            Map<String, BlobLocation> locations = index.get(generationId);
+            BlobLocation location = locations == null ? null : locations.get(fileName);
+            if (location == null) {
+                return null;
+            }
+            return segments.get(location.getSegmentId()).slice(location);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取段文件失败", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 列出一次生成的文件
+     *
+     * @param generationId 生成记录 ID
+     * @return 文件名 -> 字节长度，不存在时返回空
+     */
+    public Map<String, Integer> listFiles(String generationId) {
+        lock.readLock().lock();
+        try {
+            Map<String, BlobLocation> locations = index.get(generationId);
+            if (locations == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, Integer> files = new LinkedHashMap<>();
+            locations.forEach((name, location) -> files.put(name, location.getLength()));
+            return files;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String generationId) {
+        lock.readLock().lock();
+        try {
+            return index.containsKey(generationId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一次生成，空间在压缩时回收
+     *
+     * @param generationId 生成记录 ID
+     * @return 是否存在并被删除
+     */
+    public boolean delete(String generationId) {
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(generationId)) {
+                return false;
+            }
+            appendIndexRecord(encodeDelete(generationId));
+            index.remove(generationId);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入索引日志失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 压缩：回收失效比例不低于阈值的已封存段
+     *
+     * @param minDeadRatio 失效字节占段大小的最小比例，0~1
+     * @return 回收的字节数
+     */
+    public long compact(double minDeadRatio) {
+        lock.writeLock().lock();
+        try {
+            Map<Integer, Long> liveBytes = computeLiveBytes();
+            List<Segment> victims = new ArrayList<>();
+            for (Segment segment : segments.values()) {
+                if (segment == activeSegment || segment.size == 0) {
+                    continue;
+                }
+                long live = liveBytes.getOrDefault(segment.id, 0L);
+                if ((double) (segment.size - live) / segment.size >= minDeadRatio) {
+                    victims.add(segment);
+                }
+            }
+            if (victims.isEmpty()) {
+                return 0;
+            }
+            List<Integer> victimIds = victims.stream().map(segment -> segment.id).toList();
+            // 搬迁仍有效的内容
+            for (Map<String, BlobLocation> locations : index.values()) {
+                for (Map.Entry<String, BlobLocation> entry : locations.entrySet()) {
+                    BlobLocation location = entry.getValue();
+                    if (victimIds.contains(location.getSegmentId())) {
+                        ByteBuffer content = segments.get(location.getSegmentId()).slice(location);
+                        byte[] bytes = new byte[content.remaining()];
+                        content.get(bytes);
+                        entry.setValue(append(bytes));
+                    }
+                }
+            }
+            activeSegment.channel.force(false);
+            rewriteIndexLog();
+            long reclaimed = 0;
+            for (Segment victim : victims) {
+                reclaimed += victim.size - liveBytes.getOrDefault(victim.id, 0L);
+                victim.close();
+                segments.remove(victim.id);
+                Files.deleteIfExists(victim.path);
+            }
+            log.info("段文件压缩完成，回收 {} 个段，{} 字节", victims.size(), reclaimed);
+            return reclaimed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("段文件压缩失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 存储统计：段数量、总字节数、有效字节数
+     *
+     * @return 统计信息
+     */
+    public Map<String, Long> stats() {
+        lock.readLock().lock();
+        try {
+            long total = segments.values().stream().mapToLong(segment -> segment.size).sum();
+            long live = computeLiveBytes().values().stream().mapToLong(Long::longValue).sum();
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("generations", (long) index.size());
+            stats.put("segments", (long) segments.size());
+            stats.put("totalBytes", total);
+            stats.put("liveBytes", live);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            if (indexLogChannel != null) {
+                indexLogChannel.close();
+            }
+        } catch (IOException e) {
+            log.warn("关闭段文件存储失败：{}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===================== 段文件 =====================
+
+    private void openSegments() throws IOException {
+        try (Stream<Path> paths = Files.list(rootDir)) {
+            for (Path path : paths.toList()) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(id, new Segment(id, path));
+                }
+            }
+        }
+        activeSegment = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Path path = rootDir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = new Segment(id, path);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * 追加内容到当前段，写满时先滚动到新段
+     */
+    private BlobLocation append(byte[] content) throws IOException {
+        if (activeSegment.size > 0 && activeSegment.size + content.length > maxSegmentBytes) {
+            activeSegment.channel.force(false);
+            activeSegment = createSegment(activeSegment.id + 1);
+        }
+        long offset = activeSegment.size;
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            activeSegment.channel.write(buffer, offset + buffer.position());
+        }
+        activeSegment.size += content.length;
+        return new BlobLocation(activeSegment.id, offset, content.length);
+    }
+
+    private Map<Integer, Long> computeLiveBytes() {
+        Map<Integer, Long> liveBytes = new HashMap<>();
+        for (Map<String, BlobLocation> locations : index.values()) {
+            for (BlobLocation location : locations.values()) {
+                liveBytes.merge(location.getSegmentId(), (long) location.getLength(), Long::sum);
+            }
+        }
+        return liveBytes;
+    }
+
+    // ===================== 索引日志 =====================
+
+    /**
+     * 重放索引日志，末尾不完整的记录被截断
+     */
+    private void replayIndexLog() throws IOException {
+        Path logPath = rootDir.resolve(INDEX_LOG);
+        long validLength = 0;
+        if (Files.exists(logPath)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(logPath));
+                 DataInputStream data = new DataInputStream(in)) {
+                while (true) {
+                    int recordLength;
+                    try {
+                        recordLength = data.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    byte[] record = new byte[recordLength];
+                    try {
+                        data.readFully(record);
+                    } catch (EOFException e) {
+                        log.warn("索引日志末尾记录不完整，已截断");
+                        break;
+                    }
+                    applyRecord(record);
+                    validLength += 4 + recordLength;
+                }
+            }
+        }
+        indexLogChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        indexLogChannel.truncate(validLength);
+        indexLogChannel.position(validLength);
+    }
+
+    private void applyRecord(byte[] record) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = data.readByte();
+        String generationId = data.readUTF();
+        if (type == RECORD_DELETE) {
+            index.remove(generationId);
+            return;
+        }
+        int count = data.readInt();
+        Map<String, BlobLocation> locations = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = data.readUTF();
+            locations.put(name, new BlobLocation(data.readInt(), data.readLong(), data.readInt()));
+        }
+        index.put(generationId, locations);
+    }
+
+    private byte[] encodePut(String generationId, Map<String, BlobLocation> locations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeByte(RECORD_PUT);
+        data.writeUTF(generationId);
+        data.writeInt(locations.size());
+        for (Map.Entry<String, BlobLocation> entry : locations.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(entry.getValue().getSegmentId());
+            data.writeLong(entry.getValue().getOffset());
+            data.writeInt(entry.getValue().getLength());
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeDelete(String generationId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeByte(RECORD_DELETE);
+        data.writeUTF(generationId);
+        return bytes.toByteArray();
+    }
+
+    private void appendIndexRecord(byte[] record) throws IOException {
+        writeRecord(indexLogChannel, record);
+        indexLogChannel.force(false);
+    }
+
+    private static void writeRecord(FileChannel channel, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 以当前索引重写日志快照，写入临时文件后原子替换
+     */
+    private void rewriteIndexLog() throws IOException {
+        Path logPath = rootDir.resolve(INDEX_LOG);
+        Path tempPath = rootDir.resolve(INDEX_LOG + ".tmp");
+        try (FileChannel temp = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<String, Map<String, BlobLocation>> entry : index.entrySet()) {
+                writeRecord(temp, encodePut(entry.getKey(), entry.getValue()));
+            }
+            temp.force(true);
+        }
+        indexLogChannel.close();
+        Files.move(tempPath, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        indexLogChannel = FileChannel.open(logPath, StandardOpenOption.WRITE);
+        indexLogChannel.position(indexLogChannel.size());
+    }
+
+    /**
+     * 段文件：写入通道与只读映射，映射在读取超出范围时按当前大小重新建立
+     */
+    private static final class Segment {
+
+        private final int id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private long size;
+
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        private ByteBuffer slice(BlobLocation location) throws IOException {
+            MappedByteBuffer current = mapped;
+            long end = location.getOffset() + location.getLength();
+            if (current == null || current.capacity() < end) {
+                synchronized (this) {
+                    current = mapped;
+                    if (current == null || current.capacity() < end) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                        mapped = current;
+                    }
+                }
+            }
+            return current.slice((int) location.getOffset(), location.getLength()).asReadOnlyBuffer();
+        }
+
+        private void close() throws IOException {
+            channel.close();
+        }
+    }
+}
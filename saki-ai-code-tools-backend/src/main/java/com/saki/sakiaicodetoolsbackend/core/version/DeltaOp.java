@@ -0,0 +1,41 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 行差异操作
+ * <p>按顺序作用于基准文件的行：= 复制 count 行，- 跳过 count 行，+ 插入 lines。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaOp {
+
+    public static final String COPY = "=";
+
+    public static final String DELETE = "-";
+
+    public static final String INSERT = "+";
+
+    /**
+     * 操作类型：= / - / +
+     */
+    private String type;
+
+    /**
+     * 复制或跳过的行数，插入时为插入行数
+     */
+    private int count;
+
+    /**
+     * 插入的行，仅插入时有值
+     */
+    private List<String> lines;
+}
@@ -0,0 +1,193 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行级差异
+ * <p>先去掉公共前后缀，再对中间部分用 Myers O(ND) 算法求最短编辑脚本，结果压缩为 {@link DeltaOp} 序列。
+ * 回溯需要保留每一步的 V 数组，内存随编辑距离平方增长，因此编辑距离超过上限时放弃差异，由调用方存完整内容。
+ * 行按 \n 切分并保留末尾空行，应用差异后与原文逐字节一致。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+public final class LineDelta {
+
+    private LineDelta() {
+    }
+
+    /**
+     * 计算 base 到 target 的差异
+     *
+     * @param base            基准内容
+     * @param target          目标内容
+     * @param maxEditDistance 允许的最大编辑距离（插入行数 + 删除行数）
+     * @return 差异操作，编辑距离超过上限时返回 null
+     */
+    public static List<DeltaOp> diff(String base, String target, int maxEditDistance) {
+        String[] a = base.split("\n", -1);
+        String[] b = target.split("\n", -1);
+        int prefix = 0;
+        int maxPrefix = Math.min(a.length, b.length);
+        while (prefix < maxPrefix && a[prefix].equals(b[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) {
+            suffix++;
+        }
+        String[] midA = Arrays.copyOfRange(a, prefix, a.length - suffix);
+        String[] midB = Arrays.copyOfRange(b, prefix, b.length - suffix);
+        char[] script = editScript(midA, midB, maxEditDistance);
+        if (script == null) {
+            return null;
+        }
+        List<DeltaOp> ops = new ArrayList<>();
+        append(ops, DeltaOp.COPY, prefix, null);
+        int y = 0;
+        for (int i = 0; i < script.length; ) {
+            char op = script[i];
+            int j = i;
+            while (j < script.length && script[j] == op) {
+                j++;
+            }
+            int count = j - i;
+            if (op == 'I') {
+                append(ops, DeltaOp.INSERT, count, new ArrayList<>(Arrays.asList(midB).subList(y, y + count)));
+                y += count;
+            } else {
+                append(ops, op == 'E' ? DeltaOp.COPY : DeltaOp.DELETE, count, null);
+                if (op == 'E') {
+                    y += count;
+                }
+            }
+            i = j;
+        }
+        append(ops, DeltaOp.COPY, suffix, null);
+        return ops;
+    }
+
+    /**
+     * 将差异应用到基准内容
+     *
+     * @param base 基准内容
+     * @param ops  差异操作
+     * @return 目标内容
+     */
+    public static String apply(String base, List<DeltaOp> ops) {
+        String[] lines = base.split("\n", -1);
+        List<String> result = new ArrayList<>(lines.length);
+        int x = 0;
+        for (DeltaOp op : ops) {
+            switch (op.getType()) {
+                case DeltaOp.COPY -> {
+                    ThrowUtils.throwIf(x + op.getCount() > lines.length, ErrorCode.SYSTEM_ERROR, "版本差异与基准不一致");
+                    result.addAll(Arrays.asList(lines).subList(x, x + op.getCount()));
+                    x += op.getCount();
+                }
+                case DeltaOp.DELETE -> x += op.getCount();
+                case DeltaOp.INSERT -> result.addAll(op.getLines());
+                default -> ThrowUtils.throwIf(true, ErrorCode.SYSTEM_ERROR, "未知的版本差异操作：" + op.getType());
+            }
+        }
+        ThrowUtils.throwIf(x != lines.length, ErrorCode.SYSTEM_ERROR, "版本差异与基准不一致");
+        return String.join("\n", result);
+    }
+
+    private static void append(List<DeltaOp> ops, String type, int count, List<String> lines) {
+        if (count > 0) {
+            ops.add(new DeltaOp(type, count, lines));
+        }
+    }
+
+    /**
+     * Myers 最短编辑脚本
+     *
+     * @return 按顺序的操作：E 相同、D 删除 a 的一行、I 插入 b 的一行；超过编辑距离上限时返回 null
+     */
+    private static char[] editScript(String[] a, String[] b, int maxEditDistance) {
+        int n = a.length;
+        int m = b.length;
+        if (n == 0 || m == 0) {
+            if (n + m > maxEditDistance) {
+                return null;
+            }
+            char[] script = new char[n + m];
+            Arrays.fill(script, n == 0 ? 'I' : 'D');
+            return script;
+        }
+        // 行内容映射为整数，比较时不再逐字符比较字符串
+        Map<String, Integer> ids = new HashMap<>();
+        int[] ia = new int[n];
+        int[] ib = new int[m];
+        for (int i = 0; i < n; i++) {
+            ia[i] = ids.computeIfAbsent(a[i], k -> ids.size());
+        }
+        for (int i = 0; i < m; i++) {
+            ib[i] = ids.computeIfAbsent(b[i], k -> ids.size());
+        }
+        int limit = Math.min(n + m, maxEditDistance);
+        int offset = limit + 1;
+        int[] v = new int[2 * limit + 3];
+        // trace.get(d) 为第 d 步开始前 V 在 [-d, d] 上的快照
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= limit; d++) {
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && ia[x] == ib[y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(trace, n, m, d);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static char[] backtrack(List<int[]> trace, int n, int m, int distance) {
+        char[] reversed = new char[n + m];
+        int length = 0;
+        int x = n;
+        int y = m;
+        for (int d = distance; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            int prevK = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]) ? k + 1 : k - 1;
+            int prevX = v[prevK + d];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                reversed[length++] = 'E';
+                x--;
+                y--;
+            }
+            reversed[length++] = prevK == k + 1 ? 'I' : 'D';
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0 && y > 0) {
+            reversed[length++] = 'E';
+            x--;
+            y--;
+        }
+        char[] script = new char[length];
+        for (int i = 0; i < length; i++) {
+            script[i] = reversed[length - 1 - i];
+        }
+        return script;
+    }
+}
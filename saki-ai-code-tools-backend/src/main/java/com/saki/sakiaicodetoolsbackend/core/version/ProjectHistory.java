@@ -0,0 +1,36 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 项目版本历史
+ * <p>项目 ID 为首个版本的生成结果 ID，版本号连续递增，修改旧版本或回滚都追加为新的最新版本。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@Data
+public class ProjectHistory {
+
+    /**
+     * 项目 ID
+     */
+    private String projectId;
+
+    /**
+     * 所属用户，可为空
+     */
+    private Long userId;
+
+    /**
+     * 全部版本，按版本号升序
+     */
+    private List<VersionRecord> versions = new ArrayList<>();
+
+    public VersionRecord latest() {
+        return versions.get(versions.size() - 1);
+    }
+}
@@ -0,0 +1,322 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.ZipUtil;
+import cn.hutool.json.JSONUtil;
+import com.saki.sakiaicodetoolsbackend.config.CodeVersionProperties;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverExecutor;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 生成结果版本存储
+ * <p>以 {@link CodeFileSaverExecutor#executeSaver} 返回的生成结果 ID 标识版本。首次编辑某个生成结果时为其建立项目，
+ * 原结果作为版本 1 保存快照，之后每个版本只保存相对上一版本的行差异，每隔 snapshotInterval 个版本
+ * 或差异不比快照小多少时保存完整快照。版本内容 gzip 后落盘，目录结构为 {rootDir}/{项目ID}/v{版本号}.json.gz。</p>
+ * <p>还原某个版本时从不晚于它的最近快照（或已缓存的版本）开始依次应用差异，结果放入按版本数限定的 LRU 缓存，
+ * 连续编辑最新版本时基准总能命中缓存。同一项目的提交串行执行，不同项目互不影响。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@Component
+@Slf4j
+public class ProjectVersionStore {
+
+    private static final String INDEX_FILE = "index.json";
+
+    private final CodeVersionProperties versionProperties;
+
+    /**
+     * 项目 ID -> 版本历史
+     */
+    private final Map<String, ProjectHistory> projects = new ConcurrentHashMap<>();
+
+    /**
+     * 生成结果 ID -> 项目 ID
+     */
+    private final Map<String, String> projectIds = new ConcurrentHashMap<>();
+
+    /**
+     * 项目 ID@版本号 -> 还原后的文件
+     */
+    private final LRUCache<String, Map<String, String>> decodedVersions;
+
+    public ProjectVersionStore(CodeVersionProperties versionProperties) {
+        this.versionProperties = versionProperties;
+        this.decodedVersions = CacheUtil.newLRUCache(Math.max(1, versionProperties.getCacheSize()));
+    }
+
+    /**
+     * 加载全部项目的版本索引
+     */
+    @PostConstruct
+    public void init() {
+        File[] dirs = new File(versionProperties.getRootDir()).listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            File indexFile = new File(dir, INDEX_FILE);
+            if (!indexFile.exists()) {
+                continue;
+            }
+            try {
+                ProjectHistory history = JSONUtil.toBean(FileUtil.readString(indexFile, StandardCharsets.UTF_8),
+                        ProjectHistory.class);
+                projects.put(history.getProjectId(), history);
+                history.getVersions().forEach(record -> projectIds.put(record.getGenerationId(), history.getProjectId()));
+            } catch (Exception e) {
+                log.warn("版本索引损坏，已跳过：{}，原因：{}", dir.getName(), e.getMessage());
+            }
+        }
+        log.info("加载版本历史 {} 个项目，{} 个版本", projects.size(), projectIds.size());
+    }
+
+    /**
+     * 查询生成结果所属项目的版本历史
+     *
+     * @param generationId 生成结果 ID
+     * @return 版本历史副本，生成结果未被编辑过时返回 null
+     */
+    public ProjectHistory getHistory(String generationId) {
+        String projectId = generationId == null ? null : projectIds.get(generationId);
+        ProjectHistory history = projectId == null ? null : projects.get(projectId);
+        if (history == null) {
+            return null;
+        }
+        synchronized (history) {
+            ProjectHistory copy = new ProjectHistory();
+            copy.setProjectId(history.getProjectId());
+            copy.setUserId(history.getUserId());
+            copy.setVersions(new ArrayList<>(history.getVersions()));
+            return copy;
+        }
+    }
+
+    /**
+     * 还原某个版本的全部文件
+     *
+     * @param projectId 项目 ID
+     * @param version   版本号
+     * @return 路径 -> 内容，按路径排序且不可修改
+     * @throws BusinessException 当项目或版本不存在时抛出
+     */
+    public Map<String, String> getFiles(String projectId, int version) {
+        ProjectHistory history = projects.get(projectId);
+        ThrowUtils.throwIf(history == null, ErrorCode.NOT_FOUND_ERROR, "版本历史不存在");
+        synchronized (history) {
+            ThrowUtils.throwIf(version < 1 || version > history.getVersions().size(), ErrorCode.NOT_FOUND_ERROR,
+                    "版本不存在");
+            return reconstruct(history, version);
+        }
+    }
+
+    /**
+     * 提交新版本，追加为所属项目的最新版本
+     *
+     * @param parentGenerationId 被修改的生成结果 ID
+     * @param parentFiles        被修改的生成结果的文件，仅在其尚未纳入版本历史时读取
+     * @param generationId       新的生成结果 ID
+     * @param files              新版本的全部文件
+     * @param userId             所属用户，可为空
+     * @param description        修改说明
+     * @return 新版本记录
+     */
+    public VersionRecord commit(String parentGenerationId, Supplier<Map<String, String>> parentFiles,
+                                String generationId, Map<String, String> files, Long userId, String description) {
+        String projectId = projectIds.computeIfAbsent(parentGenerationId,
+                id -> createProject(id, parentFiles.get(), userId).getProjectId());
+        ProjectHistory history = projects.get(projectId);
+        synchronized (history) {
+            ThrowUtils.throwIf(projectIds.containsKey(generationId), ErrorCode.DATA_ALREADY_EXISTS, "版本已存在");
+            VersionRecord latest = history.latest();
+            int version = latest.getVersion() + 1;
+            Map<String, String> target = Collections.unmodifiableMap(new TreeMap<>(files));
+            VersionContent delta = diff(reconstruct(history, latest.getVersion()), target);
+            byte[] encodedDelta = encode(delta);
+            byte[] snapshot = encode(snapshotOf(target));
+            boolean useSnapshot = (version - 1) % Math.max(1, versionProperties.getSnapshotInterval()) == 0
+                    || encodedDelta.length > snapshot.length * versionProperties.getSnapshotRatio();
+
+            VersionRecord record = new VersionRecord();
+            record.setVersion(version);
+            record.setGenerationId(generationId);
+            record.setParentVersion(findVersion(history, parentGenerationId));
+            record.setStorage(useSnapshot ? VersionRecord.SNAPSHOT : VersionRecord.DELTA);
+            record.setStoredBytes(useSnapshot ? snapshot.length : encodedDelta.length);
+            record.setChangedFiles(changedFiles(delta));
+            record.setDescription(description);
+            record.setCreateTime(System.currentTimeMillis());
+            writeAtomically(versionFile(projectId, version), useSnapshot ? snapshot : encodedDelta);
+            history.getVersions().add(record);
+            saveIndex(history);
+            projectIds.put(generationId, projectId);
+            decodedVersions.put(cacheKey(projectId, version), target);
+            return record;
+        }
+    }
+
+    /**
+     * 以被修改的生成结果为版本 1 建立项目
+     */
+    private ProjectHistory createProject(String projectId, Map<String, String> files, Long userId) {
+        Map<String, String> snapshot = Collections.unmodifiableMap(new TreeMap<>(files));
+        byte[] encoded = encode(snapshotOf(snapshot));
+        VersionRecord record = new VersionRecord();
+        record.setVersion(1);
+        record.setGenerationId(projectId);
+        record.setStorage(VersionRecord.SNAPSHOT);
+        record.setStoredBytes(encoded.length);
+        record.setChangedFiles(new ArrayList<>(snapshot.keySet()));
+        record.setCreateTime(System.currentTimeMillis());
+        ProjectHistory history = new ProjectHistory();
+        history.setProjectId(projectId);
+        history.setUserId(userId);
+        history.getVersions().add(record);
+        writeAtomically(versionFile(projectId, 1), encoded);
+        saveIndex(history);
+        projects.put(projectId, history);
+        decodedVersions.put(cacheKey(projectId, 1), snapshot);
+        return history;
+    }
+
+    /**
+     * 还原版本：从最近的快照或已缓存的版本开始依次应用差异，调用方需持有项目锁
+     */
+    private Map<String, String> reconstruct(ProjectHistory history, int version) {
+        String projectId = history.getProjectId();
+        Map<String, String> cached = decodedVersions.get(cacheKey(projectId, version));
+        if (cached != null) {
+            return cached;
+        }
+        int start = version;
+        Map<String, String> files = null;
+        while (files == null) {
+            Map<String, String> base = start < version ? decodedVersions.get(cacheKey(projectId, start)) : null;
+            if (base != null) {
+                files = new TreeMap<>(base);
+            } else if (history.getVersions().get(start - 1).isSnapshot()) {
+                files = new TreeMap<>(read(projectId, start).getFiles());
+            } else {
+                start--;
+            }
+        }
+        for (int v = start + 1; v <= version; v++) {
+            applyContent(files, read(projectId, v));
+        }
+        Map<String, String> result = Collections.unmodifiableMap(files);
+        decodedVersions.put(cacheKey(projectId, version), result);
+        return result;
+    }
+
+    private static void applyContent(Map<String, String> files, VersionContent content) {
+        content.getRemoved().forEach(files::remove);
+        content.getPatches().forEach((path, ops) -> {
+            String base = files.get(path);
+            ThrowUtils.throwIf(base == null, ErrorCode.SYSTEM_ERROR, "版本差异缺少基准文件：" + path);
+            files.put(path, LineDelta.apply(base, ops));
+        });
+        files.putAll(content.getFiles());
+    }
+
+    private VersionContent diff(Map<String, String> base, Map<String, String> target) {
+        VersionContent content = new VersionContent();
+        base.keySet().stream().filter(path -> !target.containsKey(path)).forEach(content.getRemoved()::add);
+        target.forEach((path, text) -> {
+            String previous = base.get(path);
+            if (previous == null) {
+                content.getFiles().put(path, text);
+            } else if (!previous.equals(text)) {
+                List<DeltaOp> ops = LineDelta.diff(previous, text, versionProperties.getMaxEditDistance());
+                if (ops == null) {
+                    content.getFiles().put(path, text);
+                } else {
+                    content.getPatches().put(path, ops);
+                }
+            }
+        });
+        return content;
+    }
+
+    private static VersionContent snapshotOf(Map<String, String> files) {
+        VersionContent content = new VersionContent();
+        content.getFiles().putAll(files);
+        return content;
+    }
+
+    private static List<String> changedFiles(VersionContent content) {
+        List<String> changed = new ArrayList<>(content.getFiles().keySet());
+        changed.addAll(content.getPatches().keySet());
+        changed.addAll(content.getRemoved());
+        Collections.sort(changed);
+        return changed;
+    }
+
+    private static Integer findVersion(ProjectHistory history, String generationId) {
+        return history.getVersions().stream()
+                .filter(record -> record.getGenerationId().equals(generationId))
+                .map(VersionRecord::getVersion)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private VersionContent read(String projectId, int version) {
+        File file = versionFile(projectId, version);
+        try {
+            String json = new String(ZipUtil.unGzip(FileUtil.readBytes(file)), StandardCharsets.UTF_8);
+            return JSONUtil.toBean(json, VersionContent.class);
+        } catch (Exception e) {
+            log.error("读取版本失败，projectId={}，version={}", projectId, version, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取版本失败");
+        }
+    }
+
+    private static byte[] encode(VersionContent content) {
+        return ZipUtil.gzip(JSONUtil.toJsonStr(content).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void saveIndex(ProjectHistory history) {
+        writeAtomically(new File(projectDir(history.getProjectId()), INDEX_FILE),
+                JSONUtil.toJsonStr(history).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeAtomically(File file, byte[] bytes) {
+        try {
+            File temp = new File(file.getPath() + ".tmp");
+            FileUtil.writeBytes(bytes, temp);
+            FileUtil.move(temp, file, true);
+        } catch (Exception e) {
+            log.error("写入版本文件失败：{}", file, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存版本失败");
+        }
+    }
+
+    private File projectDir(String projectId) {
+        return new File(versionProperties.getRootDir(), projectId);
+    }
+
+    private File versionFile(String projectId, int version) {
+        return new File(projectDir(projectId), "v" + version + ".json.gz");
+    }
+
+    private static String cacheKey(String projectId, int version) {
+        return projectId + "@" + version;
+    }
+}
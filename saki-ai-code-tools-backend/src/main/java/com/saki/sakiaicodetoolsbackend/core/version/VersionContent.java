@@ -0,0 +1,35 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个版本的存储内容
+ * <p>快照只有 files，为该版本的全部文件；差异相对上一版本：files 为新增或差异过大而整体保存的文件，
+ * patches 为行差异，removed 为删除的文件，未出现的文件与上一版本相同。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@Data
+public class VersionContent {
+
+    /**
+     * 完整保存的文件：路径 -> 内容
+     */
+    private Map<String, String> files = new LinkedHashMap<>();
+
+    /**
+     * 行差异：路径 -> 相对上一版本的差异
+     */
+    private Map<String, List<DeltaOp>> patches = new LinkedHashMap<>();
+
+    /**
+     * 删除的文件
+     */
+    private List<String> removed = new ArrayList<>();
+}
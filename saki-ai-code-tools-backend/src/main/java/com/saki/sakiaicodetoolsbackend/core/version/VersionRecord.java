@@ -0,0 +1,63 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 版本记录
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@Data
+public class VersionRecord {
+
+    public static final String SNAPSHOT = "snapshot";
+
+    public static final String DELTA = "delta";
+
+    /**
+     * 版本号，从 1 开始
+     */
+    private int version;
+
+    /**
+     * 该版本对应的生成结果 ID
+     */
+    private String generationId;
+
+    /**
+     * 基于哪个版本修改而来，首个版本为空；回滚产生的版本指向被回滚到的版本
+     */
+    private Integer parentVersion;
+
+    /**
+     * 存储方式：snapshot / delta
+     */
+    private String storage;
+
+    /**
+     * 存储占用字节数（压缩后）
+     */
+    private long storedBytes;
+
+    /**
+     * 相对上一版本变化的文件
+     */
+    private List<String> changedFiles;
+
+    /**
+     * 修改说明
+     */
+    private String description;
+
+    /**
+     * 创建时间（毫秒时间戳）
+     */
+    private long createTime;
+
+    public boolean isSnapshot() {
+        return SNAPSHOT.equals(storage);
+    }
+}
@@ -19,6 +19,8 @@ public enum ErrorCode {
     SIGNATURE_ERROR(40003, "请求签名错误"),
     UNSUPPORTED_METHOD(40004, "请求方式不支持"),
     REQUEST_TOO_FREQUENT(40005, "请求过于频繁"),
+    CONSUMER_TOO_SLOW(40006, "接收速度过慢"),
+    TOKEN_BUDGET_EXHAUSTED(40007, "Token 额度不足"),
 
     NOT_LOGIN_ERROR(40100, "未登录"),
     NO_AUTH_ERROR(40101, "无权限"),
@@ -0,0 +1,31 @@
+package com.saki.sakiaicodetoolsbackend.exception;
+
+import lombok.Getter;
+
+/**
+ * 生成任务被拒绝异常。
+ * 生成排队过深时抛出，携带建议的重试等待秒数，由全局异常处理器写入 Retry-After 响应头。
+ *
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-07
+ */
+@Getter
+public class GenerationRejectedException extends BusinessException {
+
+    /**
+     * 建议的重试等待秒数
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * 使用自定义错误信息和重试等待时间构造异常。
+     *
+     * @param message           错误描述信息
+     * @param retryAfterSeconds 建议的重试等待秒数
+     */
+    public GenerationRejectedException(String message, long retryAfterSeconds) {
+        super(ErrorCode.REQUEST_TOO_FREQUENT, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
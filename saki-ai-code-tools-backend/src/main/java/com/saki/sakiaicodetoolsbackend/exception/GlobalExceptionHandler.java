@@ -3,7 +3,9 @@ package com.saki.sakiaicodetoolsbackend.exception;
 import com.saki.sakiaicodetoolsbackend.common.BaseResponse;
 import com.saki.sakiaicodetoolsbackend.common.ResultUtils;
 import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
  *
  * <p>该处理器会捕获以下类型的异常：
  * <ul>
+ *   <li>{@link GenerationRejectedException} - 生成任务被拒绝，额外返回 Retry-After 响应头</li>
  *   <li>{@link BusinessException} - 业务异常，返回具体的错误码和消息</li>
  *   <li>{@link RuntimeException} - 运行时异常，返回系统错误信息</li>
  * </ul>
@@ -42,6 +45,22 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    /**
+     * 处理生成任务被拒绝异常。
+     * 在标准错误响应之外写入 {@code Retry-After} 响应头，提示客户端稍后重试。
+     *
+     * @param e        生成任务被拒绝异常
+     * @param response HTTP 响应对象
+     * @return 标准化错误响应
+     * @see GenerationRejectedException
+     */
+    @ExceptionHandler(GenerationRejectedException.class)
+    public BaseResponse<?> generationRejectedExceptionHandler(GenerationRejectedException e, HttpServletResponse response) {
+        log.warn("GenerationRejectedException: {}", e.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        return ResultUtils.error(e.getCode(), e.getMessage());
+    }
+
     /**
      * 处理业务异常。
      * 捕获 {@link BusinessException} 及其子类，返回具体的业务错误信息。
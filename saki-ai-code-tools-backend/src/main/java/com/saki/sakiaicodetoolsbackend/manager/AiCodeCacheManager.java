@@ -0,0 +1,327 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.saki.sakiaicodetoolsbackend.ai.AiCodeGeneratorService;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.AiCodeCacheProperties;
+import com.saki.sakiaicodetoolsbackend.constant.CodeGenConstants;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.model.vo.AiCodeCacheStatsVO;
+import com.saki.sakiaicodetoolsbackend.utils.PromptUtils;
+import dev.langchain4j.service.SystemMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 代码生成结果缓存管理器
+ * <p>两级精确匹配缓存：L1 为进程内 LRU 缓存（容量 + 过期时间淘汰），L2 为 Redis。
+ * 缓存键由 方法名、生成类型、系统提示词摘要、模型名称、归一化后的用户提示词 共同决定，
+ * 提示词或模型变更后旧缓存自然失效。流式结果按原始分片缓存，命中时按相同分片重放。
+ * 不在可缓存列表中的方法直接调用 loader，既不读写缓存也不计入统计。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+@Component
+@Slf4j
+public class AiCodeCacheManager {
+
+    private static final String METRIC_NAME = "ai.code.cache.requests";
+
+    /**
+     * 可缓存的方法及其生成类型
+     */
+    private static final Map<String, CodeGenTypeEnum> CACHEABLE_METHODS = Map.of(
+            "generateHtmlCode", CodeGenTypeEnum.HTML,
+            "generateMultiFileCode", CodeGenTypeEnum.MULTI_FILE,
+            "generateHtmlCodeStream", CodeGenTypeEnum.HTML,
+            "generateMultiFileCodeStream", CodeGenTypeEnum.MULTI_FILE);
+
+    private final AiCodeCacheProperties cacheProperties;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final String chatModelName;
+
+    private final String streamingChatModelName;
+
+    /**
+     * 方法名 -> 系统提示词摘要
+     */
+    private final Map<String, String> systemPromptHashes = new HashMap<>();
+
+    private final AtomicBoolean bypass = new AtomicBoolean(false);
+
+    private LRUCache<String, Object> localCache;
+
+    public AiCodeCacheManager(AiCodeCacheProperties cacheProperties,
+                              StringRedisTemplate stringRedisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${langchain4j.open-ai.chat-model.model-name:}") String chatModelName,
+                              @Value("${langchain4j.open-ai.streaming-chat-model.model-name:}") String streamingChatModelName) {
+        this.cacheProperties = cacheProperties;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.chatModelName = chatModelName;
+        this.streamingChatModelName = streamingChatModelName;
+    }
+
+    @PostConstruct
+    public void init() {
+        localCache = CacheUtil.newLRUCache(cacheProperties.getLocalMaxSize(), cacheProperties.getLocalTtl().toMillis());
+        // 从 @SystemMessage 注解读取系统提示词并计算摘要
+        for (Method method : AiCodeGeneratorService.class.getMethods()) {
+            SystemMessage systemMessage = method.getAnnotation(SystemMessage.class);
+            if (systemMessage == null || !CACHEABLE_METHODS.containsKey(method.getName())) {
+                continue;
+            }
+            String prompt = StrUtil.isNotBlank(systemMessage.fromResource())
+                    ? ResourceUtil.readUtf8Str(systemMessage.fromResource())
+                    : String.join("\n", systemMessage.value());
+            systemPromptHashes.put(method.getName(), DigestUtil.sha256Hex(prompt));
+        }
+    }
+
+    /**
+     * 获取同步生成结果，未命中时调用 loader 并写入缓存
+     *
+     * @param method      生成方法名
+     * @param userMessage 用户提示词
+     * @param resultClass 结果类型
+     * @param loader      未命中时的生成逻辑
+     * @return 生成结果（缓存命中时返回副本）
+     */
+    public <T> T getOrLoad(String method, String userMessage, Class<T> resultClass, Supplier<T> loader) {
+        if (!CACHEABLE_METHODS.containsKey(method)) {
+            return loader.get();
+        }
+        if (isBypassed()) {
+            record(method, "bypass");
+            return loader.get();
+        }
+        String cacheKey = buildCacheKey(method, userMessage);
+        Object local = localCache.get(cacheKey);
+        if (resultClass.isInstance(local)) {
+            record(method, "l1_hit");
+            return copyOf(local, resultClass);
+        }
+        String cachedJson = getFromRedis(cacheKey);
+        if (cachedJson != null) {
+            record(method, "l2_hit");
+            T result = resultClass == String.class ? resultClass.cast(cachedJson) : JSONUtil.toBean(cachedJson, resultClass);
+            localCache.put(cacheKey, result);
+            return copyOf(result, resultClass);
+        }
+        record(method, "miss");
+        T result = loader.get();
+        if (result != null) {
+            localCache.put(cacheKey, copyOf(result, resultClass));
+            putToRedis(cacheKey, result instanceof String text ? text : JSONUtil.toJsonStr(result));
+        }
+        return result;
+    }
+
+    /**
+     * 复制缓存结果，避免调用方修改缓存中的对象；字符串不可变，直接返回
+     */
+    private static <T> T copyOf(Object value, Class<T> resultClass) {
+        if (value instanceof String) {
+            return resultClass.cast(value);
+        }
+        return BeanUtil.copyProperties(value, resultClass);
+    }
+
+    /**
+     * 获取流式生成结果，未命中时订阅 loader 并在流正常结束后写入缓存
+     *
+     * @param method      生成方法名
+     * @param userMessage 用户提示词
+     * @param loader      未命中时的生成逻辑
+     * @return 代码流，命中时按缓存的分片重放
+     */
+    public Flux<String> getOrLoadStream(String method, String userMessage, Supplier<Flux<String>> loader) {
+        return Flux.defer(() -> {
+            if (!CACHEABLE_METHODS.containsKey(method)) {
+                return loader.get();
+            }
+            if (isBypassed()) {
+                record(method, "bypass");
+                return loader.get();
+            }
+            String cacheKey = buildCacheKey(method, userMessage);
+            Object local = localCache.get(cacheKey);
+            if (local instanceof List<?> chunks) {
+                record(method, "l1_hit");
+                return Flux.fromIterable(chunks).cast(String.class);
+            }
+            String cachedJson = getFromRedis(cacheKey);
+            if (cachedJson != null) {
+                record(method, "l2_hit");
+                List<String> chunks = List.copyOf(JSONUtil.toList(cachedJson, String.class));
+                localCache.put(cacheKey, chunks);
+                return Flux.fromIterable(chunks);
+            }
+            record(method, "miss");
+            List<String> collected = new ArrayList<>();
+            return loader.get().doOnNext(collected::add).doOnComplete(() -> {
+                List<String> chunks = List.copyOf(collected);
+                localCache.put(cacheKey, chunks);
+                putToRedis(cacheKey, JSONUtil.toJsonStr(chunks));
+            });
+        });
+    }
+
+    /**
+     * 设置是否旁路缓存（旁路期间既不读取也不写入缓存）
+     *
+     * @param bypassed 是否旁路
+     */
+    public void setBypass(boolean bypassed) {
+        bypass.set(bypassed);
+        log.info("代码生成缓存旁路状态：{}", bypassed);
+    }
+
+    /**
+     * 清除缓存
+     *
+     * @param userMessage 用户提示词，为空时清除全部缓存
+     * @return 清除的 Redis 键数量
+     */
+    public long purge(String userMessage) {
+        if (StrUtil.isBlank(userMessage)) {
+            localCache.clear();
+            return purgeRedisByPattern(CodeGenConstants.CODE_CACHE_KEY_PREFIX + "*");
+        }
+        List<String> cacheKeys = new ArrayList<>();
+        for (String method : CACHEABLE_METHODS.keySet()) {
+            String cacheKey = buildCacheKey(method, userMessage);
+            localCache.remove(cacheKey);
+            cacheKeys.add(cacheKey);
+        }
+        Long deleted = stringRedisTemplate.delete(cacheKeys);
+        return deleted == null ? 0 : deleted;
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public AiCodeCacheStatsVO getStats() {
+        return AiCodeCacheStatsVO.builder()
+                .enabled(cacheProperties.isEnabled())
+                .bypass(bypass.get())
+                .localSize(localCache.size())
+                .localHits(countOf("l1_hit"))
+                .redisHits(countOf("l2_hit"))
+                .misses(countOf("miss"))
+                .build();
+    }
+
+    private boolean isBypassed() {
+        return !cacheProperties.isEnabled() || bypass.get();
+    }
+
+    /**
+     * 构建缓存键
+     *
+     * @param method      生成方法名
+     * @param userMessage 用户提示词
+     * @return Redis 缓存键
+     * @throws BusinessException 当方法不可缓存时抛出
+     */
+    private String buildCacheKey(String method, String userMessage) {
+        CodeGenTypeEnum codeGenType = CACHEABLE_METHODS.get(method);
+        ThrowUtils.throwIf(codeGenType == null, ErrorCode.SYSTEM_ERROR, "不可缓存的生成方法：" + method);
+        String modelName = method.endsWith("Stream") ? streamingChatModelName : chatModelName;
+        return CodeGenConstants.CODE_CACHE_KEY_PREFIX + PromptUtils.digest(method, codeGenType.getValue(),
+                systemPromptHashes.getOrDefault(method, ""), modelName, PromptUtils.normalize(userMessage));
+    }
+
+    private String getFromRedis(String cacheKey) {
+        try {
+            return stringRedisTemplate.opsForValue().get(cacheKey);
+        } catch (Exception e) {
+            log.warn("读取 Redis 代码缓存失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String cacheKey, String value) {
+        try {
+            stringRedisTemplate.opsForValue().set(cacheKey, value, cacheProperties.getRedisTtl());
+        } catch (Exception e) {
+            log.warn("写入 Redis 代码缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private long purgeRedisByPattern(String pattern) {
+        long deleted = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(500).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>();
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= 500) {
+                    deleted += deleteKeys(batch);
+                }
+            }
+            deleted += deleteKeys(batch);
+        }
+        return deleted;
+    }
+
+    private long deleteKeys(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long deleted = stringRedisTemplate.delete(keys);
+        keys.clear();
+        return deleted == null ? 0 : deleted;
+    }
+
+    private void record(String method, String result) {
+        CodeGenTypeEnum codeGenType = CACHEABLE_METHODS.get(method);
+        if (codeGenType == null) {
+            return;
+        }
+        Counter.builder(METRIC_NAME)
+                .tag("method", method)
+                .tag("type", codeGenType.getValue())
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private long countOf(String result) {
+        return (long) meterRegistry.find(METRIC_NAME).tag("result", result).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
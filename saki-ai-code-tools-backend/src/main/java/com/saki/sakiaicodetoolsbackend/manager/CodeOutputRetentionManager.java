@@ -0,0 +1,380 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONUtil;
+import com.saki.sakiaicodetoolsbackend.config.CodeRetentionProperties;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 生成结果保留管理器
+ * <p>在内存索引中记录每个生成结果的大小、最近访问时间、所属用户与共享用户，保存与访问时增量更新，
+ * 清理时只对索引排序，不遍历目录树。索引定期落盘，启动时加载并只为索引中缺失的目录计算一次大小。</p>
+ * <p>后台定时清理：先让超出单用户容量的用户按最近最少访问淘汰自己的结果，
+ * 再在总容量超限时按全局最近最少访问分批淘汰，直到低于低水位。
+ * 同时删除超过保留时长的流式保存暂存目录（失败或取消的生成留下的部分内容）。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-08
+ */
+@Component
+@Slf4j
+public class CodeOutputRetentionManager {
+
+    private static final String INDEX_FILE = System.getProperty("user.dir") + "/tmp/code_output_index.json";
+
+    private final CodeRetentionProperties retentionProperties;
+
+    private final CodeSiteStore codeSiteStore;
+
+    /**
+     * 生成结果 ID -> 使用记录
+     */
+    private final Map<String, GenerationUsage> usages = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final Counter reclaimedBytesCounter;
+
+    private final Counter evictedCounter;
+
+    private final Timer sweepTimer;
+
+    public CodeOutputRetentionManager(CodeRetentionProperties retentionProperties, CodeSiteStore codeSiteStore,
+                                      MeterRegistry meterRegistry) {
+        this.retentionProperties = retentionProperties;
+        this.codeSiteStore = codeSiteStore;
+        this.reclaimedBytesCounter = Counter.builder("ai.code.retention.reclaimed.bytes").register(meterRegistry);
+        this.evictedCounter = Counter.builder("ai.code.retention.evicted").register(meterRegistry);
+        this.sweepTimer = Timer.builder("ai.code.retention.sweep").register(meterRegistry);
+        Gauge.builder("ai.code.retention.total.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * 加载索引，并补登记索引中缺失的目录
+     */
+    @PostConstruct
+    public void init() {
+        File indexFile = new File(INDEX_FILE);
+        if (indexFile.exists()) {
+            try {
+                JSONUtil.parseObj(FileUtil.readString(indexFile, StandardCharsets.UTF_8)).forEach((id, value) ->
+                        usages.put(id, JSONUtil.toBean(JSONUtil.parseObj(value), GenerationUsage.class)));
+            } catch (Exception e) {
+                log.warn("生成结果索引损坏，将重新登记：{}", e.getMessage());
+                usages.clear();
+            }
+        }
+        // 只列出顶层目录名；已在索引中的目录不再计算大小
+        Set<String> existing = new HashSet<>();
+        File[] dirs = new File(CodeFileSaverTemplate.FILE_SAVE_ROOT_DIR).listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                existing.add(dir.getName());
+                usages.computeIfAbsent(dir.getName(),
+                        id -> new GenerationUsage(null, FileUtil.size(dir), dir.lastModified(), true, null));
+            }
+        }
+        usages.keySet().removeIf(id -> !existing.contains(id) && !codeSiteStore.exists(id));
+        totalBytes.set(usages.values().stream().mapToLong(GenerationUsage::getSizeBytes).sum());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        saveIndex();
+    }
+
+    /**
+     * 登记新保存的生成结果
+     *
+     * @param generationId 生成结果 ID（目录名或段文件存储中的 ID）
+     * @param userId       所属用户，可为空
+     * @param sizeBytes    占用字节数
+     */
+    public void register(String generationId, Long userId, long sizeBytes) {
+        GenerationUsage previous = usages.put(generationId,
+                new GenerationUsage(userId, sizeBytes, System.currentTimeMillis(), false, null));
+        totalBytes.addAndGet(sizeBytes - (previous == null ? 0 : previous.getSizeBytes()));
+    }
+
+    /**
+     * 登记共享用户：合并到同一生成任务的其他用户拿到的是同一个生成结果，也需要能访问它
+     * 共享用户不计入其容量，结果仍按所属用户的容量淘汰
+     *
+     * @param generationId 生成结果 ID
+     * @param userId       共享用户，为空或就是所属用户时忽略
+     */
+    public void share(String generationId, Long userId) {
+        if (userId == null) {
+            return;
+        }
+        usages.computeIfPresent(generationId, (id, usage) -> {
+            if (!userId.equals(usage.getUserId())) {
+                Set<Long> shared = usage.getSharedUserIds() == null
+                        ? new HashSet<>() : new HashSet<>(usage.getSharedUserIds());
+                shared.add(userId);
+                usage.setSharedUserIds(shared);
+            }
+            return usage;
+        });
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param generationId 生成结果 ID
+     */
+    public void touch(String generationId) {
+        GenerationUsage usage = usages.get(generationId);
+        if (usage != null) {
+            usage.setLastAccessTime(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 查询生成结果的所属用户
+     *
+     * @param generationId 生成结果 ID
+     * @return 所属用户 ID，未登记或历史数据为空
+     */
+    public Long getOwnerId(String generationId) {
+        GenerationUsage usage = usages.get(generationId);
+        return usage == null ? null : usage.getUserId();
+    }
+
+    /**
+     * 判断用户是否拥有生成结果，所属用户与共享用户都算
+     * 没有记录所属用户的结果（匿名生成、未登记）不属于任何用户；
+     * 仅启动时从磁盘补登记的历史结果在开启 legacyPublic 时视为公开
+     *
+     * @param generationId 生成结果 ID
+     * @param userId       用户 ID
+     * @return 是否可访问
+     */
+    public boolean isOwnedBy(String generationId, Long userId) {
+        GenerationUsage usage = usages.get(generationId);
+        if (usage == null) {
+            return false;
+        }
+        if (usage.getUserId() == null) {
+            return usage.isLegacy() && retentionProperties.isLegacyPublic();
+        }
+        Set<Long> shared = usage.getSharedUserIds();
+        return usage.getUserId().equals(userId) || (shared != null && shared.contains(userId));
+    }
+
+    /**
+     * 当前登记的总字节数
+     *
+     * @return 总字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * 定时清理
+     */
+    @Scheduled(fixedDelayString = "${ai.code-retention.sweep-interval:PT5M}")
+    public void sweep() {
+        if (!retentionProperties.isEnabled()) {
+            return;
+        }
+        sweepTimer.record(() -> {
+            cleanStaging();
+            long reclaimed = enforceUserQuota() + enforceGlobalQuota();
+            if (reclaimed > 0) {
+                log.info("生成结果清理完成，回收 {} 字节", reclaimed);
+                if (codeSiteStore.isEnabled()) {
+                    codeSiteStore.compact();
+                }
+            }
+            saveIndex();
+        });
+    }
+
+    /**
+     * 删除超过保留时长的暂存目录；进行中的生成不会持续这么久
+     */
+    private void cleanStaging() {
+        long deadline = System.currentTimeMillis() - retentionProperties.getStagingTtl().toMillis();
+        File[] dirs = new File(CodeFileSaverTemplate.FILE_STAGING_ROOT_DIR)
+                .listFiles(dir -> dir.isDirectory() && dir.lastModified() < deadline);
+        if (dirs == null || dirs.length == 0) {
+            return;
+        }
+        long bytes = 0;
+        for (File dir : dirs) {
+            bytes += FileUtil.size(dir);
+            FileUtil.del(dir);
+        }
+        log.info("清理过期暂存目录 {} 个，回收 {} 字节", dirs.length, bytes);
+    }
+
+    /**
+     * 单用户超出容量时淘汰其最近最少访问的结果
+     *
+     * @return 回收的字节数
+     */
+    private long enforceUserQuota() {
+        long userQuota = retentionProperties.getUserQuota().toBytes();
+        Map<Long, List<Candidate>> byUser = new HashMap<>();
+        Map<Long, Long> userBytes = new HashMap<>();
+        for (Map.Entry<String, GenerationUsage> entry : usages.entrySet()) {
+            Long userId = entry.getValue().getUserId();
+            if (userId != null) {
+                byUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(new Candidate(entry));
+                userBytes.merge(userId, entry.getValue().getSizeBytes(), Long::sum);
+            }
+        }
+        long reclaimed = 0;
+        for (Map.Entry<Long, Long> user : userBytes.entrySet()) {
+            long excess = user.getValue() - userQuota;
+            if (excess <= 0) {
+                continue;
+            }
+            List<Candidate> candidates = byUser.get(user.getKey());
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccessTime));
+            for (Candidate candidate : candidates) {
+                if (excess <= 0) {
+                    break;
+                }
+                long freed = evict(candidate.generationId);
+                excess -= freed;
+                reclaimed += freed;
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 总容量超限时按全局最近最少访问分批淘汰，直到低于低水位
+     *
+     * @return 回收的字节数
+     */
+    private long enforceGlobalQuota() {
+        long quota = retentionProperties.getGlobalQuota().toBytes();
+        if (totalBytes.get() <= quota) {
+            return 0;
+        }
+        long target = (long) (quota * retentionProperties.getLowWatermark());
+        // 先对访问时间做快照再排序，避免排序期间被并发访问修改
+        List<Candidate> candidates = new ArrayList<>(usages.size());
+        usages.entrySet().forEach(entry -> candidates.add(new Candidate(entry)));
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccessTime));
+        long reclaimed = 0;
+        int batchSize = Math.max(1, retentionProperties.getEvictBatchSize());
+        for (int from = 0; from < candidates.size() && totalBytes.get() > target; from += batchSize) {
+            for (Candidate candidate : candidates.subList(from, Math.min(candidates.size(), from + batchSize))) {
+                reclaimed += evict(candidate.generationId);
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 删除单个生成结果
+     *
+     * @param generationId 生成结果 ID
+     * @return 回收的字节数
+     */
+    private long evict(String generationId) {
+        GenerationUsage usage = usages.remove(generationId);
+        if (usage == null) {
+            return 0;
+        }
+        File dir = new File(CodeFileSaverTemplate.FILE_SAVE_ROOT_DIR, generationId);
+        if (dir.exists()) {
+            FileUtil.del(dir);
+        } else if (codeSiteStore.exists(generationId)) {
+            codeSiteStore.delete(generationId);
+        }
+        totalBytes.addAndGet(-usage.getSizeBytes());
+        reclaimedBytesCounter.increment(usage.getSizeBytes());
+        evictedCounter.increment();
+        return usage.getSizeBytes();
+    }
+
+    private void saveIndex() {
+        try {
+            File temp = new File(INDEX_FILE + ".tmp");
+            FileUtil.writeString(JSONUtil.toJsonStr(usages), temp, StandardCharsets.UTF_8);
+            FileUtil.move(temp, new File(INDEX_FILE), true);
+        } catch (Exception e) {
+            log.warn("保存生成结果索引失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 淘汰候选：生成结果 ID 与排序用的访问时间快照
+     */
+    private static final class Candidate {
+
+        private final String generationId;
+
+        private final long lastAccessTime;
+
+        private Candidate(Map.Entry<String, GenerationUsage> entry) {
+            this.generationId = entry.getKey();
+            this.lastAccessTime = entry.getValue().getLastAccessTime();
+        }
+    }
+
+    /**
+     * 生成结果使用记录
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GenerationUsage {
+
+        /**
+         * 所属用户，历史数据为空
+         */
+        private Long userId;
+
+        /**
+         * 占用字节数
+         */
+        private long sizeBytes;
+
+        /**
+         * 最近访问时间（毫秒时间戳）
+         */
+        private volatile long lastAccessTime;
+
+        /**
+         * 是否为启动时从磁盘补登记的历史结果，所属用户未知
+         */
+        private boolean legacy;
+
+        /**
+         * 合并到同一生成任务的其他用户，整体替换而不原地修改
+         */
+        private volatile Set<Long> sharedUserIds;
+    }
+}
@@ -0,0 +1,559 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.CodeGenEvent;
+import com.saki.sakiaicodetoolsbackend.ai.model.SequencedCodeGenEvent;
+import com.saki.sakiaicodetoolsbackend.config.GenerationStreamProperties;
+import com.saki.sakiaicodetoolsbackend.constant.CodeGenConstants;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.core.hub.GenerationHub;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 可续传生成流管理器
+ * <p>生成流由管理器独立订阅，与客户端连接解耦：每个事件按序号（从 1 开始）经 {@link GenerationHub} 分发给在线客户端
+ * （同一生成可被多个客户端同时订阅，写出慢的客户端不会拖慢生成），
+ * 同时攒批写入以流 ID 为键的 Redis Stream（条目 ID 为 {序号}-0，带过期时间）。客户端断开后生成继续，
+ * 断开超过 detachTimeout 仍无客户端重连时才取消生成；重连时携带最后收到的序号，从其后续传，模型调用始终只有一次。</p>
+ * <ul>
+ *   <li>生成在本节点时，先从分发中心保留的最近事件续传，更早的缺口从 Redis Stream 补齐。
+ *   Redis 写入是异步攒批的，尚未写入的事件暂存在本节点（写入成功后释放，有上限），
+ *   缺口中已写入的部分读 Redis，未写入的部分读本节点，本节点不保留完整事件副本</li>
+ *   <li>生成不在本节点或已结束时，轮询 Redis Stream 读取后续事件，读到结束或失败条目后结束；
+ *   读到的序号不连续（写入失败丢了一批）时以错误结束，不会把缺了片段的代码交给客户端</li>
+ * </ul>
+ * <p>生成结束后本节点仍保留 detachTimeout 时长。Redis 写入失败不影响在线客户端与本节点续传，只是无法跨节点续传。</p>
+ * <p>发起用户与管理员可以续传；每个流另有一个分享令牌，发起用户把令牌交给协作者后，协作者凭令牌旁观同一生成。
+ * 分发中心只面向这些在线连接：解析保存在生成流内部串行完成，必须收到每个片段，不作为可被断开或丢弃事件的订阅方。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-14
+ */
+@Component
+@Slf4j
+public class GenerationStreamManager {
+
+    private static final String FIELD_TYPE = "t";
+
+    private static final String FIELD_CONTENT = "d";
+
+    private static final String FIELD_DIR_NAME = "dir";
+
+    private static final String FIELD_CODE = "code";
+
+    private static final String FIELD_MESSAGE = "msg";
+
+    private static final String FIELD_USER_ID = "uid";
+
+    private static final String FIELD_SHARE_TOKEN = "share";
+
+    private static final String TYPE_START = "start";
+
+    private static final String TYPE_CHUNK = "chunk";
+
+    private static final String TYPE_DONE = "done";
+
+    private static final String TYPE_ERROR = "error";
+
+    /**
+     * 元数据条目 ID：事件条目 ID 为 {序号}-0 且序号从 1 开始，元数据始终排在最前
+     */
+    private static final RecordId META_RECORD_ID = RecordId.of(0, 1);
+
+    /**
+     * 单次读取 Redis Stream 的最大条目数
+     */
+    private static final int READ_PAGE_SIZE = 500;
+
+    private final GenerationStreamProperties streamProperties;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Map<String, LocalStream> localStreams = new ConcurrentHashMap<>();
+
+    public GenerationStreamManager(GenerationStreamProperties streamProperties,
+                                   StringRedisTemplate stringRedisTemplate) {
+        this.streamProperties = streamProperties;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 立即订阅生成流并登记为可续传流
+     *
+     * @param source    生成事件流
+     * @param loginUser 发起用户，续传时校验归属
+     * @return 流 ID、分享令牌与在线事件流
+     */
+    public GenerationStream open(Flux<CodeGenEvent> source, User loginUser) {
+        LocalStream stream = new LocalStream(IdUtil.getSnowflakeNextIdStr(), loginUser == null ? null : loginUser.getId(),
+                IdUtil.fastSimpleUUID());
+        localStreams.put(stream.streamId, stream);
+        stream.start(source);
+        return new GenerationStream(stream.streamId, stream.shareToken, stream.subscribe(0));
+    }
+
+    /**
+     * 从指定序号之后续传生成流
+     *
+     * @param streamId  流 ID
+     * @param lastSeq   客户端最后收到的事件序号，0 表示从头开始
+     * @param loginUser 当前登录用户
+     * @return 后续事件流，生成失败时以 {@link BusinessException} 结束
+     */
+    public Flux<SequencedCodeGenEvent> resume(String streamId, long lastSeq, User loginUser) {
+        return resume(streamId, lastSeq, null, loginUser);
+    }
+
+    /**
+     * 从指定序号之后续传或旁观生成流
+     *
+     * @param streamId   流 ID
+     * @param lastSeq    客户端最后收到的事件序号，0 表示从头开始
+     * @param shareToken 发起用户分享的令牌，协作者凭此旁观；发起用户与管理员可为空
+     * @param loginUser  当前登录用户
+     * @return 后续事件流，生成失败时以 {@link BusinessException} 结束
+     */
+    public Flux<SequencedCodeGenEvent> resume(String streamId, long lastSeq, String shareToken, User loginUser) {
+        ThrowUtils.throwIf(StrUtil.isBlank(streamId) || lastSeq < 0, ErrorCode.PARAMS_ERROR, "续传参数不正确");
+        LocalStream local = localStreams.get(streamId);
+        if (local != null) {
+            checkAccess(local.userId == null ? "" : String.valueOf(local.userId), local.shareToken, shareToken,
+                    loginUser);
+            return local.subscribe(lastSeq);
+        }
+        String key = CodeGenConstants.CODE_STREAM_KEY_PREFIX + streamId;
+        return Mono.fromCallable(() -> readMeta(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .switchIfEmpty(Mono.error(new BusinessException(ErrorCode.NOT_FOUND_ERROR, "生成流不存在或已过期")))
+                .flatMapMany(meta -> {
+                    checkAccess(String.valueOf(meta.getOrDefault(FIELD_USER_ID, "")),
+                            (String) meta.get(FIELD_SHARE_TOKEN), shareToken, loginUser);
+                    return poll(key, lastSeq);
+                });
+    }
+
+    /**
+     * 本节点登记中的可续传流数
+     *
+     * @return 流数
+     */
+    public int size() {
+        return localStreams.size();
+    }
+
+    /**
+     * 发起用户、管理员或持有正确分享令牌的用户可以访问
+     */
+    private void checkAccess(String owner, String expectedToken, String shareToken, User loginUser) {
+        boolean admin = UserRoleConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
+        boolean shared = StrUtil.isNotEmpty(expectedToken) && shareToken != null
+                && MessageDigest.isEqual(expectedToken.getBytes(StandardCharsets.UTF_8),
+                shareToken.getBytes(StandardCharsets.UTF_8));
+        ThrowUtils.throwIf(!admin && !shared && !String.valueOf(loginUser.getId()).equals(owner),
+                ErrorCode.NO_AUTH_ERROR, "无权访问该生成流");
+    }
+
+    /**
+     * 读取元数据条目（发起用户与分享令牌），流不存在时返回 null
+     */
+    private Map<Object, Object> readMeta(String key) {
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream()
+                .range(key, Range.closed(META_RECORD_ID.getValue(), META_RECORD_ID.getValue()));
+        if (records == null || records.isEmpty()) {
+            return null;
+        }
+        return records.get(0).getValue();
+    }
+
+    /**
+     * 轮询读取 Redis Stream，读到结束或失败条目后结束
+     */
+    private Flux<SequencedCodeGenEvent> poll(String key, long lastSeq) {
+        return Flux.defer(() -> {
+            AtomicLong cursor = new AtomicLong(lastSeq);
+            return Flux.interval(Duration.ZERO, streamProperties.getPollInterval())
+                    .onBackpressureDrop()
+                    .concatMap(tick -> readRange(key, cursor.get(), Long.MAX_VALUE))
+                    .doOnNext(record -> {
+                        long seq = record.getId().getTimestamp();
+                        if (seq != cursor.get() + 1) {
+                            log.warn("生成流 {} 缺少序号 {} 到 {} 的事件", key, cursor.get() + 1, seq - 1);
+                            throw missingEvents();
+                        }
+                        cursor.set(seq);
+                    })
+                    .takeUntil(GenerationStreamManager::isTerminal)
+                    .timeout(streamProperties.getResumeIdleTimeout())
+                    .onErrorMap(TimeoutException.class,
+                            e -> new BusinessException(ErrorCode.OPERATION_ERROR, "生成流已中断，请重新生成"))
+                    .handle((record, sink) -> {
+                        SequencedCodeGenEvent event = toEvent(record);
+                        if (event != null) {
+                            sink.next(event);
+                            return;
+                        }
+                        Map<Object, Object> fields = record.getValue();
+                        sink.error(new BusinessException(Integer.parseInt(fields.get(FIELD_CODE).toString()),
+                                fields.get(FIELD_MESSAGE).toString()));
+                    });
+        });
+    }
+
+    /**
+     * 分页读取序号在 (afterSeq, toSeq] 之间的事件条目
+     */
+    private Flux<MapRecord<String, Object, Object>> readRange(String key, long afterSeq, long toSeq) {
+        return readPage(key, afterSeq, toSeq)
+                .expand(page -> page.size() < READ_PAGE_SIZE
+                        ? Mono.empty()
+                        : readPage(key, page.get(page.size() - 1).getId().getTimestamp(), toSeq))
+                .flatMapIterable(page -> page);
+    }
+
+    private Mono<List<MapRecord<String, Object, Object>>> readPage(String key, long afterSeq, long toSeq) {
+        if (afterSeq >= toSeq) {
+            return Mono.empty();
+        }
+        Range<String> range = toSeq == Long.MAX_VALUE
+                ? Range.rightUnbounded(Range.Bound.inclusive(RecordId.of(afterSeq + 1, 0).getValue()))
+                : Range.closed(RecordId.of(afterSeq + 1, 0).getValue(), RecordId.of(toSeq, 0).getValue());
+        return Mono.fromCallable(() -> stringRedisTemplate.opsForStream()
+                        .range(key, range, Limit.limit().count(READ_PAGE_SIZE)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static BusinessException missingEvents() {
+        return new BusinessException(ErrorCode.OPERATION_ERROR, "生成流事件缺失，无法续传，请重新生成");
+    }
+
+    private static boolean isTerminal(MapRecord<String, Object, Object> record) {
+        Object type = record.getValue().get(FIELD_TYPE);
+        return TYPE_DONE.equals(type) || TYPE_ERROR.equals(type);
+    }
+
+    /**
+     * 将条目转换为事件，失败条目返回 null
+     */
+    private static SequencedCodeGenEvent toEvent(MapRecord<String, Object, Object> record) {
+        Map<Object, Object> fields = record.getValue();
+        long seq = record.getId().getTimestamp();
+        Object type = fields.get(FIELD_TYPE);
+        if (TYPE_CHUNK.equals(type)) {
+            return new SequencedCodeGenEvent(seq, CodeGenEvent.chunk(String.valueOf(fields.get(FIELD_CONTENT))));
+        }
+        if (TYPE_DONE.equals(type)) {
+            return new SequencedCodeGenEvent(seq, CodeGenEvent.done(String.valueOf(fields.get(FIELD_DIR_NAME))));
+        }
+        return null;
+    }
+
+    /**
+     * 开启续传的生成流
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class GenerationStream {
+
+        private final String streamId;
+
+        /**
+         * 分享令牌，交给协作者用于旁观
+         */
+        private final String shareToken;
+
+        private final Flux<SequencedCodeGenEvent> events;
+    }
+
+    /**
+     * 本节点上的生成流：事件由生产者线程串行产生，连接数与取消计时的变更在锁内完成
+     */
+    private final class LocalStream {
+
+        private final String streamId;
+
+        private final String key;
+
+        private final Long userId;
+
+        private final String shareToken;
+
+        private final GenerationHub<SequencedCodeGenEvent> hub;
+
+        private final Sinks.Many<MapRecord<String, String, String>> journal = Sinks.many().unicast().onBackpressureBuffer();
+
+        /**
+         * 尚未写入 Redis 的事件，按序号递增；写入成功后从头部释放，超过上限时丢弃最早的事件
+         */
+        private final ArrayDeque<SequencedCodeGenEvent> backlog = new ArrayDeque<>();
+
+        private long lastSeq;
+
+        /**
+         * 最后一个生成事件的序号（不含失败条目）
+         */
+        private long lastEventSeq;
+
+        private int subscribers;
+
+        private boolean terminated;
+
+        private boolean journalFailed;
+
+        private Disposable producer;
+
+        private Disposable detachTimer;
+
+        private LocalStream(String streamId, Long userId, String shareToken) {
+            this.streamId = streamId;
+            this.key = CodeGenConstants.CODE_STREAM_KEY_PREFIX + streamId;
+            this.userId = userId;
+            this.shareToken = shareToken;
+            this.hub = new GenerationHub<>(streamProperties.getLiveReplaySize(),
+                    streamProperties.getSubscriberBufferSize(), streamProperties.getOverflowPolicy(),
+                    Schedulers.boundedElastic());
+        }
+
+        private void start(Flux<CodeGenEvent> source) {
+            Map<String, String> meta = new LinkedHashMap<>();
+            meta.put(FIELD_TYPE, TYPE_START);
+            meta.put(FIELD_USER_ID, userId == null ? "" : String.valueOf(userId));
+            meta.put(FIELD_SHARE_TOKEN, shareToken);
+            journal.tryEmitNext(StreamRecords.newRecord().in(key).withId(META_RECORD_ID).ofMap(meta));
+            journal.asFlux()
+                    .bufferTimeout(streamProperties.getFlushBatchSize(), streamProperties.getFlushInterval())
+                    .concatMap(batch -> Mono.fromRunnable(() -> write(batch)).subscribeOn(Schedulers.boundedElastic()))
+                    // 结束后仍在本节点保留一段时间，期间续传直接读取本地事件，不依赖 Redis
+                    .doFinally(signal -> Schedulers.parallel().schedule(() -> localStreams.remove(streamId, this),
+                            streamProperties.getDetachTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                    .subscribe();
+            synchronized (this) {
+                scheduleDetach();
+            }
+            Disposable subscription = source.subscribe(this::onEvent, this::onError, this::onComplete);
+            synchronized (this) {
+                producer = subscription;
+            }
+        }
+
+        private Flux<SequencedCodeGenEvent> subscribe(long afterSeq) {
+            return hub.subscribe(event -> event.getSeq() > afterSeq)
+                    .filter(event -> event.getSeq() > afterSeq)
+                    .switchOnFirst((signal, flux) -> {
+                        // 分发中心保留的事件不足以衔接时，缺口从 Redis 与本节点未写入的事件补齐
+                        long upToSeq = signal.hasValue() ? signal.get().getSeq() - 1 : lastEventSeq();
+                        if (upToSeq > afterSeq) {
+                            return fillGap(afterSeq, upToSeq).concatWith(flux);
+                        }
+                        return flux;
+                    })
+                    .doOnSubscribe(subscription -> attach())
+                    .doFinally(signal -> detach());
+        }
+
+        private synchronized long lastEventSeq() {
+            return lastEventSeq;
+        }
+
+        /**
+         * 补齐序号在 (afterSeq, toSeq] 之间的事件：本节点未写入部分之前的事件均已写入 Redis，从 Redis 读取
+         */
+        private Flux<SequencedCodeGenEvent> fillGap(long afterSeq, long toSeq) {
+            long localFrom;
+            List<SequencedCodeGenEvent> local = new ArrayList<>();
+            synchronized (this) {
+                localFrom = backlog.isEmpty() ? lastEventSeq + 1 : backlog.peekFirst().getSeq();
+                for (SequencedCodeGenEvent event : backlog) {
+                    if (event.getSeq() > afterSeq && event.getSeq() <= toSeq) {
+                        local.add(event);
+                    }
+                }
+            }
+            long journalTo = Math.min(toSeq, localFrom - 1);
+            if (journalTo <= afterSeq) {
+                return Flux.fromIterable(local);
+            }
+            return Flux.defer(() -> {
+                AtomicLong cursor = new AtomicLong(afterSeq);
+                return readRange(key, afterSeq, journalTo)
+                        .handle((MapRecord<String, Object, Object> record, SynchronousSink<SequencedCodeGenEvent> sink) -> {
+                            SequencedCodeGenEvent event = toEvent(record);
+                            if (event == null || event.getSeq() != cursor.get() + 1) {
+                                sink.error(missingEvents());
+                                return;
+                            }
+                            cursor.set(event.getSeq());
+                            sink.next(event);
+                        })
+                        .concatWith(Mono.defer(() -> {
+                            if (cursor.get() != journalTo) {
+                                log.error("生成流 {} 的事件缺少序号 {} 到 {}", streamId, cursor.get() + 1, journalTo);
+                                return Mono.error(missingEvents());
+                            }
+                            return Mono.empty();
+                        }))
+                        .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                            log.warn("生成流 {} 从 Redis 补齐事件失败：{}", streamId, e.getMessage());
+                            return missingEvents();
+                        });
+            }).concatWith(Flux.fromIterable(local));
+        }
+
+        private synchronized void onEvent(CodeGenEvent event) {
+            long seq = ++lastSeq;
+            SequencedCodeGenEvent sequenced = new SequencedCodeGenEvent(seq, event);
+            lastEventSeq = seq;
+            backlog.addLast(sequenced);
+            if (backlog.size() > streamProperties.getLocalBacklogSize()) {
+                backlog.pollFirst();
+            }
+            hub.publish(sequenced);
+            Map<String, String> fields = new LinkedHashMap<>();
+            if (event.isChunk()) {
+                fields.put(FIELD_TYPE, TYPE_CHUNK);
+                fields.put(FIELD_CONTENT, event.getContent());
+            } else {
+                fields.put(FIELD_TYPE, TYPE_DONE);
+                fields.put(FIELD_DIR_NAME, event.getDirName());
+            }
+            journal.tryEmitNext(StreamRecords.newRecord().in(key).withId(RecordId.of(seq, 0)).ofMap(fields));
+        }
+
+        private synchronized void onError(Throwable e) {
+            if (terminated) {
+                return;
+            }
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put(FIELD_TYPE, TYPE_ERROR);
+            if (e instanceof BusinessException businessException) {
+                fields.put(FIELD_CODE, String.valueOf(businessException.getCode()));
+                fields.put(FIELD_MESSAGE, businessException.getMessage());
+            } else {
+                fields.put(FIELD_CODE, String.valueOf(ErrorCode.SYSTEM_ERROR.getCode()));
+                fields.put(FIELD_MESSAGE, "生成失败，请稍后重试");
+            }
+            journal.tryEmitNext(StreamRecords.newRecord().in(key).withId(RecordId.of(++lastSeq, 0)).ofMap(fields));
+            hub.error(e);
+            terminate();
+        }
+
+        private synchronized void onComplete() {
+            if (terminated) {
+                return;
+            }
+            hub.complete();
+            terminate();
+        }
+
+        private void terminate() {
+            terminated = true;
+            if (detachTimer != null) {
+                detachTimer.dispose();
+            }
+            journal.tryEmitComplete();
+        }
+
+        private synchronized void attach() {
+            subscribers++;
+            if (detachTimer != null) {
+                detachTimer.dispose();
+                detachTimer = null;
+            }
+        }
+
+        private synchronized void detach() {
+            subscribers--;
+            scheduleDetach();
+        }
+
+        private void scheduleDetach() {
+            if (subscribers == 0 && !terminated) {
+                detachTimer = Schedulers.parallel().schedule(this::abandon,
+                        streamProperties.getDetachTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * 长时间没有客户端时取消生成
+         */
+        private void abandon() {
+            Disposable subscription;
+            synchronized (this) {
+                if (subscribers > 0 || terminated) {
+                    return;
+                }
+                subscription = producer;
+            }
+            log.info("生成流 {} 长时间无客户端连接，取消生成", streamId);
+            if (subscription != null) {
+                subscription.dispose();
+            }
+            onError(new BusinessException(ErrorCode.OPERATION_ERROR, "长时间未连接，生成已取消"));
+        }
+
+        /**
+         * 释放已写入 Redis 的事件
+         */
+        private synchronized void release(long flushedSeq) {
+            while (!backlog.isEmpty() && backlog.peekFirst().getSeq() <= flushedSeq) {
+                backlog.pollFirst();
+            }
+        }
+
+        private void write(List<MapRecord<String, String, String>> batch) {
+            try {
+                stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                        batch.forEach(record -> redis.opsForStream().add(record));
+                        redis.expire(key, streamProperties.getTtl());
+                        return null;
+                    }
+                });
+                release(batch.get(batch.size() - 1).getId().getTimestamp());
+            } catch (Exception e) {
+                // 只记录一次，避免 Redis 不可用时每批都刷日志
+                if (!journalFailed) {
+                    journalFailed = true;
+                    log.warn("生成流 {} 写入 Redis 失败，将无法跨节点续传：{}", streamId, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import cn.hutool.core.util.IdUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodeGenInFlightProperties;
+import com.saki.sakiaicodetoolsbackend.constant.CodeGenConstants;
+import com.saki.sakiaicodetoolsbackend.utils.PromptUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 进行中生成任务管理器
+ * <p>按 生成类型 + 归一化提示词 合并并发的相同生成请求：首个请求创建生产者流，
+ * 后续请求订阅同一个可重放的共享流，从第一个分片开始收到完整内容，整个过程只调用一次模型、只保存一次文件。
+ * 所有订阅者都取消时上游随之取消；流结束（完成、失败或取消）后立即从登记表移除。
+ * 不同用户的相同请求同样合并，加入者对生成结果的访问权由调用方在收到结果后登记。</p>
+ * <p>开启分布式模式后，生产者通过 Redis SETNX 选举：未抢到锁的节点轮询等待锁释放后再执行，
+ * 此时生产者已将结果写入代码生成缓存，跟随者直接命中缓存，不会再次调用模型。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+@Component
+@Slf4j
+public class InFlightGenerationManager {
+
+    /**
+     * 仅当锁仍由自己持有时才删除，避免误删其他节点在锁过期后重新获取的锁
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final Map<String, Flux<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final CodeGenInFlightProperties inFlightProperties;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public InFlightGenerationManager(CodeGenInFlightProperties inFlightProperties,
+                                     StringRedisTemplate stringRedisTemplate) {
+        this.inFlightProperties = inFlightProperties;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 加入相同请求的生成任务，不存在时以 producer 创建
+     *
+     * @param codeGenType 生成类型
+     * @param userMessage 用户提示词
+     * @param producer    生产者流（包含模型调用与保存）
+     * @return 共享的生成流
+     */
+    public <T> Flux<T> join(CodeGenTypeEnum codeGenType, String userMessage, Supplier<Flux<T>> producer) {
+        return join(codeGenType, userMessage, null, producer);
+    }
+
+    /**
+     * 加入相同请求的生成任务，提示词相同但处理方式不同（如后处理阶段不同）的请求以 variant 区分
+     *
+     * @param codeGenType 生成类型
+     * @param userMessage 用户提示词
+     * @param variant     请求变体，为 null 时与不带变体的请求合并
+     * @param producer    生产者流（包含模型调用与保存）
+     * @return 共享的生成流
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> join(CodeGenTypeEnum codeGenType, String userMessage, String variant,
+                            Supplier<Flux<T>> producer) {
+        String key = variant == null
+                ? PromptUtils.digest(codeGenType.getValue(), PromptUtils.normalize(userMessage))
+                : PromptUtils.digest(codeGenType.getValue(), variant, PromptUtils.normalize(userMessage));
+        return Flux.defer(() -> (Flux<T>) inFlight.computeIfAbsent(key, k -> share(k, producer)));
+    }
+
+    /**
+     * 当前本节点进行中的生成任务数
+     *
+     * @return 任务数
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private <T> Flux<T> share(String key, Supplier<Flux<T>> producer) {
+        AtomicReference<Flux<T>> self = new AtomicReference<>();
+        Flux<T> source = inFlightProperties.isDistributed() ? electProducer(key, producer) : Flux.defer(producer);
+        Flux<T> shared = source
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .replay()
+                .refCount();
+        self.set(shared);
+        return shared;
+    }
+
+    /**
+     * 通过 Redis 选举生产者
+     *
+     * @param key      请求摘要
+     * @param producer 生产者流
+     * @return 抢到锁时直接生产，否则等待锁释放后再执行（此时通常命中缓存）
+     */
+    private <T> Flux<T> electProducer(String key, Supplier<Flux<T>> producer) {
+        return Flux.defer(() -> {
+            String lockKey = CodeGenConstants.CODE_INFLIGHT_LOCK_KEY_PREFIX + key;
+            String token = IdUtil.fastSimpleUUID();
+            if (tryLock(lockKey, token)) {
+                return Flux.defer(producer).doFinally(signal -> unlock(lockKey, token));
+            }
+            log.info("相同生成请求正在其他节点执行，等待其完成：{}", lockKey);
+            return waitForRelease(lockKey).thenMany(Flux.defer(producer));
+        });
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, inFlightProperties.getLockTtl());
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            // Redis 不可用时退化为本节点生产
+            log.warn("获取生成生产者锁失败，改为本节点生成：{}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.warn("释放生成生产者锁失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 轮询等待生产者锁释放，最长等待锁过期时间
+     *
+     * @param lockKey 锁键
+     * @return 锁释放或等待超时后完成
+     */
+    private Mono<Void> waitForRelease(String lockKey) {
+        return Flux.interval(inFlightProperties.getPollInterval())
+                .filter(tick -> !isLocked(lockKey))
+                .next()
+                .timeout(inFlightProperties.getLockTtl(), Mono.empty())
+                .then();
+    }
+
+    private boolean isLocked(String lockKey) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(lockKey));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
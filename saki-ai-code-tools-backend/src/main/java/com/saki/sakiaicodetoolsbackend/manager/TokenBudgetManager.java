@@ -0,0 +1,234 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import com.saki.sakiaicodetoolsbackend.config.TokenBudgetProperties;
+import com.saki.sakiaicodetoolsbackend.constant.CodeGenConstants;
+import lombok.Getter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token 预算管理器
+ * <p>用户桶与等级桶以 Redis 哈希保存余额与上次更新时间，补充、检查、扣减都在 Lua 脚本中原子完成，
+ * 多个节点同时扣减同一个桶也不会超扣；时间取 Redis 服务器时间，不受各节点时钟偏差影响。
+ * 桶在补满所需时长后过期，过期即视为已补满。</p>
+ * <p>每次扣减同时累加当前小时的用量，按用户、等级与总计三个范围分别记录提示词 token、输出 token 与请求数，供计费看板读取。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-19
+ */
+@Component
+public class TokenBudgetManager {
+
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHH");
+
+    private static final double MILLIS_PER_HOUR = 3_600_000D;
+
+    /**
+     * 总计范围的用量字段前缀
+     */
+    public static final String TOTAL_SCOPE = "total";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final TokenBudgetProperties budgetProperties;
+
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> budgetScript;
+
+    public TokenBudgetManager(StringRedisTemplate stringRedisTemplate, TokenBudgetProperties budgetProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.budgetProperties = budgetProperties;
+        this.budgetScript = RedisScript.of(new ClassPathResource("lua/token_budget.lua"), List.class);
+    }
+
+    /**
+     * 准入：两个桶的余额都不少于 need 时扣除提示词 token 并计一次请求，否则不做任何扣减
+     *
+     * @param userId       用户 ID，匿名调用为 null
+     * @param tierName     会员等级
+     * @param tier         会员等级的桶配置
+     * @param need         准入所需余额
+     * @param promptTokens 提示词 token
+     * @return 桶状态
+     */
+    public BucketState acquire(Long userId, String tierName, TokenBudgetProperties.Tier tier, long need,
+                               long promptTokens) {
+        return execute(userId, tierName, tier, Math.max(1, need), promptTokens, 0, 1);
+    }
+
+    /**
+     * 结算：扣除调用过程中产生的 token，余额不足时透支，之后的准入会因余额不足被拒绝直到恢复
+     *
+     * @param userId       用户 ID，匿名调用为 null
+     * @param tierName     会员等级
+     * @param tier         会员等级的桶配置
+     * @param promptTokens 追加的提示词 token
+     * @param outputTokens 输出 token
+     * @return 桶状态
+     */
+    public BucketState settle(Long userId, String tierName, TokenBudgetProperties.Tier tier, long promptTokens,
+                              long outputTokens) {
+        return execute(userId, tierName, tier, 0, promptTokens, outputTokens, 0);
+    }
+
+    /**
+     * 查询当前余额，不做扣减
+     *
+     * @param userId   用户 ID
+     * @param tierName 会员等级
+     * @param tier     会员等级的桶配置
+     * @return 桶状态
+     */
+    public BucketState peek(Long userId, String tierName, TokenBudgetProperties.Tier tier) {
+        return execute(userId, tierName, tier, 0, 0, 0, 0);
+    }
+
+    private BucketState execute(Long userId, String tierName, TokenBudgetProperties.Tier tier, long need,
+                                long promptTokens, long outputTokens, long requests) {
+        String userScope = userScope(userId);
+        String tierScope = tierScope(tierName);
+        List<String> keys = List.of(CodeGenConstants.TOKEN_BUDGET_KEY_PREFIX + userScope,
+                CodeGenConstants.TOKEN_BUDGET_KEY_PREFIX + tierScope,
+                usageKey(LocalDateTime.now()));
+        List<?> result = stringRedisTemplate.execute(budgetScript, keys,
+                String.valueOf(tier.getUserCapacity()), String.valueOf(tier.getUserRefillPerHour() / MILLIS_PER_HOUR),
+                String.valueOf(tier.getTierCapacity()), String.valueOf(tier.getTierRefillPerHour() / MILLIS_PER_HOUR),
+                String.valueOf(need), String.valueOf(promptTokens), String.valueOf(outputTokens),
+                String.valueOf(requests), userScope, tierScope,
+                String.valueOf(fullRefillSeconds(tier.getUserCapacity(), tier.getUserRefillPerHour())),
+                String.valueOf(fullRefillSeconds(tier.getTierCapacity(), tier.getTierRefillPerHour())),
+                String.valueOf(budgetProperties.getUsageRetention().toSeconds()));
+        return new BucketState(((Number) result.get(0)).longValue() == 1, ((Number) result.get(1)).longValue(),
+                ((Number) result.get(2)).longValue());
+    }
+
+    /**
+     * 查询最近若干小时的用量，按时间从早到晚排列
+     *
+     * @param scope 用量范围：{@link #userScope}、{@link #tierScope} 或 {@link #TOTAL_SCOPE}
+     * @param hours 小时数，包含当前小时
+     * @return 每小时的用量
+     */
+    public List<HourlyUsage> listHourlyUsage(String scope, int hours) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        List<LocalDateTime> slots = new ArrayList<>(hours);
+        for (int i = hours - 1; i >= 0; i--) {
+            slots.add(now.minusHours(i));
+        }
+        List<Object> fields = List.of(scope + ":prompt", scope + ":output", scope + ":requests");
+        List<Object> values = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                slots.forEach(slot -> redis.opsForHash().multiGet(usageKey(slot), fields));
+                return null;
+            }
+        });
+        List<HourlyUsage> usages = new ArrayList<>(hours);
+        for (int i = 0; i < slots.size(); i++) {
+            List<?> counters = (List<?>) values.get(i);
+            usages.add(new HourlyUsage(slots.get(i), toLong(counters.get(0)), toLong(counters.get(1)),
+                    toLong(counters.get(2))));
+        }
+        return usages;
+    }
+
+    /**
+     * 用户的用量范围
+     *
+     * @param userId 用户 ID，匿名调用为 null
+     * @return 用量范围
+     */
+    public static String userScope(Long userId) {
+        return "user:" + (userId == null ? "anonymous" : userId);
+    }
+
+    /**
+     * 会员等级的用量范围
+     *
+     * @param tierName 会员等级
+     * @return 用量范围
+     */
+    public static String tierScope(String tierName) {
+        return "tier:" + tierName;
+    }
+
+    private static String usageKey(LocalDateTime time) {
+        return CodeGenConstants.TOKEN_BUDGET_KEY_PREFIX + "usage:" + HOUR_FORMATTER.format(time);
+    }
+
+    /**
+     * 从空桶补满所需的秒数，不补充时返回 0（桶不过期）
+     */
+    private static long fullRefillSeconds(long capacity, long refillPerHour) {
+        if (refillPerHour <= 0) {
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil(capacity * 3600D / refillPerHour));
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    /**
+     * 桶状态
+     */
+    @Getter
+    public static class BucketState {
+
+        /**
+         * 是否通过准入，结算与查询时恒为 true
+         */
+        private final boolean allowed;
+
+        /**
+         * 用户桶余额，透支时为负数
+         */
+        private final long userTokens;
+
+        /**
+         * 等级桶余额，透支时为负数
+         */
+        private final long tierTokens;
+
+        public BucketState(boolean allowed, long userTokens, long tierTokens) {
+            this.allowed = allowed;
+            this.userTokens = userTokens;
+            this.tierTokens = tierTokens;
+        }
+    }
+
+    /**
+     * 一小时的用量
+     */
+    @Getter
+    public static class HourlyUsage {
+
+        private final LocalDateTime hour;
+
+        private final long promptTokens;
+
+        private final long outputTokens;
+
+        private final long requests;
+
+        public HourlyUsage(LocalDateTime hour, long promptTokens, long outputTokens, long requests) {
+            this.hour = hour;
+            this.promptTokens = promptTokens;
+            this.outputTokens = outputTokens;
+            this.requests = requests;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.saki.sakiaicodetoolsbackend.model.dto.admin.cache;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 管理员设置缓存旁路请求对象
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+@Data
+@Schema(description = "管理员设置缓存旁路请求对象")
+public class AiCodeCacheBypassRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 3170419385728861245L;
+
+    /**
+     * 是否旁路缓存
+     */
+    @Schema(description = "是否旁路缓存")
+    private Boolean bypass;
+
+}
@@ -0,0 +1,28 @@
+package com.saki.sakiaicodetoolsbackend.model.dto.admin.cache;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 管理员清除缓存请求对象
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+@Data
+@Schema(description = "管理员清除缓存请求对象")
+public class AiCodeCachePurgeRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -4481263095516378920L;
+
+    /**
+     * 用户提示词，为空时清除全部缓存
+     */
+    @Schema(description = "用户提示词，为空时清除全部缓存")
+    private String userMessage;
+
+}
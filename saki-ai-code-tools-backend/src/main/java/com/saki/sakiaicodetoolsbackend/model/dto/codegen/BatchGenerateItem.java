@@ -0,0 +1,33 @@
+package com.saki.sakiaicodetoolsbackend.model.dto.codegen;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 批量代码生成条目
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-13
+ */
+@Data
+@Schema(description = "批量代码生成条目")
+public class BatchGenerateItem implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 6138270449318571052L;
+
+    /**
+     * 用户提示词
+     */
+    @Schema(description = "用户提示词")
+    private String message;
+
+    /**
+     * 生成类型（html / multi_file）
+     */
+    @Schema(description = "生成类型（html / multi_file）")
+    private String codeGenType;
+}
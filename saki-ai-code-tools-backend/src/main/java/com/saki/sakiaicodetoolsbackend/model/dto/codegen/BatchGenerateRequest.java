@@ -0,0 +1,40 @@
+package com.saki.sakiaicodetoolsbackend.model.dto.codegen;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量代码生成请求对象
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-13
+ */
+@Data
+@Schema(description = "批量代码生成请求对象")
+public class BatchGenerateRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -2709384472150962416L;
+
+    /**
+     * 生成条目，按顺序执行
+     */
+    @Schema(description = "生成条目，按顺序执行")
+    private List<BatchGenerateItem> items;
+
+    /**
+     * 并行度，为空时使用默认值，超过上限时按上限执行
+     */
+    @Schema(description = "并行度，为空时使用默认值，超过上限时按上限执行")
+    private Integer parallelism;
+
+    /**
+     * 保存前执行的后处理阶段，逗号分隔（minify / inline / fingerprint），为空时执行默认阶段，为 none 时不处理
+     */
+    @Schema(description = "保存前执行的后处理阶段，逗号分隔（minify / inline / fingerprint），为空时执行默认阶段，为 none 时不处理")
+    private String postProcess;
+}
@@ -0,0 +1,33 @@
+package com.saki.sakiaicodetoolsbackend.model.dto.codegen;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 代码编辑请求对象
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+@Data
+@Schema(description = "代码编辑请求对象")
+public class CodeEditRequest implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 4417093025816734120L;
+
+    /**
+     * 要修改的生成结果 ID
+     */
+    @Schema(description = "要修改的生成结果 ID")
+    private String generationId;
+
+    /**
+     * 修改要求
+     */
+    @Schema(description = "修改要求")
+    private String message;
+}
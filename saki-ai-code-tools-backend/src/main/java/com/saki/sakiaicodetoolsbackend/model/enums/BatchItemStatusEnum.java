@@ -0,0 +1,31 @@
+package com.saki.sakiaicodetoolsbackend.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 批量生成条目状态枚举
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-13
+ */
+@Getter
+public enum BatchItemStatusEnum {
+
+    PENDING("等待中", "pending"),
+    RUNNING("生成中", "running"),
+    SUCCEEDED("成功", "succeeded"),
+    FAILED("失败", "failed"),
+    CANCELLED("已取消", "cancelled");
+
+    private final String text;
+    private final String value;
+
+    BatchItemStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
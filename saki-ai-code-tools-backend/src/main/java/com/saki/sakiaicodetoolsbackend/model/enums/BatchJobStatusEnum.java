@@ -0,0 +1,29 @@
+package com.saki.sakiaicodetoolsbackend.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 批量生成作业状态枚举
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-13
+ */
+@Getter
+public enum BatchJobStatusEnum {
+
+    RUNNING("运行中", "running"),
+    COMPLETED("已完成", "completed"),
+    CANCELLED("已取消", "cancelled");
+
+    private final String text;
+    private final String value;
+
+    BatchJobStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    public boolean isFinished() {
+        return this != RUNNING;
+    }
+}
@@ -0,0 +1,35 @@
+package com.saki.sakiaicodetoolsbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 代码生成缓存统计信息
+ *
+ * @author saki酱
+ * @since 2025-11-06
+ */
+@Data
+@Builder
+@Schema(description = "代码生成缓存统计信息")
+public class AiCodeCacheStatsVO {
+
+    @Schema(description = "是否启用缓存")
+    private Boolean enabled;
+
+    @Schema(description = "是否旁路缓存")
+    private Boolean bypass;
+
+    @Schema(description = "本地缓存条目数")
+    private Integer localSize;
+
+    @Schema(description = "本地缓存命中次数")
+    private Long localHits;
+
+    @Schema(description = "Redis 缓存命中次数")
+    private Long redisHits;
+
+    @Schema(description = "未命中次数")
+    private Long misses;
+}
@@ -0,0 +1,38 @@
+package com.saki.sakiaicodetoolsbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 批量生成条目结果
+ *
+ * @author saki酱
+ * @since 2025-11-13
+ */
+@Data
+@Builder
+@Schema(description = "批量生成条目结果")
+public class BatchItemVO {
+
+    @Schema(description = "条目序号，从 0 开始，与提交顺序一致")
+    private Integer index;
+
+    @Schema(description = "用户提示词")
+    private String message;
+
+    @Schema(description = "生成类型")
+    private String codeGenType;
+
+    @Schema(description = "状态（pending / running / succeeded / failed / cancelled）")
+    private String status;
+
+    @Schema(description = "生成结果 ID，仅成功时有值，可用于预览与下载")
+    private String generationId;
+
+    @Schema(description = "失败原因，仅失败时有值")
+    private String errorMessage;
+
+    @Schema(description = "生成耗时（毫秒），仅结束后有值")
+    private Long durationMillis;
+}
@@ -0,0 +1,50 @@
+package com.saki.sakiaicodetoolsbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量生成作业状态
+ *
+ * @author saki酱
+ * @since 2025-11-13
+ */
+@Data
+@Builder
+@Schema(description = "批量生成作业状态")
+public class BatchJobVO {
+
+    @Schema(description = "作业 ID")
+    private String jobId;
+
+    @Schema(description = "状态（running / completed / cancelled）")
+    private String status;
+
+    @Schema(description = "并行度")
+    private Integer parallelism;
+
+    @Schema(description = "条目总数")
+    private Integer total;
+
+    @Schema(description = "成功条目数")
+    private Integer succeeded;
+
+    @Schema(description = "失败条目数")
+    private Integer failed;
+
+    @Schema(description = "已取消条目数")
+    private Integer cancelled;
+
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+
+    @Schema(description = "结束时间")
+    private LocalDateTime finishTime;
+
+    @Schema(description = "各条目结果")
+    private List<BatchItemVO> items;
+}
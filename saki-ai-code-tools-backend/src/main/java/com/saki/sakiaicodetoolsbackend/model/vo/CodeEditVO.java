@@ -0,0 +1,37 @@
+package com.saki.sakiaicodetoolsbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 代码编辑结果
+ *
+ * @author saki酱
+ * @since 2025-11-15
+ */
+@Data
+@Builder
+@Schema(description = "代码编辑结果")
+public class CodeEditVO {
+
+    @Schema(description = "修改后的生成结果 ID，可用于预览、下载与继续编辑")
+    private String generationId;
+
+    @Schema(description = "被修改的生成结果 ID")
+    private String parentGenerationId;
+
+    @Schema(description = "修改后的版本号")
+    private Integer version;
+
+    @Schema(description = "修改说明")
+    private String description;
+
+    @Schema(description = "发生变化的文件路径（含新增与删除）")
+    private List<String> changedFiles;
+
+    @Schema(description = "应用的修改处数")
+    private Integer appliedEdits;
+}
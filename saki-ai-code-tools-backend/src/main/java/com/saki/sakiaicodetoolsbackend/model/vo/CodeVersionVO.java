@@ -0,0 +1,44 @@
+package com.saki.sakiaicodetoolsbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 生成结果版本
+ *
+ * @author saki酱
+ * @since 2025-11-16
+ */
+@Data
+@Builder
+@Schema(description = "生成结果版本")
+public class CodeVersionVO {
+
+    @Schema(description = "版本号，从 1 开始")
+    private Integer version;
+
+    @Schema(description = "该版本的生成结果 ID")
+    private String generationId;
+
+    @Schema(description = "基于哪个版本修改而来，回滚产生的版本为被回滚到的版本")
+    private Integer parentVersion;
+
+    @Schema(description = "存储方式（snapshot / delta）")
+    private String storage;
+
+    @Schema(description = "存储占用字节数")
+    private Long storedBytes;
+
+    @Schema(description = "相对上一版本变化的文件")
+    private List<String> changedFiles;
+
+    @Schema(description = "修改说明")
+    private String description;
+
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,37 @@
+package com.saki.sakiaicodetoolsbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 用户的 Token 额度
+ *
+ * @author saki酱
+ * @since 2025-11-19
+ */
+@Data
+@Builder
+@Schema(description = "用户的 Token 额度")
+public class TokenBudgetVO {
+
+    @Schema(description = "是否启用额度限制")
+    private Boolean enabled;
+
+    @Schema(description = "会员等级（normal / vip）")
+    private String tier;
+
+    @Schema(description = "额度上限")
+    private Long capacity;
+
+    @Schema(description = "当前剩余额度，透支时为负数")
+    private Long remaining;
+
+    @Schema(description = "每小时恢复的额度")
+    private Long refillPerHour;
+
+    @Schema(description = "最近 24 小时的用量，按时间从早到晚排列")
+    private List<TokenUsageVO> hourlyUsage;
+}
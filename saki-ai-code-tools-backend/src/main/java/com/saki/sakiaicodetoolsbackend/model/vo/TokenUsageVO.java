@@ -0,0 +1,31 @@
+package com.saki.sakiaicodetoolsbackend.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一小时的 Token 用量
+ *
+ * @author saki酱
+ * @since 2025-11-19
+ */
+@Data
+@Builder
+@Schema(description = "一小时的 Token 用量")
+public class TokenUsageVO {
+
+    @Schema(description = "小时起点")
+    private LocalDateTime hour;
+
+    @Schema(description = "提示词 token")
+    private Long promptTokens;
+
+    @Schema(description = "输出 token")
+    private Long outputTokens;
+
+    @Schema(description = "模型调用次数")
+    private Long requests;
+}
@@ -0,0 +1,49 @@
+package com.saki.sakiaicodetoolsbackend.service;
+
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.BatchGenerateRequest;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.BatchJobVO;
+import reactor.core.publisher.Flux;
+
+/**
+ * 批量代码生成服务。
+ */
+public interface BatchGenerationService {
+
+    /**
+     * 提交批量生成作业，作业在后台执行。
+     *
+     * @param request   批量生成请求
+     * @param loginUser 当前登录用户
+     * @return 作业 ID
+     */
+    String submit(BatchGenerateRequest request, User loginUser);
+
+    /**
+     * 查询作业状态。
+     *
+     * @param jobId     作业 ID
+     * @param loginUser 当前登录用户
+     * @return 作业状态
+     */
+    BatchJobVO getJob(String jobId, User loginUser);
+
+    /**
+     * 订阅作业进度：立即收到全部条目的状态，之后每个条目状态变化时收到计数与变化的条目，作业结束后流结束。
+     * 推送的条目不含提示词与生成类型，按 index 合并到本地状态；完整信息通过 {@link #getJob} 查询。
+     *
+     * @param jobId     作业 ID
+     * @param loginUser 当前登录用户
+     * @return 作业状态流
+     */
+    Flux<BatchJobVO> streamJob(String jobId, User loginUser);
+
+    /**
+     * 取消作业：未开始的条目不再执行，生成中的条目被取消。
+     *
+     * @param jobId     作业 ID
+     * @param loginUser 当前登录用户
+     * @return 作业此前是否仍在运行
+     */
+    boolean cancel(String jobId, User loginUser);
+}
@@ -0,0 +1,23 @@
+package com.saki.sakiaicodetoolsbackend.service;
+
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.CodeEditRequest;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.CodeEditVO;
+
+/**
+ * 代码编辑服务
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+public interface CodeEditService {
+
+    /**
+     * 按修改要求编辑已有的生成结果，修改后的文件保存为新的生成结果，原结果保持不变。
+     *
+     * @param request   编辑请求
+     * @param loginUser 当前登录用户
+     * @return 编辑结果
+     */
+    CodeEditVO edit(CodeEditRequest request, User loginUser);
+}
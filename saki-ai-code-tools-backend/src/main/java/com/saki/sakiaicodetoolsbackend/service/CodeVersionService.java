@@ -0,0 +1,68 @@
+package com.saki.sakiaicodetoolsbackend.service;
+
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.CodeVersionVO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成结果版本服务
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+public interface CodeVersionService {
+
+    /**
+     * 读取生成结果的全部文件，已纳入版本历史的结果从版本存储还原，生成目录被清理后仍可读取。
+     *
+     * @param generationId 生成结果 ID
+     * @param loginUser    当前登录用户
+     * @return 相对路径 -> 文件内容
+     */
+    Map<String, String> readFiles(String generationId, User loginUser);
+
+    /**
+     * 记录一次编辑产生的新版本
+     *
+     * @param parentGenerationId 被修改的生成结果 ID
+     * @param parentFiles        被修改的生成结果的文件
+     * @param generationId       新的生成结果 ID
+     * @param files              新版本的全部文件
+     * @param description        修改说明
+     * @param loginUser          当前登录用户
+     * @return 新版本
+     */
+    CodeVersionVO recordVersion(String parentGenerationId, Map<String, String> parentFiles, String generationId,
+                                Map<String, String> files, String description, User loginUser);
+
+    /**
+     * 查询生成结果所属项目的全部版本
+     *
+     * @param generationId 项目中任一版本的生成结果 ID
+     * @param loginUser    当前登录用户
+     * @return 版本列表，按版本号升序；未被编辑过的生成结果返回空列表
+     */
+    List<CodeVersionVO> listVersions(String generationId, User loginUser);
+
+    /**
+     * 获取某个版本的全部文件
+     *
+     * @param generationId 项目中任一版本的生成结果 ID
+     * @param version      版本号
+     * @param loginUser    当前登录用户
+     * @return 相对路径 -> 文件内容
+     */
+    Map<String, String> getVersionFiles(String generationId, int version, User loginUser);
+
+    /**
+     * 回滚到某个版本：将该版本的文件保存为新的生成结果，并追加为最新版本
+     *
+     * @param generationId 项目中任一版本的生成结果 ID
+     * @param version      要回滚到的版本号
+     * @param loginUser    当前登录用户
+     * @return 回滚产生的新版本
+     */
+    CodeVersionVO rollback(String generationId, int version, User loginUser);
+}
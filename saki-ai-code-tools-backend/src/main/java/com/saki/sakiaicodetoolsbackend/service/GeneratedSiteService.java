@@ -0,0 +1,51 @@
+package com.saki.sakiaicodetoolsbackend.service;
+
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.Map;
+
+/**
+ * 生成站点服务。
+ */
+public interface GeneratedSiteService {
+
+    /**
+     * 校验当前用户是否可以访问生成结果，并确认其存在。
+     *
+     * @param generationId 生成结果 ID
+     * @param loginUser    当前登录用户
+     */
+    void checkAccess(String generationId, User loginUser);
+
+    /**
+     * 读取生成结果的全部源文件（不含预压缩副本）。
+     *
+     * @param generationId 生成结果 ID
+     * @param loginUser    当前登录用户
+     * @return 相对路径 -> 文件内容，按路径排序
+     */
+    Map<String, String> readSourceFiles(String generationId, User loginUser);
+
+    /**
+     * 将生成结果打包为 ZIP 直接写入响应。
+     *
+     * @param generationId 生成结果 ID
+     * @param loginUser    当前登录用户
+     * @param response     HTTP 响应
+     */
+    void downloadZip(String generationId, User loginUser, HttpServletResponse response);
+
+    /**
+     * 预览生成结果中的文件，访问权限与下载相同。
+     *
+     * @param generationId 生成结果 ID
+     * @param relativePath 站点内相对路径，为空时返回 index.html
+     * @param loginUser    当前登录用户
+     * @param request      HTTP 请求
+     * @param response     HTTP 响应
+     */
+    void servePreview(String generationId, String relativePath, User loginUser, HttpServletRequest request,
+                      HttpServletResponse response);
+}
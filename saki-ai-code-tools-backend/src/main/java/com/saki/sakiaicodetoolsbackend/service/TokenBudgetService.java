@@ -0,0 +1,55 @@
+package com.saki.sakiaicodetoolsbackend.service;
+
+import com.saki.sakiaicodetoolsbackend.core.budget.TokenUsageRecorder;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.TokenBudgetVO;
+import com.saki.sakiaicodetoolsbackend.model.vo.TokenUsageVO;
+
+import java.util.List;
+
+/**
+ * Token 预算服务
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-19
+ */
+public interface TokenBudgetService {
+
+    /**
+     * 调用模型前准入：估算提示词 token，用户与会员等级的额度都足够时扣除并放行
+     *
+     * @param loginUser   发起用户，可为空
+     * @param method      即将调用的 AiCodeGeneratorService 方法名，用于计入系统提示词
+     * @param userMessage 用户提示词
+     * @return 本次生成的用量记录，生成结束时需调用 settle 结算
+     * @throws com.saki.sakiaicodetoolsbackend.exception.BusinessException 额度不足时抛出
+     */
+    TokenUsageRecorder acquire(User loginUser, String method, String userMessage);
+
+    /**
+     * 准入检查，不扣减：用户与会员等级的余额都不少于准入预留时放行
+     * 用于合并到进行中生成的订阅者，它们不调用模型，但额度已用完时同样不应拿到结果
+     *
+     * @param loginUser 发起用户，可为空
+     * @throws com.saki.sakiaicodetoolsbackend.exception.BusinessException 额度不足时抛出
+     */
+    void checkAdmission(User loginUser);
+
+    /**
+     * 查询用户的额度与最近 24 小时用量
+     *
+     * @param loginUser 登录用户
+     * @return 额度信息
+     */
+    TokenBudgetVO getBudget(User loginUser);
+
+    /**
+     * 查询最近若干小时的用量
+     *
+     * @param userId 用户 ID，为空时按会员等级或总计查询
+     * @param tier   会员等级（normal / vip），userId 与 tier 都为空时查询总计
+     * @param hours  小时数，包含当前小时
+     * @return 每小时的用量，按时间从早到晚排列
+     */
+    List<TokenUsageVO> listHourlyUsage(Long userId, String tier, int hours);
+}
@@ -0,0 +1,379 @@
+package com.saki.sakiaicodetoolsbackend.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.BatchGenerationProperties;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.core.AiCodeGeneratorFacade;
+import com.saki.sakiaicodetoolsbackend.core.postprocess.PostProcessPipeline;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.GenerationRejectedException;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.BatchGenerateItem;
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.BatchGenerateRequest;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.enums.BatchItemStatusEnum;
+import com.saki.sakiaicodetoolsbackend.model.enums.BatchJobStatusEnum;
+import com.saki.sakiaicodetoolsbackend.model.vo.BatchItemVO;
+import com.saki.sakiaicodetoolsbackend.model.vo.BatchJobVO;
+import com.saki.sakiaicodetoolsbackend.service.BatchGenerationService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 批量代码生成服务实现
+ * <p>作业与条目状态保存在内存中，作业结束后保留一段时间供查询。条目按提交顺序经
+ * {@link AiCodeGeneratorFacade#generateAndSaveCodeForBatch} 以批量优先级执行：同一作业最多并行 parallelism 个条目，
+ * 相邻条目的开始时间至少间隔 minItemInterval；调度器只把交互请求空闲出来的名额分给批量通道，批量作业不会挤占交互请求。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-13
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchGenerationServiceImpl implements BatchGenerationService {
+
+    private final AiCodeGeneratorFacade aiCodeGeneratorFacade;
+
+    private final BatchGenerationProperties batchProperties;
+
+    private final PostProcessPipeline postProcessPipeline;
+
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public String submit(BatchGenerateRequest request, User loginUser) {
+        ThrowUtils.throwIf(request == null || CollUtil.isEmpty(request.getItems()), ErrorCode.PARAMS_ERROR,
+                "批量生成条目不能为空");
+        List<BatchGenerateItem> items = request.getItems();
+        ThrowUtils.throwIf(items.size() > batchProperties.getMaxItems(), ErrorCode.PARAMS_ERROR,
+                "单个批量作业最多 " + batchProperties.getMaxItems() + " 个条目");
+        List<CodeGenTypeEnum> types = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchGenerateItem item = items.get(i);
+            ThrowUtils.throwIf(item == null || StrUtil.isBlank(item.getMessage()), ErrorCode.PARAMS_ERROR,
+                    "第 " + (i + 1) + " 个条目的提示词不能为空");
+            CodeGenTypeEnum type = CodeGenTypeEnum.getEnumByValue(item.getCodeGenType());
+            ThrowUtils.throwIf(type == null, ErrorCode.PARAMS_ERROR, "第 " + (i + 1) + " 个条目的生成类型不支持");
+            types.add(type);
+        }
+        int parallelism = request.getParallelism() == null
+                ? batchProperties.getDefaultParallelism()
+                : Math.max(1, Math.min(request.getParallelism(), batchProperties.getMaxParallelism()));
+
+        BatchJob job;
+        // 同一用户的活跃作业数检查与登记需要原子完成
+        Set<String> postProcessStages = postProcessPipeline.resolveStages(request.getPostProcess());
+        synchronized (jobs) {
+            long activeJobs = jobs.values().stream()
+                    .filter(existing -> existing.userId.equals(loginUser.getId()) && !existing.status.isFinished())
+                    .count();
+            ThrowUtils.throwIf(activeJobs >= batchProperties.getMaxActiveJobsPerUser(), ErrorCode.OPERATION_NOT_ALLOWED,
+                    "运行中的批量作业过多，请等待已有作业完成");
+            job = new BatchJob(IdUtil.getSnowflakeNextIdStr(), loginUser.getId(), parallelism, items, types,
+                    postProcessStages);
+            jobs.put(job.jobId, job);
+        }
+        start(job, loginUser);
+        log.info("用户 {} 提交批量生成作业 {}，条目数：{}，并行度：{}", loginUser.getId(), job.jobId, items.size(), parallelism);
+        return job.jobId;
+    }
+
+    @Override
+    public BatchJobVO getJob(String jobId, User loginUser) {
+        return requireJob(jobId, loginUser).snapshot();
+    }
+
+    @Override
+    public Flux<BatchJobVO> streamJob(String jobId, User loginUser) {
+        BatchJob job = requireJob(jobId, loginUser);
+        return Flux.defer(job::subscribe);
+    }
+
+    @Override
+    public boolean cancel(String jobId, User loginUser) {
+        BatchJob job = requireJob(jobId, loginUser);
+        Disposable execution = job.execution;
+        if (job.status.isFinished() || execution == null) {
+            return false;
+        }
+        // 取消会沿订阅链传到生成中的条目，再由 doFinally 将作业标记为已取消
+        execution.dispose();
+        return true;
+    }
+
+    /**
+     * 清理已结束且超过保留时长的作业
+     */
+    @Scheduled(fixedDelayString = "PT10M")
+    public void evictFinishedJobs() {
+        LocalDateTime deadline = LocalDateTime.now().minus(batchProperties.getJobRetention());
+        jobs.values().removeIf(job -> job.finishTime != null && job.finishTime.isBefore(deadline));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobs.values().forEach(job -> {
+            if (job.execution != null) {
+                job.execution.dispose();
+            }
+        });
+    }
+
+    private void start(BatchJob job, User loginUser) {
+        Flux<Integer> indexes = Flux.range(0, job.items.size());
+        Duration interval = batchProperties.getMinItemInterval();
+        if (interval != null && !interval.isZero() && !interval.isNegative()) {
+            // flatMap 只按并行度向上游请求，delayElements 保证相邻条目的开始时间间隔
+            indexes = Flux.concat(indexes.take(1), indexes.skip(1).delayElements(interval));
+        }
+        job.execution = indexes
+                .flatMap(index -> runItem(job, index, loginUser), job.parallelism)
+                .doFinally(signal -> job.finish(signal == SignalType.CANCEL
+                        ? BatchJobStatusEnum.CANCELLED : BatchJobStatusEnum.COMPLETED))
+                .subscribe();
+    }
+
+    private Mono<Void> runItem(BatchJob job, int index, User loginUser) {
+        BatchGenerateItem item = job.items.get(index);
+        return Mono.defer(() -> {
+                    job.markRunning(index);
+                    return aiCodeGeneratorFacade.generateAndSaveCodeForBatch(item.getMessage(), job.types.get(index),
+                            loginUser, job.postProcessStages);
+                })
+                // 批量通道排队已满时稍后重试，不直接判定失败
+                .retryWhen(Retry.backoff(batchProperties.getMaxRejectRetries(), batchProperties.getRejectRetryBackoff())
+                        .filter(GenerationRejectedException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnNext(generationId -> job.markSucceeded(index, generationId))
+                .onErrorResume(e -> {
+                    String errorMessage = e instanceof BusinessException ? e.getMessage() : "生成失败";
+                    if (!(e instanceof BusinessException)) {
+                        log.error("批量作业 {} 第 {} 个条目生成失败", job.jobId, index, e);
+                    }
+                    job.markFailed(index, errorMessage);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private BatchJob requireJob(String jobId, User loginUser) {
+        BatchJob job = jobId == null ? null : jobs.get(jobId);
+        ThrowUtils.throwIf(job == null, ErrorCode.NOT_FOUND_ERROR, "批量作业不存在或已过期");
+        boolean admin = UserRoleConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
+        ThrowUtils.throwIf(!job.userId.equals(loginUser.getId()) && !admin, ErrorCode.NO_AUTH_ERROR,
+                "无权访问该批量作业");
+        return job;
+    }
+
+    /**
+     * 批量作业：状态变更在锁内完成，每次变更后只向订阅方推送计数与变化的条目（不含提示词）
+     */
+    private static final class BatchJob {
+
+        private final String jobId;
+
+        private final Long userId;
+
+        private final int parallelism;
+
+        private final List<BatchGenerateItem> items;
+
+        private final List<CodeGenTypeEnum> types;
+
+        private final Set<String> postProcessStages;
+
+        private final BatchItemStatusEnum[] itemStatuses;
+
+        private final String[] generationIds;
+
+        private final String[] errorMessages;
+
+        private final long[] startNanos;
+
+        private final Long[] durationMillis;
+
+        private final LocalDateTime createTime = LocalDateTime.now();
+
+        /**
+         * 进度订阅方；每个条目最多变化两次，缓冲的推送数不超过条目数的两倍
+         */
+        private final List<Sinks.Many<BatchJobVO>> subscribers = new ArrayList<>();
+
+        private int succeeded;
+
+        private int failed;
+
+        private int cancelled;
+
+        private volatile BatchJobStatusEnum status = BatchJobStatusEnum.RUNNING;
+
+        private volatile LocalDateTime finishTime;
+
+        private volatile Disposable execution;
+
+        private BatchJob(String jobId, Long userId, int parallelism, List<BatchGenerateItem> items,
+                         List<CodeGenTypeEnum> types, Set<String> postProcessStages) {
+            this.jobId = jobId;
+            this.userId = userId;
+            this.parallelism = parallelism;
+            this.items = List.copyOf(items);
+            this.types = List.copyOf(types);
+            this.postProcessStages = postProcessStages;
+            int size = items.size();
+            this.itemStatuses = new BatchItemStatusEnum[size];
+            Arrays.fill(itemStatuses, BatchItemStatusEnum.PENDING);
+            this.generationIds = new String[size];
+            this.errorMessages = new String[size];
+            this.startNanos = new long[size];
+            this.durationMillis = new Long[size];
+        }
+
+        /**
+         * 订阅进度：先收到全部条目的状态，之后只收到变化的条目；已结束时收到状态后随之结束
+         */
+        private synchronized Flux<BatchJobVO> subscribe() {
+            Sinks.Many<BatchJobVO> subscriber = Sinks.many().unicast().onBackpressureBuffer();
+            int[] all = new int[items.size()];
+            Arrays.setAll(all, i -> i);
+            subscriber.tryEmitNext(progress(all));
+            if (status.isFinished()) {
+                subscriber.tryEmitComplete();
+            } else {
+                subscribers.add(subscriber);
+            }
+            return subscriber.asFlux().doFinally(signal -> unsubscribe(subscriber));
+        }
+
+        private synchronized void unsubscribe(Sinks.Many<BatchJobVO> subscriber) {
+            subscribers.remove(subscriber);
+        }
+
+        private void publish(int... changed) {
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            BatchJobVO progress = progress(changed);
+            subscribers.removeIf(subscriber -> subscriber.tryEmitNext(progress).isFailure());
+        }
+
+        private synchronized void markRunning(int index) {
+            if (itemStatuses[index] == BatchItemStatusEnum.PENDING) {
+                itemStatuses[index] = BatchItemStatusEnum.RUNNING;
+                startNanos[index] = System.nanoTime();
+                publish(index);
+            }
+        }
+
+        private synchronized void markSucceeded(int index, String generationId) {
+            generationIds[index] = generationId;
+            end(index, BatchItemStatusEnum.SUCCEEDED);
+        }
+
+        private synchronized void markFailed(int index, String errorMessage) {
+            errorMessages[index] = errorMessage;
+            end(index, BatchItemStatusEnum.FAILED);
+        }
+
+        private void end(int index, BatchItemStatusEnum itemStatus) {
+            if (itemStatuses[index].isFinished()) {
+                return;
+            }
+            itemStatuses[index] = itemStatus;
+            durationMillis[index] = (System.nanoTime() - startNanos[index]) / 1_000_000;
+            if (itemStatus == BatchItemStatusEnum.SUCCEEDED) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            publish(index);
+        }
+
+        private synchronized void finish(BatchJobStatusEnum finalStatus) {
+            if (status.isFinished()) {
+                return;
+            }
+            List<Integer> cancelledIndexes = new ArrayList<>();
+            for (int i = 0; i < itemStatuses.length; i++) {
+                if (!itemStatuses[i].isFinished()) {
+                    itemStatuses[i] = BatchItemStatusEnum.CANCELLED;
+                    cancelledIndexes.add(i);
+                }
+            }
+            cancelled += cancelledIndexes.size();
+            status = finalStatus;
+            finishTime = LocalDateTime.now();
+            publish(cancelledIndexes.stream().mapToInt(Integer::intValue).toArray());
+            subscribers.forEach(Sinks.Many::tryEmitComplete);
+            subscribers.clear();
+        }
+
+        /**
+         * 完整状态，包含每个条目的提示词，用于查询
+         */
+        private synchronized BatchJobVO snapshot() {
+            List<BatchItemVO> itemVOs = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                itemVOs.add(item(i).message(items.get(i).getMessage()).codeGenType(types.get(i).getValue()).build());
+            }
+            return summary(itemVOs);
+        }
+
+        /**
+         * 进度推送：计数与指定条目的状态，不含提示词
+         */
+        private BatchJobVO progress(int[] indexes) {
+            List<BatchItemVO> itemVOs = new ArrayList<>(indexes.length);
+            for (int index : indexes) {
+                itemVOs.add(item(index).build());
+            }
+            return summary(itemVOs);
+        }
+
+        private BatchItemVO.BatchItemVOBuilder item(int index) {
+            return BatchItemVO.builder()
+                    .index(index)
+                    .status(itemStatuses[index].getValue())
+                    .generationId(generationIds[index])
+                    .errorMessage(errorMessages[index])
+                    .durationMillis(durationMillis[index]);
+        }
+
+        private BatchJobVO summary(List<BatchItemVO> itemVOs) {
+            return BatchJobVO.builder()
+                    .jobId(jobId)
+                    .status(status.getValue())
+                    .parallelism(parallelism)
+                    .total(items.size())
+                    .succeeded(succeeded)
+                    .failed(failed)
+                    .cancelled(cancelled)
+                    .createTime(createTime)
+                    .finishTime(finishTime)
+                    .items(itemVOs)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.saki.sakiaicodetoolsbackend.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodeEditProperties;
+import com.saki.sakiaicodetoolsbackend.core.AiCodeGeneratorFacade;
+import com.saki.sakiaicodetoolsbackend.core.patch.CodePatchResult;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverExecutor;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.CodeEditRequest;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.CodeEditVO;
+import com.saki.sakiaicodetoolsbackend.model.vo.CodeVersionVO;
+import com.saki.sakiaicodetoolsbackend.service.CodeEditService;
+import com.saki.sakiaicodetoolsbackend.service.CodeVersionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * 代码编辑服务实现
+ * <p>读取上一版全部文件交给模型，模型只返回 SEARCH/REPLACE 修改，由 {@link AiCodeGeneratorFacade#editAndSaveCode}
+ * 应用并分配新的生成结果 ID。输出量与修改规模成正比，而不是与项目大小成正比。
+ * 上一版文件优先从版本历史还原，每次编辑都作为新版本以差异记录到版本历史中，不另存完整目录。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-15
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CodeEditServiceImpl implements CodeEditService {
+
+    private final AiCodeGeneratorFacade aiCodeGeneratorFacade;
+
+    private final CodeVersionService codeVersionService;
+
+    private final CodeEditProperties codeEditProperties;
+
+    @Override
+    public CodeEditVO edit(CodeEditRequest request, User loginUser) {
+        ThrowUtils.throwIf(request == null || StrUtil.isBlank(request.getGenerationId()), ErrorCode.PARAMS_ERROR,
+                "生成结果 ID 不能为空");
+        ThrowUtils.throwIf(StrUtil.isBlank(request.getMessage()), ErrorCode.PARAMS_ERROR, "修改要求不能为空");
+        String parentId = request.getGenerationId();
+        CodeGenTypeEnum codeGenType = CodeFileSaverExecutor.resolveCodeGenType(parentId);
+        ThrowUtils.throwIf(codeGenType == null, ErrorCode.PARAMS_ERROR, "无法识别的生成结果 ID");
+        Map<String, String> sourceFiles = codeVersionService.readFiles(parentId, loginUser);
+        long sourceChars = sourceFiles.values().stream().mapToLong(String::length).sum();
+        ThrowUtils.throwIf(sourceChars > codeEditProperties.getMaxSourceChars(), ErrorCode.OPERATION_ERROR,
+                "项目过大，无法在编辑模式下修改");
+        CodePatchResult result = aiCodeGeneratorFacade.editAndSaveCode(sourceFiles, request.getMessage(),
+                codeGenType, loginUser);
+        CodeVersionVO version = codeVersionService.recordVersion(parentId, sourceFiles, result.getGenerationId(),
+                result.getFiles(), result.getDescription(), loginUser);
+        log.info("编辑完成：{} -> {}（版本 {}），修改 {} 处，变化文件 {}", parentId, result.getGenerationId(),
+                version.getVersion(), result.getAppliedEdits(), result.getChangedFiles());
+        return CodeEditVO.builder()
+                .generationId(result.getGenerationId())
+                .parentGenerationId(parentId)
+                .version(version.getVersion())
+                .description(result.getDescription())
+                .changedFiles(result.getChangedFiles())
+                .appliedEdits(result.getAppliedEdits())
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.saki.sakiaicodetoolsbackend.service.impl;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.core.AiCodeGeneratorFacade;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverExecutor;
+import com.saki.sakiaicodetoolsbackend.core.version.ProjectHistory;
+import com.saki.sakiaicodetoolsbackend.core.version.ProjectVersionStore;
+import com.saki.sakiaicodetoolsbackend.core.version.VersionRecord;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.CodeVersionVO;
+import com.saki.sakiaicodetoolsbackend.service.CodeVersionService;
+import com.saki.sakiaicodetoolsbackend.service.GeneratedSiteService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成结果版本服务实现
+ * <p>版本内容由 {@link ProjectVersionStore} 以快照加行差异保存，访问权限以项目的所属用户为准，
+ * 与生成目录是否仍存在无关。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-16
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CodeVersionServiceImpl implements CodeVersionService {
+
+    private final ProjectVersionStore projectVersionStore;
+
+    private final GeneratedSiteService generatedSiteService;
+
+    private final AiCodeGeneratorFacade aiCodeGeneratorFacade;
+
+    @Override
+    public Map<String, String> readFiles(String generationId, User loginUser) {
+        ProjectHistory history = projectVersionStore.getHistory(generationId);
+        if (history == null) {
+            return generatedSiteService.readSourceFiles(generationId, loginUser);
+        }
+        checkOwner(history, loginUser);
+        return projectVersionStore.getFiles(history.getProjectId(), findRecord(history, generationId).getVersion());
+    }
+
+    @Override
+    public CodeVersionVO recordVersion(String parentGenerationId, Map<String, String> parentFiles, String generationId,
+                                       Map<String, String> files, String description, User loginUser) {
+        VersionRecord record = projectVersionStore.commit(parentGenerationId, () -> parentFiles, generationId, files,
+                loginUser == null ? null : loginUser.getId(), description);
+        return toVO(record);
+    }
+
+    @Override
+    public List<CodeVersionVO> listVersions(String generationId, User loginUser) {
+        ProjectHistory history = projectVersionStore.getHistory(generationId);
+        if (history == null) {
+            generatedSiteService.checkAccess(generationId, loginUser);
+            return Collections.emptyList();
+        }
+        checkOwner(history, loginUser);
+        return history.getVersions().stream().map(this::toVO).toList();
+    }
+
+    @Override
+    public Map<String, String> getVersionFiles(String generationId, int version, User loginUser) {
+        ProjectHistory history = requireHistory(generationId, loginUser);
+        return projectVersionStore.getFiles(history.getProjectId(), version);
+    }
+
+    @Override
+    public CodeVersionVO rollback(String generationId, int version, User loginUser) {
+        ProjectHistory history = requireHistory(generationId, loginUser);
+        ThrowUtils.throwIf(version < 1 || version > history.getVersions().size(), ErrorCode.NOT_FOUND_ERROR, "版本不存在");
+        VersionRecord target = history.getVersions().get(version - 1);
+        ThrowUtils.throwIf(version == history.latest().getVersion(), ErrorCode.OPERATION_NOT_ALLOWED, "已是最新版本");
+        CodeGenTypeEnum codeGenType = CodeFileSaverExecutor.resolveCodeGenType(target.getGenerationId());
+        ThrowUtils.throwIf(codeGenType == null, ErrorCode.SYSTEM_ERROR, "无法识别的生成结果 ID");
+        Map<String, String> files = projectVersionStore.getFiles(history.getProjectId(), version);
+        String description = "回滚到版本 " + version;
+        String newGenerationId = aiCodeGeneratorFacade.newVersionId(files, description, codeGenType);
+        VersionRecord record = projectVersionStore.commit(target.getGenerationId(), () -> files, newGenerationId,
+                files, loginUser.getId(), description);
+        log.info("版本回滚：项目 {} 回滚到版本 {}，新版本 {}（{}）", history.getProjectId(), version,
+                record.getVersion(), newGenerationId);
+        return toVO(record);
+    }
+
+    private ProjectHistory requireHistory(String generationId, User loginUser) {
+        ProjectHistory history = projectVersionStore.getHistory(generationId);
+        ThrowUtils.throwIf(history == null, ErrorCode.NOT_FOUND_ERROR, "该生成结果没有版本历史");
+        checkOwner(history, loginUser);
+        return history;
+    }
+
+    /**
+     * 仅所属用户与管理员可访问；未记录所属用户的项目只有管理员可访问
+     */
+    private void checkOwner(ProjectHistory history, User loginUser) {
+        Long ownerId = history.getUserId();
+        boolean admin = UserRoleConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
+        ThrowUtils.throwIf(!admin && (ownerId == null || !ownerId.equals(loginUser.getId())),
+                ErrorCode.NO_AUTH_ERROR, "无权访问该生成结果");
+    }
+
+    private static VersionRecord findRecord(ProjectHistory history, String generationId) {
+        return history.getVersions().stream()
+                .filter(record -> record.getGenerationId().equals(generationId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private CodeVersionVO toVO(VersionRecord record) {
+        return CodeVersionVO.builder()
+                .version(record.getVersion())
+                .generationId(record.getGenerationId())
+                .parentVersion(record.getParentVersion())
+                .storage(record.getStorage())
+                .storedBytes(record.getStoredBytes())
+                .changedFiles(record.getChangedFiles())
+                .description(record.getDescription())
+                .createTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getCreateTime()), ZoneId.systemDefault()))
+                .build();
+    }
+}
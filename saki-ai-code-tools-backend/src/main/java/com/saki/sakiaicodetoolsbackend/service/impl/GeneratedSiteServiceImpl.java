@@ -0,0 +1,248 @@
+package com.saki.sakiaicodetoolsbackend.service.impl;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.ReUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.constant.UserRoleConstant;
+import com.saki.sakiaicodetoolsbackend.core.download.StoredZipWriter;
+import com.saki.sakiaicodetoolsbackend.core.preview.StaticPreviewHandler;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverExecutor;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodePrecompressor;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
+import com.saki.sakiaicodetoolsbackend.core.version.ProjectHistory;
+import com.saki.sakiaicodetoolsbackend.core.version.ProjectVersionStore;
+import com.saki.sakiaicodetoolsbackend.core.version.VersionRecord;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.manager.CodeOutputRetentionManager;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.service.GeneratedSiteService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 生成站点服务实现类
+ * 提供生成结果的访问校验、ZIP 下载与在线预览，生成结果可能位于目录或段文件存储中。
+ * 编辑与回滚产生的版本只保存在版本历史中，预览或下载时才还原为目录，
+ * 还原出的目录同样登记到保留管理器，被清理后下次访问再次还原
+ *
+ * @author saki酱
+ * @since 2025-11-09
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeneratedSiteServiceImpl implements GeneratedSiteService {
+
+    /**
+     * 生成结果 ID 格式：{代码类型}_{雪花ID}
+     */
+    private static final String GENERATION_ID_PATTERN = "^[a-z_]+_\\d+$";
+
+    private static final String ZIP_CONTENT_TYPE = "application/zip";
+
+    private final CodeSiteStore codeSiteStore;
+
+    private final CodeOutputRetentionManager codeOutputRetentionManager;
+
+    private final StaticPreviewHandler staticPreviewHandler;
+
+    private final ProjectVersionStore projectVersionStore;
+
+    /**
+     * 校验访问权限
+     * 仅所属用户与管理员可访问；没有所属用户的结果只有管理员可访问，显式开启的历史数据除外
+     *
+     * @param generationId 生成结果 ID
+     * @param loginUser    当前登录用户
+     * @throws BusinessException 当 ID 非法、无权限或生成结果不存在时抛出
+     */
+    @Override
+    public void checkAccess(String generationId, User loginUser) {
+        validateGenerationId(generationId);
+        boolean admin = UserRoleConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
+        ProjectHistory history = projectVersionStore.getHistory(generationId);
+        if (!admin && !codeOutputRetentionManager.isOwnedBy(generationId, loginUser.getId())) {
+            // 尚未还原为目录的版本不在保留索引中，以版本历史的所属用户为准
+            boolean historyOwner = history != null && codeOutputRetentionManager.getOwnerId(generationId) == null
+                    && history.getUserId() != null && history.getUserId().equals(loginUser.getId());
+            ThrowUtils.throwIf(!historyOwner, ErrorCode.NO_AUTH_ERROR, "无权访问该生成结果");
+        }
+        ThrowUtils.throwIf(history == null && !codeSiteStore.exists(generationId)
+                && !Files.isDirectory(resolveDir(generationId)), ErrorCode.NOT_FOUND_ERROR, "生成结果不存在或已被清理");
+    }
+
+    /**
+     * 读取源文件
+     * 编辑模式以此作为上一版文件，段文件存储与目录中的生成结果读取方式一致
+     *
+     * @param generationId 生成结果 ID
+     * @param loginUser    当前登录用户
+     * @return 相对路径 -> 文件内容
+     * @throws BusinessException 当校验失败或读取文件失败时抛出
+     */
+    @Override
+    public Map<String, String> readSourceFiles(String generationId, User loginUser) {
+        checkAccess(generationId, loginUser);
+        Map<String, String> files = new TreeMap<>();
+        if (codeSiteStore.exists(generationId)) {
+            codeSiteStore.listFiles(generationId).keySet().forEach(fileName -> files.put(fileName,
+                    StandardCharsets.UTF_8.decode(codeSiteStore.readFile(generationId, fileName)).toString()));
+            return new LinkedHashMap<>(files);
+        }
+        Path dir = resolveDir(generationId);
+        try {
+            for (Path file : listSourceFiles(dir)) {
+                files.put(dir.relativize(file).toString().replace('\\', '/'), Files.readString(file));
+            }
+        } catch (IOException e) {
+            log.error("读取生成结果失败，generationId={}", generationId, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取生成结果失败");
+        }
+        codeOutputRetentionManager.touch(generationId);
+        return new LinkedHashMap<>(files);
+    }
+
+    /**
+     * 流式下载 ZIP
+     * 条目在写出前确定大小与 CRC，因此可以先设置 Content-Length；
+     * 压缩包不落临时文件，目录中的文件通过通道直接传输到响应
+     *
+     * @param generationId 生成结果 ID
+     * @param loginUser    当前登录用户
+     * @param response     HTTP 响应
+     * @throws BusinessException 当校验失败或读取文件失败时抛出
+     */
+    @Override
+    public void downloadZip(String generationId, User loginUser, HttpServletResponse response) {
+        checkAccess(generationId, loginUser);
+        materialize(generationId);
+        List<StoredZipWriter.Entry> entries = buildEntries(generationId);
+        codeOutputRetentionManager.touch(generationId);
+
+        response.setContentType(ZIP_CONTENT_TYPE);
+        response.setContentLengthLong(StoredZipWriter.contentLength(entries));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(generationId + ".zip").build().toString());
+        try {
+            StoredZipWriter.write(entries, response.getOutputStream());
+        } catch (IOException e) {
+            // 响应头已提交，只能中断连接；多为客户端取消下载
+            log.warn("生成结果下载中断，generationId={}，原因：{}", generationId, e.getMessage());
+        }
+    }
+
+    /**
+     * 预览生成结果
+     * 与下载一样先校验访问权限，通过后才会从版本历史还原目录；文件发送由预览处理器完成
+     *
+     * @param generationId 生成结果 ID
+     * @param relativePath 站点内相对路径
+     * @param loginUser    当前登录用户
+     * @param request      HTTP 请求
+     * @param response     HTTP 响应
+     * @throws BusinessException 当校验失败或文件不存在时抛出
+     */
+    @Override
+    public void servePreview(String generationId, String relativePath, User loginUser, HttpServletRequest request,
+                             HttpServletResponse response) {
+        checkAccess(generationId, loginUser);
+        materialize(generationId);
+        codeOutputRetentionManager.touch(generationId);
+        try {
+            staticPreviewHandler.serve(generationId, relativePath, request, response);
+        } catch (IOException e) {
+            log.warn("生成结果预览发送中断，generationId={}，原因：{}", generationId, e.getMessage());
+        }
+    }
+
+    /**
+     * 生成结果只存在于版本历史中时，将对应版本还原为目录并登记
+     *
+     * @param generationId 生成结果 ID
+     */
+    private void materialize(String generationId) {
+        if (codeSiteStore.exists(generationId) || Files.isDirectory(resolveDir(generationId))) {
+            return;
+        }
+        ProjectHistory history = projectVersionStore.getHistory(generationId);
+        CodeGenTypeEnum codeGenType = CodeFileSaverExecutor.resolveCodeGenType(generationId);
+        if (history == null || codeGenType == null) {
+            return;
+        }
+        VersionRecord record = history.getVersions().stream()
+                .filter(version -> version.getGenerationId().equals(generationId))
+                .findFirst()
+                .orElseThrow();
+        Map<String, String> files = projectVersionStore.getFiles(history.getProjectId(), record.getVersion());
+        File dir = CodeFileSaverExecutor.executeSaverAs(
+                CodeFileSaverExecutor.toCodeResult(files, record.getDescription(), codeGenType), codeGenType,
+                generationId);
+        if (codeOutputRetentionManager.getOwnerId(generationId) == null) {
+            codeOutputRetentionManager.register(generationId, history.getUserId(), FileUtil.size(dir));
+        }
+        log.info("从版本历史还原生成结果：{}（项目 {} 版本 {}）", generationId, history.getProjectId(),
+                record.getVersion());
+    }
+
+    private void validateGenerationId(String generationId) {
+        ThrowUtils.throwIf(generationId == null || !ReUtil.isMatch(GENERATION_ID_PATTERN, generationId),
+                ErrorCode.PARAMS_FORMAT_ERROR, "生成结果 ID 不合法");
+    }
+
+    private List<StoredZipWriter.Entry> buildEntries(String generationId) {
+        List<StoredZipWriter.Entry> entries = new ArrayList<>();
+        if (codeSiteStore.exists(generationId)) {
+            codeSiteStore.listFiles(generationId).keySet().forEach(fileName ->
+                    entries.add(StoredZipWriter.ofBuffer(fileName, codeSiteStore.readFile(generationId, fileName))));
+            return entries;
+        }
+        Path dir = resolveDir(generationId);
+        try {
+            for (Path file : listSourceFiles(dir)) {
+                String name = dir.relativize(file).toString().replace('\\', '/');
+                entries.add(StoredZipWriter.ofFile(name, file));
+            }
+        } catch (IOException e) {
+            log.error("读取生成结果失败，generationId={}", generationId, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取生成结果失败");
+        }
+        return entries;
+    }
+
+    /**
+     * 列出目录中的源文件，预压缩副本只用于在线访问，不计入
+     */
+    private List<Path> listSourceFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !CodePrecompressor.isPrecompressedArtifact(file))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path resolveDir(String generationId) {
+        return Paths.get(CodeFileSaverTemplate.FILE_SAVE_ROOT_DIR, generationId);
+    }
+}
@@ -0,0 +1,198 @@
+package com.saki.sakiaicodetoolsbackend.service.impl;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.core.util.StrUtil;
+import com.saki.sakiaicodetoolsbackend.ai.AiCodeGeneratorService;
+import com.saki.sakiaicodetoolsbackend.config.TokenBudgetProperties;
+import com.saki.sakiaicodetoolsbackend.core.budget.TokenUsageRecorder;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.exception.ThrowUtils;
+import com.saki.sakiaicodetoolsbackend.manager.TokenBudgetManager;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.enums.VipStatusEnum;
+import com.saki.sakiaicodetoolsbackend.model.vo.TokenBudgetVO;
+import com.saki.sakiaicodetoolsbackend.model.vo.TokenUsageVO;
+import com.saki.sakiaicodetoolsbackend.service.TokenBudgetService;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import dev.langchain4j.service.SystemMessage;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token 预算服务实现
+ * <p>提示词 token 用分词器估算（系统提示词按方法预先计算），与模型实际计费的分词略有出入，用于成本控制足够。
+ * Redis 不可用时放行请求并记录日志，不因预算检查失败影响生成。</p>
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenBudgetServiceImpl implements TokenBudgetService {
+
+    private static final String TIER_NORMAL = "normal";
+
+    private static final String TIER_VIP = "vip";
+
+    private static final int BUDGET_USAGE_HOURS = 24;
+
+    private static final int MAX_USAGE_HOURS = 24 * 31;
+
+    private final TokenBudgetManager tokenBudgetManager;
+
+    private final TokenBudgetProperties budgetProperties;
+
+    /**
+     * 方法名 -> 系统提示词 token 数
+     */
+    private final Map<String, Integer> systemPromptTokens = new HashMap<>();
+
+    private OpenAiTokenCountEstimator tokenCountEstimator;
+
+    @PostConstruct
+    public void init() {
+        tokenCountEstimator = new OpenAiTokenCountEstimator(budgetProperties.getTokenizerModel());
+        for (Method method : AiCodeGeneratorService.class.getMethods()) {
+            SystemMessage systemMessage = method.getAnnotation(SystemMessage.class);
+            if (systemMessage == null) {
+                continue;
+            }
+            String prompt = StrUtil.isNotBlank(systemMessage.fromResource())
+                    ? ResourceUtil.readUtf8Str(systemMessage.fromResource())
+                    : String.join("\n", systemMessage.value());
+            systemPromptTokens.put(method.getName(), estimateTokens(prompt));
+        }
+    }
+
+    @Override
+    public TokenUsageRecorder acquire(User loginUser, String method, String userMessage) {
+        if (!budgetProperties.isEnabled()) {
+            return TokenUsageRecorder.NONE;
+        }
+        Long userId = loginUser == null ? null : loginUser.getId();
+        String tierName = resolveTier(loginUser);
+        TokenBudgetProperties.Tier tier = getTier(tierName);
+        long promptTokens = systemPromptTokens.getOrDefault(method, 0) + estimateTokens(userMessage);
+        long need = promptTokens + budgetProperties.getAdmissionReserve();
+        TokenBudgetManager.BucketState state;
+        try {
+            state = tokenBudgetManager.acquire(userId, tierName, tier, need, promptTokens);
+        } catch (RuntimeException e) {
+            log.warn("Token 预算检查失败，本次不限制：{}", e.getMessage());
+            return TokenUsageRecorder.NONE;
+        }
+        if (!state.isAllowed()) {
+            reject(userId, tierName, tier, need, state);
+        }
+        return new TokenUsageRecorder(this::estimateTokens, (extraPromptTokens, outputTokens) -> {
+            try {
+                tokenBudgetManager.settle(userId, tierName, tier, extraPromptTokens, outputTokens);
+            } catch (RuntimeException e) {
+                log.warn("Token 用量结算失败（用户 {}，提示词 {}，输出 {}）：{}", userId, extraPromptTokens,
+                        outputTokens, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void checkAdmission(User loginUser) {
+        if (!budgetProperties.isEnabled()) {
+            return;
+        }
+        Long userId = loginUser == null ? null : loginUser.getId();
+        String tierName = resolveTier(loginUser);
+        TokenBudgetProperties.Tier tier = getTier(tierName);
+        long need = Math.max(1, budgetProperties.getAdmissionReserve());
+        TokenBudgetManager.BucketState state;
+        try {
+            state = tokenBudgetManager.peek(userId, tierName, tier);
+        } catch (RuntimeException e) {
+            log.warn("Token 预算检查失败，本次不限制：{}", e.getMessage());
+            return;
+        }
+        if (state.getUserTokens() < need || state.getTierTokens() < need) {
+            reject(userId, tierName, tier, need, state);
+        }
+    }
+
+    @Override
+    public TokenBudgetVO getBudget(User loginUser) {
+        String tierName = resolveTier(loginUser);
+        TokenBudgetProperties.Tier tier = getTier(tierName);
+        TokenBudgetManager.BucketState state = tokenBudgetManager.peek(loginUser.getId(), tierName, tier);
+        return TokenBudgetVO.builder()
+                .enabled(budgetProperties.isEnabled())
+                .tier(tierName)
+                .capacity(tier.getUserCapacity())
+                .remaining(state.getUserTokens())
+                .refillPerHour(tier.getUserRefillPerHour())
+                .hourlyUsage(listHourlyUsage(loginUser.getId(), null, BUDGET_USAGE_HOURS))
+                .build();
+    }
+
+    @Override
+    public List<TokenUsageVO> listHourlyUsage(Long userId, String tier, int hours) {
+        ThrowUtils.throwIf(hours <= 0 || hours > MAX_USAGE_HOURS, ErrorCode.PARAMS_ERROR,
+                "小时数应在 1 到 " + MAX_USAGE_HOURS + " 之间");
+        ThrowUtils.throwIf(tier != null && !TIER_NORMAL.equals(tier) && !TIER_VIP.equals(tier),
+                ErrorCode.PARAMS_ERROR, "会员等级只能是 normal 或 vip");
+        String scope = userId != null ? TokenBudgetManager.userScope(userId)
+                : tier != null ? TokenBudgetManager.tierScope(tier) : TokenBudgetManager.TOTAL_SCOPE;
+        return tokenBudgetManager.listHourlyUsage(scope, hours).stream()
+                .map(usage -> TokenUsageVO.builder()
+                        .hour(usage.getHour())
+                        .promptTokens(usage.getPromptTokens())
+                        .outputTokens(usage.getOutputTokens())
+                        .requests(usage.getRequests())
+                        .build())
+                .toList();
+    }
+
+    private int estimateTokens(String text) {
+        return StrUtil.isEmpty(text) ? 0 : tokenCountEstimator.estimateTokenCountInText(text);
+    }
+
+    private String resolveTier(User loginUser) {
+        boolean vip = loginUser != null && VipStatusEnum.VIP.getValue().equals(loginUser.getIsVip());
+        return vip ? TIER_VIP : TIER_NORMAL;
+    }
+
+    private TokenBudgetProperties.Tier getTier(String tierName) {
+        return TIER_VIP.equals(tierName) ? budgetProperties.getVip() : budgetProperties.getNormal();
+    }
+
+    /**
+     * 额度不足时拒绝，优先提示用户自身的额度
+     */
+    private void reject(Long userId, String tierName, TokenBudgetProperties.Tier tier, long need,
+                        TokenBudgetManager.BucketState state) {
+        log.info("用户 {} 的 Token 额度不足，拒绝生成（需要 {}，用户余额 {}，{} 等级余额 {}）", userId, need,
+                state.getUserTokens(), tierName, state.getTierTokens());
+        ThrowUtils.throwIf(state.getUserTokens() < need, ErrorCode.TOKEN_BUDGET_EXHAUSTED,
+                "你的 Token 额度已用完，" + describeRecovery(need - state.getUserTokens(),
+                        tier.getUserRefillPerHour()));
+        throw new BusinessException(ErrorCode.TOKEN_BUDGET_EXHAUSTED,
+                "当前会员等级的总额度已用完，" + describeRecovery(need - state.getTierTokens(),
+                        tier.getTierRefillPerHour()));
+    }
+
+    /**
+     * 描述额度恢复所需的时间
+     */
+    private static String describeRecovery(long deficit, long refillPerHour) {
+        if (refillPerHour <= 0) {
+            return "请联系管理员";
+        }
+        long minutes = Math.max(1, (long) Math.ceil(deficit * 60D / refillPerHour));
+        return "约 " + minutes + " 分钟后恢复";
+    }
+}
@@ -0,0 +1,38 @@
+package com.saki.sakiaicodetoolsbackend.utils;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+
+/**
+ * 提示词工具类。
+ * 提供提示词归一化与摘要计算，用于缓存、请求合并等按提示词精确匹配的场景。
+ *
+ * @author saki酱
+ * @version 1.0
+ * @since 2025-11-06
+ */
+public final class PromptUtils {
+
+    private PromptUtils() {
+    }
+
+    /**
+     * 归一化提示词：去除首尾空白并将连续空白压缩为单个空格。
+     *
+     * @param prompt 提示词
+     * @return 归一化后的提示词，为 null 时返回空字符串
+     */
+    public static String normalize(String prompt) {
+        return StrUtil.nullToEmpty(prompt).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 计算若干片段拼接后的 SHA-256 摘要，片段之间以换行分隔。
+     *
+     * @param parts 参与计算的片段
+     * @return 十六进制摘要
+     */
+    public static String digest(String... parts) {
+        return DigestUtil.sha256Hex(String.join("\n", parts));
+    }
+}
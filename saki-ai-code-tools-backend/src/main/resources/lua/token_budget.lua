@@ -0,0 +1,76 @@
+-- Token 预算：用户桶与会员等级桶按时间线性补充，补充、检查、扣减与小时用量累加在同一脚本内原子完成
+-- KEYS[1] 用户桶  KEYS[2] 等级桶  KEYS[3] 当前小时用量
+-- ARGV[1] 用户桶容量  ARGV[2] 用户桶每毫秒补充量  ARGV[3] 等级桶容量  ARGV[4] 等级桶每毫秒补充量
+-- ARGV[5] 准入所需余额，为 0 时不检查（事后结算允许透支）
+-- ARGV[6] 提示词 token  ARGV[7] 输出 token  ARGV[8] 请求数
+-- ARGV[9] 用户用量字段前缀  ARGV[10] 等级用量字段前缀
+-- ARGV[11] 用户桶过期秒数  ARGV[12] 等级桶过期秒数（为 0 时不过期，透支时按欠额延长）  ARGV[13] 用量过期秒数
+-- 返回 {是否通过, 用户桶余额, 等级桶余额}
+
+-- Redis 5 之前需显式开启按效果复制，才能在调用 TIME 之后写入
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local function refill(key, capacity, rate)
+    local state = redis.call('HMGET', key, 'tokens', 'ts')
+    local tokens = tonumber(state[1])
+    local ts = tonumber(state[2])
+    if tokens == nil then
+        return capacity
+    end
+    if ts ~= nil and now > ts then
+        tokens = math.min(capacity, tokens + (now - ts) * rate)
+    end
+    return tokens
+end
+
+local function store(key, tokens, capacity, rate, ttl)
+    redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', tostring(now))
+    if ttl > 0 then
+        if tokens < 0 and rate > 0 then
+            ttl = math.max(ttl, math.ceil((capacity - tokens) / rate / 1000))
+        end
+        redis.call('EXPIRE', key, ttl)
+    else
+        redis.call('PERSIST', key)
+    end
+end
+
+local userTokens = refill(KEYS[1], tonumber(ARGV[1]), tonumber(ARGV[2]))
+local tierTokens = refill(KEYS[2], tonumber(ARGV[3]), tonumber(ARGV[4]))
+local need = tonumber(ARGV[5])
+if need > 0 and (userTokens < need or tierTokens < need) then
+    return {0, math.floor(userTokens), math.floor(tierTokens)}
+end
+
+local prompt = tonumber(ARGV[6])
+local output = tonumber(ARGV[7])
+local requests = tonumber(ARGV[8])
+local cost = prompt + output
+if cost > 0 then
+    userTokens = userTokens - cost
+    tierTokens = tierTokens - cost
+    store(KEYS[1], userTokens, tonumber(ARGV[1]), tonumber(ARGV[2]), tonumber(ARGV[11]))
+    store(KEYS[2], tierTokens, tonumber(ARGV[3]), tonumber(ARGV[4]), tonumber(ARGV[12]))
+end
+
+if cost > 0 or requests > 0 then
+    for _, scope in ipairs({ARGV[9], ARGV[10], 'total'}) do
+        if prompt > 0 then
+            redis.call('HINCRBY', KEYS[3], scope .. ':prompt', prompt)
+        end
+        if output > 0 then
+            redis.call('HINCRBY', KEYS[3], scope .. ':output', output)
+        end
+        if requests > 0 then
+            redis.call('HINCRBY', KEYS[3], scope .. ':requests', requests)
+        end
+    end
+    redis.call('EXPIRE', KEYS[3], tonumber(ARGV[13]))
+end
+
+return {1, math.floor(userTokens), math.floor(tierTokens)}
@@ -2,7 +2,6 @@ package com.saki.sakiaicodetoolsbackend;
 
 import com.saki.sakiaicodetoolsbackend.ai.AiCodeGeneratorService;
 import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
-import com.saki.sakiaicodetoolsbackend.ai.model.MultiFileCodeResult;
 import jakarta.annotation.Resource;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -22,7 +21,7 @@ class AiCodeGeneratorServiceTest {
 
     @Test
     void generateMultiFileCode() {
-        MultiFileCodeResult multiFileCode = aiCodeGeneratorService.generateMultiFileCode("做个程序员鱼皮的留言板");
+        String multiFileCode = aiCodeGeneratorService.generateMultiFileCode("做个程序员鱼皮的留言板");
         Assertions.assertNotNull(multiFileCode);
     }
 
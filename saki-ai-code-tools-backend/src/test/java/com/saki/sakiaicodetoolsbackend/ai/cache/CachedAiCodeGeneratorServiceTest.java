@@ -0,0 +1,124 @@
+package com.saki.sakiaicodetoolsbackend.ai.cache;
+
+import com.saki.sakiaicodetoolsbackend.ai.AiCodeGeneratorService;
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.config.AiCodeCacheProperties;
+import com.saki.sakiaicodetoolsbackend.core.budget.DeferredTokenUsage;
+import com.saki.sakiaicodetoolsbackend.core.budget.TokenUsageRecorder;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import com.saki.sakiaicodetoolsbackend.manager.AiCodeCacheManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CachedAiCodeGeneratorServiceTest {
+
+    private final CountingGeneratorService delegate = new CountingGeneratorService();
+
+    private AiCodeCacheManager cacheManager;
+
+    private CachedAiCodeGeneratorService service;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new AiCodeCacheManager(new AiCodeCacheProperties(), new StringRedisTemplate(),
+                new SimpleMeterRegistry(), "chat-model", "streaming-model");
+        cacheManager.init();
+        service = new CachedAiCodeGeneratorService(delegate, cacheManager);
+    }
+
+    @Test
+    void editRequestsGoStraightToTheModel() {
+        Assertions.assertEquals("{\"edits\":[1]}", service.generateCodeEdit("改标题"));
+        Assertions.assertEquals("{\"edits\":[2]}", service.generateCodeEdit("改标题"));
+        Assertions.assertEquals(2, delegate.calls.get());
+        Assertions.assertEquals(0L, cacheManager.getStats().getMisses());
+    }
+
+    @Test
+    void unknownMethodsSkipTheCache() {
+        AtomicInteger calls = new AtomicInteger();
+        cacheManager.getOrLoad("unknownMethod", "p", String.class, () -> "v" + calls.incrementAndGet());
+        Assertions.assertEquals("v2", cacheManager.getOrLoad("unknownMethod", "p", String.class,
+                () -> "v" + calls.incrementAndGet()));
+        Assertions.assertEquals("s", cacheManager.getOrLoadStream("unknownMethod", "p", () -> Flux.just("s"))
+                .blockLast());
+    }
+
+    @Test
+    void generationRequestsAreCached() {
+        service.generateMultiFileCode("做一个首页");
+        service.generateMultiFileCode("做一个首页");
+        Assertions.assertEquals(1, delegate.calls.get());
+        Assertions.assertEquals(1L, cacheManager.getStats().getLocalHits());
+    }
+
+    @Test
+    void cacheHitsDoNotChargeTokens() {
+        List<String> charged = new ArrayList<>();
+        DeferredTokenUsage first = new DeferredTokenUsage(() -> recorder(charged));
+        service.generateMultiFileCodeStream("做一个首页", first::charge).doOnNext(chunk -> first.addOutputChunk())
+                .doFinally(signal -> first.settle()).blockLast();
+        DeferredTokenUsage second = new DeferredTokenUsage(() -> recorder(charged));
+        service.generateMultiFileCodeStream("做一个首页", second::charge).doOnNext(chunk -> second.addOutputChunk())
+                .doFinally(signal -> second.settle()).blockLast();
+
+        Assertions.assertEquals(1, delegate.calls.get());
+        Assertions.assertEquals(List.of("0/1"), charged);
+    }
+
+    @Test
+    void rejectedChargeSkipsTheModel() {
+        Runnable reject = () -> {
+            throw new BusinessException(ErrorCode.TOKEN_BUDGET_EXHAUSTED, "额度不足");
+        };
+        Assertions.assertThrows(BusinessException.class, () -> service.generateHtmlCode("做一个首页", reject));
+        Assertions.assertThrows(BusinessException.class,
+                () -> service.generateHtmlCodeStream("做一个首页", reject).blockLast());
+        Assertions.assertEquals(0, delegate.calls.get());
+    }
+
+    private static TokenUsageRecorder recorder(List<String> charged) {
+        return new TokenUsageRecorder(String::length,
+                (promptTokens, outputTokens) -> charged.add(promptTokens + "/" + outputTokens));
+    }
+
+    private static class CountingGeneratorService implements AiCodeGeneratorService {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public HtmlCodeResult generateHtmlCode(String userMessage) {
+            calls.incrementAndGet();
+            return new HtmlCodeResult();
+        }
+
+        @Override
+        public String generateMultiFileCode(String userMessage) {
+            return "{\"files\":[" + calls.incrementAndGet() + "]}";
+        }
+
+        @Override
+        public Flux<String> generateHtmlCodeStream(String userMessage) {
+            return Flux.just(String.valueOf(calls.incrementAndGet()));
+        }
+
+        @Override
+        public Flux<String> generateMultiFileCodeStream(String userMessage) {
+            return Flux.just(String.valueOf(calls.incrementAndGet()));
+        }
+
+        @Override
+        public String generateCodeEdit(String editMessage) {
+            return "{\"edits\":[" + calls.incrementAndGet() + "]}";
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.saki.sakiaicodetoolsbackend.ai.hedge;
+
+import com.saki.sakiaicodetoolsbackend.config.ModelRouterProperties;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class HedgingStreamingChatModelTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HedgingStreamingChatModel newModel(FakeModel primary, FakeModel backup) {
+        ModelRouterProperties properties = new ModelRouterProperties();
+        properties.setInitialHedgeDelay(Duration.ofMillis(50));
+        properties.setMinHedgeDelay(Duration.ofMillis(50));
+        return new HedgingStreamingChatModel(List.of(
+                new HedgingStreamingChatModel.ModelEndpoint(primary,
+                        new EndpointLatencyStats("primary", 10, 5, meterRegistry)),
+                new HedgingStreamingChatModel.ModelEndpoint(backup,
+                        new EndpointLatencyStats("backup", 10, 5, meterRegistry))),
+                properties, meterRegistry);
+    }
+
+    private static String chat(StreamingChatModel model) throws Exception {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        StringBuilder text = new StringBuilder();
+        model.chat(ChatRequest.builder().messages(UserMessage.from("生成页面")).build(),
+                new StreamingChatResponseHandler() {
+                    @Override
+                    public void onPartialResponse(String partialResponse) {
+                        text.append(partialResponse);
+                    }
+
+                    @Override
+                    public void onCompleteResponse(ChatResponse completeResponse) {
+                        result.complete(text.toString());
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        result.completeExceptionally(error);
+                    }
+                });
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelled() throws Exception {
+        FakeModel primary = new FakeModel("慢", 1000, false);
+        FakeModel backup = new FakeModel("快", 10, false);
+
+        Assertions.assertEquals("快快快", chat(newModel(primary, backup)));
+        Thread.sleep(1200);
+        Assertions.assertTrue(primary.cancelled);
+        Assertions.assertEquals(1.0, meterRegistry.get("ai.model.hedge").tag("result", "won").counter().count());
+    }
+
+    @Test
+    void fastPrimaryDoesNotHedge() throws Exception {
+        FakeModel primary = new FakeModel("主", 5, false);
+        FakeModel backup = new FakeModel("备", 5, false);
+
+        Assertions.assertEquals("主主主", chat(newModel(primary, backup)));
+        Assertions.assertFalse(backup.called);
+    }
+
+    @Test
+    void failedPrimaryFailsOverImmediately() throws Exception {
+        FakeModel primary = new FakeModel("错", 5, true);
+        FakeModel backup = new FakeModel("备", 5, false);
+
+        Assertions.assertEquals("备备备", chat(newModel(primary, backup)));
+        Assertions.assertEquals(0.0, meterRegistry.get("ai.model.hedge").tag("result", "fired").counter().count());
+    }
+
+    private static final class FakeModel implements StreamingChatModel {
+
+        private final String token;
+
+        private final long firstTokenDelayMillis;
+
+        private final boolean fail;
+
+        private volatile boolean called;
+
+        private volatile boolean cancelled;
+
+        private FakeModel(String token, long firstTokenDelayMillis, boolean fail) {
+            this.token = token;
+            this.firstTokenDelayMillis = firstTokenDelayMillis;
+            this.fail = fail;
+        }
+
+        @Override
+        public void doChat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            called = true;
+            StreamingHandle handle = new StreamingHandle() {
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelled;
+                }
+            };
+            new Thread(() -> {
+                sleep(firstTokenDelayMillis);
+                if (fail) {
+                    handler.onError(new IllegalStateException("端点不可用"));
+                    return;
+                }
+                for (int i = 0; i < 3 && !cancelled; i++) {
+                    handler.onPartialResponse(new PartialResponse(token), new PartialResponseContext(handle));
+                    sleep(5);
+                }
+                if (!cancelled) {
+                    handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(token.repeat(3))).build());
+                }
+            }).start();
+        }
+
+        private static void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.saki.sakiaicodetoolsbackend.core.budget;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TokenUsageRecorderTest {
+
+    private final List<long[]> settlements = new ArrayList<>();
+
+    private final TokenUsageRecorder recorder = new TokenUsageRecorder(String::length,
+            (promptTokens, outputTokens) -> settlements.add(new long[]{promptTokens, outputTokens}));
+
+    @Test
+    void settlesAccumulatedUsageOnce() {
+        recorder.addPrompt("abcd");
+        recorder.addOutputChunk();
+        recorder.addOutputChunk();
+        recorder.addOutput("xyz");
+        recorder.addOutput(null);
+        recorder.settle();
+        recorder.settle();
+        Assertions.assertEquals(1, settlements.size());
+        Assertions.assertArrayEquals(new long[]{4, 5}, settlements.get(0));
+    }
+
+    @Test
+    void skipsSettlementWithoutUsage() {
+        recorder.settle();
+        recorder.addOutputChunk();
+        recorder.settle();
+        Assertions.assertTrue(settlements.isEmpty());
+    }
+
+    @Test
+    void noneIgnoresUsage() {
+        TokenUsageRecorder.NONE.addPrompt("abc");
+        TokenUsageRecorder.NONE.addOutputChunk();
+        TokenUsageRecorder.NONE.settle();
+        Assertions.assertTrue(settlements.isEmpty());
+    }
+}
@@ -0,0 +1,139 @@
+package com.saki.sakiaicodetoolsbackend.core.continuation;
+
+import com.saki.sakiaicodetoolsbackend.ai.AiCodeContinuationService;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodeContinuationProperties;
+import com.saki.sakiaicodetoolsbackend.core.metrics.CodeGenMetrics;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeStreamListener;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
+import com.saki.sakiaicodetoolsbackend.core.parser.impl.MultiFileCodeParser;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import dev.langchain4j.model.output.FinishReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+class CodeStreamContinuatorTest {
+
+    private final CodeContinuationProperties properties = new CodeContinuationProperties();
+
+    private final ScriptedContinuationService continuationService = new ScriptedContinuationService();
+
+    private final CodeStreamContinuator continuator = new CodeStreamContinuator(continuationService, properties,
+            new CodeGenMetrics(new SimpleMeterRegistry(), "test"));
+
+    @Test
+    void stitchesContinuationAndTrimsRepeatedTail() {
+        continuationService.replies.add(List.of("\"content\": \"con", "sole.log(1)\"}]}"));
+        String output = collect(continuator.withContinuation(
+                Flux.just("{\"files\": [{\"name\": \"app.js\", ", "\"content\": \"con"), "写一个页面",
+                CodeGenTypeEnum.MULTI_FILE));
+        Assertions.assertEquals("{\"files\": [{\"name\": \"app.js\", \"content\": \"console.log(1)\"}]}", output);
+        Assertions.assertEquals(List.of("{\"files\": [{\"name\": \"app.js\", \"content\": \"con"),
+                continuationService.partialOutputs);
+    }
+
+    @Test
+    void stopsWhenContinuationEndsNormally() {
+        continuationService.replies.add(List.of("<p>b</p>"));
+        continuationService.finishReasons.add(FinishReason.LENGTH);
+        continuationService.replies.add(List.of("<p>c</p>"));
+        properties.setMaxContinuations(3);
+        // 首段没有结束原因且结构无法判断，不续写；续写因长度结束时继续，正常结束时即使未闭合也停止
+        Assertions.assertEquals("<p>a</p>", collect(continuator.withContinuation(Flux.just("<p>a</p>"), "m",
+                CodeGenTypeEnum.HTML)));
+        Assertions.assertEquals("<html><p>a</p><p>b</p><p>c</p>", collect(continuator.withContinuation(
+                Flux.just("<html><p>a</p>"), "m", CodeGenTypeEnum.HTML)));
+        Assertions.assertEquals(2, continuationService.partialOutputs.size());
+    }
+
+    @Test
+    void salvagesCompleteFilesWhenContinuationsAreExhausted() {
+        properties.setMaxContinuations(1);
+        continuationService.replies.add(List.of("1)\"}, {\"name\": \"b.css\", \"content\": \"p {"));
+        String output = collect(continuator.withContinuation(
+                Flux.just("{\"files\": [{\"name\": \"a.js\", \"content\": \"f("), "m", CodeGenTypeEnum.MULTI_FILE));
+        Assertions.assertEquals(1, continuationService.partialOutputs.size());
+
+        ProjectCodeResult salvaged = continuator.salvage(output);
+        Assertions.assertNotNull(salvaged);
+        Assertions.assertEquals(1, salvaged.getFiles().size());
+        Assertions.assertEquals("f(1)", salvaged.getFile("a.js").getContent().toString());
+        Assertions.assertNull(continuator.salvage("{\"files\": [{\"name\": \"a.js\", \"content\": \"f("));
+    }
+
+    @Test
+    void salvagesClosedFilesFromParseSession() {
+        StreamingParseSession<ProjectCodeResult> session = new MultiFileCodeParser()
+                .openSession(CodeStreamListener.NONE);
+        session.feed("{\"files\": [{\"name\": \"a.js\", \"content\": \"f(1)\"}, ");
+        session.feed("{\"name\": \"b.css\", \"content\": \"p {");
+        Assertions.assertThrows(BusinessException.class, session::complete);
+
+        properties.setRepairEnabled(false);
+        Assertions.assertNull(continuator.salvage(session));
+        properties.setRepairEnabled(true);
+        ProjectCodeResult salvaged = continuator.salvage(session);
+        Assertions.assertNotNull(salvaged);
+        Assertions.assertEquals(1, salvaged.getFiles().size());
+        Assertions.assertEquals("f(1)", salvaged.getFile("a.js").getContent().toString());
+    }
+
+    @Test
+    void notifiesBeforeEachContinuation() {
+        continuationService.replies.add(List.of("<p>b</p>"));
+        continuationService.finishReasons.add(FinishReason.LENGTH);
+        properties.setMaxContinuations(2);
+        List<String> notified = new ArrayList<>();
+        collect(continuator.withContinuation(Flux.just("<html><p>a</p>"), "m", CodeGenTypeEnum.HTML,
+                notified::add));
+        Assertions.assertEquals(List.of("<html><p>a</p>", "<html><p>a</p><p>b</p>"), notified);
+        Assertions.assertEquals(notified, continuationService.partialOutputs);
+    }
+
+    @Test
+    void findsOverlapOnlyAboveMinimumLength() {
+        Assertions.assertEquals(8, CodeStreamContinuator.overlapLength("<div class", "iv class=\"x\">"));
+        Assertions.assertEquals(0, CodeStreamContinuator.overlapLength("<div class", "v class=\"x\">"));
+        Assertions.assertEquals(0, CodeStreamContinuator.overlapLength("abc;", "c;def"));
+    }
+
+    private static String collect(Flux<String> flux) {
+        return flux.collect(Collectors.joining()).block();
+    }
+
+    /**
+     * 按顺序返回预设回复的续写服务
+     */
+    private static class ScriptedContinuationService extends AiCodeContinuationService {
+
+        private final Deque<List<String>> replies = new ArrayDeque<>();
+
+        private final Deque<FinishReason> finishReasons = new ArrayDeque<>();
+
+        private final List<String> partialOutputs = new ArrayList<>();
+
+        ScriptedContinuationService() {
+            super(null);
+        }
+
+        @Override
+        public Flux<String> continueCode(CodeGenTypeEnum codeGenType, String userMessage, String partialOutput,
+                                         Consumer<FinishReason> finishReasonHandler) {
+            partialOutputs.add(partialOutput);
+            List<String> reply = replies.poll();
+            FinishReason finishReason = finishReasons.isEmpty() ? FinishReason.STOP : finishReasons.poll();
+            return Flux.fromIterable(reply == null ? List.<String>of() : reply)
+                    .doOnComplete(() -> finishReasonHandler.accept(finishReason));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.saki.sakiaicodetoolsbackend.core.continuation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class JsonRepairTest {
+
+    @Test
+    void dropsTruncatedFileAndClosesStructure() {
+        String truncated = "{\"files\": [{\"name\": \"index.html\", \"content\": \"<p>\\\"]}\\\"</p>\"},\n"
+                + "  {\"name\": \"app.js\", \"content\": \"console.lo";
+        Assertions.assertEquals("{\"files\": [{\"name\": \"index.html\", \"content\": \"<p>\\\"]}\\\"</p>\"}]}",
+                JsonRepair.repair(truncated));
+        Assertions.assertEquals("{\"files\": []}", JsonRepair.repair("{\"files\": [{\"name\": \"a"));
+    }
+
+    @Test
+    void keepsCompleteMembersOfRootObject() {
+        Assertions.assertEquals("{\"files\":[{\"name\":\"a.js\",\"content\":\"\"}],\"count\":1}",
+                JsonRepair.repair("{\"files\":[{\"name\":\"a.js\",\"content\":\"\"}],\"count\":1,\"description\":\"未完"));
+        Assertions.assertEquals("{\"ok\":true}", JsonRepair.repair("  {\"ok\":true} trailing"));
+        Assertions.assertNull(JsonRepair.repair("<html>"));
+    }
+
+    @Test
+    void detectsUnclosedStructures() {
+        Assertions.assertEquals(StructureStateEnum.UNCLOSED, TruncationDetector.inspect("{\"files\":[{\"content\":\"}]}"));
+        Assertions.assertEquals(StructureStateEnum.COMPLETE, TruncationDetector.inspect("{\"a\":\"\\\"}\"}"));
+        Assertions.assertEquals(StructureStateEnum.UNCLOSED, TruncationDetector.inspect("说明\n```html\n<html><body>"));
+        Assertions.assertEquals(StructureStateEnum.COMPLETE, TruncationDetector.inspect("```html\n<p></p>\n```"));
+        Assertions.assertEquals(StructureStateEnum.UNCLOSED, TruncationDetector.inspect("<!DOCTYPE html><html><body>"));
+        Assertions.assertEquals(StructureStateEnum.UNKNOWN, TruncationDetector.inspect("<p>hello</p>"));
+    }
+}
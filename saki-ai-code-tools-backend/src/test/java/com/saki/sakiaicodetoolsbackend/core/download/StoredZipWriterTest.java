@@ -0,0 +1,54 @@
+package com.saki.sakiaicodetoolsbackend.core.download;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+class StoredZipWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesReadableZipWithExactContentLength() throws IOException {
+        Path html = tempDir.resolve("index.html");
+        Files.writeString(html, "<h1>你好</h1>".repeat(2000));
+        List<StoredZipWriter.Entry> entries = List.of(
+                StoredZipWriter.ofFile("index.html", html),
+                StoredZipWriter.ofBuffer("样式/style.css", ByteBuffer.wrap("body{}".getBytes(StandardCharsets.UTF_8))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StoredZipWriter.write(entries, out);
+
+        Assertions.assertEquals(StoredZipWriter.contentLength(entries), out.size());
+        Map<String, String> unzipped = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                unzipped.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        Assertions.assertEquals(Files.readString(html), unzipped.get("index.html"));
+        Assertions.assertEquals("body{}", unzipped.get("样式/style.css"));
+        // 中央目录同样可被解析
+        Path zipFile = Files.write(tempDir.resolve("site.zip"), out.toByteArray());
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            Assertions.assertEquals(2, zip.size());
+            Assertions.assertEquals(6, zip.getEntry("样式/style.css").getSize());
+        }
+    }
+}
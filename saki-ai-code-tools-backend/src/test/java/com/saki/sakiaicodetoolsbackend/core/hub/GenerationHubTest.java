@@ -0,0 +1,90 @@
+package com.saki.sakiaicodetoolsbackend.core.hub;
+
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.ErrorCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+class GenerationHubTest {
+
+    /**
+     * 只请求指定数量后不再请求，模拟写出卡住的客户端
+     */
+    private static final class StalledSubscriber extends BaseSubscriber<Integer> {
+
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        @Override
+        protected void hookOnSubscribe(org.reactivestreams.Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(Integer value) {
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error.set(throwable);
+        }
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedWithoutStallingOthers() {
+        GenerationHub<Integer> hub = new GenerationHub<>(0, 8, GenerationHub.OverflowPolicy.DISCONNECT,
+                Schedulers.immediate());
+        StalledSubscriber slow = new StalledSubscriber();
+        hub.subscribe(i -> true).subscribe(slow);
+        List<Integer> fast = new CopyOnWriteArrayList<>();
+        hub.subscribe(i -> true).subscribe(fast::add);
+        for (int i = 0; i < 200; i++) {
+            hub.publish(i);
+        }
+        hub.complete();
+        Assertions.assertEquals(200, fast.size());
+        Assertions.assertEquals(0, hub.getSubscriberCount());
+        // 卡住的订阅方恢复读取后，先取完缓冲区再收到断开错误
+        Assertions.assertNull(slow.error.get());
+        slow.requestUnbounded();
+        Assertions.assertInstanceOf(BusinessException.class, slow.error.get());
+        Assertions.assertEquals(ErrorCode.CONSUMER_TOO_SLOW.getCode(), ((BusinessException) slow.error.get()).getCode());
+    }
+
+    @Test
+    void dropPolicyKeepsSlowSubscriberConnected() {
+        GenerationHub<Integer> hub = new GenerationHub<>(0, 8, GenerationHub.OverflowPolicy.DROP,
+                Schedulers.immediate());
+        StalledSubscriber slow = new StalledSubscriber();
+        hub.subscribe(i -> true).subscribe(slow);
+        for (int i = 0; i < 100; i++) {
+            hub.publish(i);
+        }
+        Assertions.assertNull(slow.error.get());
+        Assertions.assertEquals(1, hub.getSubscriberCount());
+        Assertions.assertTrue(hub.getDropped() > 0);
+        slow.cancel();
+        Assertions.assertEquals(0, hub.getSubscriberCount());
+    }
+
+    @Test
+    void lateSubscriberReceivesHistoryThenLiveEvents() {
+        GenerationHub<Integer> hub = new GenerationHub<>(3, 8, GenerationHub.OverflowPolicy.DISCONNECT,
+                Schedulers.immediate());
+        for (int i = 1; i <= 5; i++) {
+            hub.publish(i);
+        }
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        hub.subscribe(i -> i > 3).subscribe(received::add);
+        hub.publish(6);
+        hub.complete();
+        Assertions.assertEquals(List.of(4, 5, 6), received);
+        // 结束后订阅只收到保留的最近事件
+        Assertions.assertEquals(List.of(4, 5, 6), hub.subscribe(i -> true).collectList().block());
+    }
+}
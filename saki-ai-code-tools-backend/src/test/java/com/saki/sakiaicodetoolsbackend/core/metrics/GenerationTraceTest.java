@@ -0,0 +1,41 @@
+package com.saki.sakiaicodetoolsbackend.core.metrics;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+
+class GenerationTraceTest {
+
+    @Test
+    void recordsTokenMetricsTaggedByOutcome() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CodeGenMetrics metrics = new CodeGenMetrics(meterRegistry, "deepseek-chat");
+
+        GenerationTrace trace = metrics.start(CodeGenTypeEnum.HTML);
+        Thread.sleep(5);
+        trace.onToken("<html>");
+        trace.onToken("你好");
+        trace.parse(() -> trace.onToken("</html>"));
+        trace.finish(SignalType.ON_COMPLETE);
+        trace.finish(SignalType.CANCEL);
+
+        Assertions.assertEquals(2, meterRegistry.get("ai.codegen.token.gap").tag("model", "deepseek-chat")
+                .timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("ai.codegen.ttft").tag("outcome", "success")
+                .tag("codeGenType", "html").timer().count());
+        Assertions.assertEquals(6 + 6 + 7, meterRegistry.get("ai.codegen.bytes").summary().totalAmount());
+        Assertions.assertEquals(3, meterRegistry.get("ai.codegen.tokens").summary().totalAmount());
+        Assertions.assertTrue(meterRegistry.find("ai.codegen.stream.duration").tag("outcome", "cancelled")
+                .timer() == null);
+    }
+
+    @Test
+    void computesUtf8LengthWithoutEncoding() {
+        String text = "a©你😀";
+        Assertions.assertEquals(text.getBytes(StandardCharsets.UTF_8).length, GenerationTrace.utf8Length(text));
+    }
+}
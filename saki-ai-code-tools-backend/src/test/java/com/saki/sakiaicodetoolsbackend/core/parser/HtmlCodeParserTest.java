@@ -0,0 +1,69 @@
+package com.saki.sakiaicodetoolsbackend.core.parser;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.core.parser.impl.HtmlCodeParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class HtmlCodeParserTest {
+
+    private final HtmlCodeParser parser = new HtmlCodeParser();
+
+    @Test
+    void streamingMatchesBatch() {
+        List<String> contents = List.of(
+                "下面是代码：\n```html\n<!DOCTYPE html>\n<p>`a` ``b``</p>\n  \n```\n说明文字",
+                "```HTML  \r\n\n   <div>x</div>```",
+                "```html foo\n<p>not a fence</p>\n```html\n<p>real</p>\n```",
+                "```html\n   \n```\n<p>empty fence</p>",
+                "  <html><body>plain</body></html>  ",
+                "```htm\n<p>partial marker</p>");
+        for (String content : contents) {
+            String expected = parser.parseCode(content).getHtmlCode();
+            for (int size = 1; size <= content.length(); size++) {
+                Assertions.assertEquals(expected, parseStreaming(content, size, new StringBuilder()),
+                        "chunk size " + size + " of: " + content);
+            }
+        }
+    }
+
+    @Test
+    void streamingPassesCodeThroughBeforeStreamEnds() {
+        StringBuilder streamed = new StringBuilder();
+        StreamingParseSession<HtmlCodeResult> session = parser.openSession(listener(streamed));
+        session.feed("好的\n```html\n<h1>");
+        session.feed("标题</h1>   ");
+        Assertions.assertEquals("<h1>标题</h1>", streamed.toString());
+        session.feed("\n``");
+        session.feed("`\n多余的说明");
+        Assertions.assertEquals("<h1>标题</h1>", session.complete().getHtmlCode());
+        Assertions.assertEquals("<h1>标题</h1>", streamed.toString());
+    }
+
+    @Test
+    void unterminatedFenceKeepsReceivedCode() {
+        StringBuilder streamed = new StringBuilder();
+        String html = parseStreaming("```html\n<div>被截断的输出`` \n", 4, streamed);
+        Assertions.assertEquals("<div>被截断的输出``", html);
+        Assertions.assertEquals(html, streamed.toString());
+    }
+
+    private String parseStreaming(String content, int chunkSize, StringBuilder streamed) {
+        StreamingParseSession<HtmlCodeResult> session = parser.openSession(listener(streamed));
+        for (int i = 0; i < content.length(); i += chunkSize) {
+            session.feed(content.substring(i, Math.min(content.length(), i + chunkSize)));
+        }
+        return session.complete().getHtmlCode();
+    }
+
+    private CodeStreamListener listener(StringBuilder streamed) {
+        return new CodeStreamListener() {
+            @Override
+            public void onFileContent(String fileName, CharSequence content) {
+                streamed.append(content);
+            }
+        };
+    }
+}
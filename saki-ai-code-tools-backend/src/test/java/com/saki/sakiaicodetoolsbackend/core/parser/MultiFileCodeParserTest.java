@@ -0,0 +1,124 @@
+package com.saki.sakiaicodetoolsbackend.core.parser;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectFile;
+import com.saki.sakiaicodetoolsbackend.core.parser.impl.MultiFileCodeParser;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+class MultiFileCodeParserTest {
+
+    private static final String CODE = "{\"files\":["
+            + "{\"name\":\"index.html\",\"content\":\"<h1>任务记录 \\\"😀\\\"</h1>\"},"
+            + "{\"content\":\"body { color: red; }\",\"name\":\"style.css\"},"
+            + "{\"name\":\"app.js\",\"content\":\"console.log('ok');\"}"
+            + "]}";
+
+    private final MultiFileCodeParser parser = new MultiFileCodeParser();
+
+    private static String content(ProjectCodeResult result, String path) {
+        ProjectFile file = result.getFile(path);
+        return file == null ? null : file.getContent().toString();
+    }
+
+    @Test
+    void parseCode() {
+        ProjectCodeResult result = parser.parseCode(CODE);
+        Assertions.assertEquals(List.of("index.html", "style.css", "app.js"),
+                result.getFiles().stream().map(ProjectFile::getPath).toList());
+        Assertions.assertEquals("<h1>任务记录 \"😀\"</h1>", content(result, "index.html"));
+        Assertions.assertEquals("body { color: red; }", content(result, "style.css"));
+        Assertions.assertEquals("console.log('ok');", content(result, "app.js"));
+    }
+
+    @Test
+    void parseNestedPathsDuplicatesAndUnsafePaths() {
+        String code = "{\"files\":["
+                + "{\"name\":\"index.html\",\"content\":\"<h1>v1</h1>\"},"
+                + "{\"name\":\"./pages\\\\about.html\",\"content\":\"<p>about</p>\"},"
+                + "{\"name\":\"assets/js/app.js\",\"content\":\"\"},"
+                + "{\"name\":\"../escape.js\",\"content\":\"x\"},"
+                + "{\"name\":\"/etc/passwd\",\"content\":\"x\"},"
+                + "{\"name\":\"index.html\",\"content\":\"<h1>v2</h1>\"}"
+                + "]}";
+        ProjectCodeResult result = parser.parseCode(code);
+        Assertions.assertEquals(List.of("index.html", "pages/about.html", "assets/js/app.js"),
+                result.getFiles().stream().map(ProjectFile::getPath).toList());
+        Assertions.assertEquals("<h1>v2</h1>", content(result, "index.html"));
+        Assertions.assertEquals("<p>about</p>", content(result, "pages/about.html"));
+        Assertions.assertEquals("", content(result, "assets/js/app.js"));
+    }
+
+    @Test
+    void contentIsReadOnlySlice() {
+        ProjectCodeResult result = parser.parseCode(CODE);
+        CharSequence html = result.getFile("index.html").getContent();
+        Assertions.assertTrue(html instanceof CharBuffer buffer && buffer.isReadOnly());
+        Assertions.assertEquals("<h1>任务记录 \"😀\"</h1>", html.toString());
+    }
+
+    @Test
+    void parseChunkedStreamEmitsFilesAsTheyClose() {
+        List<String> events = new ArrayList<>();
+        StreamingParseSession<ProjectCodeResult> session = parser.openSession(new CodeStreamListener() {
+            @Override
+            public void onFileEnd(String fileName) {
+                events.add(fileName);
+            }
+        });
+        // 每次喂入一个字符，覆盖代理对被拆开的情况
+        for (int i = 0; i < CODE.length(); i++) {
+            session.feed(CODE.substring(i, i + 1));
+            if (i == CODE.indexOf("style.css")) {
+                Assertions.assertEquals(List.of("index.html"), events);
+            }
+        }
+        ProjectCodeResult result = session.complete();
+        Assertions.assertEquals(List.of("index.html", "style.css", "app.js"), events);
+        Assertions.assertEquals("<h1>任务记录 \"😀\"</h1>", content(result, "index.html"));
+        Assertions.assertEquals("console.log('ok');", content(result, "app.js"));
+    }
+
+    @Test
+    void parseTruncatedJsonFails() {
+        BusinessException e = Assertions.assertThrows(BusinessException.class,
+                () -> parser.parseCode(CODE.substring(0, CODE.length() / 2)));
+        Assertions.assertTrue(e.getMessage().startsWith("JSON 解析失败"));
+    }
+
+    @Test
+    void truncatedSessionSalvagesClosedFiles() {
+        List<String> events = new ArrayList<>();
+        StreamingParseSession<ProjectCodeResult> session = parser.openSession(new CodeStreamListener() {
+            @Override
+            public void onFileEnd(String fileName) {
+                events.add(fileName);
+            }
+        });
+        session.feed(CODE.substring(0, CODE.indexOf("app.js") + 20));
+        Assertions.assertThrows(BusinessException.class, session::complete);
+        ProjectCodeResult salvaged = session.salvage();
+        Assertions.assertNotNull(salvaged);
+        Assertions.assertEquals(List.of("index.html", "style.css"), events);
+        Assertions.assertEquals(2, salvaged.getFiles().size());
+        Assertions.assertEquals("body { color: red; }", content(salvaged, "style.css"));
+
+        // 中途出现非法内容不算截断，不保留
+        StreamingParseSession<ProjectCodeResult> malformed = parser.openSession(CodeStreamListener.NONE);
+        malformed.feed(CODE.substring(0, CODE.indexOf("app.js") - 2) + "}}]");
+        Assertions.assertThrows(BusinessException.class, malformed::complete);
+        Assertions.assertNull(malformed.salvage());
+    }
+
+    @Test
+    void parseWithoutFilesArrayFails() {
+        BusinessException e = Assertions.assertThrows(BusinessException.class,
+                () -> parser.parseCode("{\"name\":\"index.html\"}"));
+        Assertions.assertTrue(e.getMessage().contains("files"));
+    }
+}
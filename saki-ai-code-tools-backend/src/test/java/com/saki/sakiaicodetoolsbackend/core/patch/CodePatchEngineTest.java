@@ -0,0 +1,67 @@
+package com.saki.sakiaicodetoolsbackend.core.patch;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.CodeEditResult;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+class CodePatchEngineTest {
+
+    @Test
+    void appliesExactReplaceInOrder() {
+        CodeEditResult edits = CodePatchEngine.parseEdits("""
+                {"edits":[
+                  {"path":"index.html","search":"<h1>Hello</h1>","replace":"<h1>Hi</h1>"},
+                  {"path":"index.html","search":"<h1>Hi</h1>","replace":"<h1>Hi there</h1>"}
+                ],"description":"改标题"}""");
+        CodePatchResult result = CodePatchEngine.apply(
+                Map.of("index.html", "<body>\r\n<h1>Hello</h1>\r\n</body>"), edits);
+        Assertions.assertEquals("<body>\n<h1>Hi there</h1>\n</body>", result.getFiles().get("index.html"));
+        Assertions.assertEquals(List.of("index.html"), result.getChangedFiles());
+        Assertions.assertEquals(2, result.getAppliedEdits());
+        Assertions.assertEquals("改标题", result.getDescription());
+    }
+
+    @Test
+    void toleratesIndentationChanges() {
+        String content = "function a() {\n    if (x) {\n        go();\n    }\n}\n";
+        String patched = CodePatchEngine.replaceOnce(content, "if (x) {\n  go();\n}", "if (y) {\n  stop();\n}", "t");
+        Assertions.assertEquals("function a() {\nif (y) {\n  stop();\n}\n}\n", patched);
+    }
+
+    @Test
+    void rejectsAmbiguousOrMissingSearch() {
+        BusinessException ambiguous = Assertions.assertThrows(BusinessException.class,
+                () -> CodePatchEngine.replaceOnce("a\nb\na\n", "a", "c", "第 1 处修改"));
+        Assertions.assertTrue(ambiguous.getMessage().contains("匹配到多处"));
+        BusinessException missing = Assertions.assertThrows(BusinessException.class,
+                () -> CodePatchEngine.replaceOnce("a\nb\n", "z", "c", "第 1 处修改"));
+        Assertions.assertTrue(missing.getMessage().contains("未在文件中找到"));
+    }
+
+    @Test
+    void createsAndDeletesFiles() {
+        CodeEditResult edits = CodePatchEngine.parseEdits("""
+                {"edits":[
+                  {"path":"js/app.js","search":"","replace":"console.log(1);"},
+                  {"path":"old.css","delete":true}
+                ]}""");
+        CodePatchResult result = CodePatchEngine.apply(Map.of("index.html", "<html></html>", "old.css", "a{}"), edits);
+        Assertions.assertEquals("console.log(1);", result.getFiles().get("js/app.js"));
+        Assertions.assertFalse(result.getFiles().containsKey("old.css"));
+        Assertions.assertEquals(List.of("js/app.js", "old.css"), result.getChangedFiles());
+    }
+
+    @Test
+    void failedEditReportsItsPosition() {
+        CodeEditResult edits = CodePatchEngine.parseEdits(
+                "{\"edits\":[{\"path\":\"index.html\",\"search\":\"<p>\",\"replace\":\"<div>\"}]}");
+        BusinessException e = Assertions.assertThrows(BusinessException.class,
+                () -> CodePatchEngine.apply(Map.of("index.html", "<span></span>"), edits));
+        Assertions.assertTrue(e.getMessage().startsWith("第 1 处修改（index.html）"));
+        Assertions.assertThrows(BusinessException.class, () -> CodePatchEngine.parseEdits("{\"edits\":[]}"));
+    }
+}
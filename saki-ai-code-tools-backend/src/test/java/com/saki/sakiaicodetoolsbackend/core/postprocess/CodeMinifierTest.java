@@ -0,0 +1,74 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CodeMinifierTest {
+
+    @Test
+    void minifiesCssWithoutChangingSelectorsOrCalc() {
+        String css = """
+                /* 主题 */
+                a :hover , div > p {
+                    width: calc(100% - 2px);
+                    content: "  /* 保留 */  ";
+                }
+                @media screen and (max-width: 600px) { body { margin: 0 ; } }
+                """;
+        Assertions.assertEquals("a :hover,div>p{width:calc(100% - 2px);content:\"  /* 保留 */  \"}"
+                + "@media screen and (max-width:600px){body{margin:0}}", CodeMinifier.minifyCss(css));
+    }
+
+    @Test
+    void minifiesJsKeepingStringsRegexAndNewlines() {
+        String js = """
+                // 注释
+                const url = "http://example.com"; /* 块注释 */
+                let re = /\\/\\/[a-z]+/g, n = a / b / c;
+                const t = `line1
+                    ${ {a: 1}.a + `inner ${x}` }  // 不是注释
+                `;
+                i = i + +j
+                return
+                """;
+        Assertions.assertEquals("const url=\"http://example.com\";\n"
+                + "let re=/\\/\\/[a-z]+/g,n=a/b/c;\n"
+                + "const t=`line1\n    ${{a:1}.a+`inner ${x}`}  // 不是注释\n`;\n"
+                + "i=i+ +j\n"
+                + "return", CodeMinifier.minifyJs(js));
+    }
+
+    @Test
+    void minifiesHtmlKeepingPreAndInlineSpacing() {
+        String html = """
+                <!DOCTYPE html>
+                <html>
+                  <head>
+                    <!-- 注释 -->
+                    <style> body { color: red ; } </style>
+                  </head>
+                  <body>
+                    <p>Hello   <b>big</b>   <i>world</i> 1 < 2</p>
+                    <pre>  keep
+                      this  </pre>
+                    <script type="text/template">  <div>  </div>  </script>
+                  </body>
+                </html>
+                """;
+        Assertions.assertEquals("<!DOCTYPE html><html><head><style>body{color:red}</style></head><body>"
+                + "<p>Hello <b>big</b> <i>world</i> 1 < 2</p><pre>  keep\n      this  </pre>"
+                + "<script type=\"text/template\">  <div>  </div>  </script></body></html>", CodeMinifier.minifyHtml(html));
+    }
+
+    @Test
+    void keepsSpacingAroundInlineReplacedElements() {
+        Assertions.assertEquals("<button><svg></svg> Save</button>",
+                CodeMinifier.minifyHtml("<button><svg></svg> Save</button>"));
+        Assertions.assertEquals("<label>Name <select><option>A</option></select></label>",
+                CodeMinifier.minifyHtml("<label>Name <select><option>A</option></select></label>"));
+        Assertions.assertEquals("<p>Play <video></video> or <audio></audio> now</p>",
+                CodeMinifier.minifyHtml("<p>Play  <video></video>\n or <audio></audio>  now</p>"));
+        Assertions.assertEquals("<p>Hello <script>x()</script> world</p>",
+                CodeMinifier.minifyHtml("<p>Hello <script>x()</script> world</p>"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.saki.sakiaicodetoolsbackend.core.postprocess;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectFile;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodePostProcessProperties;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class PostProcessPipelineTest {
+
+    private final CodePostProcessProperties properties = new CodePostProcessProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PostProcessPipeline pipeline = new PostProcessPipeline(
+            List.of(new FingerprintStage(), new InlineAssetStage(properties), new MinifyStage()), properties, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        pipeline.destroy();
+    }
+
+    @Test
+    void runsStagesInOrderAcrossFiles() {
+        ProjectCodeResult project = new ProjectCodeResult();
+        project.putFile("index.html", """
+                <html><head>
+                  <link rel="stylesheet" href="css/style.css">
+                  <link rel="stylesheet" href="small.css">
+                </head><body>
+                  <script src="js/app.js?v=1"></script>
+                  <script src="lazy.js" defer></script>
+                </body></html>
+                """);
+        project.putFile("css/style.css", "body {\n  background: url(bg.png);\n}\n");
+        project.putFile("small.css", "p { margin: 0; }");
+        project.putFile("js/app.js", "// app\nconsole.log( 'hi' );\n");
+        project.putFile("lazy.js", "console.log( 'lazy' );");
+
+        ProjectCodeResult processed = (ProjectCodeResult) pipeline.process(project, CodeGenTypeEnum.MULTI_FILE,
+                pipeline.resolveStages("minify,inline,fingerprint"));
+        Map<String, String> files = processed.getFiles().stream()
+                .collect(Collectors.toMap(ProjectFile::getPath, file -> file.getContent().toString()));
+
+        String html = files.get("index.html");
+        // 同目录的小文件内联，其他目录且含 url() 的保持外链并加指纹，defer 脚本不内联
+        Assertions.assertTrue(html.contains("<style>p{margin:0}</style>"), html);
+        Assertions.assertTrue(html.contains("<script>console.log('hi');</script>"), html);
+        Assertions.assertTrue(html.matches("(?s).*href=\"css/style\\.[0-9a-f]{8}\\.css\".*"), html);
+        Assertions.assertTrue(html.matches("(?s).*src=\"lazy\\.[0-9a-f]{8}\\.js\" defer.*"), html);
+        Assertions.assertTrue(files.keySet().stream().anyMatch(path -> path.matches("css/style\\.[0-9a-f]{8}\\.css")));
+        Assertions.assertFalse(files.containsKey("lazy.js"));
+        Assertions.assertEquals("index.html", processed.getFiles().get(0).getPath());
+        Assertions.assertTrue(meterRegistry.get("ai.code.postprocess.stage").tag("stage", MinifyStage.NAME).timer()
+                .count() > 0);
+    }
+
+    @Test
+    void honoursPerRequestStages() {
+        HtmlCodeResult html = new HtmlCodeResult();
+        html.setHtmlCode("<p>\n  a  </p>\n");
+        Assertions.assertSame(html, pipeline.process(html, CodeGenTypeEnum.HTML, pipeline.resolveStages("none")));
+        HtmlCodeResult minified = (HtmlCodeResult) pipeline.process(html, CodeGenTypeEnum.HTML,
+                pipeline.resolveStages("minify"));
+        Assertions.assertEquals("<p>a</p>", minified.getHtmlCode());
+        // 缺省不处理，编辑模式读到的仍是模型输出的源码
+        Assertions.assertEquals(Set.of(), pipeline.resolveStages(null));
+        Assertions.assertSame(html, pipeline.process(html, CodeGenTypeEnum.HTML, null));
+        Assertions.assertThrows(BusinessException.class, () -> pipeline.resolveStages("minify,gzip"));
+    }
+
+    @Test
+    void failedStageIsSkipped() {
+        PostProcessStage broken = new PostProcessStage() {
+            @Override
+            public String getName() {
+                return "broken";
+            }
+
+            @Override
+            public void process(PostProcessContext context) {
+                context.getFiles().put("index.html", "half");
+                throw new IllegalStateException("boom");
+            }
+        };
+        PostProcessPipeline withBroken = new PostProcessPipeline(List.of(broken, new MinifyStage()), properties,
+                meterRegistry);
+        Map<String, String> result = withBroken.process(Map.of("index.html", "<p> x </p>"), CodeGenTypeEnum.HTML,
+                Set.of("broken", "minify"));
+        Assertions.assertEquals("<p>x</p>", result.get("index.html"));
+        withBroken.destroy();
+    }
+}
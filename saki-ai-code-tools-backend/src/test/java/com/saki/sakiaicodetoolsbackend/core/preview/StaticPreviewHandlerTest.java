@@ -0,0 +1,81 @@
+package com.saki.sakiaicodetoolsbackend.core.preview;
+
+import cn.hutool.core.io.FileUtil;
+import com.saki.sakiaicodetoolsbackend.config.CodeStoreProperties;
+import com.saki.sakiaicodetoolsbackend.config.StaticPreviewProperties;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+class StaticPreviewHandlerTest {
+
+    private static final String HTML = "<!DOCTYPE html><html><body>预览页面</body></html>";
+
+    private final String generationId = "html_" + System.nanoTime();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StaticPreviewHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        FileUtil.writeString(HTML, new File(CodeFileSaverTemplate.FILE_SAVE_ROOT_DIR + "/" + generationId,
+                "index.html"), StandardCharsets.UTF_8);
+        handler = new StaticPreviewHandler(new StaticPreviewProperties(),
+                new CodeSiteStore(new CodeStoreProperties()), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtil.del(CodeFileSaverTemplate.FILE_SAVE_ROOT_DIR + "/" + generationId);
+    }
+
+    private MockHttpServletResponse get(String path, String headerName, String headerValue) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/static/" + generationId + "/" + path);
+        if (headerName != null) {
+            request.addHeader(headerName, headerValue);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.serve(generationId, path, request, response);
+        return response;
+    }
+
+    @Test
+    void servesIndexWithStrongEtagAndRevalidates() throws IOException {
+        MockHttpServletResponse first = get("", null, null);
+        Assertions.assertEquals(200, first.getStatus());
+        Assertions.assertEquals(HTML, first.getContentAsString(StandardCharsets.UTF_8));
+        String etag = first.getHeader("ETag");
+        Assertions.assertTrue(etag.startsWith("\"") && !etag.startsWith("W/"));
+
+        MockHttpServletResponse second = get("index.html", "If-None-Match", etag);
+        Assertions.assertEquals(304, second.getStatus());
+        Assertions.assertEquals(0, second.getContentAsByteArray().length);
+        Assertions.assertEquals(1.0, meterRegistry.get("ai.static.preview.cache").tag("result", "hit")
+                .counter().count());
+    }
+
+    @Test
+    void servesSingleRangeAndRejectsUnsatisfiableRange() throws IOException {
+        byte[] bytes = HTML.getBytes(StandardCharsets.UTF_8);
+
+        MockHttpServletResponse partial = get("index.html", "Range", "bytes=2-8");
+        Assertions.assertEquals(206, partial.getStatus());
+        Assertions.assertEquals("bytes 2-8/" + bytes.length, partial.getHeader("Content-Range"));
+        Assertions.assertEquals(new String(bytes, 2, 7, StandardCharsets.UTF_8),
+                partial.getContentAsString(StandardCharsets.UTF_8));
+
+        MockHttpServletResponse unsatisfiable = get("index.html", "Range", "bytes=" + bytes.length + "-");
+        Assertions.assertEquals(416, unsatisfiable.getStatus());
+    }
+}
@@ -0,0 +1,40 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+class CodeFileSaverExecutorTest {
+
+    @Test
+    void saveAsKeepsExistingDirectory() {
+        String generationId = CodeFileSaverExecutor.newGenerationId(CodeGenTypeEnum.MULTI_FILE);
+        Object first = CodeFileSaverExecutor.toCodeResult(Map.of("index.html", "<p>1</p>", "js/app.js", "run()"),
+                "v1", CodeGenTypeEnum.MULTI_FILE);
+        Object second = CodeFileSaverExecutor.toCodeResult(Map.of("index.html", "<p>2</p>"), "v2",
+                CodeGenTypeEnum.MULTI_FILE);
+        File dir = CodeFileSaverExecutor.executeSaverAs(first, CodeGenTypeEnum.MULTI_FILE, generationId);
+        try {
+            Assertions.assertEquals(generationId, dir.getName());
+            // 并发还原同一结果时后到的一方不覆盖已有目录
+            Assertions.assertEquals(dir, CodeFileSaverExecutor.executeSaverAs(second, CodeGenTypeEnum.MULTI_FILE,
+                    generationId));
+            Assertions.assertEquals("<p>1</p>", FileUtil.readString(new File(dir, "index.html"), StandardCharsets.UTF_8));
+            Assertions.assertEquals("run()", FileUtil.readString(new File(dir, "js/app.js"), StandardCharsets.UTF_8));
+        } finally {
+            FileUtil.del(dir);
+        }
+    }
+
+    @Test
+    void htmlResultOnlyAcceptsIndexFile() {
+        Assertions.assertThrows(BusinessException.class, () -> CodeFileSaverExecutor.toCodeResult(
+                Map.of("index.html", "<p>1</p>", "app.js", "x"), null, CodeGenTypeEnum.HTML));
+    }
+}
@@ -0,0 +1,59 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import com.saki.sakiaicodetoolsbackend.config.CodePersistProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class CodePersistenceStageTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CodePersistenceStage stage = new CodePersistenceStage(new CodePersistProperties(), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        stage.destroy();
+    }
+
+    @Test
+    void commitRunsAfterAllTasksOffCallerThread() {
+        PersistenceWorker worker = stage.openWorker();
+        List<String> executed = new CopyOnWriteArrayList<>();
+        String callerThread = Thread.currentThread().getName();
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            worker.execute(() -> executed.add(String.valueOf(index)));
+        }
+        String commitThread = worker.commit(() -> {
+            Assertions.assertEquals(100, executed.size());
+            return Thread.currentThread().getName();
+        }).block();
+        Assertions.assertNotEquals(callerThread, commitThread);
+        Assertions.assertEquals("0", executed.get(0));
+        Assertions.assertEquals("99", executed.get(99));
+        Assertions.assertEquals(1L, meterRegistry.get("ai.code.persist.commit").tag("result", "success").timer().count());
+    }
+
+    @Test
+    void taskFailureSurfacesOnCommitAndAbortIsIgnoredAfterwards() {
+        PersistenceWorker worker = stage.openWorker();
+        AtomicBoolean skipped = new AtomicBoolean(true);
+        worker.execute(() -> {
+            throw new IllegalStateException("disk full");
+        });
+        worker.execute(() -> skipped.set(false));
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+                () -> worker.commit(() -> "never").block());
+        Assertions.assertEquals("disk full", e.getMessage());
+        Assertions.assertTrue(skipped.get());
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        worker.abort(() -> aborted.set(true));
+        Assertions.assertFalse(aborted.get());
+    }
+}
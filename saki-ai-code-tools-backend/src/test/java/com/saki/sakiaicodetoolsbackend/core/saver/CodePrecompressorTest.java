@@ -0,0 +1,60 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodePrecompressProperties;
+import com.saki.sakiaicodetoolsbackend.config.CodeStoreProperties;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+class CodePrecompressorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesGzipSiblingForLargeTextFilesOnly() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CodePrecompressor precompressor = new CodePrecompressor(new CodePrecompressProperties(),
+                new CodeSiteStore(new CodeStoreProperties()), meterRegistry);
+        String html = "<div class=\"card\">生成的页面</div>\n".repeat(200);
+        Files.writeString(tempDir.resolve("index.html"), html);
+        Files.writeString(tempDir.resolve("style.css"), "body{}");
+        Files.write(tempDir.resolve("logo.png"), new byte[4096]);
+
+        precompressor.compressDirectory(tempDir.toFile(), CodeGenTypeEnum.MULTI_FILE);
+        precompressor.destroy();
+
+        Path gzip = tempDir.resolve("index.html.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+            Assertions.assertEquals(html, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertFalse(Files.exists(tempDir.resolve("style.css.gz")));
+        Assertions.assertFalse(Files.exists(tempDir.resolve("logo.png.gz")));
+        Assertions.assertTrue(meterRegistry.get("ai.code.precompress.ratio").tag("codeGenType", "multi_file")
+                .summary().mean() < 0.1);
+
+        Assertions.assertEquals(gzip, CodePrecompressor.resolve(tempDir.resolve("index.html"), "gzip, br").getPath());
+        Assertions.assertNull(CodePrecompressor.resolve(tempDir.resolve("style.css"), "gzip").getContentEncoding());
+    }
+
+    @Test
+    void parsesAcceptEncoding() {
+        Assertions.assertTrue(CodePrecompressor.acceptsGzip("gzip, deflate, br"));
+        Assertions.assertTrue(CodePrecompressor.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        Assertions.assertTrue(CodePrecompressor.acceptsGzip("*"));
+        Assertions.assertTrue(CodePrecompressor.acceptsGzip("*;q=0, gzip"));
+        Assertions.assertFalse(CodePrecompressor.acceptsGzip("gzip;q=0, *"));
+        Assertions.assertFalse(CodePrecompressor.acceptsGzip("identity"));
+        Assertions.assertFalse(CodePrecompressor.acceptsGzip(null));
+    }
+}
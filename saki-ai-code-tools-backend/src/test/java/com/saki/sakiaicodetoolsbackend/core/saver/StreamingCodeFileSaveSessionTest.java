@@ -0,0 +1,87 @@
+package com.saki.sakiaicodetoolsbackend.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import com.saki.sakiaicodetoolsbackend.ai.model.ProjectCodeResult;
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.core.parser.CodeParserExecutor;
+import com.saki.sakiaicodetoolsbackend.core.parser.StreamingParseSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+class StreamingCodeFileSaveSessionTest {
+
+    private static final String CODE = "{\"files\":["
+            + "{\"name\":\"index.html\",\"content\":\"<h1>留言板 😀</h1>\"},"
+            + "{\"name\":\"style.css\",\"content\":\"  \"},"
+            + "{\"name\":\"app.js\",\"content\":\"console.log('ok');\"},"
+            + "{\"name\":\"pages/about.html\",\"content\":\"<p>关于</p>\"},"
+            + "{\"name\":\"../outside.js\",\"content\":\"alert(1);\"}"
+            + "]}";
+
+    @Test
+    void saveWhileStreaming() {
+        StreamingCodeFileSaveSession<?> saveSession = CodeFileSaverExecutor.openStreamingSaver(CodeGenTypeEnum.MULTI_FILE);
+        StreamingParseSession<?> parseSession = CodeParserExecutor.openSession(CodeGenTypeEnum.MULTI_FILE, saveSession);
+        for (int i = 0; i < CODE.length(); i += 7) {
+            parseSession.feed(CODE.substring(i, Math.min(CODE.length(), i + 7)));
+        }
+        File savedDir = saveSession.complete(parseSession.complete());
+        try {
+            Assertions.assertEquals("<h1>留言板 😀</h1>",
+                    FileUtil.readString(new File(savedDir, "index.html"), StandardCharsets.UTF_8));
+            Assertions.assertEquals("console.log('ok');",
+                    FileUtil.readString(new File(savedDir, "app.js"), StandardCharsets.UTF_8));
+            Assertions.assertEquals("<p>关于</p>",
+                    FileUtil.readString(new File(savedDir, "pages/about.html"), StandardCharsets.UTF_8));
+            // 空白内容和路径不合法的文件不保存
+            Assertions.assertFalse(new File(savedDir, "style.css").exists());
+            Assertions.assertFalse(new File(savedDir.getParentFile(), "outside.js").exists());
+            Assertions.assertEquals(3, FileUtil.loopFiles(savedDir).size());
+        } finally {
+            FileUtil.del(savedDir);
+        }
+    }
+
+    @Test
+    void restagedFilesReplaceStreamedOutput() {
+        StreamingCodeFileSaveSession<?> saveSession = CodeFileSaverExecutor.openStreamingSaver(CodeGenTypeEnum.MULTI_FILE);
+        StreamingParseSession<?> parseSession = CodeParserExecutor.openSession(CodeGenTypeEnum.MULTI_FILE, saveSession);
+        parseSession.feed(CODE);
+        parseSession.complete();
+        ProjectCodeResult processed = new ProjectCodeResult();
+        processed.putFile("index.html", "<h1>processed</h1>");
+        processed.putFile("assets/js/app.1a2b3c4d.js", "console.log(1)");
+        saveSession.restage(processed);
+        File savedDir = saveSession.complete(processed);
+        try {
+            Assertions.assertEquals("<h1>processed</h1>",
+                    FileUtil.readString(new File(savedDir, "index.html"), StandardCharsets.UTF_8));
+            Assertions.assertEquals("console.log(1)",
+                    FileUtil.readString(new File(savedDir, "assets/js/app.1a2b3c4d.js"), StandardCharsets.UTF_8));
+            Assertions.assertEquals(2, FileUtil.loopFiles(savedDir).size());
+        } finally {
+            FileUtil.del(savedDir);
+        }
+    }
+
+    @Test
+    void abortKeepsPartialOutputInStaging() {
+        StreamingCodeFileSaveSession<?> saveSession = CodeFileSaverExecutor.openStreamingSaver(CodeGenTypeEnum.HTML);
+        StreamingParseSession<?> parseSession = CodeParserExecutor.openSession(CodeGenTypeEnum.HTML, saveSession);
+        parseSession.feed("```html\n<div>partial");
+        saveSession.abort();
+        File[] stagingDirs = FileUtil.ls(CodeFileSaverTemplate.FILE_STAGING_ROOT_DIR);
+        File partial = null;
+        for (File dir : stagingDirs) {
+            File index = new File(dir, "index.html");
+            if (index.exists() && "<div>partial".equals(FileUtil.readString(index, StandardCharsets.UTF_8))) {
+                partial = dir;
+            }
+        }
+        Assertions.assertNotNull(partial);
+        FileUtil.del(partial);
+    }
+}
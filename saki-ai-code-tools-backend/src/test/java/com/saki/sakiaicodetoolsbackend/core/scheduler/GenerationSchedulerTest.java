@@ -0,0 +1,177 @@
+package com.saki.sakiaicodetoolsbackend.core.scheduler;
+
+import com.saki.sakiaicodetoolsbackend.config.GenerationSchedulerProperties;
+import com.saki.sakiaicodetoolsbackend.exception.GenerationRejectedException;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class GenerationSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GenerationScheduler scheduler;
+
+    private final List<String> started = new ArrayList<>();
+
+    private final List<Sinks.Empty<Void>> running = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        GenerationSchedulerProperties properties = new GenerationSchedulerProperties();
+        properties.setMaxConcurrency(1);
+        properties.setMaxUserQueueDepth(2);
+        properties.setVipWeight(2);
+        scheduler = new GenerationScheduler(properties, meterRegistry, Schedulers.immediate());
+    }
+
+    private void submit(long userId, boolean vip, String name) {
+        scheduler.submit(userId, vip, () -> {
+            started.add(name);
+            Sinks.Empty<Void> done = Sinks.empty();
+            running.add(done);
+            return done.asMono().thenMany(Flux.<String>empty());
+        }).subscribe(v -> { }, e -> { });
+    }
+
+    private void submitBatch(long userId, String name) {
+        User user = new User();
+        user.setId(userId);
+        scheduler.submitBatch(user, () -> {
+            started.add(name);
+            Sinks.Empty<Void> done = Sinks.empty();
+            running.add(done);
+            return done.asMono().thenMany(Flux.<String>empty());
+        }).subscribe(v -> { }, e -> { });
+    }
+
+    private void finishCurrent() {
+        running.remove(0).tryEmitEmpty();
+    }
+
+    @Test
+    void roundRobinPerUserAndWeightedVipLane() {
+        submit(1, false, "blocker");
+        submit(1, false, "u1-a");
+        submit(1, false, "u1-b");
+        submit(2, false, "u2-a");
+        submit(3, true, "v3-a");
+        submit(3, true, "v3-b");
+        submit(4, true, "v4-a");
+        for (int i = 0; i < 6; i++) {
+            finishCurrent();
+        }
+        Assertions.assertEquals(List.of("blocker", "v3-a", "v4-a", "u1-a", "v3-b", "u2-a", "u1-b"), started);
+        // 排队任务执行期间调度器锁空闲，查询不会被阻塞
+        Assertions.assertEquals(1, scheduler.getRunning());
+        Assertions.assertEquals(7L, meterRegistry.get("ai.generation.queue.wait").timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void rejectsWhenUserQueueIsDeep() {
+        submit(1, false, "blocker");
+        submit(1, false, "q1");
+        submit(1, false, "q2");
+        GenerationRejectedException e = Assertions.assertThrows(GenerationRejectedException.class,
+                () -> scheduler.submit(1, false, () -> Flux.just("x")).blockLast());
+        Assertions.assertTrue(e.getRetryAfterSeconds() >= 1);
+        // 其他用户不受影响
+        submit(2, false, "other");
+        finishCurrent();
+        Assertions.assertEquals("q1", started.get(1));
+    }
+
+    @Test
+    void cancelWhileQueuedFreesSlot() {
+        submit(1, false, "blocker");
+        var queued = scheduler.submit(2, false, () -> {
+            started.add("cancelled");
+            return Flux.<String>empty();
+        }).subscribe();
+        queued.dispose();
+        submit(3, false, "next");
+        finishCurrent();
+        Assertions.assertEquals(List.of("blocker", "next"), started);
+    }
+
+    @Test
+    void batchLaneOnlyUsesIdleSlots() {
+        GenerationSchedulerProperties properties = new GenerationSchedulerProperties();
+        properties.setMaxConcurrency(2);
+        properties.setBatchMaxConcurrency(1);
+        scheduler = new GenerationScheduler(properties, meterRegistry, Schedulers.immediate());
+        submitBatch(9, "b1");
+        submitBatch(9, "b2");
+        submitBatch(9, "b3");
+        submit(1, false, "u1");
+        // 批量名额只有一个，第二个名额留给交互请求
+        Assertions.assertEquals(List.of("b1", "u1"), started);
+        submit(2, false, "u2");
+        finishCurrent();
+        // 交互请求排队时优先于批量任务
+        Assertions.assertEquals(List.of("b1", "u1", "u2"), started);
+        finishCurrent();
+        Assertions.assertEquals(List.of("b1", "u1", "u2", "b2"), started);
+    }
+
+    @Test
+    void queuedTaskRunsOutsideSchedulerLock() {
+        submit(1, false, "blocker");
+        List<Boolean> holdsLock = new ArrayList<>();
+        scheduler.submit(2, false, () -> {
+            holdsLock.add(Thread.holdsLock(scheduler));
+            return Flux.<String>empty();
+        }).subscribe();
+        finishCurrent();
+        Assertions.assertEquals(List.of(false), holdsLock);
+    }
+
+    @Test
+    void blockingTaskDoesNotRunOnReleasingThread() throws Exception {
+        GenerationSchedulerProperties properties = new GenerationSchedulerProperties();
+        properties.setMaxConcurrency(1);
+        scheduler = new GenerationScheduler(properties, meterRegistry);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CompletableFuture<Thread> firstCaller = CompletableFuture.supplyAsync(() -> {
+            scheduler.submit(1, false, () -> Mono.fromCallable(() -> {
+                firstStarted.countDown();
+                return releaseFirst.await(5, TimeUnit.SECONDS);
+            })).blockLast();
+            return Thread.currentThread();
+        });
+        Assertions.assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        CountDownLatch secondRunning = new CountDownLatch(1);
+        CountDownLatch releaseSecond = new CountDownLatch(1);
+        List<Thread> secondThread = new ArrayList<>();
+        CompletableFuture<Void> secondCaller = CompletableFuture.runAsync(() ->
+                scheduler.submit(2, false, () -> Mono.fromCallable(() -> {
+                    secondThread.add(Thread.currentThread());
+                    secondRunning.countDown();
+                    return releaseSecond.await(5, TimeUnit.SECONDS);
+                })).blockLast());
+        releaseFirst.countDown();
+        // 上一个调用方不必等待排队任务执行完
+        firstCaller.get(2, TimeUnit.SECONDS);
+        Assertions.assertTrue(secondRunning.await(5, TimeUnit.SECONDS));
+        // 排队任务执行期间调度器锁空闲，查询不会被阻塞
+        Assertions.assertEquals(1, scheduler.getRunning());
+        releaseSecond.countDown();
+        secondCaller.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, scheduler.getRunning());
+        Assertions.assertTrue(secondThread.get(0).getName().startsWith("boundedElastic"));
+    }
+}
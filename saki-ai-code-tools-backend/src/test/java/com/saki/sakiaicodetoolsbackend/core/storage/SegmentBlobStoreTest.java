@@ -0,0 +1,92 @@
+package com.saki.sakiaicodetoolsbackend.core.storage;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class SegmentBlobStoreTest {
+
+    private final Path rootDir = Path.of(System.getProperty("java.io.tmpdir"), "segment_store_test_" + System.nanoTime());
+
+    @AfterEach
+    void tearDown() {
+        FileUtil.del(rootDir);
+    }
+
+    private static Map<String, byte[]> files(String html, String css) {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("index.html", html.getBytes(StandardCharsets.UTF_8));
+        files.put("style.css", css.getBytes(StandardCharsets.UTF_8));
+        return files;
+    }
+
+    private static String read(SegmentBlobStore store, String id, String name) {
+        ByteBuffer buffer = store.read(id, name);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void putReadAndRecoverAfterReopen() {
+        try (SegmentBlobStore store = new SegmentBlobStore(rootDir, 64)) {
+            for (int i = 0; i < 10; i++) {
+                store.put("html_" + i, files("<h1>页面 " + i + "</h1>", "body{}"));
+            }
+            store.delete("html_3");
+            Assertions.assertEquals("<h1>页面 7</h1>", read(store, "html_7", "index.html"));
+            Assertions.assertTrue(store.stats().get("segments") > 1);
+        }
+        try (SegmentBlobStore reopened = new SegmentBlobStore(rootDir, 64)) {
+            Assertions.assertFalse(reopened.contains("html_3"));
+            Assertions.assertEquals("body{}", read(reopened, "html_9", "style.css"));
+            Assertions.assertEquals(2, reopened.listFiles("html_0").size());
+        }
+    }
+
+    @Test
+    void compactReclaimsDeletedGenerations() throws Exception {
+        try (SegmentBlobStore store = new SegmentBlobStore(rootDir, 64)) {
+            for (int i = 0; i < 20; i++) {
+                store.put("g_" + i, files("<p>" + i + "</p>".repeat(3), "a{}"));
+            }
+            for (int i = 0; i < 20; i += 2) {
+                store.delete("g_" + i);
+            }
+            long totalBefore = store.stats().get("totalBytes");
+            long reclaimed = store.compact(0.3);
+            Assertions.assertTrue(reclaimed > 0);
+            Assertions.assertTrue(store.stats().get("totalBytes") < totalBefore);
+            Assertions.assertEquals("a{}", read(store, "g_5", "style.css"));
+        }
+        try (SegmentBlobStore reopened = new SegmentBlobStore(rootDir, 64)) {
+            Assertions.assertEquals("<p>19</p></p></p>", read(reopened, "g_19", "index.html"));
+            Assertions.assertNull(reopened.read("g_4", "index.html"));
+        }
+    }
+
+    @Test
+    void truncatedIndexTailIsIgnored() throws Exception {
+        try (SegmentBlobStore store = new SegmentBlobStore(rootDir, 1024)) {
+            store.put("ok", files("a", "b"));
+        }
+        // 模拟崩溃时写了一半的索引记录
+        Files.write(rootDir.resolve("index.log"), new byte[]{0, 0, 0, 50, 1, 2}, StandardOpenOption.APPEND);
+        try (SegmentBlobStore reopened = new SegmentBlobStore(rootDir, 1024)) {
+            Assertions.assertEquals("a", read(reopened, "ok", "index.html"));
+            reopened.put("next", files("c", "d"));
+        }
+        try (SegmentBlobStore reopened = new SegmentBlobStore(rootDir, 1024)) {
+            Assertions.assertEquals("c", read(reopened, "next", "index.html"));
+        }
+    }
+}
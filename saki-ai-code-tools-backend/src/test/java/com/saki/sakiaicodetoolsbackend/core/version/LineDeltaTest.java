@@ -0,0 +1,51 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class LineDeltaTest {
+
+    @Test
+    void roundTripsRandomEdits() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < random.nextInt(40); i++) {
+                lines.add("line" + random.nextInt(8));
+            }
+            String base = String.join("\n", lines) + (random.nextBoolean() ? "\n" : "");
+            for (int i = 0; i < random.nextInt(6); i++) {
+                int at = lines.isEmpty() ? 0 : random.nextInt(lines.size());
+                if (random.nextBoolean() && !lines.isEmpty()) {
+                    lines.remove(at);
+                } else {
+                    lines.add(at, "new" + random.nextInt(8));
+                }
+            }
+            String target = String.join("\n", lines);
+            List<DeltaOp> ops = LineDelta.diff(base, target, 1000);
+            Assertions.assertNotNull(ops);
+            Assertions.assertEquals(target, LineDelta.apply(base, ops));
+        }
+    }
+
+    @Test
+    void producesMinimalScript() {
+        List<DeltaOp> ops = LineDelta.diff("a\nb\nc\nd", "a\nx\nc\nd", 1000);
+        Assertions.assertEquals(List.of(
+                new DeltaOp(DeltaOp.COPY, 1, null),
+                new DeltaOp(DeltaOp.DELETE, 1, null),
+                new DeltaOp(DeltaOp.INSERT, 1, List.of("x")),
+                new DeltaOp(DeltaOp.COPY, 2, null)), ops);
+    }
+
+    @Test
+    void givesUpBeyondEditDistance() {
+        Assertions.assertNull(LineDelta.diff("a\nb\nc", "x\ny\nz", 3));
+        Assertions.assertNotNull(LineDelta.diff("a\nb\nc", "x\ny\nz", 6));
+    }
+}
@@ -0,0 +1,81 @@
+package com.saki.sakiaicodetoolsbackend.core.version;
+
+import com.saki.sakiaicodetoolsbackend.config.CodeVersionProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+class ProjectVersionStoreTest {
+
+    @TempDir
+    Path rootDir;
+
+    @Test
+    void reconstructsEveryVersionFromSnapshotsAndDeltas() {
+        ProjectVersionStore store = newStore(1);
+        Map<String, String> files = new TreeMap<>(Map.of("index.html", page(0), "style.css", "body{}"));
+        Map<String, String> first = new TreeMap<>(files);
+        String parentId = "multi_file_1";
+        for (int v = 2; v <= 8; v++) {
+            files.put("index.html", page(v));
+            if (v == 4) {
+                files.put("app.js", "console.log(4);");
+            }
+            if (v == 6) {
+                files.remove("style.css");
+            }
+            String generationId = "multi_file_" + v;
+            store.commit(parentId, () -> first, generationId, files, 7L, "v" + v);
+            parentId = generationId;
+        }
+        ProjectHistory history = store.getHistory("multi_file_5");
+        Assertions.assertEquals("multi_file_1", history.getProjectId());
+        Assertions.assertEquals(8, history.getVersions().size());
+        Assertions.assertEquals(VersionRecord.DELTA, history.getVersions().get(1).getStorage());
+        Assertions.assertEquals(VersionRecord.SNAPSHOT, history.getVersions().get(5).getStorage());
+        Assertions.assertEquals(List.of("index.html", "style.css"), history.getVersions().get(5).getChangedFiles());
+
+        // 新实例从磁盘加载，缓存为空，全部版本都需要从快照与差异还原
+        ProjectVersionStore reloaded = newStore(1);
+        Assertions.assertEquals(first, reloaded.getFiles("multi_file_1", 1));
+        Assertions.assertEquals(page(3), reloaded.getFiles("multi_file_1", 3).get("index.html"));
+        Map<String, String> v5 = reloaded.getFiles("multi_file_1", 5);
+        Assertions.assertEquals(Map.of("index.html", page(5), "style.css", "body{}", "app.js", "console.log(4);"), v5);
+        Assertions.assertEquals(files, reloaded.getFiles("multi_file_1", 8));
+    }
+
+    @Test
+    void rollbackIsAppendedAsNewVersion() {
+        ProjectVersionStore store = newStore(16);
+        Map<String, String> v1 = Map.of("index.html", page(1));
+        store.commit("html_1", () -> v1, "html_2", Map.of("index.html", page(2)), null, "改");
+        VersionRecord rollback = store.commit("html_1", () -> v1, "html_3", v1, null, "回滚");
+        Assertions.assertEquals(3, rollback.getVersion());
+        Assertions.assertEquals(1, rollback.getParentVersion());
+        Assertions.assertEquals(v1, store.getFiles("html_1", 3));
+    }
+
+    private ProjectVersionStore newStore(int cacheSize) {
+        CodeVersionProperties properties = new CodeVersionProperties();
+        properties.setRootDir(rootDir.toString());
+        properties.setSnapshotInterval(5);
+        properties.setCacheSize(cacheSize);
+        ProjectVersionStore store = new ProjectVersionStore(properties);
+        store.init();
+        return store;
+    }
+
+    private static String page(int version) {
+        StringBuilder html = new StringBuilder("<html>\n<body>\n");
+        for (int i = 0; i < 50; i++) {
+            html.append("  <p>").append(Long.toHexString(new Random(i).nextLong())).append("</p>\n");
+        }
+        return html.append("  <h1>version ").append(version).append("</h1>\n</body>\n</html>\n").toString();
+    }
+}
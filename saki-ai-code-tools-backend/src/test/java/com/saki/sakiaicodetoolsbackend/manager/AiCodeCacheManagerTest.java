@@ -0,0 +1,67 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.HtmlCodeResult;
+import com.saki.sakiaicodetoolsbackend.config.AiCodeCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AiCodeCacheManagerTest {
+
+    private AiCodeCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        // 未配置连接工厂的 RedisTemplate 每次访问都会失败，用于验证 Redis 不可用时退化为仅本地缓存
+        cacheManager = new AiCodeCacheManager(new AiCodeCacheProperties(), new StringRedisTemplate(),
+                new SimpleMeterRegistry(), "chat-model", "streaming-model");
+        cacheManager.init();
+    }
+
+    @Test
+    void streamHitReplaysSameChunks() {
+        AtomicInteger calls = new AtomicInteger();
+        List<String> chunks = List.of("```html\n", "<h1>hi</h1>", "\n```");
+        Flux<String> first = cacheManager.getOrLoadStream("generateHtmlCodeStream", "做一个  首页",
+                () -> Flux.fromIterable(chunks).doOnSubscribe(s -> calls.incrementAndGet()));
+        Assertions.assertEquals(chunks, first.collectList().block());
+        // 提示词空白差异归一化后命中同一缓存
+        Flux<String> second = cacheManager.getOrLoadStream("generateHtmlCodeStream", " 做一个 首页 ",
+                () -> Flux.fromIterable(chunks).doOnSubscribe(s -> calls.incrementAndGet()));
+        Assertions.assertEquals(chunks, second.collectList().block());
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(1L, cacheManager.getStats().getLocalHits());
+    }
+
+    @Test
+    void failedStreamIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        Flux<String> failing = cacheManager.getOrLoadStream("generateHtmlCodeStream", "prompt",
+                () -> Flux.concat(Flux.just("partial"), Flux.error(new IllegalStateException("boom")))
+                        .doOnSubscribe(s -> calls.incrementAndGet()));
+        Assertions.assertThrows(IllegalStateException.class, failing::blockLast);
+        cacheManager.getOrLoadStream("generateHtmlCodeStream", "prompt",
+                () -> Flux.just("ok").doOnSubscribe(s -> calls.incrementAndGet())).blockLast();
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void syncHitReturnsCopyAndBypassSkipsCache() {
+        HtmlCodeResult result = new HtmlCodeResult();
+        result.setHtmlCode("<p>cached</p>");
+        AtomicInteger calls = new AtomicInteger();
+        cacheManager.getOrLoad("generateHtmlCode", "p", HtmlCodeResult.class, () -> { calls.incrementAndGet(); return result; });
+        HtmlCodeResult hit = cacheManager.getOrLoad("generateHtmlCode", "p", HtmlCodeResult.class, () -> { calls.incrementAndGet(); return result; });
+        Assertions.assertEquals("<p>cached</p>", hit.getHtmlCode());
+        Assertions.assertNotSame(result, hit);
+        cacheManager.setBypass(true);
+        cacheManager.getOrLoad("generateHtmlCode", "p", HtmlCodeResult.class, () -> { calls.incrementAndGet(); return result; });
+        Assertions.assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,101 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import cn.hutool.core.io.FileUtil;
+import com.saki.sakiaicodetoolsbackend.config.CodeRetentionProperties;
+import com.saki.sakiaicodetoolsbackend.config.CodeStoreProperties;
+import com.saki.sakiaicodetoolsbackend.core.saver.CodeFileSaverTemplate;
+import com.saki.sakiaicodetoolsbackend.core.storage.CodeSiteStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+
+class CodeOutputRetentionManagerTest {
+
+    private static CodeOutputRetentionManager newManager(long globalQuota, long userQuota) {
+        CodeRetentionProperties properties = new CodeRetentionProperties();
+        properties.setGlobalQuota(DataSize.ofBytes(globalQuota));
+        properties.setUserQuota(DataSize.ofBytes(userQuota));
+        properties.setLowWatermark(0.5);
+        properties.setEvictBatchSize(1);
+        return new CodeOutputRetentionManager(properties, new CodeSiteStore(new CodeStoreProperties()),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void userQuotaEvictsLeastRecentlyUsedOfThatUser() throws InterruptedException {
+        CodeOutputRetentionManager manager = newManager(10_000, 250);
+        manager.register("retention_test_a", 1L, 100);
+        Thread.sleep(2);
+        manager.register("retention_test_b", 1L, 100);
+        Thread.sleep(2);
+        manager.register("retention_test_c", 1L, 100);
+        manager.register("retention_test_other", 2L, 100);
+        manager.touch("retention_test_a");
+
+        manager.sweep();
+
+        // 用户 1 超出 50 字节，淘汰最久未访问的 b
+        Assertions.assertEquals(300, manager.getTotalBytes());
+    }
+
+    @Test
+    void globalQuotaEvictsDownToLowWatermark() throws InterruptedException {
+        CodeOutputRetentionManager manager = newManager(300, 10_000);
+        for (int i = 0; i < 5; i++) {
+            manager.register("retention_test_" + i, null, 100);
+            Thread.sleep(2);
+        }
+
+        manager.sweep();
+
+        Assertions.assertEquals(100, manager.getTotalBytes());
+    }
+
+    @Test
+    void ownerlessGenerationIsNotAccessible() {
+        CodeOutputRetentionManager manager = newManager(10_000, 10_000);
+        manager.register("retention_test_owned", 1L, 10);
+        manager.register("retention_test_anonymous", null, 10);
+
+        Assertions.assertTrue(manager.isOwnedBy("retention_test_owned", 1L));
+        Assertions.assertFalse(manager.isOwnedBy("retention_test_owned", 2L));
+        Assertions.assertFalse(manager.isOwnedBy("retention_test_anonymous", 1L));
+        Assertions.assertFalse(manager.isOwnedBy("retention_test_unknown", 1L));
+    }
+
+    @Test
+    void sharedUsersCanAccessButDoNotCountTowardsQuota() {
+        CodeOutputRetentionManager manager = newManager(10_000, 150);
+        manager.register("retention_test_shared", 1L, 100);
+        manager.share("retention_test_shared", 2L);
+        manager.share("retention_test_unknown", 2L);
+        manager.register("retention_test_other", 2L, 100);
+
+        Assertions.assertTrue(manager.isOwnedBy("retention_test_shared", 1L));
+        Assertions.assertTrue(manager.isOwnedBy("retention_test_shared", 2L));
+        Assertions.assertFalse(manager.isOwnedBy("retention_test_shared", 3L));
+        Assertions.assertFalse(manager.isOwnedBy("retention_test_unknown", 2L));
+        manager.sweep();
+        Assertions.assertEquals(200, manager.getTotalBytes());
+    }
+
+    @Test
+    void sweepRemovesExpiredStagingDirectories() {
+        File expired = new File(CodeFileSaverTemplate.FILE_STAGING_ROOT_DIR, "retention_test_expired");
+        File recent = new File(CodeFileSaverTemplate.FILE_STAGING_ROOT_DIR, "retention_test_recent");
+        try {
+            FileUtil.writeUtf8String("<div>partial", new File(expired, "index.html"));
+            FileUtil.writeUtf8String("<div>partial", new File(recent, "index.html"));
+            Assertions.assertTrue(expired.setLastModified(System.currentTimeMillis() - 25 * 3_600_000L));
+            newManager(10_000, 10_000).sweep();
+            Assertions.assertFalse(expired.exists());
+            Assertions.assertTrue(recent.exists());
+        } finally {
+            FileUtil.del(expired);
+            FileUtil.del(recent);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.CodeGenEvent;
+import com.saki.sakiaicodetoolsbackend.ai.model.SequencedCodeGenEvent;
+import com.saki.sakiaicodetoolsbackend.config.GenerationStreamProperties;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class GenerationStreamManagerTest {
+
+    private final GenerationStreamProperties properties = new GenerationStreamProperties();
+
+    // 未配置连接的 Redis 模板写入失败，只验证本节点续传
+    private final GenerationStreamManager manager = new GenerationStreamManager(properties, new StringRedisTemplate());
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUserRole("user");
+        return user;
+    }
+
+    @Test
+    void reconnectResumesAfterLastEventWithSingleProducer() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Sinks.Many<CodeGenEvent> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationStreamManager.GenerationStream stream = manager.open(
+                upstream.asFlux().doOnSubscribe(s -> subscriptions.incrementAndGet()), user(1));
+
+        List<Long> first = new CopyOnWriteArrayList<>();
+        Disposable connection = stream.getEvents().subscribe(event -> first.add(event.getSeq()));
+        upstream.tryEmitNext(CodeGenEvent.chunk("a"));
+        upstream.tryEmitNext(CodeGenEvent.chunk("b"));
+        // 事件在订阅方自己的线程上送达
+        long deadline = System.currentTimeMillis() + 5000;
+        while (first.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        // 客户端断开后生成继续
+        connection.dispose();
+        upstream.tryEmitNext(CodeGenEvent.chunk("c"));
+        upstream.tryEmitNext(CodeGenEvent.done("html_1"));
+        upstream.tryEmitComplete();
+
+        List<SequencedCodeGenEvent> resumed = manager.resume(stream.getStreamId(), 2, user(1)).collectList().block();
+
+        Assertions.assertEquals(List.of(1L, 2L), first);
+        Assertions.assertNotNull(resumed);
+        Assertions.assertEquals(List.of(3L, 4L), resumed.stream().map(SequencedCodeGenEvent::getSeq).toList());
+        Assertions.assertEquals("c", resumed.get(0).getEvent().getContent());
+        Assertions.assertEquals("html_1", resumed.get(1).getEvent().getDirName());
+        Assertions.assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    void otherUserCannotResume() {
+        Sinks.Many<CodeGenEvent> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationStreamManager.GenerationStream stream = manager.open(upstream.asFlux(), user(1));
+        Assertions.assertThrows(BusinessException.class, () -> manager.resume(stream.getStreamId(), 0, user(2)));
+        upstream.tryEmitComplete();
+    }
+
+    @Test
+    void collaboratorWithShareTokenCanWatch() {
+        Sinks.Many<CodeGenEvent> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationStreamManager.GenerationStream stream = manager.open(upstream.asFlux(), user(1));
+        upstream.tryEmitNext(CodeGenEvent.chunk("a"));
+        upstream.tryEmitNext(CodeGenEvent.done("html_1"));
+        upstream.tryEmitComplete();
+
+        Assertions.assertThrows(BusinessException.class,
+                () -> manager.resume(stream.getStreamId(), 0, "wrong", user(2)));
+        List<SequencedCodeGenEvent> watched = manager.resume(stream.getStreamId(), 0, stream.getShareToken(), user(2))
+                .collectList().block(Duration.ofSeconds(5));
+        Assertions.assertNotNull(watched);
+        Assertions.assertEquals(List.of(1L, 2L), watched.stream().map(SequencedCodeGenEvent::getSeq).toList());
+    }
+
+    @Test
+    void abandonedStreamCancelsProducer() throws InterruptedException {
+        properties.setDetachTimeout(Duration.ofMillis(50));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Sinks.Many<CodeGenEvent> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        manager.open(upstream.asFlux().doOnCancel(() -> cancelled.set(true)), user(1));
+        upstream.tryEmitNext(CodeGenEvent.chunk("a"));
+        Thread.sleep(300);
+        Assertions.assertTrue(cancelled.get());
+    }
+
+    @Test
+    void fastProducerBeyondReplaySizeIsDeliveredCompletely() {
+        // 缓存命中时整段输出在 open 内同步发出，超出分发中心保留的事件数，且 Redis 不可用
+        Flux<CodeGenEvent> source = Flux.range(1, 2000).map(i -> CodeGenEvent.chunk(String.valueOf(i)))
+                .concatWithValues(CodeGenEvent.done("html_1"));
+        GenerationStreamManager.GenerationStream stream = manager.open(source, user(1));
+
+        List<SequencedCodeGenEvent> events = stream.getEvents().collectList().block(Duration.ofSeconds(5));
+        Assertions.assertNotNull(events);
+        Assertions.assertEquals(2001, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            Assertions.assertEquals(i + 1, events.get(i).getSeq());
+        }
+        Assertions.assertEquals("1", events.get(0).getEvent().getContent());
+
+        List<SequencedCodeGenEvent> resumed = manager.resume(stream.getStreamId(), 500, user(1)).collectList()
+                .block(Duration.ofSeconds(5));
+        Assertions.assertNotNull(resumed);
+        Assertions.assertEquals(1501, resumed.size());
+        Assertions.assertEquals(501, resumed.get(0).getSeq());
+    }
+
+    @Test
+    void gapBeyondLocalBacklogIsNotServedFromHeapWhenRedisIsDown() {
+        // 本节点只保留未写入 Redis 的最近事件，Redis 不可用时更早的缺口无法补齐
+        properties.setLiveReplaySize(10);
+        properties.setLocalBacklogSize(100);
+        Flux<CodeGenEvent> source = Flux.range(1, 500).map(i -> CodeGenEvent.chunk(String.valueOf(i)))
+                .concatWithValues(CodeGenEvent.done("html_1"));
+        GenerationStreamManager.GenerationStream stream = manager.open(source, user(1));
+
+        List<SequencedCodeGenEvent> recent = manager.resume(stream.getStreamId(), 450, user(1)).collectList()
+                .block(Duration.ofSeconds(5));
+        Assertions.assertNotNull(recent);
+        Assertions.assertEquals(51, recent.size());
+        Assertions.assertEquals(451, recent.get(0).getSeq());
+        Assertions.assertThrows(BusinessException.class,
+                () -> manager.resume(stream.getStreamId(), 100, user(1)).collectList().block(Duration.ofSeconds(5)));
+    }
+}
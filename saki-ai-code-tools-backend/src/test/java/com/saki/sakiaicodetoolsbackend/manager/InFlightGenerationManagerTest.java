@@ -0,0 +1,88 @@
+package com.saki.sakiaicodetoolsbackend.manager;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.CodeGenInFlightProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class InFlightGenerationManagerTest {
+
+    private final InFlightGenerationManager manager =
+            new InFlightGenerationManager(new CodeGenInFlightProperties(), new StringRedisTemplate());
+
+    @Test
+    void lateSubscriberReceivesAllChunksFromSingleProducer() {
+        AtomicInteger producerCalls = new AtomicInteger();
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+
+        manager.join(CodeGenTypeEnum.HTML, "留言板", () -> {
+            producerCalls.incrementAndGet();
+            return upstream.asFlux();
+        }).subscribe(first::add);
+        upstream.tryEmitNext("a");
+        upstream.tryEmitNext("b");
+        // 提示词空白差异视为相同请求
+        manager.join(CodeGenTypeEnum.HTML, "  留言板 ", () -> {
+            producerCalls.incrementAndGet();
+            return Flux.just("other");
+        }).subscribe(second::add);
+        upstream.tryEmitNext("c");
+        upstream.tryEmitComplete();
+
+        Assertions.assertEquals(1, producerCalls.get());
+        Assertions.assertEquals(List.of("a", "b", "c"), first);
+        Assertions.assertEquals(List.of("a", "b", "c"), second);
+        Assertions.assertEquals(0, manager.size());
+    }
+
+    @Test
+    void finishedGenerationIsNotReused() {
+        AtomicInteger producerCalls = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            manager.join(CodeGenTypeEnum.MULTI_FILE, "p", () -> {
+                producerCalls.incrementAndGet();
+                return Flux.just("x");
+            }).blockLast();
+        }
+        Assertions.assertEquals(2, producerCalls.get());
+        // 不同类型互不合并
+        manager.join(CodeGenTypeEnum.HTML, "p", () -> {
+            producerCalls.incrementAndGet();
+            return Flux.just("x");
+        }).blockLast();
+        Assertions.assertEquals(3, producerCalls.get());
+    }
+
+    @Test
+    void requestsFromDifferentUsersShareOneProducer() {
+        AtomicInteger producerCalls = new AtomicInteger();
+        Sinks.Many<String> upstream = Sinks.many().multicast().onBackpressureBuffer();
+        List<String> first = new ArrayList<>();
+        manager.join(CodeGenTypeEnum.HTML, "爆款提示词", null, () -> {
+            producerCalls.incrementAndGet();
+            return upstream.asFlux();
+        }).subscribe(first::add);
+        upstream.tryEmitNext("a");
+        List<String> second = new ArrayList<>();
+        manager.join(CodeGenTypeEnum.HTML, "爆款提示词", null, () -> {
+            producerCalls.incrementAndGet();
+            return Flux.just("other");
+        }).subscribe(second::add);
+        upstream.tryEmitNext("b");
+        upstream.tryEmitComplete();
+
+        Assertions.assertEquals(1, producerCalls.get());
+        Assertions.assertEquals(List.of("a", "b"), first);
+        Assertions.assertEquals(List.of("a", "b"), second);
+    }
+}
@@ -0,0 +1,226 @@
+package com.saki.sakiaicodetoolsbackend.service.impl;
+
+import com.saki.sakiaicodetoolsbackend.ai.model.enums.CodeGenTypeEnum;
+import com.saki.sakiaicodetoolsbackend.config.BatchGenerationProperties;
+import com.saki.sakiaicodetoolsbackend.config.CodePostProcessProperties;
+import com.saki.sakiaicodetoolsbackend.config.GenerationSchedulerProperties;
+import com.saki.sakiaicodetoolsbackend.core.AiCodeGeneratorFacade;
+import com.saki.sakiaicodetoolsbackend.core.postprocess.PostProcessPipeline;
+import com.saki.sakiaicodetoolsbackend.core.scheduler.GenerationScheduler;
+import com.saki.sakiaicodetoolsbackend.exception.BusinessException;
+import com.saki.sakiaicodetoolsbackend.exception.GenerationRejectedException;
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.BatchGenerateItem;
+import com.saki.sakiaicodetoolsbackend.model.dto.codegen.BatchGenerateRequest;
+import com.saki.sakiaicodetoolsbackend.model.entity.User;
+import com.saki.sakiaicodetoolsbackend.model.vo.BatchItemVO;
+import com.saki.sakiaicodetoolsbackend.model.vo.BatchJobVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+class BatchGenerationServiceImplTest {
+
+    private final BatchGenerationProperties properties = new BatchGenerationProperties();
+
+    private final PostProcessPipeline pipeline = new PostProcessPipeline(List.of(), new CodePostProcessProperties(),
+            new SimpleMeterRegistry());
+
+    private final StubFacade facade = new StubFacade();
+
+    private final BatchGenerationServiceImpl service;
+
+    BatchGenerationServiceImplTest() {
+        properties.setMinItemInterval(Duration.ZERO);
+        properties.setRejectRetryBackoff(Duration.ofMillis(10));
+        service = new BatchGenerationServiceImpl(facade, properties, pipeline);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+        pipeline.destroy();
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUserRole("user");
+        return user;
+    }
+
+    private static BatchGenerateRequest request(int parallelism, String... messages) {
+        BatchGenerateRequest request = new BatchGenerateRequest();
+        request.setParallelism(parallelism);
+        request.setItems(Arrays.stream(messages).map(message -> {
+            BatchGenerateItem item = new BatchGenerateItem();
+            item.setMessage(message);
+            item.setCodeGenType(CodeGenTypeEnum.HTML.getValue());
+            return item;
+        }).toList());
+        return request;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void submitStreamsPromptFreeProgress() {
+        String jobId = service.submit(request(2, "a", "b"), user(1));
+        List<BatchJobVO> events = new CopyOnWriteArrayList<>();
+        AtomicInteger completed = new AtomicInteger();
+        service.streamJob(jobId, user(1)).subscribe(events::add, e -> { }, completed::incrementAndGet);
+        await(() -> facade.pending.size() == 2);
+        facade.finish("a");
+        facade.finish("b");
+        await(() -> completed.get() == 1);
+
+        Assertions.assertEquals(2, events.get(0).getItems().size());
+        for (BatchJobVO event : events) {
+            for (BatchItemVO item : event.getItems()) {
+                Assertions.assertNull(item.getMessage());
+                Assertions.assertNull(item.getCodeGenType());
+            }
+        }
+        for (BatchJobVO event : events.subList(1, events.size())) {
+            Assertions.assertTrue(event.getItems().size() <= 1);
+        }
+        BatchJobVO last = events.get(events.size() - 1);
+        Assertions.assertEquals("completed", last.getStatus());
+        Assertions.assertEquals(2, last.getSucceeded());
+
+        BatchJobVO job = service.getJob(jobId, user(1));
+        Assertions.assertEquals("a", job.getItems().get(0).getMessage());
+        Assertions.assertEquals("gen-a", job.getItems().get(0).getGenerationId());
+        Assertions.assertThrows(BusinessException.class, () -> service.getJob(jobId, user(2)));
+    }
+
+    @Test
+    void cancelStopsRunningAndPendingItems() {
+        String jobId = service.submit(request(1, "a", "b", "c"), user(1));
+        await(() -> facade.pending.containsKey("a"));
+
+        Assertions.assertTrue(service.cancel(jobId, user(1)));
+        BatchJobVO job = service.getJob(jobId, user(1));
+        Assertions.assertEquals("cancelled", job.getStatus());
+        Assertions.assertEquals(3, job.getCancelled());
+        Assertions.assertEquals(List.of("a"), facade.calls);
+        Assertions.assertFalse(service.cancel(jobId, user(1)));
+        // 已结束的作业订阅后立即收到最终状态并结束
+        BatchJobVO streamed = service.streamJob(jobId, user(1)).blockLast(Duration.ofSeconds(5));
+        Assertions.assertNotNull(streamed);
+        Assertions.assertEquals("cancelled", streamed.getStatus());
+    }
+
+    @Test
+    void activeJobsArePerUserLimited() {
+        properties.setMaxActiveJobsPerUser(1);
+        String jobId = service.submit(request(1, "a"), user(1));
+        Assertions.assertThrows(BusinessException.class, () -> service.submit(request(1, "b"), user(1)));
+        // 其他用户不受影响
+        service.submit(request(1, "c"), user(2));
+
+        await(() -> facade.pending.containsKey("a"));
+        facade.finish("a");
+        await(() -> "completed".equals(service.getJob(jobId, user(1)).getStatus()));
+        service.submit(request(1, "d"), user(1));
+    }
+
+    @Test
+    void rejectedItemsAreRetried() {
+        facade.rejections.set(2);
+        String jobId = service.submit(request(1, "a"), user(1));
+        await(() -> facade.pending.containsKey("a"));
+        facade.finish("a");
+        await(() -> "completed".equals(service.getJob(jobId, user(1)).getStatus()));
+
+        Assertions.assertEquals(3, facade.calls.size());
+        Assertions.assertEquals(1, service.getJob(jobId, user(1)).getSucceeded());
+    }
+
+    @Test
+    void itemFailsAfterRetriesAreExhausted() {
+        properties.setMaxRejectRetries(1);
+        facade.rejections.set(10);
+        String jobId = service.submit(request(1, "a"), user(1));
+        await(() -> "completed".equals(service.getJob(jobId, user(1)).getStatus()));
+
+        BatchJobVO job = service.getJob(jobId, user(1));
+        Assertions.assertEquals(2, facade.calls.size());
+        Assertions.assertEquals(1, job.getFailed());
+        Assertions.assertNotNull(job.getItems().get(0).getErrorMessage());
+    }
+
+    @Test
+    void batchJobNeverStarvesInteractiveRequests() {
+        GenerationSchedulerProperties schedulerProperties = new GenerationSchedulerProperties();
+        schedulerProperties.setMaxConcurrency(2);
+        schedulerProperties.setBatchMaxConcurrency(1);
+        facade.scheduler = new GenerationScheduler(schedulerProperties, new SimpleMeterRegistry());
+        service.submit(request(3, "a", "b", "c"), user(1));
+        await(() -> facade.pending.size() == 1);
+
+        // 批量作业并行度为 3，但批量通道只占一个名额，交互请求无需等待批量条目
+        String interactive = facade.scheduler.submit(user(2), () -> Flux.just("interactive"))
+                .blockLast(Duration.ofSeconds(5));
+        Assertions.assertEquals("interactive", interactive);
+        Assertions.assertEquals(1, facade.pending.size());
+
+        // 批量名额释放后才开始下一个条目
+        facade.finish(facade.pending.keySet().iterator().next());
+        await(() -> facade.calls.size() == 2 && facade.pending.size() == 1);
+    }
+
+    // 条目挂起直到测试调用 finish；可指定接下来拒绝的次数，或经真实调度器的批量通道执行
+    private static class StubFacade extends AiCodeGeneratorFacade {
+
+        private final Map<String, Sinks.One<String>> pending = new ConcurrentHashMap<>();
+
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger rejections = new AtomicInteger();
+
+        private volatile GenerationScheduler scheduler;
+
+        @Override
+        public Mono<String> generateAndSaveCodeForBatch(String userMessage, CodeGenTypeEnum codeGenTypeEnum,
+                                                        User loginUser, Set<String> postProcessStages) {
+            if (scheduler != null) {
+                return scheduler.submitBatch(loginUser, () -> generate(userMessage)).single();
+            }
+            return generate(userMessage);
+        }
+
+        private Mono<String> generate(String userMessage) {
+            calls.add(userMessage);
+            if (rejections.getAndDecrement() > 0) {
+                return Mono.error(new GenerationRejectedException("批量通道排队已满", 1));
+            }
+            Sinks.One<String> result = Sinks.one();
+            pending.put(userMessage, result);
+            return result.asMono();
+        }
+
+        private void finish(String userMessage) {
+            pending.remove(userMessage).tryEmitValue("gen-" + userMessage);
+        }
+    }
+}